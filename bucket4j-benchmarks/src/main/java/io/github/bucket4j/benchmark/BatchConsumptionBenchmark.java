@@ -0,0 +1,74 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.benchmark.state.BatchState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares admission of batch item by item via {@link Bucket#tryConsume(long)} with single {@link Bucket#tryConsumeBatch(long[])}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BatchConsumptionBenchmark {
+
+    @Benchmark
+    public int tryConsumeEachItem(BatchState state) {
+        int admittedItems = 0;
+        for (long itemCost : state.itemCosts) {
+            if (!state.bucket.tryConsume(itemCost)) {
+                break;
+            }
+            admittedItems++;
+        }
+        return admittedItems;
+    }
+
+    @Benchmark
+    public int tryConsumeBatch(BatchState state) {
+        return state.bucket.tryConsumeBatch(state.itemCosts).getAdmittedItems();
+    }
+
+    public static class OneThread {
+
+        public static void main(String[] args) throws RunnerException {
+            Options opt = new OptionsBuilder()
+                    .include(BatchConsumptionBenchmark.class.getSimpleName())
+                    .warmupIterations(5)
+                    .measurementIterations(10)
+                    .threads(1)
+                    .forks(1)
+                    .build();
+            new Runner(opt).run();
+        }
+
+    }
+
+}
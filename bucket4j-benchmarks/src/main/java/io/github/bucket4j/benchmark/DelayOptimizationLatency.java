@@ -0,0 +1,85 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark;
+
+import io.github.bucket4j.benchmark.state.DelayOptimizationState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares latency percentiles of inline and background synchronization modes of delay optimization.
+ * Results of {@link Mode#SampleTime} contain p50/p90/p99/p99.9 of each call,
+ * so the round-trip paid by the request that violates the thresholds in inline mode becomes visible in the tail.
+ * Each call is preceded by {@link DelayOptimizationState#workBetweenCallsTokens} of CPU work that emulates the request processing in the application,
+ * because background synchronization is able to run ahead of thresholds only when consumption rate is not unbounded.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DelayOptimizationLatency {
+
+    @Benchmark
+    public boolean tryConsumeOneToken_inlineSync(DelayOptimizationState state) {
+        Blackhole.consumeCPU(state.workBetweenCallsTokens);
+        return state.inlineSyncBucket.tryConsume(1);
+    }
+
+    @Benchmark
+    public boolean tryConsumeOneToken_backgroundSync(DelayOptimizationState state) {
+        Blackhole.consumeCPU(state.workBetweenCallsTokens);
+        return state.backgroundSyncBucket.tryConsume(1);
+    }
+
+    public static class OneThread {
+
+        public static void main(String[] args) throws RunnerException {
+            benchmark(1);
+        }
+
+    }
+
+    public static class FourThreads {
+
+        public static void main(String[] args) throws RunnerException {
+            benchmark(4);
+        }
+
+    }
+
+    private static void benchmark(int threadCount) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(DelayOptimizationLatency.class.getSimpleName())
+                .warmupIterations(5)
+                .measurementIterations(10)
+                .threads(threadCount)
+                .forks(1)
+                .build();
+        new Runner(opt).run();
+    }
+
+}
@@ -0,0 +1,108 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark;
+
+import io.github.bucket4j.benchmark.state.FlowState;
+import io.github.bucket4j.flow.RateLimitingProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares per-element checks of bucket with {@link RateLimitingProcessor}, results are reported per element.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FlowRateLimitingBenchmark {
+
+    @Benchmark
+    @OperationsPerInvocation(FlowState.STREAM_LENGTH)
+    public void tryConsumeEachElement(FlowState state, Blackhole blackhole) {
+        for (int i = 0; i < FlowState.STREAM_LENGTH; i++) {
+            if (state.bucket.tryConsume(1)) {
+                blackhole.consume(i);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FlowState.STREAM_LENGTH)
+    public void tryConsumeEachElementAsync(FlowState state, Blackhole blackhole) {
+        for (int i = 0; i < FlowState.STREAM_LENGTH; i++) {
+            int element = i;
+            state.asyncBucket.tryConsume(1).thenAccept(consumed -> {
+                if (consumed) {
+                    blackhole.consume(element);
+                }
+            });
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FlowState.STREAM_LENGTH)
+    public void processor(FlowState state, Blackhole blackhole) {
+        RateLimitingProcessor<Integer> processor = new RateLimitingProcessor<>(state.asyncBucket, state.scheduler, state.maxTokensPerRequest);
+        processor.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+            @Override
+            public void onNext(Integer item) {
+                blackhole.consume(item);
+            }
+            @Override
+            public void onError(Throwable throwable) {
+                throw new IllegalStateException(throwable);
+            }
+            @Override
+            public void onComplete() {
+                // do nothing
+            }
+        });
+        new FlowState.RangePublisher(FlowState.STREAM_LENGTH).subscribe(processor);
+    }
+
+    public static class OneThread {
+
+        public static void main(String[] args) throws RunnerException {
+            Options opt = new OptionsBuilder()
+                    .include(FlowRateLimitingBenchmark.class.getSimpleName())
+                    .warmupIterations(5)
+                    .measurementIterations(10)
+                    .threads(1)
+                    .forks(1)
+                    .build();
+            new Runner(opt).run();
+        }
+
+    }
+
+}
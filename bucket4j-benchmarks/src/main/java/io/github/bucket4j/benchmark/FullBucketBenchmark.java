@@ -0,0 +1,67 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark;
+
+import io.github.bucket4j.benchmark.state.FullBucketState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of read-only operations on the bucket which is always full, for configurations with different count of bandwidths,
+ * synchronization and reading of real clock are excluded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FullBucketBenchmark {
+
+    @Benchmark
+    public long getAvailableTokensOfFullBucket(FullBucketState state) {
+        return state.bucket.getAvailableTokens();
+    }
+
+    @Benchmark
+    public long estimateAbilityToConsumeOfFullBucket(FullBucketState state) {
+        return state.bucket.estimateAbilityToConsume(1).getRemainingTokens();
+    }
+
+    public static class OneThread {
+
+        public static void main(String[] args) throws RunnerException {
+            Options opt = new OptionsBuilder()
+                    .include(FullBucketBenchmark.class.getSimpleName())
+                    .warmupIterations(5)
+                    .measurementIterations(10)
+                    .threads(1)
+                    .forks(1)
+                    .build();
+            new Runner(opt).run();
+        }
+
+    }
+
+}
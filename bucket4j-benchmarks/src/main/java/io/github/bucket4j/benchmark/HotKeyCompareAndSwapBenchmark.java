@@ -0,0 +1,92 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark;
+
+import io.github.bucket4j.benchmark.state.HotKeyCompareAndSwapState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load generator for compare-and-swap based proxy-managers with skewed key distribution.
+ *
+ * <p>
+ * {@link Mode#Throughput} reports goodput (consumed), rejected requests and CAS retries per second as secondary results,
+ * {@link Mode#SampleTime} reports tail latency of single request including all its retries.
+ * Use it to evaluate changes of retry policy in {@link io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AbstractCompareAndSwapBasedProxyManager}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class HotKeyCompareAndSwapBenchmark {
+
+    @Benchmark
+    public boolean tryConsumeOneToken(HotKeyCompareAndSwapState state, HotKeyCompareAndSwapState.Counters counters) {
+        boolean consumed = state.buckets[state.keyGenerator.next()].tryConsume(1);
+        if (consumed) {
+            counters.consumed++;
+        } else {
+            counters.rejected++;
+        }
+        return consumed;
+    }
+
+    public static class FourThreads {
+
+        public static void main(String[] args) throws RunnerException {
+            benchmark(4);
+        }
+
+    }
+
+    public static class SixteenThreads {
+
+        public static void main(String[] args) throws RunnerException {
+            benchmark(16);
+        }
+
+    }
+
+    public static class SixtyFourThreads {
+
+        public static void main(String[] args) throws RunnerException {
+            benchmark(64);
+        }
+
+    }
+
+    private static void benchmark(int threadCount) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(HotKeyCompareAndSwapBenchmark.class.getSimpleName())
+                .warmupIterations(5)
+                .measurementIterations(10)
+                .threads(threadCount)
+                .forks(1)
+                .build();
+        new Runner(opt).run();
+    }
+
+}
@@ -0,0 +1,88 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark;
+
+import io.github.bucket4j.BucketState;
+import io.github.bucket4j.benchmark.state.ManyBandwidthsState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares interleaved and struct of arrays layouts of state for configurations with many bandwidths.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ManyBandwidthsStateBenchmark {
+
+    @Benchmark
+    public long getAvailableTokens(ManyBandwidthsState benchmarkState) {
+        return benchmarkState.state.getAvailableTokens();
+    }
+
+    @Benchmark
+    public long refillAndTryConsume(ManyBandwidthsState benchmarkState) {
+        BucketState state = benchmarkState.state;
+        long currentTimeNanos = benchmarkState.currentTimeNanos += ManyBandwidthsState.NANOS_PER_OPERATION;
+        state.refillAllBandwidth(currentTimeNanos);
+        long availableTokens = state.getAvailableTokens();
+        if (availableTokens >= 1) {
+            state.consume(1);
+        }
+        return availableTokens;
+    }
+
+    @Benchmark
+    public long copyAndTryConsume(ManyBandwidthsState benchmarkState) {
+        // the same steps which LockFreeBucket does for each tryConsume
+        BucketState state = benchmarkState.state.copy();
+        long currentTimeNanos = benchmarkState.currentTimeNanos += ManyBandwidthsState.NANOS_PER_OPERATION;
+        state.refillAllBandwidth(currentTimeNanos);
+        long availableTokens = state.getAvailableTokens();
+        if (availableTokens >= 1) {
+            state.consume(1);
+        }
+        benchmarkState.state = state;
+        return availableTokens;
+    }
+
+    public static class OneThread {
+
+        public static void main(String[] args) throws RunnerException {
+            Options opt = new OptionsBuilder()
+                    .include(ManyBandwidthsStateBenchmark.class.getSimpleName())
+                    .warmupIterations(5)
+                    .measurementIterations(10)
+                    .threads(1)
+                    .forks(1)
+                    .build();
+            new Runner(opt).run();
+        }
+
+    }
+
+}
@@ -0,0 +1,43 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark;
+
+import io.github.bucket4j.benchmark.state.SerializationState;
+
+/**
+ * Prints sizes of serialized payloads for each combination of bandwidth count and command type that is measured by {@link SerializationBenchmark}.
+ */
+public class PayloadSizeReport {
+
+    public static void main(String[] args) {
+        System.out.printf("%-12s %-10s %10s %10s %10s%n", "command", "bandwidths", "request", "result", "state");
+        for (String command : new String[] {"tryConsume", "verbose", "multi"}) {
+            for (int bandwidths : new int[] {1, 3, 10}) {
+                SerializationState state = new SerializationState();
+                state.command = command;
+                state.bandwidths = bandwidths;
+                state.setup();
+                System.out.printf("%-12s %-10d %10d %10d %10d%n", command, bandwidths,
+                    state.requestBytes.length, state.resultBytes.length, state.stateBytes.length);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark;
+
+import io.github.bucket4j.benchmark.state.SerializationState;
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import io.github.bucket4j.distributed.remote.Request;
+import io.github.bucket4j.distributed.serialization.InternalSerializationHelper;
+import io.github.bucket4j.distributed.serialization.Scope;
+import io.github.bucket4j.distributed.versioning.Versions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures binary and JSON-compatible serialization of requests, results and persisted state.
+ * Run with {@link GCProfiler} to see allocation per operation, and see {@link PayloadSizeReport} for sizes of payloads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SerializationBenchmark {
+
+    @Benchmark
+    public byte[] serializeRequest(SerializationState state) {
+        return InternalSerializationHelper.serializeRequest(state.request);
+    }
+
+    @Benchmark
+    public Request<?> deserializeRequest(SerializationState state) {
+        return InternalSerializationHelper.deserializeRequest(state.requestBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeState(SerializationState state) {
+        return InternalSerializationHelper.serializeState(state.state, Versions.getLatest());
+    }
+
+    @Benchmark
+    public RemoteBucketState deserializeState(SerializationState state) {
+        return InternalSerializationHelper.deserializeState(state.stateBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeResult(SerializationState state) {
+        return InternalSerializationHelper.serializeResult(state.result, Versions.getLatest());
+    }
+
+    @Benchmark
+    public CommandResult<?> deserializeResult(SerializationState state) {
+        return InternalSerializationHelper.deserializeResult(state.resultBytes, Versions.getLatest());
+    }
+
+    @Benchmark
+    public Map<String, Object> requestToJsonCompatibleSnapshot(SerializationState state) throws IOException {
+        return Request.SERIALIZATION_HANDLE.toJsonCompatibleSnapshot(state.request, Versions.getLatest(), Scope.REQUEST);
+    }
+
+    @Benchmark
+    public Map<String, Object> stateToJsonCompatibleSnapshot(SerializationState state) throws IOException {
+        return RemoteBucketState.SERIALIZATION_HANDLE.toJsonCompatibleSnapshot(state.state, Versions.getLatest(), Scope.PERSISTED_STATE);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(SerializationBenchmark.class.getSimpleName())
+                .warmupIterations(5)
+                .measurementIterations(5)
+                .threads(1)
+                .forks(1)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(opt).run();
+    }
+
+}
@@ -0,0 +1,80 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark;
+
+import io.github.bucket4j.BucketState;
+import io.github.bucket4j.benchmark.state.SingleBandwidthState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares general array based state with the state specialized for single bandwidth.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SingleBandwidthStateBenchmark {
+
+    @Benchmark
+    public long refillAndConsume(SingleBandwidthState benchmarkState) {
+        BucketState state = benchmarkState.state;
+        long currentTimeNanos = benchmarkState.currentTimeNanos += SingleBandwidthState.NANOS_PER_OPERATION;
+        state.refillAllBandwidth(currentTimeNanos);
+        long nanosToWait = state.calculateDelayNanosAfterWillBePossibleToConsume(1, currentTimeNanos, false);
+        state.consume(1);
+        return nanosToWait;
+    }
+
+    @Benchmark
+    public long copyAndTryConsume(SingleBandwidthState benchmarkState) {
+        // the same steps which LockFreeBucket does for each tryConsume
+        BucketState state = benchmarkState.state.copy();
+        long currentTimeNanos = benchmarkState.currentTimeNanos += SingleBandwidthState.NANOS_PER_OPERATION;
+        state.refillAllBandwidth(currentTimeNanos);
+        if (state.getAvailableTokens() >= 1) {
+            state.consume(1);
+        }
+        benchmarkState.state = state;
+        return state.getAvailableTokens();
+    }
+
+    public static class OneThread {
+
+        public static void main(String[] args) throws RunnerException {
+            Options opt = new OptionsBuilder()
+                    .include(SingleBandwidthStateBenchmark.class.getSimpleName())
+                    .warmupIterations(5)
+                    .measurementIterations(10)
+                    .threads(1)
+                    .forks(1)
+                    .build();
+            new Runner(opt).run();
+        }
+
+    }
+
+}
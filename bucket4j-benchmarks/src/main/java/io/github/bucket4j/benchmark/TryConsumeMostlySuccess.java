@@ -46,6 +46,16 @@ public class TryConsumeMostlySuccess {
         return state.unlimitedBucket.tryConsume(1);
     }
 
+    @Benchmark
+    public boolean tryConsumeOneToken_mostlySuccess_LockFree_CoarseClock(LocalLockFreeState state) {
+        return state.unlimitedBucketWithCoarseClock.tryConsume(1);
+    }
+
+    @Benchmark
+    public boolean tryConsumeOneToken_mostlySuccess_Synchronized_CoarseClock(LocalSynchronizedState state) {
+        return state.unlimitedBucketWithCoarseClock.tryConsume(1);
+    }
+
     @Benchmark
     public boolean tryConsumeOneToken_mostlySuccess_GuavaLimiter(GuavaLimiterState state) {
         return state.guavaRateLimiter.tryAcquire();
@@ -0,0 +1,70 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark.state;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+public class AsyncOptimizationsState {
+
+    @Param({"none", "batching", "delaying", "delayingWithBackgroundSync", "predicting", "predictingByEwma", "skipSyncOnZero", "manuallySyncing"})
+    public String optimization;
+
+    @Param({"100000"})
+    public long remoteLatencyNanos;
+
+    @Param({"1000000000"})
+    public long tokensPerSecond;
+
+    public AsyncBucketProxy bucket;
+
+    private ScheduledExecutorService scheduler;
+
+    @Setup
+    public void setup() {
+        InMemoryProxyManager<String> proxyManager = new InMemoryProxyManager<>(remoteLatencyNanos);
+        BucketConfiguration configuration = BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(tokensPerSecond, Duration.ofSeconds(1)))
+            .build();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        bucket = proxyManager.asAsync().builder()
+            .withOptimization(BenchmarkOptimizations.create(optimization, scheduler))
+            .build(optimization, configuration);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+}
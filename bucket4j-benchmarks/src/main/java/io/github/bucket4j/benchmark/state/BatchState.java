@@ -0,0 +1,69 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark.state;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.local.SynchronizationStrategy;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Bucket which is never exhausted and the batch of items with cost of one token each,
+ * the same batch is admitted either item by item or by single batch operation.
+ */
+@State(Scope.Benchmark)
+public class BatchState {
+
+    @Param({"LOCK_FREE", "SYNCHRONIZED", "GRID"})
+    public String bucketType;
+
+    @Param({"10", "100"})
+    public int batchSize;
+
+    public Bucket bucket;
+
+    public long[] itemCosts;
+
+    @Setup
+    public void setup() {
+        Bandwidth limit = Bandwidth.simple(Long.MAX_VALUE / 2, Duration.ofNanos(Long.MAX_VALUE / 2));
+        if (bucketType.equals("GRID")) {
+            BucketConfiguration configuration = BucketConfiguration.builder()
+                .addLimit(limit)
+                .build();
+            bucket = new InMemoryProxyManager<String>(0).builder().build("42", configuration);
+        } else {
+            bucket = Bucket.builder()
+                .addLimit(limit)
+                .withSynchronizationStrategy(SynchronizationStrategy.valueOf(bucketType))
+                .build();
+        }
+        itemCosts = new long[batchSize];
+        Arrays.fill(itemCosts, 1);
+    }
+
+}
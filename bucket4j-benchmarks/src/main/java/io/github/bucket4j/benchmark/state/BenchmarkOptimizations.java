@@ -0,0 +1,53 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark.state;
+
+import io.github.bucket4j.TimeMeter;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.NopeOptimizationListener;
+import io.github.bucket4j.distributed.proxy.optimization.Optimization;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import io.github.bucket4j.distributed.proxy.optimization.manual.ManuallySyncingOptimization;
+import io.github.bucket4j.distributed.proxy.optimization.skiponzero.SkipSyncOnZeroOptimization;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Creates optimizations by names that are used as values of JMH parameters.
+ */
+public class BenchmarkOptimizations {
+
+    public static Optimization create(String optimization, ScheduledExecutorService scheduler) {
+        DelayParameters delayParameters = new DelayParameters(1000, Duration.ofMillis(100));
+        switch (optimization) {
+            case "none": return Optimization.NONE_OPTIMIZED;
+            case "batching": return Optimizations.batching();
+            case "delaying": return Optimizations.delaying(delayParameters);
+            case "delayingWithBackgroundSync": return Optimizations.delayingWithBackgroundSync(delayParameters, scheduler);
+            case "predicting": return Optimizations.predicting(delayParameters);
+            case "predictingByEwma": return Optimizations.predictingByEwma(delayParameters);
+            case "skipSyncOnZero": return new SkipSyncOnZeroOptimization(NopeOptimizationListener.INSTANCE, TimeMeter.SYSTEM_MILLISECONDS);
+            case "manuallySyncing": return new ManuallySyncingOptimization();
+            default: throw new IllegalStateException("Unknown optimization " + optimization);
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark.state;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.BucketProxy;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+public class DelayOptimizationState {
+
+    @Param({"1000000"})
+    public long remoteLatencyNanos;
+
+    @Param({"1000"})
+    public long maxUnsynchronizedTokens;
+
+    @Param({"1000"})
+    public long workBetweenCallsTokens;
+
+    @Param({"100"})
+    public long maxUnsynchronizedTimeoutMillis;
+
+    public BucketProxy inlineSyncBucket;
+    public BucketProxy backgroundSyncBucket;
+
+    private ScheduledExecutorService scheduler;
+
+    @Setup
+    public void setup() {
+        InMemoryProxyManager<String> proxyManager = new InMemoryProxyManager<>(remoteLatencyNanos);
+        BucketConfiguration configuration = BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(Long.MAX_VALUE / 2, Duration.ofNanos(Long.MAX_VALUE / 2)))
+            .build();
+        DelayParameters delayParameters = new DelayParameters(maxUnsynchronizedTokens, Duration.ofMillis(maxUnsynchronizedTimeoutMillis));
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+
+        inlineSyncBucket = proxyManager.builder()
+            .withOptimization(Optimizations.delaying(delayParameters))
+            .build("inline", configuration);
+        backgroundSyncBucket = proxyManager.builder()
+            .withOptimization(Optimizations.delayingWithBackgroundSync(delayParameters, scheduler))
+            .build("background", configuration);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+}
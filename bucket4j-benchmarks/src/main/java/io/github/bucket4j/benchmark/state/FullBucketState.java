@@ -0,0 +1,78 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark.state;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.TimeMeter;
+import io.github.bucket4j.local.LocalBucketBuilder;
+import io.github.bucket4j.local.SynchronizationStrategy;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+
+/**
+ * Bucket with configurable count of bandwidths which is always full, and the clock which moves forward on each reading.
+ * It is the typical state of bucket which is rarely used near its limits.
+ */
+@State(Scope.Thread)
+public class FullBucketState {
+
+    private static final long NANOS_PER_OPERATION = 100;
+
+    @Param({"1", "3", "10"})
+    public int bandwidths;
+
+    public Bucket bucket;
+
+    @Setup
+    public void setup() {
+        TimeMeter movingClock = new TimeMeter() {
+            private long currentTimeNanos;
+
+            @Override
+            public long currentTimeNanos() {
+                currentTimeNanos += NANOS_PER_OPERATION;
+                return currentTimeNanos;
+            }
+
+            @Override
+            public boolean isWallClockBased() {
+                return false;
+            }
+        };
+        LocalBucketBuilder builder = Bucket.builder()
+            .withCustomTimePrecision(movingClock)
+            .withSynchronizationStrategy(SynchronizationStrategy.NONE);
+        for (int i = 0; i < bandwidths; i++) {
+            long refillTokens = 3L * (i + 1);
+            Duration refillPeriod = Duration.ofNanos(1_000_003L + 7919L * i);
+            if (i % 3 == 2) {
+                builder.addLimit(limit -> limit.capacity(1_000_000).refillIntervally(refillTokens, refillPeriod));
+            } else {
+                builder.addLimit(limit -> limit.capacity(1_000_000).refillGreedy(refillTokens, refillPeriod));
+            }
+        }
+        bucket = builder.build();
+    }
+
+}
@@ -0,0 +1,110 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark.state;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.TimeMeter;
+import io.github.bucket4j.distributed.BucketProxy;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.ProxyManagerListener;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+
+/**
+ * Many buckets stored in compare-and-swap based storage, keys are chosen according to Zipf distribution,
+ * so the few hottest keys are contended by all benchmark threads.
+ */
+@State(Scope.Benchmark)
+public class HotKeyCompareAndSwapState {
+
+    @Param({"1000"})
+    public int keys;
+
+    @Param({"0.0", "0.99", "1.5"})
+    public double zipfExponent;
+
+    @Param({"0", "20000"})
+    public long remoteLatencyNanos;
+
+    @Param({"1000000"})
+    public long tokensPerSecond;
+
+    public BucketProxy[] buckets;
+
+    public ZipfianGenerator keyGenerator;
+
+    private final ThreadLocal<Counters> currentCounters = new ThreadLocal<>();
+
+    @Setup
+    public void setup() {
+        ProxyManagerListener retryListener = new ProxyManagerListener() {
+            @Override
+            public void onCompareAndSwapRetry(int attempt) {
+                Counters counters = currentCounters.get();
+                if (counters != null) {
+                    counters.casRetries++;
+                }
+            }
+        };
+        ClientSideConfig clientSideConfig = ClientSideConfig.getDefault()
+            .withClientClock(TimeMeter.SYSTEM_MILLISECONDS)
+            .withProxyManagerListener(retryListener);
+        InMemoryCompareAndSwapProxyManager<Integer> proxyManager = new InMemoryCompareAndSwapProxyManager<>(clientSideConfig, remoteLatencyNanos);
+        BucketConfiguration configuration = BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(tokensPerSecond, Duration.ofSeconds(1)))
+            .build();
+
+        buckets = new BucketProxy[keys];
+        for (int i = 0; i < keys; i++) {
+            buckets[i] = proxyManager.builder().build(i, configuration);
+        }
+        keyGenerator = new ZipfianGenerator(keys, zipfExponent);
+    }
+
+    /**
+     * Per-thread counters that are reported by JMH as secondary results,
+     * {@code consumed} is a goodput, and {@code casRetries} shows how much work was wasted because of contention.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+
+        public long consumed;
+        public long rejected;
+        public long casRetries;
+
+        @Setup(Level.Iteration)
+        public void reset(HotKeyCompareAndSwapState state) {
+            consumed = 0;
+            rejected = 0;
+            casRetries = 0;
+            state.currentCounters.set(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,108 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark.state;
+
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.generic.pessimistic_locking.AbstractLockBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.pessimistic_locking.LockBasedTransaction;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory stand-in for storages that provide pessimistic locking, like PostgreSQL advisory locks or JDBC SELECT FOR UPDATE on H2/MySQL.
+ * Each interaction with storage is delayed by configured latency in order to emulate network round-trip.
+ */
+public class InMemoryLockBasedProxyManager<K> extends AbstractLockBasedProxyManager<K> {
+
+    private final ConcurrentHashMap<K, byte[]> stateMap = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, ReentrantLock> locks = new ConcurrentHashMap<>();
+    private final long latencyNanos;
+
+    public InMemoryLockBasedProxyManager(ClientSideConfig clientSideConfig, long latencyNanos) {
+        super(clientSideConfig);
+        this.latencyNanos = latencyNanos;
+    }
+
+    @Override
+    protected LockBasedTransaction allocateTransaction(K key, Optional<Long> timeoutNanos) {
+        ReentrantLock lock = locks.computeIfAbsent(key, k -> new ReentrantLock());
+        return new LockBasedTransaction() {
+            @Override
+            public void begin(Optional<Long> timeoutNanos) {
+                // transactions are not emulated
+            }
+
+            @Override
+            public void rollback() {
+                // transactions are not emulated
+            }
+
+            @Override
+            public void commit(Optional<Long> timeoutNanos) {
+                emulateRoundTrip();
+            }
+
+            @Override
+            public byte[] lockAndGet(Optional<Long> timeoutNanos) {
+                lock.lock();
+                emulateRoundTrip();
+                return stateMap.get(key);
+            }
+
+            @Override
+            public void unlock() {
+                lock.unlock();
+            }
+
+            @Override
+            public void create(byte[] data, RemoteBucketState state, Optional<Long> timeoutNanos) {
+                emulateRoundTrip();
+                stateMap.put(key, data);
+            }
+
+            @Override
+            public void update(byte[] data, RemoteBucketState newState, Optional<Long> timeoutNanos) {
+                emulateRoundTrip();
+                stateMap.put(key, data);
+            }
+
+            @Override
+            public void release() {
+                // connections are not emulated
+            }
+        };
+    }
+
+    private void emulateRoundTrip() {
+        if (latencyNanos > 0) {
+            LockSupport.parkNanos(latencyNanos);
+        }
+    }
+
+    @Override
+    public void removeProxy(K key) {
+        stateMap.remove(key);
+    }
+
+}
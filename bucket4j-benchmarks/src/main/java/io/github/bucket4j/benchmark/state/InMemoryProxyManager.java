@@ -0,0 +1,115 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark.state;
+
+import io.github.bucket4j.distributed.proxy.AbstractProxyManager;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.remote.AbstractBinaryTransaction;
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import io.github.bucket4j.distributed.remote.Request;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static io.github.bucket4j.distributed.serialization.InternalSerializationHelper.deserializeResult;
+import static io.github.bucket4j.distributed.serialization.InternalSerializationHelper.serializeRequest;
+
+/**
+ * In-memory stand-in for remote storage that is used to benchmark distributed buckets without network.
+ * Requests and responses are serialized in the same way as real backends do,
+ * and each request is delayed by configured latency in order to emulate network round-trip.
+ */
+public class InMemoryProxyManager<K> extends AbstractProxyManager<K> {
+
+    private final ConcurrentHashMap<K, byte[]> stateMap = new ConcurrentHashMap<>();
+    private final long latencyNanos;
+
+    public InMemoryProxyManager(long latencyNanos) {
+        this(ClientSideConfig.getDefault(), latencyNanos);
+    }
+
+    public InMemoryProxyManager(ClientSideConfig clientSideConfig, long latencyNanos) {
+        super(clientSideConfig);
+        this.latencyNanos = latencyNanos;
+    }
+
+    @Override
+    protected <T> CommandResult<T> execute(K key, Request<T> request) {
+        if (latencyNanos > 0) {
+            LockSupport.parkNanos(latencyNanos);
+        }
+        return executeLocally(key, request);
+    }
+
+    @Override
+    protected <T> CompletableFuture<CommandResult<T>> executeAsync(K key, Request<T> request) {
+        if (latencyNanos <= 0) {
+            return CompletableFuture.completedFuture(executeLocally(key, request));
+        }
+        return CompletableFuture.supplyAsync(() -> executeLocally(key, request), CompletableFuture.delayedExecutor(latencyNanos, TimeUnit.NANOSECONDS));
+    }
+
+    private <T> CommandResult<T> executeLocally(K key, Request<T> request) {
+        byte[] requestBytes = serializeRequest(request);
+        byte[][] responseHolder = new byte[1][];
+        stateMap.compute(key, (K k, byte[] previousStateBytes) -> {
+            byte[][] stateHolder = new byte[][] {previousStateBytes};
+            AbstractBinaryTransaction transaction = new AbstractBinaryTransaction(requestBytes) {
+                @Override
+                protected byte[] getRawState() {
+                    return stateHolder[0];
+                }
+
+                @Override
+                protected void setRawState(byte[] newStateBytes, RemoteBucketState newState) {
+                    stateHolder[0] = newStateBytes;
+                }
+
+                @Override
+                public boolean exists() {
+                    return stateHolder[0] != null;
+                }
+            };
+            responseHolder[0] = transaction.execute();
+            return stateHolder[0];
+        });
+        return deserializeResult(responseHolder[0], request.getBackwardCompatibilityVersion());
+    }
+
+    @Override
+    public void removeProxy(K key) {
+        stateMap.remove(key);
+    }
+
+    @Override
+    protected CompletableFuture<Void> removeAsync(K key) {
+        stateMap.remove(key);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public boolean isAsyncModeSupported() {
+        return true;
+    }
+
+}
@@ -0,0 +1,58 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark.state;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketListener;
+import io.github.bucket4j.SimpleBucketListener;
+import io.github.bucket4j.StripedBucketListener;
+import io.github.bucket4j.local.SynchronizationStrategy;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+
+@State(Scope.Benchmark)
+public class ListenerState {
+
+    @Param({"nope", "simple", "striped"})
+    public String listenerType;
+
+    public Bucket unlimitedBucket;
+
+    @Setup
+    public void setup() {
+        BucketListener listener = switch (listenerType) {
+            case "nope" -> BucketListener.NOPE;
+            case "simple" -> new SimpleBucketListener();
+            case "striped" -> new StripedBucketListener();
+            default -> throw new IllegalArgumentException(listenerType);
+        };
+        unlimitedBucket = Bucket.builder()
+            .addLimit(Bandwidth.simple(Long.MAX_VALUE / 2, Duration.ofNanos(Long.MAX_VALUE / 2)))
+            .withSynchronizationStrategy(SynchronizationStrategy.LOCK_FREE)
+            .withListener(listener)
+            .build();
+    }
+
+}
@@ -34,6 +34,12 @@ public class LocalLockFreeState {
                     Bandwidth.simple(Long.MAX_VALUE / 2, Duration.ofNanos(Long.MAX_VALUE / 2))
             ).build();
 
+    public final Bucket unlimitedBucketWithCoarseClock = Bucket.builder()
+            .withCoarsePrecision(Duration.ofMillis(1))
+            .addLimit(
+                    Bandwidth.simple(Long.MAX_VALUE / 2, Duration.ofNanos(Long.MAX_VALUE / 2))
+            ).build();
+
     public final Bucket _10_milion_rps_Bucket = Bucket.builder()
             .addLimit(Bandwidth.simple(10_000_000, Duration.ofSeconds(1)).withInitialTokens(0))
             .build();
@@ -38,6 +38,7 @@ package io.github.bucket4j.benchmark.state;
 
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.MathType;
 import io.github.bucket4j.TimeMeter;
 import io.github.bucket4j.local.SynchronizationStrategy;
 import org.openjdk.jmh.annotations.Scope;
@@ -54,6 +55,7 @@ public class LocalUnsafeState_ieee754 {
                     Bandwidth.simple(Long.MAX_VALUE / 2, Duration.ofNanos(Long.MAX_VALUE / 2))
             )
             .withSynchronizationStrategy(SynchronizationStrategy.NONE)
+            .withMath(MathType.IEEE_754)
             .build();
 
 
@@ -74,6 +76,7 @@ public class LocalUnsafeState_ieee754 {
                     Bandwidth.simple(Long.MAX_VALUE / 2, Duration.ofNanos(Long.MAX_VALUE / 2))
             )
             .withSynchronizationStrategy(SynchronizationStrategy.NONE)
+            .withMath(MathType.IEEE_754)
             .build();
 
 
@@ -0,0 +1,74 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark.state;
+
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.BucketState;
+import io.github.bucket4j.BucketState64BitsInteger;
+import io.github.bucket4j.BucketState64BitsIntegerStructOfArrays;
+import io.github.bucket4j.ConfigurationBuilder;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+
+/**
+ * Bucket state with many bandwidths in interleaved layout and in struct of arrays layout,
+ * states are used directly, so neither synchronization nor clock reading is included into measurements.
+ */
+@State(Scope.Thread)
+public class ManyBandwidthsState {
+
+    public static final long NANOS_PER_OPERATION = 100;
+
+    @Param({"INTERLEAVED", "STRUCT_OF_ARRAYS"})
+    public String layout;
+
+    @Param({"5", "10", "20"})
+    public int bandwidths;
+
+    public BucketState state;
+
+    public long currentTimeNanos;
+
+    @Setup
+    public void setup() {
+        ConfigurationBuilder builder = BucketConfiguration.builder();
+        for (int i = 0; i < bandwidths; i++) {
+            // periods and tokens are chosen to be co-prime, so there is always a remainder of division
+            long refillTokens = 3L * (i + 1);
+            Duration refillPeriod = Duration.ofNanos(1_000_003L + 7919L * i);
+            if (i % 3 == 2) {
+                builder.addLimit(limit -> limit.capacity(1_000_000).refillIntervally(refillTokens, refillPeriod));
+            } else {
+                builder.addLimit(limit -> limit.capacity(1_000_000).refillGreedy(refillTokens, refillPeriod));
+            }
+        }
+        BucketConfiguration configuration = builder.build();
+        if (layout.equals("INTERLEAVED")) {
+            state = new BucketState64BitsInteger(configuration, 0L);
+        } else {
+            state = new BucketState64BitsIntegerStructOfArrays(configuration, 0L);
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark.state;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.TimeMeter;
+import io.github.bucket4j.caffeine.Bucket4jCaffeine;
+import io.github.bucket4j.distributed.BucketProxy;
+import io.github.bucket4j.distributed.jdbc.PrimaryKeyMapper;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.mysql.Bucket4jMySQL;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The state for benchmarking of distributed path against each family of proxy-managers:
+ * <ul>
+ *     <li><b>entryProcessor</b> - storages that execute command near the data, like Caffeine, Hazelcast, Ignite, Infinispan, Coherence.</li>
+ *     <li><b>compareAndSwap</b> - storages that provide compare-and-swap, like Redis or DynamoDB.</li>
+ *     <li><b>lock</b> - storages that provide pessimistic locking, like H2, PostgreSQL, MySQL.</li>
+ *     <li><b>caffeine</b> - the real {@link io.github.bucket4j.caffeine.CaffeineProxyManager}.</li>
+ *     <li><b>h2</b> - the real JDBC path of {@link io.github.bucket4j.mysql.MySQLSelectForUpdateBasedProxyManager} against in-memory H2 in MySQL mode.</li>
+ * </ul>
+ * The first three are in-memory stand-ins that isolate the overhead of bucket4j from storage,
+ * {@code remoteLatencyNanos} is applied only to them.
+ */
+@State(Scope.Benchmark)
+public class ProxyManagerState {
+
+    @Param({"entryProcessor", "compareAndSwap", "lock", "caffeine", "h2"})
+    public String backend;
+
+    @Param({"none", "batching", "delaying", "predicting", "skipSyncOnZero"})
+    public String optimization;
+
+    @Param({"0"})
+    public long remoteLatencyNanos;
+
+    @Param({"1000000000"})
+    public long tokensPerSecond;
+
+    public BucketProxy bucket;
+
+    private ScheduledExecutorService scheduler;
+    private JdbcConnectionPool h2DataSource;
+
+    @Setup
+    public void setup() throws SQLException {
+        ClientSideConfig clientSideConfig = ClientSideConfig.getDefault().withClientClock(TimeMeter.SYSTEM_MILLISECONDS);
+        ProxyManager<String> proxyManager = switch (backend) {
+            case "entryProcessor" -> new InMemoryProxyManager<>(clientSideConfig, remoteLatencyNanos);
+            case "compareAndSwap" -> new InMemoryCompareAndSwapProxyManager<>(clientSideConfig, remoteLatencyNanos);
+            case "lock" -> new InMemoryLockBasedProxyManager<>(clientSideConfig, remoteLatencyNanos);
+            case "caffeine" -> Bucket4jCaffeine.<String>builderFor(Caffeine.newBuilder().maximumSize(10_000))
+                .clientClock(TimeMeter.SYSTEM_MILLISECONDS)
+                .build();
+            case "h2" -> Bucket4jMySQL.selectForUpdateBasedBuilder(createH2DataSource())
+                .primaryKeyMapper(PrimaryKeyMapper.STRING)
+                .clientClock(TimeMeter.SYSTEM_MILLISECONDS)
+                .build();
+            default -> throw new IllegalStateException("Unknown backend " + backend);
+        };
+        BucketConfiguration configuration = BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(tokensPerSecond, Duration.ofSeconds(1)))
+            .build();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        bucket = proxyManager.builder()
+            .withOptimization(BenchmarkOptimizations.create(optimization, scheduler))
+            .build(backend + "-" + optimization, configuration);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        if (h2DataSource != null) {
+            h2DataSource.dispose();
+        }
+    }
+
+    private JdbcConnectionPool createH2DataSource() throws SQLException {
+        h2DataSource = JdbcConnectionPool.create("jdbc:h2:mem:bucket4j;DB_CLOSE_DELAY=-1;MODE=MySQL", "sa", "");
+        try (Connection connection = h2DataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bucket");
+            statement.execute("CREATE TABLE bucket(id VARCHAR PRIMARY KEY, state BLOB, expires_at BIGINT)");
+        }
+        return h2DataSource;
+    }
+
+}
@@ -0,0 +1,66 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark.state;
+
+import io.github.bucket4j.util.concurrent.HashedWheelScheduler;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduler shared by all benchmark threads.
+ */
+@State(Scope.Benchmark)
+public class SchedulerState {
+
+    @Param({"ScheduledThreadPoolExecutor", "HashedWheelScheduler"})
+    public String schedulerType;
+
+    @Param({"1"})
+    public long delayMillis;
+
+    public ScheduledExecutorService scheduler;
+
+    @Setup
+    public void setup() {
+        if (schedulerType.equals("HashedWheelScheduler")) {
+            scheduler = new HashedWheelScheduler();
+        } else {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+            // without this policy cancelled tasks are kept in the queue until their deadline
+            executor.setRemoveOnCancelPolicy(true);
+            scheduler = executor;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+}
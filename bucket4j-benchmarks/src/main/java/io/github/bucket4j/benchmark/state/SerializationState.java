@@ -0,0 +1,107 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark.state;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.BucketState;
+import io.github.bucket4j.MathType;
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.MutableBucketEntry;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import io.github.bucket4j.distributed.remote.RemoteCommand;
+import io.github.bucket4j.distributed.remote.RemoteStat;
+import io.github.bucket4j.distributed.remote.Request;
+import io.github.bucket4j.distributed.remote.commands.ConsumeIgnoringRateLimitsCommand;
+import io.github.bucket4j.distributed.remote.commands.CreateSnapshotCommand;
+import io.github.bucket4j.distributed.remote.commands.MultiCommand;
+import io.github.bucket4j.distributed.remote.commands.TryConsumeCommand;
+import io.github.bucket4j.distributed.remote.commands.VerboseCommand;
+import io.github.bucket4j.distributed.versioning.Versions;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.github.bucket4j.distributed.serialization.InternalSerializationHelper.serializeRequest;
+import static io.github.bucket4j.distributed.serialization.InternalSerializationHelper.serializeResult;
+import static io.github.bucket4j.distributed.serialization.InternalSerializationHelper.serializeState;
+
+@State(Scope.Benchmark)
+public class SerializationState {
+
+    @Param({"1", "3", "10"})
+    public int bandwidths;
+
+    @Param({"tryConsume", "verbose", "multi"})
+    public String command;
+
+    public Request<?> request;
+    public RemoteBucketState state;
+    public CommandResult<?> result;
+
+    public byte[] requestBytes;
+    public byte[] stateBytes;
+    public byte[] resultBytes;
+
+    @Setup
+    public void setup() {
+        long now = System.currentTimeMillis() * 1_000_000;
+        state = createState(bandwidths, now);
+        request = new Request<>(createCommand(command), Versions.getLatest(), now, null);
+        result = request.getCommand().execute(new MutableBucketEntry(serializeState(state, Versions.getLatest())), now);
+
+        requestBytes = serializeRequest(request);
+        stateBytes = serializeState(state, Versions.getLatest());
+        resultBytes = serializeResult(result, Versions.getLatest());
+    }
+
+    public static RemoteBucketState createState(int bandwidths, long currentTimeNanos) {
+        Bandwidth[] limits = new Bandwidth[bandwidths];
+        for (int i = 0; i < bandwidths; i++) {
+            limits[i] = Bandwidth.simple(1000L * (i + 1), Duration.ofSeconds(i + 1)).withId("limit-" + i);
+        }
+        BucketConfiguration configuration = new BucketConfiguration(Arrays.asList(limits));
+        BucketState bucketState = BucketState.createInitialState(configuration, MathType.INTEGER_64_BITS, currentTimeNanos);
+        return new RemoteBucketState(bucketState, new RemoteStat(42), null);
+    }
+
+    public static RemoteCommand<?> createCommand(String command) {
+        switch (command) {
+            case "tryConsume": return TryConsumeCommand.create(1);
+            case "verbose": return VerboseCommand.from(TryConsumeCommand.create(1));
+            case "multi": {
+                // the same layout that is used by delaying and predicting optimizations
+                List<RemoteCommand<?>> commands = new ArrayList<>(3);
+                commands.add(new ConsumeIgnoringRateLimitsCommand(10));
+                commands.add(TryConsumeCommand.create(1));
+                commands.add(new CreateSnapshotCommand());
+                return new MultiCommand(commands);
+            }
+            default: throw new IllegalStateException("Unknown command " + command);
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark.state;
+
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.BucketState;
+import io.github.bucket4j.BucketState64BitsInteger;
+import io.github.bucket4j.BucketState64BitsIntegerSingleBandwidth;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+
+/**
+ * Bucket state with single bandwidth in general array based layout and in specialized layout,
+ * states are used directly, so neither synchronization nor clock reading is included into measurements.
+ */
+@State(Scope.Thread)
+public class SingleBandwidthState {
+
+    public static final long NANOS_PER_OPERATION = 100;
+
+    @Param({"GENERAL", "SPECIALIZED"})
+    public String layout;
+
+    @Param({"GREEDY", "INTERVALLY"})
+    public String refill;
+
+    public BucketState state;
+
+    public long currentTimeNanos;
+
+    @Setup
+    public void setup() {
+        // period and tokens are chosen to be co-prime, so there is always a remainder of division
+        BucketConfiguration configuration = BucketConfiguration.builder()
+            .addLimit(limit -> {
+                if (refill.equals("GREEDY")) {
+                    return limit.capacity(1_000_000).refillGreedy(3, Duration.ofNanos(1_000_003L));
+                } else {
+                    return limit.capacity(1_000_000).refillIntervally(3, Duration.ofNanos(1_000_003L));
+                }
+            })
+            .build();
+        if (layout.equals("GENERAL")) {
+            state = new BucketState64BitsInteger(configuration, 0L);
+        } else {
+            state = new BucketState64BitsIntegerSingleBandwidth(configuration, 0L);
+        }
+    }
+
+}
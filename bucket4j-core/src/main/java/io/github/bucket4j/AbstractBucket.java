@@ -29,6 +29,9 @@ import static io.github.bucket4j.LimitChecker.*;
 public abstract class AbstractBucket implements Bucket {
 
     protected static final long INFINITY_DURATION = Long.MAX_VALUE;
+
+    private static final FifoWaitQueue.Reservation<Long> NOTHING_TO_WAIT = new FifoWaitQueue.Reservation<>(null, 0L, null);
+    private static final FifoWaitQueue.Reservation<Long> REJECTED = new FifoWaitQueue.Reservation<>(null, INFINITY_DURATION, null);
     protected static final long UNLIMITED_AMOUNT = Long.MAX_VALUE;
 
     protected abstract long consumeAsMuchAsPossibleImpl(long limit);
@@ -39,6 +42,8 @@ public abstract class AbstractBucket implements Bucket {
 
     protected abstract EstimationProbe estimateAbilityToConsumeImpl(long numTokens);
 
+    protected abstract BatchConsumptionProbe tryConsumeBatchImpl(long[] itemCosts);
+
     protected abstract long reserveAndCalculateTimeToSleepImpl(long tokensToConsume, long waitIfBusyNanos);
 
     protected abstract void addTokensImpl(long tokensToAdd);
@@ -72,13 +77,23 @@ public abstract class AbstractBucket implements Bucket {
     protected abstract VerboseResult<Long> reserveAndCalculateTimeToSleepVerboseImpl(long tokensToConsume, long maxWaitTimeNanos);
 
     public AbstractBucket(BucketListener listener) {
+        this(listener, null);
+    }
+
+    /**
+     * @param listener the listener of bucket events
+     * @param waitQueue the queue of waiters for blocking and scheduling API, null means that each waiter waits independently
+     */
+    protected AbstractBucket(BucketListener listener, FifoWaitQueue waitQueue) {
         if (listener == null) {
             throw BucketExceptions.nullListener();
         }
         this.listener = listener;
+        this.waitQueue = waitQueue;
     }
 
     private final BucketListener listener;
+    private final FifoWaitQueue waitQueue;
 
     private final VerboseBucket verboseView = new VerboseBucket() {
         @Override
@@ -187,25 +202,31 @@ public abstract class AbstractBucket implements Bucket {
             checkTokensToConsume(tokensToConsume);
             checkMaxWaitTime(maxWaitTimeNanos);
 
-            long nanosToSleep = reserveAndCalculateTimeToSleepImpl(tokensToConsume, maxWaitTimeNanos);
-            if (nanosToSleep == INFINITY_DURATION) {
-                listener.onRejected(tokensToConsume);
-                return false;
-            }
+            FifoWaitQueue.Reservation<Long> reservation = reserveAndCalculateTimeToSleep(tokensToConsume, maxWaitTimeNanos);
+            try {
+                long nanosToSleep = reservation.nanosToSleep;
+                if (nanosToSleep == INFINITY_DURATION) {
+                    listener.onRejected(tokensToConsume);
+                    return false;
+                }
 
-            listener.onConsumed(tokensToConsume);
-            if (nanosToSleep > 0L) {
-                try {
-                    listener.beforeParking(nanosToSleep);
-                    blockingStrategy.park(nanosToSleep);
-                } catch (InterruptedException e) {
-                    listener.onInterrupted(e);
-                    throw e;
+                listener.onConsumed(tokensToConsume);
+                if (nanosToSleep > 0L) {
+                    try {
+                        listener.beforeParking(nanosToSleep);
+                        park(reservation, blockingStrategy);
+                    } catch (InterruptedException e) {
+                        listener.onInterrupted(e);
+                        throw e;
+                    }
+                    listener.onParked(nanosToSleep);
                 }
-                listener.onParked(nanosToSleep);
-            }
 
-            return true;
+                return true;
+            } catch (Throwable t) {
+                abandon(reservation);
+                throw t;
+            }
         }
 
         @Override
@@ -213,41 +234,53 @@ public abstract class AbstractBucket implements Bucket {
             checkTokensToConsume(tokensToConsume);
             checkMaxWaitTime(maxWaitTimeNanos);
 
-            long nanosToSleep = reserveAndCalculateTimeToSleepImpl(tokensToConsume, maxWaitTimeNanos);
-            if (nanosToSleep == INFINITY_DURATION) {
-                listener.onRejected(tokensToConsume);
-                return false;
-            }
+            FifoWaitQueue.Reservation<Long> reservation = reserveAndCalculateTimeToSleep(tokensToConsume, maxWaitTimeNanos);
+            try {
+                long nanosToSleep = reservation.nanosToSleep;
+                if (nanosToSleep == INFINITY_DURATION) {
+                    listener.onRejected(tokensToConsume);
+                    return false;
+                }
 
-            listener.onConsumed(tokensToConsume);
-            if (nanosToSleep > 0L) {
-                listener.beforeParking(nanosToSleep);
-                blockingStrategy.parkUninterruptibly(nanosToSleep);
-                listener.onParked(nanosToSleep);
-            }
+                listener.onConsumed(tokensToConsume);
+                if (nanosToSleep > 0L) {
+                    listener.beforeParking(nanosToSleep);
+                    parkUninterruptibly(reservation, blockingStrategy);
+                    listener.onParked(nanosToSleep);
+                }
 
-            return true;
+                return true;
+            } catch (Throwable t) {
+                abandon(reservation);
+                throw t;
+            }
         }
 
         @Override
         public void consume(long tokensToConsume, BlockingStrategy blockingStrategy) throws InterruptedException {
             checkTokensToConsume(tokensToConsume);
 
-            long nanosToSleep = reserveAndCalculateTimeToSleepImpl(tokensToConsume, INFINITY_DURATION);
-            if (nanosToSleep == INFINITY_DURATION) {
-                throw BucketExceptions.reservationOverflow();
-            }
+            FifoWaitQueue.Reservation<Long> reservation = reserveAndCalculateTimeToSleep(tokensToConsume, INFINITY_DURATION);
+            try {
+                long nanosToSleep = reservation.nanosToSleep;
+                if (nanosToSleep == INFINITY_DURATION) {
+                    throw BucketExceptions.reservationOverflow();
+                }
 
-            listener.onConsumed(tokensToConsume);
-            if (nanosToSleep > 0L) {
-                try {
-                    listener.beforeParking(nanosToSleep);
-                    blockingStrategy.park(nanosToSleep);
-                } catch (InterruptedException e) {
-                    listener.onInterrupted(e);
-                    throw e;
+                listener.onConsumed(tokensToConsume);
+                if (nanosToSleep > 0L) {
+                    try {
+                        listener.beforeParking(nanosToSleep);
+                        park(reservation, blockingStrategy);
+                    } catch (InterruptedException e) {
+                        listener.onInterrupted(e);
+                        throw e;
+                    }
+                    listener.onParked(nanosToSleep);
                 }
-                listener.onParked(nanosToSleep);
+            } catch (Throwable t) {
+                abandon(reservation);
+                throw t;
             }
         }
 
@@ -255,16 +288,22 @@ public abstract class AbstractBucket implements Bucket {
         public void consumeUninterruptibly(long tokensToConsume, UninterruptibleBlockingStrategy blockingStrategy) {
             checkTokensToConsume(tokensToConsume);
 
-            long nanosToSleep = reserveAndCalculateTimeToSleepImpl(tokensToConsume, INFINITY_DURATION);
-            if (nanosToSleep == INFINITY_DURATION) {
-                throw BucketExceptions.reservationOverflow();
-            }
+            FifoWaitQueue.Reservation<Long> reservation = reserveAndCalculateTimeToSleep(tokensToConsume, INFINITY_DURATION);
+            try {
+                long nanosToSleep = reservation.nanosToSleep;
+                if (nanosToSleep == INFINITY_DURATION) {
+                    throw BucketExceptions.reservationOverflow();
+                }
 
-            listener.onConsumed(tokensToConsume);
-            if (nanosToSleep > 0L) {
-                listener.beforeParking(nanosToSleep);
-                blockingStrategy.parkUninterruptibly(nanosToSleep);
-                listener.onParked(nanosToSleep);
+                listener.onConsumed(tokensToConsume);
+                if (nanosToSleep > 0L) {
+                    listener.beforeParking(nanosToSleep);
+                    parkUninterruptibly(reservation, blockingStrategy);
+                    listener.onParked(nanosToSleep);
+                }
+            } catch (Throwable t) {
+                abandon(reservation);
+                throw t;
             }
         }
 
@@ -281,8 +320,10 @@ public abstract class AbstractBucket implements Bucket {
             checkTokensToConsume(tokensToConsume);
             checkScheduler(scheduler);
 
+            FifoWaitQueue.Reservation<Long> reservation = null;
             try {
-                long nanosToSleep = reserveAndCalculateTimeToSleepImpl(tokensToConsume, maxWaitTimeNanos);
+                reservation = reserveAndCalculateTimeToSleep(tokensToConsume, maxWaitTimeNanos);
+                long nanosToSleep = reservation.nanosToSleep;
                 if (nanosToSleep == INFINITY_DURATION) {
                     listener.onRejected(tokensToConsume);
                     return CompletableFuture.completedFuture(false);
@@ -296,9 +337,10 @@ public abstract class AbstractBucket implements Bucket {
                 listener.onDelayed(nanosToSleep);
                 CompletableFuture<Boolean> resultFuture = new CompletableFuture<>();
                 Runnable delayedCompletion = () -> resultFuture.complete(true);
-                scheduler.schedule(delayedCompletion, nanosToSleep, TimeUnit.NANOSECONDS);
+                schedule(reservation, scheduler, resultFuture, delayedCompletion);
                 return resultFuture;
             } catch (Throwable t) {
+                abandon(reservation);
                 return failedFuture(t);
             }
         }
@@ -308,8 +350,10 @@ public abstract class AbstractBucket implements Bucket {
             checkTokensToConsume(tokensToConsume);
             checkScheduler(scheduler);
 
+            FifoWaitQueue.Reservation<Long> reservation = null;
             try {
-                long nanosToSleep = reserveAndCalculateTimeToSleepImpl(tokensToConsume, INFINITY_DURATION);
+                reservation = reserveAndCalculateTimeToSleep(tokensToConsume, INFINITY_DURATION);
+                long nanosToSleep = reservation.nanosToSleep;
                 if (nanosToSleep == INFINITY_DURATION) {
                     return failedFuture(BucketExceptions.reservationOverflow());
                 }
@@ -322,9 +366,10 @@ public abstract class AbstractBucket implements Bucket {
                 listener.onDelayed(nanosToSleep);
                 CompletableFuture<Void> resultFuture = new CompletableFuture<>();
                 Runnable delayedCompletion = () -> resultFuture.complete(null);
-                scheduler.schedule(delayedCompletion, nanosToSleep, TimeUnit.NANOSECONDS);
+                schedule(reservation, scheduler, resultFuture, delayedCompletion);
                 return resultFuture;
             } catch (Throwable t) {
+                abandon(reservation);
                 return failedFuture(t);
             }
         }
@@ -343,9 +388,11 @@ public abstract class AbstractBucket implements Bucket {
             checkTokensToConsume(tokensToConsume);
             checkScheduler(scheduler);
 
+            FifoWaitQueue.Reservation<VerboseResult<Long>> reservation = null;
             try {
-                VerboseResult<Long> nanosToSleepVerbose = reserveAndCalculateTimeToSleepVerboseImpl(tokensToConsume, maxWaitTimeNanos);
-                long nanosToSleep = nanosToSleepVerbose.getValue();
+                reservation = reserveAndCalculateTimeToSleepVerbose(tokensToConsume, maxWaitTimeNanos);
+                VerboseResult<Long> nanosToSleepVerbose = reservation.result;
+                long nanosToSleep = reservation.nanosToSleep;
                 if (nanosToSleep == INFINITY_DURATION) {
                     listener.onRejected(tokensToConsume);
                     return CompletableFuture.completedFuture(nanosToSleepVerbose.withValue(false));
@@ -359,9 +406,10 @@ public abstract class AbstractBucket implements Bucket {
                 listener.onDelayed(nanosToSleep);
                 CompletableFuture<VerboseResult<Boolean>> resultFuture = new CompletableFuture<>();
                 Runnable delayedCompletion = () -> resultFuture.complete(nanosToSleepVerbose.withValue(true));
-                scheduler.schedule(delayedCompletion, nanosToSleep, TimeUnit.NANOSECONDS);
+                schedule(reservation, scheduler, resultFuture, delayedCompletion);
                 return resultFuture;
             } catch (Throwable t) {
+                abandon(reservation);
                 return failedFuture(t);
             }
         }
@@ -371,9 +419,11 @@ public abstract class AbstractBucket implements Bucket {
             checkTokensToConsume(tokensToConsume);
             checkScheduler(scheduler);
 
+            FifoWaitQueue.Reservation<VerboseResult<Long>> reservation = null;
             try {
-                VerboseResult<Long> nanosToSleepVerbose = reserveAndCalculateTimeToSleepVerboseImpl(tokensToConsume, INFINITY_DURATION);
-                long nanosToSleep = nanosToSleepVerbose.getValue();
+                reservation = reserveAndCalculateTimeToSleepVerbose(tokensToConsume, INFINITY_DURATION);
+                VerboseResult<Long> nanosToSleepVerbose = reservation.result;
+                long nanosToSleep = reservation.nanosToSleep;
                 if (nanosToSleep == INFINITY_DURATION) {
                     return failedFuture(BucketExceptions.reservationOverflow());
                 }
@@ -386,9 +436,10 @@ public abstract class AbstractBucket implements Bucket {
                 listener.onDelayed(nanosToSleep);
                 CompletableFuture<VerboseResult<Void>> resultFuture = new CompletableFuture<>();
                 Runnable delayedCompletion = () -> resultFuture.complete(nanosToSleepVerbose.withValue(null));
-                scheduler.schedule(delayedCompletion, nanosToSleep, TimeUnit.NANOSECONDS);
+                schedule(reservation, scheduler, resultFuture, delayedCompletion);
                 return resultFuture;
             } catch (Throwable t) {
+                abandon(reservation);
                 return failedFuture(t);
             }
         }
@@ -401,26 +452,32 @@ public abstract class AbstractBucket implements Bucket {
             checkTokensToConsume(tokensToConsume);
             checkMaxWaitTime(maxWaitTimeNanos);
 
-            VerboseResult<Long> nanosToSleepVerbose = reserveAndCalculateTimeToSleepVerboseImpl(tokensToConsume, maxWaitTimeNanos);
-            long nanosToSleep = nanosToSleepVerbose.getValue();
-            if (nanosToSleep == INFINITY_DURATION) {
-                listener.onRejected(tokensToConsume);
-                return nanosToSleepVerbose.withValue(false);
-            }
+            FifoWaitQueue.Reservation<VerboseResult<Long>> reservation = reserveAndCalculateTimeToSleepVerbose(tokensToConsume, maxWaitTimeNanos);
+            try {
+                VerboseResult<Long> nanosToSleepVerbose = reservation.result;
+                long nanosToSleep = reservation.nanosToSleep;
+                if (nanosToSleep == INFINITY_DURATION) {
+                    listener.onRejected(tokensToConsume);
+                    return nanosToSleepVerbose.withValue(false);
+                }
 
-            listener.onConsumed(tokensToConsume);
-            if (nanosToSleep > 0L) {
-                try {
-                    listener.beforeParking(nanosToSleep);
-                    blockingStrategy.park(nanosToSleep);
-                } catch (InterruptedException e) {
-                    listener.onInterrupted(e);
-                    throw e;
+                listener.onConsumed(tokensToConsume);
+                if (nanosToSleep > 0L) {
+                    try {
+                        listener.beforeParking(nanosToSleep);
+                        park(reservation, blockingStrategy);
+                    } catch (InterruptedException e) {
+                        listener.onInterrupted(e);
+                        throw e;
+                    }
+                    listener.onParked(nanosToSleep);
                 }
-                listener.onParked(nanosToSleep);
-            }
 
-            return nanosToSleepVerbose.withValue(true);
+                return nanosToSleepVerbose.withValue(true);
+            } catch (Throwable t) {
+                abandon(reservation);
+                throw t;
+            }
         }
 
         @Override
@@ -428,64 +485,82 @@ public abstract class AbstractBucket implements Bucket {
             checkTokensToConsume(tokensToConsume);
             checkMaxWaitTime(maxWaitTimeNanos);
 
-            VerboseResult<Long> nanosToSleepVerbose = reserveAndCalculateTimeToSleepVerboseImpl(tokensToConsume, maxWaitTimeNanos);
-            long nanosToSleep = nanosToSleepVerbose.getValue();
-            if (nanosToSleep == INFINITY_DURATION) {
-                listener.onRejected(tokensToConsume);
-                return nanosToSleepVerbose.withValue(false);
-            }
+            FifoWaitQueue.Reservation<VerboseResult<Long>> reservation = reserveAndCalculateTimeToSleepVerbose(tokensToConsume, maxWaitTimeNanos);
+            try {
+                VerboseResult<Long> nanosToSleepVerbose = reservation.result;
+                long nanosToSleep = reservation.nanosToSleep;
+                if (nanosToSleep == INFINITY_DURATION) {
+                    listener.onRejected(tokensToConsume);
+                    return nanosToSleepVerbose.withValue(false);
+                }
 
-            listener.onConsumed(tokensToConsume);
-            if (nanosToSleep > 0L) {
-                listener.beforeParking(nanosToSleep);
-                blockingStrategy.parkUninterruptibly(nanosToSleep);
-                listener.onParked(nanosToSleep);
-            }
+                listener.onConsumed(tokensToConsume);
+                if (nanosToSleep > 0L) {
+                    listener.beforeParking(nanosToSleep);
+                    parkUninterruptibly(reservation, blockingStrategy);
+                    listener.onParked(nanosToSleep);
+                }
 
-            return nanosToSleepVerbose.withValue(true);
+                return nanosToSleepVerbose.withValue(true);
+            } catch (Throwable t) {
+                abandon(reservation);
+                throw t;
+            }
         }
 
         @Override
         public VerboseResult<Void> consume(long tokensToConsume, BlockingStrategy blockingStrategy) throws InterruptedException {
             checkTokensToConsume(tokensToConsume);
 
-            VerboseResult<Long> nanosToSleepVerbose = reserveAndCalculateTimeToSleepVerboseImpl(tokensToConsume, INFINITY_DURATION);
-            long nanosToSleep = nanosToSleepVerbose.getValue();
-            if (nanosToSleep == INFINITY_DURATION) {
-                throw BucketExceptions.reservationOverflow();
-            }
+            FifoWaitQueue.Reservation<VerboseResult<Long>> reservation = reserveAndCalculateTimeToSleepVerbose(tokensToConsume, INFINITY_DURATION);
+            try {
+                VerboseResult<Long> nanosToSleepVerbose = reservation.result;
+                long nanosToSleep = reservation.nanosToSleep;
+                if (nanosToSleep == INFINITY_DURATION) {
+                    throw BucketExceptions.reservationOverflow();
+                }
 
-            listener.onConsumed(tokensToConsume);
-            if (nanosToSleep > 0L) {
-                try {
-                    listener.beforeParking(nanosToSleep);
-                    blockingStrategy.park(nanosToSleep);
-                } catch (InterruptedException e) {
-                    listener.onInterrupted(e);
-                    throw e;
+                listener.onConsumed(tokensToConsume);
+                if (nanosToSleep > 0L) {
+                    try {
+                        listener.beforeParking(nanosToSleep);
+                        park(reservation, blockingStrategy);
+                    } catch (InterruptedException e) {
+                        listener.onInterrupted(e);
+                        throw e;
+                    }
+                    listener.onParked(nanosToSleep);
                 }
-                listener.onParked(nanosToSleep);
+                return nanosToSleepVerbose.withValue(null);
+            } catch (Throwable t) {
+                abandon(reservation);
+                throw t;
             }
-            return nanosToSleepVerbose.withValue(null);
         }
 
         @Override
         public VerboseResult<Void> consumeUninterruptibly(long tokensToConsume, UninterruptibleBlockingStrategy blockingStrategy) {
             checkTokensToConsume(tokensToConsume);
 
-            VerboseResult<Long> nanosToSleepVerbose = reserveAndCalculateTimeToSleepVerboseImpl(tokensToConsume, INFINITY_DURATION);
-            long nanosToSleep = nanosToSleepVerbose.getValue();
-            if (nanosToSleep == INFINITY_DURATION) {
-                throw BucketExceptions.reservationOverflow();
-            }
+            FifoWaitQueue.Reservation<VerboseResult<Long>> reservation = reserveAndCalculateTimeToSleepVerbose(tokensToConsume, INFINITY_DURATION);
+            try {
+                VerboseResult<Long> nanosToSleepVerbose = reservation.result;
+                long nanosToSleep = reservation.nanosToSleep;
+                if (nanosToSleep == INFINITY_DURATION) {
+                    throw BucketExceptions.reservationOverflow();
+                }
 
-            listener.onConsumed(tokensToConsume);
-            if (nanosToSleep > 0L) {
-                listener.beforeParking(nanosToSleep);
-                blockingStrategy.parkUninterruptibly(nanosToSleep);
-                listener.onParked(nanosToSleep);
+                listener.onConsumed(tokensToConsume);
+                if (nanosToSleep > 0L) {
+                    listener.beforeParking(nanosToSleep);
+                    parkUninterruptibly(reservation, blockingStrategy);
+                    listener.onParked(nanosToSleep);
+                }
+                return nanosToSleepVerbose.withValue(null);
+            } catch (Throwable t) {
+                abandon(reservation);
+                throw t;
             }
-            return nanosToSleepVerbose.withValue(null);
         }
     };
 
@@ -562,6 +637,20 @@ public abstract class AbstractBucket implements Bucket {
         return probe;
     }
 
+    @Override
+    public BatchConsumptionProbe tryConsumeBatch(long[] itemCosts) {
+        checkItemCosts(itemCosts);
+
+        BatchConsumptionProbe probe = tryConsumeBatchImpl(itemCosts);
+        if (probe.getConsumedTokens() > 0) {
+            listener.onConsumed(probe.getConsumedTokens());
+        }
+        if (!probe.isAllAdmitted()) {
+            listener.onRejected(sumOfRejectedCosts(itemCosts, probe.getAdmittedItems()));
+        }
+        return probe;
+    }
+
     @Override
     public EstimationProbe estimateAbilityToConsume(long numTokens) {
         checkTokensToConsume(numTokens);
@@ -591,6 +680,75 @@ public abstract class AbstractBucket implements Bucket {
         return listener;
     }
 
+    protected FifoWaitQueue getWaitQueue() {
+        return waitQueue;
+    }
+
+    private FifoWaitQueue.Reservation<Long> reserveAndCalculateTimeToSleep(long tokensToConsume, long maxWaitTimeNanos) {
+        if (waitQueue == null) {
+            long nanosToSleep = reserveAndCalculateTimeToSleepImpl(tokensToConsume, maxWaitTimeNanos);
+            if (nanosToSleep == 0L) {
+                return NOTHING_TO_WAIT;
+            }
+            if (nanosToSleep == INFINITY_DURATION) {
+                return REJECTED;
+            }
+            return new FifoWaitQueue.Reservation<>(null, nanosToSleep, null);
+        }
+        if (!waitQueue.tryEnter(tokensToConsume)) {
+            if (maxWaitTimeNanos == INFINITY_DURATION) {
+                throw BucketExceptions.waitQueueOverflow();
+            }
+            return REJECTED;
+        }
+        return waitQueue.reserve(tokensToConsume, () -> reserveAndCalculateTimeToSleepImpl(tokensToConsume, maxWaitTimeNanos), Long::longValue);
+    }
+
+    private FifoWaitQueue.Reservation<VerboseResult<Long>> reserveAndCalculateTimeToSleepVerbose(long tokensToConsume, long maxWaitTimeNanos) {
+        if (waitQueue == null) {
+            VerboseResult<Long> nanosToSleepVerbose = reserveAndCalculateTimeToSleepVerboseImpl(tokensToConsume, maxWaitTimeNanos);
+            return new FifoWaitQueue.Reservation<>(nanosToSleepVerbose, nanosToSleepVerbose.getValue(), null);
+        }
+        if (!waitQueue.tryEnter(tokensToConsume)) {
+            if (maxWaitTimeNanos == INFINITY_DURATION) {
+                throw BucketExceptions.waitQueueOverflow();
+            }
+            return new FifoWaitQueue.Reservation<>(getAvailableTokensVerboseImpl().withValue(INFINITY_DURATION), INFINITY_DURATION, null);
+        }
+        return waitQueue.reserve(tokensToConsume, () -> reserveAndCalculateTimeToSleepVerboseImpl(tokensToConsume, maxWaitTimeNanos), VerboseResult::getValue);
+    }
+
+    private void park(FifoWaitQueue.Reservation<?> reservation, BlockingStrategy blockingStrategy) throws InterruptedException {
+        if (reservation.waiter == null) {
+            blockingStrategy.park(reservation.nanosToSleep);
+        } else {
+            waitQueue.park(reservation.waiter, blockingStrategy);
+        }
+    }
+
+    private void parkUninterruptibly(FifoWaitQueue.Reservation<?> reservation, UninterruptibleBlockingStrategy blockingStrategy) {
+        if (reservation.waiter == null) {
+            blockingStrategy.parkUninterruptibly(reservation.nanosToSleep);
+        } else {
+            waitQueue.parkUninterruptibly(reservation.waiter, blockingStrategy);
+        }
+    }
+
+    // releases the place in queue of waiter that failed before reaching park or schedule, so it does not block the waiters behind it
+    private void abandon(FifoWaitQueue.Reservation<?> reservation) {
+        if (reservation != null && reservation.waiter != null) {
+            waitQueue.abandon(reservation.waiter);
+        }
+    }
+
+    private void schedule(FifoWaitQueue.Reservation<?> reservation, ScheduledExecutorService scheduler, CompletableFuture<?> resultFuture, Runnable delayedCompletion) {
+        if (reservation.waiter == null) {
+            scheduler.schedule(delayedCompletion, reservation.nanosToSleep, TimeUnit.NANOSECONDS);
+        } else {
+            waitQueue.schedule(reservation.waiter, scheduler, resultFuture, delayedCompletion);
+        }
+    }
+
     public static <T> CompletableFuture<T> completedFuture(Supplier<T> supplier) {
         try {
             return CompletableFuture.completedFuture(supplier.get());
@@ -607,4 +765,15 @@ public abstract class AbstractBucket implements Bucket {
         return fail;
     }
 
+    public static long sumOfRejectedCosts(long[] itemCosts, int admittedItems) {
+        long rejectedTokens = 0;
+        for (int i = admittedItems; i < itemCosts.length; i++) {
+            rejectedTokens += itemCosts[i];
+            if (rejectedTokens < 0) {
+                return Long.MAX_VALUE;
+            }
+        }
+        return rejectedTokens;
+    }
+
 }
@@ -0,0 +1,261 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j;
+
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import io.github.bucket4j.distributed.serialization.DeserializationAdapter;
+import io.github.bucket4j.distributed.serialization.Scope;
+import io.github.bucket4j.distributed.serialization.SerializationAdapter;
+import io.github.bucket4j.distributed.serialization.SerializationHandle;
+import io.github.bucket4j.distributed.versioning.Version;
+import io.github.bucket4j.distributed.versioning.Versions;
+import io.github.bucket4j.util.ComparableByContent;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.github.bucket4j.distributed.versioning.Versions.v_8_15_0;
+
+/**
+ * Describes the result of batch consumption: how many items from the head of batch were admitted,
+ * how many tokens were consumed for them, tokens remaining in the bucket
+ * and time required to refill enough tokens for the first rejected item.
+ *
+ * @see Bucket#tryConsumeBatch(long[])
+ * @see AsyncBucketProxy#tryConsumeBatch(long[])
+ */
+public class BatchConsumptionProbe implements ComparableByContent<BatchConsumptionProbe> {
+
+    private final int admittedItems;
+    private final int rejectedItems;
+    private final long consumedTokens;
+    private final long remainingTokens;
+    private final long nanosToWaitForRefill;
+    private final long nanosToWaitForReset;
+
+    public static final SerializationHandle<BatchConsumptionProbe> SERIALIZATION_HANDLE = new SerializationHandle<>() {
+        @Override
+        public <S> BatchConsumptionProbe deserialize(DeserializationAdapter<S> adapter, S input) throws IOException {
+            int formatNumber = adapter.readInt(input);
+            Versions.check(formatNumber, v_8_15_0, v_8_15_0);
+
+            int admittedItems = adapter.readInt(input);
+            int rejectedItems = adapter.readInt(input);
+            long consumedTokens = adapter.readLong(input);
+            long remainingTokens = adapter.readLong(input);
+            long nanosToWaitForRefill = adapter.readLong(input);
+            long nanosToWaitForReset = adapter.readLong(input);
+
+            return new BatchConsumptionProbe(admittedItems, rejectedItems, consumedTokens, remainingTokens, nanosToWaitForRefill, nanosToWaitForReset);
+        }
+
+        @Override
+        public <O> void serialize(SerializationAdapter<O> adapter, O output, BatchConsumptionProbe probe, Version backwardCompatibilityVersion, Scope scope) throws IOException {
+            adapter.writeInt(output, v_8_15_0.getNumber());
+
+            adapter.writeInt(output, probe.admittedItems);
+            adapter.writeInt(output, probe.rejectedItems);
+            adapter.writeLong(output, probe.consumedTokens);
+            adapter.writeLong(output, probe.remainingTokens);
+            adapter.writeLong(output, probe.nanosToWaitForRefill);
+            adapter.writeLong(output, probe.nanosToWaitForReset);
+        }
+
+        @Override
+        public int getTypeId() {
+            return 20;
+        }
+
+        @Override
+        public Class<BatchConsumptionProbe> getSerializedType() {
+            return BatchConsumptionProbe.class;
+        }
+
+        @Override
+        public BatchConsumptionProbe fromJsonCompatibleSnapshot(Map<String, Object> snapshot) {
+            int formatNumber = readIntValue(snapshot, "version");
+            Versions.check(formatNumber, v_8_15_0, v_8_15_0);
+
+            int admittedItems = readIntValue(snapshot, "admittedItems");
+            int rejectedItems = readIntValue(snapshot, "rejectedItems");
+            long consumedTokens = readLongValue(snapshot, "consumedTokens");
+            long remainingTokens = readLongValue(snapshot, "remainingTokens");
+            long nanosToWaitForRefill = readLongValue(snapshot, "nanosToWaitForRefill");
+            long nanosToWaitForReset = readLongValue(snapshot, "nanosToWaitForReset");
+
+            return new BatchConsumptionProbe(admittedItems, rejectedItems, consumedTokens, remainingTokens, nanosToWaitForRefill, nanosToWaitForReset);
+        }
+
+        @Override
+        public Map<String, Object> toJsonCompatibleSnapshot(BatchConsumptionProbe probe, Version backwardCompatibilityVersion, Scope scope) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("version", v_8_15_0.getNumber());
+            result.put("admittedItems", probe.admittedItems);
+            result.put("rejectedItems", probe.rejectedItems);
+            result.put("consumedTokens", probe.consumedTokens);
+            result.put("remainingTokens", probe.remainingTokens);
+            result.put("nanosToWaitForRefill", probe.nanosToWaitForRefill);
+            result.put("nanosToWaitForReset", probe.nanosToWaitForReset);
+            return result;
+        }
+
+        @Override
+        public String getTypeName() {
+            return "BatchConsumptionProbe";
+        }
+
+    };
+
+    /**
+     * Refills the {@code state}, consumes tokens for the longest prefix of batch that fits into available tokens
+     * and describes the result. This is the single implementation of batch admission that is shared by local buckets and remote command.
+     *
+     * @param state the state to consume from, it is modified in place
+     * @param itemCosts the costs of items in the batch
+     * @param currentTimeNanos current time in nanoseconds
+     *
+     * @return the probe which describes how many items were admitted
+     */
+    public static BatchConsumptionProbe consumePrefix(BucketState state, long[] itemCosts, long currentTimeNanos) {
+        state.refillAllBandwidth(currentTimeNanos);
+        long availableToConsume = state.getAvailableTokens();
+        int admittedItems = 0;
+        long tokensToConsume = 0;
+        while (admittedItems < itemCosts.length && itemCosts[admittedItems] <= availableToConsume - tokensToConsume) {
+            tokensToConsume += itemCosts[admittedItems++];
+        }
+        if (tokensToConsume > 0) {
+            state.consume(tokensToConsume);
+        }
+
+        long remainingTokens = availableToConsume - tokensToConsume;
+        long nanosToWaitForReset = state.calculateFullRefillingTime(currentTimeNanos);
+        if (admittedItems == itemCosts.length) {
+            return admittedAll(admittedItems, tokensToConsume, remainingTokens, nanosToWaitForReset);
+        }
+        long nanosToWaitForRefill = state.calculateDelayNanosAfterWillBePossibleToConsume(itemCosts[admittedItems], currentTimeNanos, true);
+        return admittedPrefix(admittedItems, itemCosts.length - admittedItems, tokensToConsume, remainingTokens, nanosToWaitForRefill, nanosToWaitForReset);
+    }
+
+    public static BatchConsumptionProbe admittedAll(int items, long consumedTokens, long remainingTokens, long nanosToWaitForReset) {
+        return new BatchConsumptionProbe(items, 0, consumedTokens, remainingTokens, 0, nanosToWaitForReset);
+    }
+
+    public static BatchConsumptionProbe admittedPrefix(int admittedItems, int rejectedItems, long consumedTokens, long remainingTokens, long nanosToWaitForRefill, long nanosToWaitForReset) {
+        return new BatchConsumptionProbe(admittedItems, rejectedItems, consumedTokens, remainingTokens, nanosToWaitForRefill, nanosToWaitForReset);
+    }
+
+    private BatchConsumptionProbe(int admittedItems, int rejectedItems, long consumedTokens, long remainingTokens, long nanosToWaitForRefill, long nanosToWaitForReset) {
+        this.admittedItems = admittedItems;
+        this.rejectedItems = rejectedItems;
+        this.consumedTokens = consumedTokens;
+        this.remainingTokens = Math.max(0L, remainingTokens);
+        this.nanosToWaitForRefill = nanosToWaitForRefill;
+        this.nanosToWaitForReset = nanosToWaitForReset;
+    }
+
+    /**
+     * Returns the number of items from the head of batch which were admitted,
+     * items with indexes {@code [0, getAdmittedItems())} can be processed, the rest should be retried later.
+     *
+     * @return the number of admitted items
+     */
+    public int getAdmittedItems() {
+        return admittedItems;
+    }
+
+    /**
+     * Returns the number of items from the tail of batch which were rejected.
+     *
+     * @return the number of rejected items
+     */
+    public int getRejectedItems() {
+        return rejectedItems;
+    }
+
+    /**
+     * Flag describes whether whole batch was admitted.
+     *
+     * @return true if all items of batch were admitted
+     */
+    public boolean isAllAdmitted() {
+        return rejectedItems == 0;
+    }
+
+    /**
+     * Returns the total cost of admitted items, that has been consumed from the bucket.
+     *
+     * @return the number of consumed tokens
+     */
+    public long getConsumedTokens() {
+        return consumedTokens;
+    }
+
+    /**
+     * Return the tokens remaining in the bucket
+     *
+     * @return the tokens remaining in the bucket
+     */
+    public long getRemainingTokens() {
+        return remainingTokens;
+    }
+
+    /**
+     * Returns zero if {@link #isAllAdmitted()} returns true, else time in nanos which need to wait until the cost of first rejected item will be refilled
+     *
+     * @return Zero if {@link #isAllAdmitted()} returns true, else time in nanos which need to wait until the cost of first rejected item will be refilled
+     */
+    public long getNanosToWaitForRefill() {
+        return nanosToWaitForRefill;
+    }
+
+    /**
+     * Time in nanos which need to wait until bucket will be fully refilled to its maximum
+     *
+     * @return time in nanos which need to wait until bucket will be fully refilled to its maximum
+     */
+    public long getNanosToWaitForReset() {
+        return nanosToWaitForReset;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchConsumptionProbe{" +
+                "admittedItems=" + admittedItems +
+                ", rejectedItems=" + rejectedItems +
+                ", consumedTokens=" + consumedTokens +
+                ", remainingTokens=" + remainingTokens +
+                ", nanosToWaitForRefill=" + nanosToWaitForRefill +
+                ", nanosToWaitForReset=" + nanosToWaitForReset +
+                '}';
+    }
+
+    @Override
+    public boolean equalsByContent(BatchConsumptionProbe other) {
+        return admittedItems == other.admittedItems &&
+                rejectedItems == other.rejectedItems &&
+                consumedTokens == other.consumedTokens &&
+                remainingTokens == other.remainingTokens &&
+                nanosToWaitForRefill == other.nanosToWaitForRefill &&
+                nanosToWaitForReset == other.nanosToWaitForReset;
+    }
+
+}
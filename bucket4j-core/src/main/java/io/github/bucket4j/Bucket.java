@@ -103,6 +103,21 @@ public interface Bucket {
      */
     ConsumptionProbe tryConsumeAndReturnRemaining(long numTokens);
 
+    /**
+     * Tries to consume tokens for the batch of items, where each item has its own cost in tokens.
+     *
+     * <p>
+     * Items are admitted in order while the bucket has enough tokens for them, the first item which can not be afforded
+     * stops admission, so admitted items always form the prefix of batch. All admitted items are consumed by single operation,
+     * that is more efficient than calling {@link #tryConsume(long)} for each item separately.
+     *
+     * @param itemCosts The costs of items in tokens, must not be empty, each cost must be a positive number.
+     *
+     * @return {@link BatchConsumptionProbe} which describes how many items were admitted, tokens remaining in the bucket after consumption
+     * and time to wait until the first rejected item can be afforded.
+     */
+    BatchConsumptionProbe tryConsumeBatch(long[] itemCosts);
+
     /**
      * Estimates ability to consume a specified number of tokens.
      *
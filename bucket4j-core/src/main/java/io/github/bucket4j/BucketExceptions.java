@@ -58,6 +58,16 @@ public final class BucketExceptions {
         return new IllegalArgumentException(msg);
     }
 
+    public static IllegalArgumentException nullMathType() {
+        String msg = "Math type can not be null";
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException configurationShouldContainSingleBandwidth(int bandwidthCount) {
+        String msg = MessageFormat.format("Configuration should contain exactly one bandwidth, but contains {0}", bandwidthCount);
+        return new IllegalArgumentException(msg);
+    }
+
     public static IllegalArgumentException nullSynchronizationStrategy() {
         String msg = "Synchronization strategy can not be null";
         return new IllegalArgumentException(msg);
@@ -83,6 +93,17 @@ public final class BucketExceptions {
         return new IllegalArgumentException(msg);
     }
 
+    public static IllegalArgumentException nullBucket() {
+        String msg = "Bucket can not be null";
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveMaxTokensPerRequest(long maxTokensPerRequest) {
+        String pattern = "Max tokens per request should be positive, {0} is wrong value";
+        String msg = MessageFormat.format(pattern, maxTokensPerRequest);
+        return new IllegalArgumentException(msg);
+    }
+
     public static IllegalArgumentException nullConfiguration() {
         String msg = "Configuration can not be null";
         return new IllegalArgumentException(msg);
@@ -163,6 +184,30 @@ public final class BucketExceptions {
         return new IllegalArgumentException(msg);
     }
 
+    public static IllegalArgumentException nonPositiveHalfLifeForEwmaPredictionParameters(long halfLifeNanos) {
+        String pattern = "halfLifeNanos = {0}, halfLifeNanos must be positive";
+        String msg = MessageFormat.format(pattern, halfLifeNanos);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException wrongValueOfMinObservationsForEwmaPredictionParameters(int minObservations) {
+        String pattern = "minObservations = {0}, minObservations must be >= 1";
+        String msg = MessageFormat.format(pattern, minObservations);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException wrongValueOfConfidenceForEwmaPredictionParameters(double confidence) {
+        String pattern = "confidence = {0}, confidence must be positive finite number";
+        String msg = MessageFormat.format(pattern, confidence);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveMaxPredictionErrorTokensForEwmaPredictionParameters(long maxPredictionErrorTokens) {
+        String pattern = "maxPredictionErrorTokens = {0}, maxPredictionErrorTokens must be positive";
+        String msg = MessageFormat.format(pattern, maxPredictionErrorTokens);
+        return new IllegalArgumentException(msg);
+    }
+
     public static IllegalArgumentException restrictionsNotSpecified() {
         String msg = "At list one limited bandwidth should be specified";
         return new IllegalArgumentException(msg);
@@ -213,6 +258,22 @@ public final class BucketExceptions {
         return new IllegalArgumentException(msg);
     }
 
+    public static IllegalArgumentException nonPositiveDemand(long demand) {
+        String pattern = "Requested demand should be positive, {0} is wrong value";
+        String msg = MessageFormat.format(pattern, demand);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nullItemCosts() {
+        String msg = "Item costs must not be null";
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException emptyItemCosts() {
+        String msg = "Item costs must contain at least one item";
+        return new IllegalArgumentException(msg);
+    }
+
     public static IllegalArgumentException nonPositiveTokensLimitToSync(long tokens) {
         String pattern = "Sync threshold tokens should be positive, {0} is wrong waiting period";
         String msg = MessageFormat.format(pattern, tokens);
@@ -260,6 +321,77 @@ public final class BucketExceptions {
         return new IllegalArgumentException(msg);
     }
 
+    public static IllegalArgumentException nonPositiveCompareAndSwapMaxAttempts(int maxAttempts) {
+        String msg = "Max attempts of compare-and-swap " + maxAttempts + " should be positive";
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException wrongCompareAndSwapBackoff(Duration initialBackoff, Duration maxBackoff) {
+        String pattern = "Initial backoff {0} should be positive and should not be greater than max backoff {1}";
+        String msg = MessageFormat.format(pattern, initialBackoff, maxBackoff);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveUnsuccessfulAttemptsBeforeLocking(int unsuccessfulAttempts) {
+        String msg = "Amount of unsuccessful compare-and-swap attempts before locking " + unsuccessfulAttempts + " should be positive";
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveCompareAndSwapStateCacheCapacity(int capacity) {
+        String msg = "Capacity of compare-and-swap state cache " + capacity + " should be positive";
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveNearCacheTimeToLive(Duration timeToLive) {
+        String msg = "Near cache time to live " + timeToLive + " should be positive";
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveNearCacheMaxKeys(int maxKeys) {
+        String msg = "Near cache max keys " + maxKeys + " should be positive";
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveMaxWaiters(int maxWaiters) {
+        String msg = "Max waiters " + maxWaiters + " should be positive";
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveMaxQueuedTokens(long maxQueuedTokens) {
+        String msg = "Max queued tokens " + maxQueuedTokens + " should be positive";
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nullWaitQueueParameters() {
+        String msg = "Wait queue parameters can not be null";
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalStateException waitQueueOverflow() {
+        String msg = "Wait queue of bucket is full, request was shed";
+        return new IllegalStateException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveClockResolution(Duration resolution) {
+        String msg = "Clock resolution " + resolution + " should be positive";
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveTimerTickDuration(Duration tickDuration) {
+        String msg = "Timer tick duration " + tickDuration + " should be positive";
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException illegalTimerWheelSize(int wheelSize) {
+        String msg = "Timer wheel size " + wheelSize + " should be positive and not greater than 2^30";
+        return new IllegalArgumentException(msg);
+    }
+
+    public static BucketExecutionException compareAndSwapAttemptsExhausted(int attempts) {
+        String msg = "Compare-and-swap was unsuccessful " + attempts + " times, the limit of attempts has been reached";
+        return new BucketExecutionException(msg);
+    }
+
     public static BucketExecutionException from(Throwable t) {
         if (t instanceof BucketExecutionException b) {
             return b;
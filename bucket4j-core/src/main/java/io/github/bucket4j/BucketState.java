@@ -63,14 +63,28 @@ public interface BucketState {
 
     static BucketState createInitialState(BucketConfiguration configuration, MathType mathType, long currentTimeNanos) {
         return switch (mathType) {
-            case INTEGER_64_BITS -> new BucketState64BitsInteger(configuration, currentTimeNanos);
+            case INTEGER_64_BITS -> createInitialState64BitsInteger(configuration, currentTimeNanos);
+            case IEEE_754 -> new BucketStateIEEE754(configuration, currentTimeNanos);
         };
     }
 
+    private static BucketState createInitialState64BitsInteger(BucketConfiguration configuration, long currentTimeNanos) {
+        int bandwidthCount = configuration.getBandwidths().length;
+        if (bandwidthCount == 1) {
+            return new BucketState64BitsIntegerSingleBandwidth(configuration, currentTimeNanos);
+        } else if (bandwidthCount >= BucketState64BitsIntegerStructOfArrays.MIN_BANDWIDTHS) {
+            return new BucketState64BitsIntegerStructOfArrays(configuration, currentTimeNanos);
+        } else {
+            return new BucketState64BitsInteger(configuration, currentTimeNanos);
+        }
+    }
+
     static <S> BucketState deserialize(DeserializationAdapter<S> adapter, S input) throws IOException {
         int typeId = adapter.readInt(input);
         if (typeId == BucketState64BitsInteger.SERIALIZATION_HANDLE.getTypeId()) {
-            return BucketState64BitsInteger.SERIALIZATION_HANDLE.deserialize(adapter, input);
+            return BucketState64BitsInteger.SERIALIZATION_HANDLE.deserialize(adapter, input).specializeIfPossible();
+        } else if (typeId == BucketStateIEEE754.SERIALIZATION_HANDLE.getTypeId()) {
+            return BucketStateIEEE754.SERIALIZATION_HANDLE.deserialize(adapter, input);
         } else {
             throw new IOException("Unknown typeId=" + typeId);
         }
@@ -79,8 +93,19 @@ public interface BucketState {
     static <O> void serialize(SerializationAdapter<O> adapter, O output, BucketState state, Version backwardCompatibilityVersion, Scope scope) throws IOException {
         switch (state.getMathType()) {
             case INTEGER_64_BITS:
+                // specialized states are written in the same format as general one, so they can be read by any version of library
                 adapter.writeInt(output, BucketState64BitsInteger.SERIALIZATION_HANDLE.getTypeId());
-                BucketState64BitsInteger.SERIALIZATION_HANDLE.serialize(adapter, output, (BucketState64BitsInteger) state, backwardCompatibilityVersion, scope);
+                if (state instanceof BucketState64BitsIntegerSingleBandwidth singleBandwidthState) {
+                    BucketState64BitsIntegerSingleBandwidth.SERIALIZATION_HANDLE.serialize(adapter, output, singleBandwidthState, backwardCompatibilityVersion, scope);
+                } else if (state instanceof BucketState64BitsIntegerStructOfArrays structOfArraysState) {
+                    BucketState64BitsIntegerStructOfArrays.SERIALIZATION_HANDLE.serialize(adapter, output, structOfArraysState, backwardCompatibilityVersion, scope);
+                } else {
+                    BucketState64BitsInteger.SERIALIZATION_HANDLE.serialize(adapter, output, (BucketState64BitsInteger) state, backwardCompatibilityVersion, scope);
+                }
+                break;
+            case IEEE_754:
+                adapter.writeInt(output, BucketStateIEEE754.SERIALIZATION_HANDLE.getTypeId());
+                BucketStateIEEE754.SERIALIZATION_HANDLE.serialize(adapter, output, (BucketStateIEEE754) state, backwardCompatibilityVersion, scope);
                 break;
             default:
                 throw new IOException("Unknown mathType=" + state.getMathType());
@@ -90,7 +115,9 @@ public interface BucketState {
     static BucketState fromJsonCompatibleSnapshot(Map<String, Object> snapshot) throws IOException {
         String type = (String) snapshot.get("type");
         if (BucketState64BitsInteger.SERIALIZATION_HANDLE.getTypeName().equals(type)) {
-            return BucketState64BitsInteger.SERIALIZATION_HANDLE.fromJsonCompatibleSnapshot(snapshot);
+            return BucketState64BitsInteger.SERIALIZATION_HANDLE.fromJsonCompatibleSnapshot(snapshot).specializeIfPossible();
+        } else if (BucketStateIEEE754.SERIALIZATION_HANDLE.getTypeName().equals(type)) {
+            return BucketStateIEEE754.SERIALIZATION_HANDLE.fromJsonCompatibleSnapshot(snapshot);
         } else {
             throw new IOException("Unknown typeName=" + type);
         }
@@ -99,10 +126,22 @@ public interface BucketState {
     static Object toJsonCompatibleSnapshot(BucketState state, Version backwardCompatibilityVersion, Scope scope) throws IOException {
         switch (state.getMathType()) {
             case INTEGER_64_BITS: {
-                Map<String, Object> result = BucketState64BitsInteger.SERIALIZATION_HANDLE.toJsonCompatibleSnapshot((BucketState64BitsInteger) state, backwardCompatibilityVersion, scope);
+                Map<String, Object> result;
+                if (state instanceof BucketState64BitsIntegerSingleBandwidth singleBandwidthState) {
+                    result = BucketState64BitsIntegerSingleBandwidth.SERIALIZATION_HANDLE.toJsonCompatibleSnapshot(singleBandwidthState, backwardCompatibilityVersion, scope);
+                } else if (state instanceof BucketState64BitsIntegerStructOfArrays structOfArraysState) {
+                    result = BucketState64BitsIntegerStructOfArrays.SERIALIZATION_HANDLE.toJsonCompatibleSnapshot(structOfArraysState, backwardCompatibilityVersion, scope);
+                } else {
+                    result = BucketState64BitsInteger.SERIALIZATION_HANDLE.toJsonCompatibleSnapshot((BucketState64BitsInteger) state, backwardCompatibilityVersion, scope);
+                }
                 result.put("type", BucketState64BitsInteger.SERIALIZATION_HANDLE.getTypeName());
                 return result;
             }
+            case IEEE_754: {
+                Map<String, Object> result = BucketStateIEEE754.SERIALIZATION_HANDLE.toJsonCompatibleSnapshot((BucketStateIEEE754) state, backwardCompatibilityVersion, scope);
+                result.put("type", BucketStateIEEE754.SERIALIZATION_HANDLE.getTypeName());
+                return result;
+            }
             default:
                 throw new IOException("Unknown mathType=" + state.getMathType());
         }
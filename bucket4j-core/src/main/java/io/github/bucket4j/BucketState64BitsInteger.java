@@ -40,10 +40,17 @@ public class BucketState64BitsInteger implements BucketState, ComparableByConten
 
     private static final int BANDWIDTH_SIZE = 3;
 
+    static final long NO_SKIPPED_REFILL = Long.MIN_VALUE;
+
     long[] stateData;
 
     private BucketConfiguration configuration;
 
+    // refill is skipped while current time is less than watermark, because no bandwidth can be changed by refill before it
+    private long refillWatermarkNanos = Long.MIN_VALUE;
+    // time of the latest skipped refill, that still needs to be applied to lastRefillTimeNanos of full bandwidths
+    private long skippedRefillTimeNanos = NO_SKIPPED_REFILL;
+
     public static final SerializationHandle<BucketState64BitsInteger> SERIALIZATION_HANDLE = new SerializationHandle<>() {
         @Override
         public <S> BucketState64BitsInteger deserialize(DeserializationAdapter<S> adapter, S input) throws IOException {
@@ -58,7 +65,7 @@ public class BucketState64BitsInteger implements BucketState, ComparableByConten
         public <O> void serialize(SerializationAdapter<O> adapter, O output, BucketState64BitsInteger state, Version backwardCompatibilityVersion, Scope scope) throws IOException {
             adapter.writeInt(output, v_7_0_0.getNumber());
 
-            adapter.writeLongArray(output, state.stateData);
+            adapter.writeLongArray(output, state.getStateDataWithSkippedRefill());
         }
 
         @Override
@@ -88,7 +95,7 @@ public class BucketState64BitsInteger implements BucketState, ComparableByConten
         public Map<String, Object> toJsonCompatibleSnapshot(BucketState64BitsInteger state, Version backwardCompatibilityVersion, Scope scope) throws IOException {
             Map<String, Object> result = new HashMap<>();
             result.put("version", v_7_0_0.getNumber());
-            result.put("stateData", state.stateData);
+            result.put("stateData", state.getStateDataWithSkippedRefill());
             result.put("configuration", BucketConfiguration.SERIALIZATION_HANDLE.toJsonCompatibleSnapshot(state.configuration, backwardCompatibilityVersion, scope));
             return result;
         }
@@ -102,9 +109,11 @@ public class BucketState64BitsInteger implements BucketState, ComparableByConten
     private BucketState64BitsInteger(BucketState64BitsInteger otherState) {
         this.stateData = otherState.stateData.clone();
         this.configuration = otherState.configuration;
+        this.refillWatermarkNanos = otherState.refillWatermarkNanos;
+        this.skippedRefillTimeNanos = otherState.skippedRefillTimeNanos;
     }
 
-    private BucketState64BitsInteger(long[] stateData) {
+    BucketState64BitsInteger(long[] stateData) {
         this.stateData = stateData;
     }
 
@@ -137,9 +146,10 @@ public class BucketState64BitsInteger implements BucketState, ComparableByConten
     @Override
     public BucketState replaceConfiguration(BucketConfiguration newConfiguration,
                                             TokensInheritanceStrategy tokensInheritanceStrategy, long currentTimeNanos) {
+        applySkippedRefill();
         BucketConfiguration previousConfiguration = this.configuration;
         if (tokensInheritanceStrategy == TokensInheritanceStrategy.RESET) {
-            return new BucketState64BitsInteger(newConfiguration, currentTimeNanos);
+            return BucketState.createInitialState(newConfiguration, MathType.INTEGER_64_BITS, currentTimeNanos);
         }
 
         boolean nullIdComparisonCanBeApplied = countOfBandwidthsWithNullIdentifiers(previousConfiguration) < 2
@@ -182,7 +192,28 @@ public class BucketState64BitsInteger implements BucketState, ComparableByConten
                 default: throw new IllegalStateException("Should never reach there");
             }
         }
-        return newState;
+        return newState.specializeIfPossible();
+    }
+
+    /**
+     * Returns {@link BucketState64BitsIntegerSingleBandwidth} when this state describes exactly one bandwidth,
+     * {@link BucketState64BitsIntegerStructOfArrays} when this state describes many bandwidths, otherwise returns this state.
+     */
+    BucketState specializeIfPossible() {
+        int bandwidthCount = stateData.length / BANDWIDTH_SIZE;
+        if (bandwidthCount == 1) {
+            BucketState64BitsIntegerSingleBandwidth state = new BucketState64BitsIntegerSingleBandwidth(stateData[0], stateData[1], stateData[2]);
+            if (configuration != null) {
+                state.setConfiguration(configuration);
+            }
+            return state;
+        }
+        if (bandwidthCount >= BucketState64BitsIntegerStructOfArrays.MIN_BANDWIDTHS) {
+            BucketState64BitsIntegerStructOfArrays state = new BucketState64BitsIntegerStructOfArrays(stateData);
+            state.setConfiguration(configuration);
+            return state;
+        }
+        return this;
     }
 
     private void replaceBandwidthAsIs(BucketState64BitsInteger newState, int newBandwidthIndex, Bandwidth newBandwidth,
@@ -303,6 +334,8 @@ public class BucketState64BitsInteger implements BucketState, ComparableByConten
             this.configuration = sourceState64BitsInteger.configuration;
             this.stateData = sourceState64BitsInteger.stateData.clone();
         }
+        this.refillWatermarkNanos = sourceState64BitsInteger.refillWatermarkNanos;
+        this.skippedRefillTimeNanos = sourceState64BitsInteger.skippedRefillTimeNanos;
     }
 
     @Override
@@ -316,6 +349,9 @@ public class BucketState64BitsInteger implements BucketState, ComparableByConten
 
     @Override
     public void consume(long toConsume) {
+        // bandwidths are not full anymore, so refill can not be skipped
+        applySkippedRefill();
+        refillWatermarkNanos = Long.MIN_VALUE;
         for (int i = 0; i < configuration.getBandwidths().length; i++) {
             consume(i, toConsume);
         }
@@ -323,6 +359,10 @@ public class BucketState64BitsInteger implements BucketState, ComparableByConten
 
     @Override
     public long calculateDelayNanosAfterWillBePossibleToConsume(long tokensToConsume, long currentTimeNanos, boolean checkTokensToConsumeShouldBeLessThenCapacity) {
+        if (skippedRefillTimeNanos != NO_SKIPPED_REFILL && tokensToConsume > getAvailableTokens()) {
+            // time of last refill is needed only to calculate the deficit of intervally refilled bandwidth
+            applySkippedRefill();
+        }
         Bandwidth[] bandwidths = configuration.getBandwidths();
         long delayAfterWillBePossibleToConsume = calculateDelayNanosAfterWillBePossibleToConsume(0, bandwidths[0], tokensToConsume, currentTimeNanos, checkTokensToConsumeShouldBeLessThenCapacity);
         for (int i = 1; i < bandwidths.length; i++) {
@@ -335,10 +375,61 @@ public class BucketState64BitsInteger implements BucketState, ComparableByConten
 
     @Override
     public void refillAllBandwidth(long currentTimeNanos) {
+        if (currentTimeNanos < refillWatermarkNanos) {
+            if (currentTimeNanos > skippedRefillTimeNanos) {
+                skippedRefillTimeNanos = currentTimeNanos;
+            }
+            return;
+        }
+        skippedRefillTimeNanos = NO_SKIPPED_REFILL;
+
         Bandwidth[] bandwidths = configuration.getBandwidths();
+        long refillWatermarkNanos = Long.MAX_VALUE;
         for (int i = 0; i < bandwidths.length; i++) {
-            refill(i, bandwidths[i], currentTimeNanos);
+            Bandwidth bandwidth = bandwidths[i];
+            refill(i, bandwidth, currentTimeNanos);
+            if (refillWatermarkNanos != Long.MIN_VALUE) {
+                refillWatermarkNanos = Math.min(refillWatermarkNanos, calculateRefillWatermark(bandwidth, getLastRefillTimeNanos(i), getCurrentSize(i)));
+            }
+        }
+        this.refillWatermarkNanos = refillWatermarkNanos;
+    }
+
+    /**
+     * Returns the time before which refill can not change the bandwidth, so refill can be skipped.
+     * Full bandwidth can not be changed by refill at all, and its last refill time is only needed after consumption,
+     * intervally refilled bandwidth can not be changed before the end of current period,
+     * greedy bandwidth accumulates partially refilled tokens continuously, so refill can not be skipped.
+     */
+    static long calculateRefillWatermark(Bandwidth bandwidth, long lastRefillTimeNanos, long currentSize) {
+        if (currentSize >= bandwidth.capacity) {
+            return Long.MAX_VALUE;
+        }
+        if (!bandwidth.refillIntervally) {
+            return Long.MIN_VALUE;
+        }
+        long timeOfNextRefillNanos = lastRefillTimeNanos + bandwidth.refillPeriodNanos;
+        return timeOfNextRefillNanos < lastRefillTimeNanos ? Long.MAX_VALUE : timeOfNextRefillNanos;
+    }
+
+    private void applySkippedRefill() {
+        if (skippedRefillTimeNanos != NO_SKIPPED_REFILL) {
+            long currentTimeNanos = skippedRefillTimeNanos;
+            skippedRefillTimeNanos = NO_SKIPPED_REFILL;
+            Bandwidth[] bandwidths = configuration.getBandwidths();
+            for (int i = 0; i < bandwidths.length; i++) {
+                refill(i, bandwidths[i], currentTimeNanos);
+            }
+        }
+    }
+
+    private long[] getStateDataWithSkippedRefill() {
+        if (skippedRefillTimeNanos == NO_SKIPPED_REFILL) {
+            return stateData;
         }
+        BucketState64BitsInteger copy = new BucketState64BitsInteger(this);
+        copy.applySkippedRefill();
+        return copy.stateData;
     }
 
     @Override
@@ -365,14 +456,14 @@ public class BucketState64BitsInteger implements BucketState, ComparableByConten
         }
     }
 
-    private long calculateLastRefillTimeNanos(Bandwidth bandwidth, long currentTimeNanos) {
+    static long calculateLastRefillTimeNanos(Bandwidth bandwidth, long currentTimeNanos) {
         if (!bandwidth.isIntervallyAligned()) {
             return currentTimeNanos;
         }
         return bandwidth.timeOfFirstRefillMillis * 1_000_000 - bandwidth.refillPeriodNanos;
     }
 
-    private long calculateInitialTokens(Bandwidth bandwidth, long currentTimeNanos) {
+    static long calculateInitialTokens(Bandwidth bandwidth, long currentTimeNanos) {
         if (!bandwidth.useAdaptiveInitialTokens) {
             return bandwidth.initialTokens;
         }
@@ -633,13 +724,13 @@ public class BucketState64BitsInteger implements BucketState, ComparableByConten
     @Override
     public String toString() {
         return "BucketState{" +
-                "bandwidthStates=" + Arrays.toString(stateData) +
+                "bandwidthStates=" + Arrays.toString(getStateDataWithSkippedRefill()) +
                 '}';
     }
 
     // just a copy of JDK method Math#multiplyExact,
     // but instead of throwing exception it returns Long.MAX_VALUE in case of overflow
-    private static long multiplyExactOrReturnMaxValue(long x, long y) {
+    static long multiplyExactOrReturnMaxValue(long x, long y) {
         long r = x * y;
         long ax = Math.abs(x);
         long ay = Math.abs(y);
@@ -656,7 +747,7 @@ public class BucketState64BitsInteger implements BucketState, ComparableByConten
 
     @Override
     public boolean equalsByContent(BucketState64BitsInteger other) {
-        return Arrays.equals(stateData, other.stateData);
+        return Arrays.equals(getStateDataWithSkippedRefill(), other.getStateDataWithSkippedRefill());
     }
 
 }
@@ -0,0 +1,426 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j;
+
+import io.github.bucket4j.distributed.serialization.DeserializationAdapter;
+import io.github.bucket4j.distributed.serialization.Scope;
+import io.github.bucket4j.distributed.serialization.SerializationAdapter;
+import io.github.bucket4j.distributed.serialization.SerializationHandle;
+import io.github.bucket4j.distributed.versioning.Version;
+import io.github.bucket4j.distributed.versioning.Versions;
+import io.github.bucket4j.util.ComparableByContent;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.github.bucket4j.BucketState64BitsInteger.NO_SKIPPED_REFILL;
+import static io.github.bucket4j.BucketState64BitsInteger.calculateInitialTokens;
+import static io.github.bucket4j.BucketState64BitsInteger.calculateLastRefillTimeNanos;
+import static io.github.bucket4j.BucketState64BitsInteger.calculateRefillWatermark;
+import static io.github.bucket4j.BucketState64BitsInteger.multiplyExactOrReturnMaxValue;
+import static io.github.bucket4j.distributed.versioning.Versions.v_7_0_0;
+
+/**
+ * Implementation of {@link BucketState} for {@link MathType#INTEGER_64_BITS} specialized for configurations with exactly one bandwidth,
+ * that is the most popular case in practice.
+ *
+ * <p>
+ * The arithmetic is the same as in {@link BucketState64BitsInteger}, but the state is kept in three plain fields instead of array,
+ * so there are no loops, no index calculations and no array bounds checks on the hot path, and copying of state for CAS does not allocate an array.
+ * {@link BucketState#createInitialState(BucketConfiguration, MathType, long)} selects this implementation automatically.
+ *
+ * <p>
+ * In binary and JSON form this state is written exactly as {@link BucketState64BitsInteger} with one bandwidth,
+ * so the data stays readable by the nodes which do not know about this class.
+ */
+public class BucketState64BitsIntegerSingleBandwidth implements BucketState, ComparableByContent<BucketState64BitsIntegerSingleBandwidth> {
+
+    private long lastRefillTimeNanos;
+    private long currentSize;
+    private long roundingError;
+
+    private BucketConfiguration configuration;
+    private Bandwidth bandwidth;
+
+    // refill is skipped while current time is less than watermark, because bandwidth can not be changed by refill before it
+    private long refillWatermarkNanos = Long.MIN_VALUE;
+    // time of the latest skipped refill, that still needs to be applied to lastRefillTimeNanos of full bandwidth
+    private long skippedRefillTimeNanos = NO_SKIPPED_REFILL;
+
+    public static final SerializationHandle<BucketState64BitsIntegerSingleBandwidth> SERIALIZATION_HANDLE = new SerializationHandle<>() {
+        @Override
+        public <S> BucketState64BitsIntegerSingleBandwidth deserialize(DeserializationAdapter<S> adapter, S input) throws IOException {
+            int formatNumber = adapter.readInt(input);
+            Versions.check(formatNumber, v_7_0_0, v_7_0_0);
+
+            long[] data = adapter.readLongArray(input);
+            return fromStateData(data);
+        }
+
+        @Override
+        public <O> void serialize(SerializationAdapter<O> adapter, O output, BucketState64BitsIntegerSingleBandwidth state, Version backwardCompatibilityVersion, Scope scope) throws IOException {
+            adapter.writeInt(output, v_7_0_0.getNumber());
+
+            adapter.writeLongArray(output, state.toStateData());
+        }
+
+        @Override
+        public int getTypeId() {
+            return 7;
+        }
+
+        @Override
+        public Class<BucketState64BitsIntegerSingleBandwidth> getSerializedType() {
+            return BucketState64BitsIntegerSingleBandwidth.class;
+        }
+
+        @Override
+        public BucketState64BitsIntegerSingleBandwidth fromJsonCompatibleSnapshot(Map<String, Object> snapshot) throws IOException {
+            int formatNumber = readIntValue(snapshot, "version");
+            Versions.check(formatNumber, v_7_0_0, v_7_0_0);
+
+            long[] stateDate = readLongArray(snapshot, "stateData");
+            Map<String, Object> configurationSnapshot = (Map<String, Object>) snapshot.get("configuration");
+            BucketConfiguration configuration = BucketConfiguration.SERIALIZATION_HANDLE.fromJsonCompatibleSnapshot(configurationSnapshot);
+            BucketState64BitsIntegerSingleBandwidth state = fromStateData(stateDate);
+            state.setConfiguration(configuration);
+            return state;
+        }
+
+        @Override
+        public Map<String, Object> toJsonCompatibleSnapshot(BucketState64BitsIntegerSingleBandwidth state, Version backwardCompatibilityVersion, Scope scope) throws IOException {
+            Map<String, Object> result = new HashMap<>();
+            result.put("version", v_7_0_0.getNumber());
+            result.put("stateData", state.toStateData());
+            result.put("configuration", BucketConfiguration.SERIALIZATION_HANDLE.toJsonCompatibleSnapshot(state.configuration, backwardCompatibilityVersion, scope));
+            return result;
+        }
+
+        @Override
+        public String getTypeName() {
+            return "BucketState64BitsIntegerSingleBandwidth";
+        }
+    };
+
+    BucketState64BitsIntegerSingleBandwidth(long lastRefillTimeNanos, long currentSize, long roundingError) {
+        this.lastRefillTimeNanos = lastRefillTimeNanos;
+        this.currentSize = currentSize;
+        this.roundingError = roundingError;
+    }
+
+    private BucketState64BitsIntegerSingleBandwidth(BucketState64BitsIntegerSingleBandwidth otherState) {
+        this.lastRefillTimeNanos = otherState.lastRefillTimeNanos;
+        this.currentSize = otherState.currentSize;
+        this.roundingError = otherState.roundingError;
+        this.configuration = otherState.configuration;
+        this.bandwidth = otherState.bandwidth;
+        this.refillWatermarkNanos = otherState.refillWatermarkNanos;
+        this.skippedRefillTimeNanos = otherState.skippedRefillTimeNanos;
+    }
+
+    public BucketState64BitsIntegerSingleBandwidth(BucketConfiguration configuration, long currentTimeNanos) {
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        if (bandwidths.length != 1) {
+            throw BucketExceptions.configurationShouldContainSingleBandwidth(bandwidths.length);
+        }
+        this.configuration = configuration;
+        this.bandwidth = bandwidths[0];
+        this.currentSize = calculateInitialTokens(bandwidth, currentTimeNanos);
+        this.lastRefillTimeNanos = calculateLastRefillTimeNanos(bandwidth, currentTimeNanos);
+    }
+
+    private static BucketState64BitsIntegerSingleBandwidth fromStateData(long[] stateData) throws IOException {
+        if (stateData.length != 3) {
+            throw new IOException("Single bandwidth state should consist from 3 numbers, but " + stateData.length + " found");
+        }
+        return new BucketState64BitsIntegerSingleBandwidth(stateData[0], stateData[1], stateData[2]);
+    }
+
+    private long[] toStateData() {
+        if (skippedRefillTimeNanos != NO_SKIPPED_REFILL) {
+            BucketState64BitsIntegerSingleBandwidth copy = new BucketState64BitsIntegerSingleBandwidth(this);
+            copy.applySkippedRefill();
+            return copy.toStateData();
+        }
+        return new long[] {lastRefillTimeNanos, currentSize, roundingError};
+    }
+
+    @Override
+    public BucketState copy() {
+        return new BucketState64BitsIntegerSingleBandwidth(this);
+    }
+
+    @Override
+    public BucketConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    @Override
+    public void setConfiguration(BucketConfiguration configuration) {
+        this.configuration = configuration;
+        this.bandwidth = configuration.getBandwidths()[0];
+    }
+
+    @Override
+    public BucketState replaceConfiguration(BucketConfiguration newConfiguration, TokensInheritanceStrategy tokensInheritanceStrategy, long currentTimeNanos) {
+        // replacement of configuration is rare operation, so there is no reason to duplicate the inheritance rules
+        BucketState64BitsInteger generalState = new BucketState64BitsInteger(toStateData());
+        generalState.setConfiguration(configuration);
+        return generalState.replaceConfiguration(newConfiguration, tokensInheritanceStrategy, currentTimeNanos);
+    }
+
+    @Override
+    public void copyStateFrom(BucketState sourceState) {
+        BucketState64BitsIntegerSingleBandwidth sourceSingleBandwidthState = (BucketState64BitsIntegerSingleBandwidth) sourceState;
+        this.lastRefillTimeNanos = sourceSingleBandwidthState.lastRefillTimeNanos;
+        this.currentSize = sourceSingleBandwidthState.currentSize;
+        this.roundingError = sourceSingleBandwidthState.roundingError;
+        this.configuration = sourceSingleBandwidthState.configuration;
+        this.bandwidth = sourceSingleBandwidthState.bandwidth;
+        this.refillWatermarkNanos = sourceSingleBandwidthState.refillWatermarkNanos;
+        this.skippedRefillTimeNanos = sourceSingleBandwidthState.skippedRefillTimeNanos;
+    }
+
+    @Override
+    public long getAvailableTokens() {
+        return currentSize;
+    }
+
+    @Override
+    public void consume(long toConsume) {
+        // bandwidth is not full anymore, so refill can not be skipped
+        applySkippedRefill();
+        refillWatermarkNanos = Long.MIN_VALUE;
+        currentSize -= toConsume;
+    }
+
+    @Override
+    public long calculateDelayNanosAfterWillBePossibleToConsume(long tokensToConsume, long currentTimeNanos, boolean checkTokensToConsumeShouldBeLessThenCapacity) {
+        if (skippedRefillTimeNanos != NO_SKIPPED_REFILL && tokensToConsume > getAvailableTokens()) {
+            // time of last refill is needed only to calculate the deficit of intervally refilled bandwidth
+            applySkippedRefill();
+        }
+        if (checkTokensToConsumeShouldBeLessThenCapacity && tokensToConsume > bandwidth.capacity) {
+            return Long.MAX_VALUE;
+        }
+        if (tokensToConsume <= currentSize) {
+            return 0;
+        }
+        long deficit = tokensToConsume - currentSize;
+        if (deficit <= 0) {
+            // math overflow happen
+            return Long.MAX_VALUE;
+        }
+        return calculateDelayNanosToCloseDeficit(deficit, currentTimeNanos);
+    }
+
+    @Override
+    public long calculateFullRefillingTime(long currentTimeNanos) {
+        if (currentSize >= bandwidth.capacity) {
+            return 0L;
+        }
+        return calculateDelayNanosToCloseDeficit(bandwidth.capacity - currentSize, currentTimeNanos);
+    }
+
+    @Override
+    public void refillAllBandwidth(long currentTimeNanos) {
+        if (currentTimeNanos < refillWatermarkNanos) {
+            if (currentTimeNanos > skippedRefillTimeNanos) {
+                skippedRefillTimeNanos = currentTimeNanos;
+            }
+            return;
+        }
+        skippedRefillTimeNanos = NO_SKIPPED_REFILL;
+        refill(currentTimeNanos);
+        refillWatermarkNanos = calculateRefillWatermark(bandwidth, lastRefillTimeNanos, currentSize);
+    }
+
+    private void applySkippedRefill() {
+        if (skippedRefillTimeNanos != NO_SKIPPED_REFILL) {
+            long currentTimeNanos = skippedRefillTimeNanos;
+            skippedRefillTimeNanos = NO_SKIPPED_REFILL;
+            refill(currentTimeNanos);
+        }
+    }
+
+    private void refill(long currentTimeNanos) {
+        final long previousRefillNanos = lastRefillTimeNanos;
+        if (currentTimeNanos <= previousRefillNanos) {
+            return;
+        }
+
+        final Bandwidth bandwidth = this.bandwidth;
+        final long refillPeriodNanos = bandwidth.refillPeriodNanos;
+        if (bandwidth.refillIntervally) {
+            long incompleteIntervalCorrection = (currentTimeNanos - previousRefillNanos) % refillPeriodNanos;
+            currentTimeNanos -= incompleteIntervalCorrection;
+            if (currentTimeNanos <= previousRefillNanos) {
+                return;
+            }
+        }
+        lastRefillTimeNanos = currentTimeNanos;
+
+        final long capacity = bandwidth.capacity;
+        final long refillTokens = bandwidth.refillTokens;
+        final long currentSize = this.currentSize;
+        if (currentSize >= capacity) {
+            // can come here if forceAddTokens has been used
+            return;
+        }
+
+        long durationSinceLastRefillNanos = currentTimeNanos - previousRefillNanos;
+        long newSize = currentSize;
+
+        if (durationSinceLastRefillNanos > refillPeriodNanos) {
+            long elapsedPeriods = durationSinceLastRefillNanos / refillPeriodNanos;
+            newSize += elapsedPeriods * refillTokens;
+            if (newSize > capacity || newSize < currentSize) {
+                // newSize < currentSize means that arithmetic overflow happens and tokens reached Long.MAX_VALUE
+                resetBandwidth(capacity);
+                return;
+            }
+            durationSinceLastRefillNanos -= elapsedPeriods * refillPeriodNanos;
+        }
+
+        long roundingError = this.roundingError;
+        long dividedWithoutError = multiplyExactOrReturnMaxValue(refillTokens, durationSinceLastRefillNanos);
+        long divided = dividedWithoutError + roundingError;
+        if (divided < 0 || dividedWithoutError == Long.MAX_VALUE) {
+            // arithmetic overflow happens.
+            // there is no sense to stay in integer arithmetic when having deal with so big numbers
+            newSize += (long) ((double) durationSinceLastRefillNanos / (double) refillPeriodNanos * (double) refillTokens);
+            roundingError = 0;
+        } else {
+            newSize += divided / refillPeriodNanos;
+            roundingError = divided % refillPeriodNanos;
+        }
+
+        if (newSize >= capacity || newSize < currentSize) {
+            // newSize < currentSize means that arithmetic overflow happens and tokens reached Long.MAX_VALUE
+            resetBandwidth(capacity);
+            return;
+        }
+        this.currentSize = newSize;
+        this.roundingError = roundingError;
+    }
+
+    @Override
+    public void addTokens(long tokensToAdd) {
+        long newSize = currentSize + tokensToAdd;
+        if (newSize >= bandwidth.capacity || newSize < currentSize) {
+            // newSize < currentSize means that arithmetic overflow happens and bucket reached Long.MAX_VALUE tokens
+            resetBandwidth(bandwidth.capacity);
+        } else {
+            currentSize = newSize;
+        }
+    }
+
+    @Override
+    public void reset() {
+        resetBandwidth(bandwidth.capacity);
+    }
+
+    @Override
+    public void forceAddTokens(long tokensToAdd) {
+        long newSize = currentSize + tokensToAdd;
+        if (newSize < currentSize) {
+            // arithmetic overflow happens. This mean that bucket reached Long.MAX_VALUE tokens.
+            // just set MAX_VALUE tokens
+            currentSize = Long.MAX_VALUE;
+            roundingError = 0;
+        } else {
+            currentSize = newSize;
+        }
+    }
+
+    @Override
+    public long getCurrentSize(int bandwidth) {
+        return currentSize;
+    }
+
+    @Override
+    public long getRoundingError(int bandwidth) {
+        return roundingError;
+    }
+
+    @Override
+    public MathType getMathType() {
+        return MathType.INTEGER_64_BITS;
+    }
+
+    private void resetBandwidth(long capacity) {
+        currentSize = capacity;
+        roundingError = 0;
+    }
+
+    private long calculateDelayNanosToCloseDeficit(long deficit, long currentTimeNanos) {
+        final Bandwidth bandwidth = this.bandwidth;
+        final long refillPeriodNanos = bandwidth.refillPeriodNanos;
+        final long refillTokens = bandwidth.refillTokens;
+
+        if (!bandwidth.refillIntervally) {
+            long divided = multiplyExactOrReturnMaxValue(refillPeriodNanos, deficit);
+            if (divided == Long.MAX_VALUE) {
+                // math overflow happen.
+                // there is no sense to stay in integer arithmetic when having deal with so big numbers
+                return (long)((double) deficit / (double) refillTokens * (double) refillPeriodNanos);
+            }
+            return (divided - roundingError) / refillTokens;
+        }
+
+        long waitForNextRefillNanos = lastRefillTimeNanos + refillPeriodNanos - currentTimeNanos;
+        if (deficit <= refillTokens) {
+            return waitForNextRefillNanos;
+        }
+
+        deficit -= refillTokens;
+        if (deficit < refillTokens) {
+            return waitForNextRefillNanos + refillPeriodNanos;
+        }
+
+        long deficitPeriods = deficit / refillTokens + (deficit % refillTokens == 0L? 0 : 1);
+        long deficitNanos = multiplyExactOrReturnMaxValue(deficitPeriods, refillPeriodNanos);
+        if (deficitNanos == Long.MAX_VALUE) {
+            // math overflow happen
+            return Long.MAX_VALUE;
+        }
+        deficitNanos += waitForNextRefillNanos;
+        if (deficitNanos < 0) {
+            // math overflow happen
+            return Long.MAX_VALUE;
+        }
+        return deficitNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "BucketState{" +
+                "bandwidthStates=" + Arrays.toString(toStateData()) +
+                '}';
+    }
+
+    @Override
+    public boolean equalsByContent(BucketState64BitsIntegerSingleBandwidth other) {
+        return Arrays.equals(toStateData(), other.toStateData());
+    }
+
+}
@@ -0,0 +1,498 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j;
+
+import io.github.bucket4j.distributed.serialization.DeserializationAdapter;
+import io.github.bucket4j.distributed.serialization.Scope;
+import io.github.bucket4j.distributed.serialization.SerializationAdapter;
+import io.github.bucket4j.distributed.serialization.SerializationHandle;
+import io.github.bucket4j.distributed.versioning.Version;
+import io.github.bucket4j.distributed.versioning.Versions;
+import io.github.bucket4j.util.ComparableByContent;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.github.bucket4j.BucketState64BitsInteger.NO_SKIPPED_REFILL;
+import static io.github.bucket4j.BucketState64BitsInteger.calculateInitialTokens;
+import static io.github.bucket4j.BucketState64BitsInteger.calculateLastRefillTimeNanos;
+import static io.github.bucket4j.BucketState64BitsInteger.calculateRefillWatermark;
+import static io.github.bucket4j.BucketState64BitsInteger.multiplyExactOrReturnMaxValue;
+import static io.github.bucket4j.distributed.versioning.Versions.v_7_0_0;
+
+/**
+ * Implementation of {@link BucketState} for {@link MathType#INTEGER_64_BITS} specialized for configurations with many bandwidths.
+ *
+ * <p>
+ * The arithmetic is the same as in {@link BucketState64BitsInteger}, but instead of interleaving
+ * last refill time, size and rounding error of each bandwidth in one array, each field is stored in its own array.
+ * So calculation of available tokens and consumption are the loops over contiguous {@code long[]} that JIT is able to unroll and vectorize,
+ * and refill touches only the arrays that it really needs.
+ * {@link BucketState#createInitialState(BucketConfiguration, MathType, long)} selects this implementation automatically
+ * when configuration contains at least {@link #MIN_BANDWIDTHS} bandwidths.
+ *
+ * <p>
+ * In binary and JSON form this state is written exactly as {@link BucketState64BitsInteger},
+ * so the data stays readable by the nodes which do not know about this class.
+ */
+public class BucketState64BitsIntegerStructOfArrays implements BucketState, ComparableByContent<BucketState64BitsIntegerStructOfArrays> {
+
+    /**
+     * Minimal count of bandwidths for which this layout is selected, for smaller configurations interleaved layout is faster
+     * because all fields of bandwidth share the same cache line.
+     */
+    public static final int MIN_BANDWIDTHS = 5;
+
+    private long[] lastRefillTimeNanos;
+    private long[] currentSize;
+    private long[] roundingError;
+
+    private BucketConfiguration configuration;
+
+    // refill is skipped while current time is less than watermark, because no bandwidth can be changed by refill before it
+    private long refillWatermarkNanos = Long.MIN_VALUE;
+    // time of the latest skipped refill, that still needs to be applied to lastRefillTimeNanos of full bandwidths
+    private long skippedRefillTimeNanos = NO_SKIPPED_REFILL;
+
+    public static final SerializationHandle<BucketState64BitsIntegerStructOfArrays> SERIALIZATION_HANDLE = new SerializationHandle<>() {
+        @Override
+        public <S> BucketState64BitsIntegerStructOfArrays deserialize(DeserializationAdapter<S> adapter, S input) throws IOException {
+            int formatNumber = adapter.readInt(input);
+            Versions.check(formatNumber, v_7_0_0, v_7_0_0);
+
+            long[] data = adapter.readLongArray(input);
+            return new BucketState64BitsIntegerStructOfArrays(data);
+        }
+
+        @Override
+        public <O> void serialize(SerializationAdapter<O> adapter, O output, BucketState64BitsIntegerStructOfArrays state, Version backwardCompatibilityVersion, Scope scope) throws IOException {
+            adapter.writeInt(output, v_7_0_0.getNumber());
+
+            adapter.writeLongArray(output, state.toStateData());
+        }
+
+        @Override
+        public int getTypeId() {
+            return 8;
+        }
+
+        @Override
+        public Class<BucketState64BitsIntegerStructOfArrays> getSerializedType() {
+            return BucketState64BitsIntegerStructOfArrays.class;
+        }
+
+        @Override
+        public BucketState64BitsIntegerStructOfArrays fromJsonCompatibleSnapshot(Map<String, Object> snapshot) throws IOException {
+            int formatNumber = readIntValue(snapshot, "version");
+            Versions.check(formatNumber, v_7_0_0, v_7_0_0);
+
+            long[] stateDate = readLongArray(snapshot, "stateData");
+            Map<String, Object> configurationSnapshot = (Map<String, Object>) snapshot.get("configuration");
+            BucketConfiguration configuration = BucketConfiguration.SERIALIZATION_HANDLE.fromJsonCompatibleSnapshot(configurationSnapshot);
+            BucketState64BitsIntegerStructOfArrays state = new BucketState64BitsIntegerStructOfArrays(stateDate);
+            state.setConfiguration(configuration);
+            return state;
+        }
+
+        @Override
+        public Map<String, Object> toJsonCompatibleSnapshot(BucketState64BitsIntegerStructOfArrays state, Version backwardCompatibilityVersion, Scope scope) throws IOException {
+            Map<String, Object> result = new HashMap<>();
+            result.put("version", v_7_0_0.getNumber());
+            result.put("stateData", state.toStateData());
+            result.put("configuration", BucketConfiguration.SERIALIZATION_HANDLE.toJsonCompatibleSnapshot(state.configuration, backwardCompatibilityVersion, scope));
+            return result;
+        }
+
+        @Override
+        public String getTypeName() {
+            return "BucketState64BitsIntegerStructOfArrays";
+        }
+    };
+
+    /**
+     * Creates the state from data in the format of {@link BucketState64BitsInteger}.
+     */
+    BucketState64BitsIntegerStructOfArrays(long[] stateData) {
+        int bandwidthCount = stateData.length / 3;
+        this.lastRefillTimeNanos = new long[bandwidthCount];
+        this.currentSize = new long[bandwidthCount];
+        this.roundingError = new long[bandwidthCount];
+        for (int i = 0; i < bandwidthCount; i++) {
+            lastRefillTimeNanos[i] = stateData[i * 3];
+            currentSize[i] = stateData[i * 3 + 1];
+            roundingError[i] = stateData[i * 3 + 2];
+        }
+    }
+
+    private BucketState64BitsIntegerStructOfArrays(BucketState64BitsIntegerStructOfArrays otherState) {
+        this.lastRefillTimeNanos = otherState.lastRefillTimeNanos.clone();
+        this.currentSize = otherState.currentSize.clone();
+        this.roundingError = otherState.roundingError.clone();
+        this.configuration = otherState.configuration;
+        this.refillWatermarkNanos = otherState.refillWatermarkNanos;
+        this.skippedRefillTimeNanos = otherState.skippedRefillTimeNanos;
+    }
+
+    public BucketState64BitsIntegerStructOfArrays(BucketConfiguration configuration, long currentTimeNanos) {
+        this.configuration = configuration;
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+
+        this.lastRefillTimeNanos = new long[bandwidths.length];
+        this.currentSize = new long[bandwidths.length];
+        this.roundingError = new long[bandwidths.length];
+        for (int i = 0; i < bandwidths.length; i++) {
+            currentSize[i] = calculateInitialTokens(bandwidths[i], currentTimeNanos);
+            lastRefillTimeNanos[i] = calculateLastRefillTimeNanos(bandwidths[i], currentTimeNanos);
+        }
+    }
+
+    private long[] toStateData() {
+        if (skippedRefillTimeNanos != NO_SKIPPED_REFILL) {
+            BucketState64BitsIntegerStructOfArrays copy = new BucketState64BitsIntegerStructOfArrays(this);
+            copy.applySkippedRefill();
+            return copy.toStateData();
+        }
+        long[] stateData = new long[currentSize.length * 3];
+        for (int i = 0; i < currentSize.length; i++) {
+            stateData[i * 3] = lastRefillTimeNanos[i];
+            stateData[i * 3 + 1] = currentSize[i];
+            stateData[i * 3 + 2] = roundingError[i];
+        }
+        return stateData;
+    }
+
+    @Override
+    public BucketState copy() {
+        return new BucketState64BitsIntegerStructOfArrays(this);
+    }
+
+    @Override
+    public BucketConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    @Override
+    public void setConfiguration(BucketConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    @Override
+    public BucketState replaceConfiguration(BucketConfiguration newConfiguration, TokensInheritanceStrategy tokensInheritanceStrategy, long currentTimeNanos) {
+        // replacement of configuration is rare operation, so there is no reason to duplicate the inheritance rules
+        BucketState64BitsInteger generalState = new BucketState64BitsInteger(toStateData());
+        generalState.setConfiguration(configuration);
+        return generalState.replaceConfiguration(newConfiguration, tokensInheritanceStrategy, currentTimeNanos);
+    }
+
+    @Override
+    public void copyStateFrom(BucketState sourceState) {
+        BucketState64BitsIntegerStructOfArrays sourceStructOfArrays = (BucketState64BitsIntegerStructOfArrays) sourceState;
+        if (sourceStructOfArrays.configuration == configuration) {
+            System.arraycopy(sourceStructOfArrays.lastRefillTimeNanos, 0, lastRefillTimeNanos, 0, lastRefillTimeNanos.length);
+            System.arraycopy(sourceStructOfArrays.currentSize, 0, currentSize, 0, currentSize.length);
+            System.arraycopy(sourceStructOfArrays.roundingError, 0, roundingError, 0, roundingError.length);
+        } else {
+            this.configuration = sourceStructOfArrays.configuration;
+            this.lastRefillTimeNanos = sourceStructOfArrays.lastRefillTimeNanos.clone();
+            this.currentSize = sourceStructOfArrays.currentSize.clone();
+            this.roundingError = sourceStructOfArrays.roundingError.clone();
+        }
+        this.refillWatermarkNanos = sourceStructOfArrays.refillWatermarkNanos;
+        this.skippedRefillTimeNanos = sourceStructOfArrays.skippedRefillTimeNanos;
+    }
+
+    @Override
+    public long getAvailableTokens() {
+        final long[] currentSize = this.currentSize;
+        long availableTokens = currentSize[0];
+        for (int i = 1; i < currentSize.length; i++) {
+            availableTokens = Math.min(availableTokens, currentSize[i]);
+        }
+        return availableTokens;
+    }
+
+    @Override
+    public void consume(long toConsume) {
+        // bandwidths are not full anymore, so refill can not be skipped
+        applySkippedRefill();
+        refillWatermarkNanos = Long.MIN_VALUE;
+        final long[] currentSize = this.currentSize;
+        for (int i = 0; i < currentSize.length; i++) {
+            currentSize[i] -= toConsume;
+        }
+    }
+
+    @Override
+    public long calculateDelayNanosAfterWillBePossibleToConsume(long tokensToConsume, long currentTimeNanos, boolean checkTokensToConsumeShouldBeLessThenCapacity) {
+        if (skippedRefillTimeNanos != NO_SKIPPED_REFILL && tokensToConsume > getAvailableTokens()) {
+            // time of last refill is needed only to calculate the deficit of intervally refilled bandwidth
+            applySkippedRefill();
+        }
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        long delayAfterWillBePossibleToConsume = calculateDelayNanosAfterWillBePossibleToConsume(0, bandwidths[0], tokensToConsume, currentTimeNanos, checkTokensToConsumeShouldBeLessThenCapacity);
+        for (int i = 1; i < bandwidths.length; i++) {
+            long delay = calculateDelayNanosAfterWillBePossibleToConsume(i, bandwidths[i], tokensToConsume, currentTimeNanos, checkTokensToConsumeShouldBeLessThenCapacity);
+            delayAfterWillBePossibleToConsume = Math.max(delayAfterWillBePossibleToConsume, delay);
+        }
+        return delayAfterWillBePossibleToConsume;
+    }
+
+    @Override
+    public long calculateFullRefillingTime(long currentTimeNanos) {
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        long maxTimeToFullRefillNanos = calculateFullRefillingTime(0, bandwidths[0], currentTimeNanos);
+        for (int i = 1; i < bandwidths.length; i++) {
+            maxTimeToFullRefillNanos = Math.max(maxTimeToFullRefillNanos, calculateFullRefillingTime(i, bandwidths[i], currentTimeNanos));
+        }
+        return maxTimeToFullRefillNanos;
+    }
+
+    @Override
+    public void refillAllBandwidth(long currentTimeNanos) {
+        if (currentTimeNanos < refillWatermarkNanos) {
+            if (currentTimeNanos > skippedRefillTimeNanos) {
+                skippedRefillTimeNanos = currentTimeNanos;
+            }
+            return;
+        }
+        skippedRefillTimeNanos = NO_SKIPPED_REFILL;
+
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        final long[] lastRefillTimeNanos = this.lastRefillTimeNanos;
+        final long[] currentSize = this.currentSize;
+        long refillWatermarkNanos = Long.MAX_VALUE;
+        for (int i = 0; i < lastRefillTimeNanos.length; i++) {
+            Bandwidth bandwidth = bandwidths[i];
+            if (currentTimeNanos > lastRefillTimeNanos[i]) {
+                refill(i, bandwidth, currentTimeNanos);
+            }
+            if (refillWatermarkNanos != Long.MIN_VALUE) {
+                refillWatermarkNanos = Math.min(refillWatermarkNanos, calculateRefillWatermark(bandwidth, lastRefillTimeNanos[i], currentSize[i]));
+            }
+        }
+        this.refillWatermarkNanos = refillWatermarkNanos;
+    }
+
+    private void applySkippedRefill() {
+        if (skippedRefillTimeNanos != NO_SKIPPED_REFILL) {
+            long currentTimeNanos = skippedRefillTimeNanos;
+            skippedRefillTimeNanos = NO_SKIPPED_REFILL;
+            Bandwidth[] bandwidths = configuration.getBandwidths();
+            for (int i = 0; i < lastRefillTimeNanos.length; i++) {
+                if (currentTimeNanos > lastRefillTimeNanos[i]) {
+                    refill(i, bandwidths[i], currentTimeNanos);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void addTokens(long tokensToAdd) {
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        final long[] currentSize = this.currentSize;
+        for (int i = 0; i < currentSize.length; i++) {
+            long capacity = bandwidths[i].capacity;
+            long newSize = currentSize[i] + tokensToAdd;
+            if (newSize >= capacity || newSize < currentSize[i]) {
+                // newSize < currentSize means that arithmetic overflow happens and bucket reached Long.MAX_VALUE tokens
+                resetBandwidth(i, capacity);
+            } else {
+                currentSize[i] = newSize;
+            }
+        }
+    }
+
+    @Override
+    public void reset() {
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        for (int i = 0; i < currentSize.length; i++) {
+            resetBandwidth(i, bandwidths[i].capacity);
+        }
+    }
+
+    @Override
+    public void forceAddTokens(long tokensToAdd) {
+        final long[] currentSize = this.currentSize;
+        for (int i = 0; i < currentSize.length; i++) {
+            long newSize = currentSize[i] + tokensToAdd;
+            if (newSize < currentSize[i]) {
+                // arithmetic overflow happens. This mean that bucket reached Long.MAX_VALUE tokens.
+                // just set MAX_VALUE tokens
+                currentSize[i] = Long.MAX_VALUE;
+                roundingError[i] = 0;
+            } else {
+                currentSize[i] = newSize;
+            }
+        }
+    }
+
+    private void refill(int bandwidthIndex, Bandwidth bandwidth, long currentTimeNanos) {
+        final long previousRefillNanos = lastRefillTimeNanos[bandwidthIndex];
+        final long refillPeriodNanos = bandwidth.refillPeriodNanos;
+        if (bandwidth.refillIntervally) {
+            long incompleteIntervalCorrection = (currentTimeNanos - previousRefillNanos) % refillPeriodNanos;
+            currentTimeNanos -= incompleteIntervalCorrection;
+            if (currentTimeNanos <= previousRefillNanos) {
+                return;
+            }
+        }
+        lastRefillTimeNanos[bandwidthIndex] = currentTimeNanos;
+
+        final long capacity = bandwidth.capacity;
+        final long refillTokens = bandwidth.refillTokens;
+        final long currentSize = this.currentSize[bandwidthIndex];
+        if (currentSize >= capacity) {
+            // can come here if forceAddTokens has been used
+            return;
+        }
+
+        long durationSinceLastRefillNanos = currentTimeNanos - previousRefillNanos;
+        long newSize = currentSize;
+
+        if (durationSinceLastRefillNanos > refillPeriodNanos) {
+            long elapsedPeriods = durationSinceLastRefillNanos / refillPeriodNanos;
+            newSize += elapsedPeriods * refillTokens;
+            if (newSize > capacity || newSize < currentSize) {
+                // newSize < currentSize means that arithmetic overflow happens and tokens reached Long.MAX_VALUE
+                resetBandwidth(bandwidthIndex, capacity);
+                return;
+            }
+            durationSinceLastRefillNanos -= elapsedPeriods * refillPeriodNanos;
+        }
+
+        long roundingError = this.roundingError[bandwidthIndex];
+        long dividedWithoutError = multiplyExactOrReturnMaxValue(refillTokens, durationSinceLastRefillNanos);
+        long divided = dividedWithoutError + roundingError;
+        if (divided < 0 || dividedWithoutError == Long.MAX_VALUE) {
+            // arithmetic overflow happens.
+            // there is no sense to stay in integer arithmetic when having deal with so big numbers
+            newSize += (long) ((double) durationSinceLastRefillNanos / (double) refillPeriodNanos * (double) refillTokens);
+            roundingError = 0;
+        } else {
+            newSize += divided / refillPeriodNanos;
+            roundingError = divided % refillPeriodNanos;
+        }
+
+        if (newSize >= capacity || newSize < currentSize) {
+            // newSize < currentSize means that arithmetic overflow happens and tokens reached Long.MAX_VALUE
+            resetBandwidth(bandwidthIndex, capacity);
+            return;
+        }
+        this.currentSize[bandwidthIndex] = newSize;
+        this.roundingError[bandwidthIndex] = roundingError;
+    }
+
+    private void resetBandwidth(int bandwidthIndex, long capacity) {
+        currentSize[bandwidthIndex] = capacity;
+        roundingError[bandwidthIndex] = 0;
+    }
+
+    private long calculateDelayNanosAfterWillBePossibleToConsume(int bandwidthIndex, Bandwidth bandwidth, long tokens, long currentTimeNanos, boolean checkTokensToConsumeShouldBeLessThenCapacity) {
+        if (checkTokensToConsumeShouldBeLessThenCapacity && tokens > bandwidth.capacity) {
+            return Long.MAX_VALUE;
+        }
+        long currentSize = this.currentSize[bandwidthIndex];
+        if (tokens <= currentSize) {
+            return 0;
+        }
+        long deficit = tokens - currentSize;
+        if (deficit <= 0) {
+            // math overflow happen
+            return Long.MAX_VALUE;
+        }
+        return calculateDelayNanosToCloseDeficit(bandwidthIndex, bandwidth, deficit, currentTimeNanos);
+    }
+
+    private long calculateFullRefillingTime(int bandwidthIndex, Bandwidth bandwidth, long currentTimeNanos) {
+        long currentSize = this.currentSize[bandwidthIndex];
+        if (currentSize >= bandwidth.capacity) {
+            return 0L;
+        }
+        return calculateDelayNanosToCloseDeficit(bandwidthIndex, bandwidth, bandwidth.capacity - currentSize, currentTimeNanos);
+    }
+
+    private long calculateDelayNanosToCloseDeficit(int bandwidthIndex, Bandwidth bandwidth, long deficit, long currentTimeNanos) {
+        final long refillPeriodNanos = bandwidth.refillPeriodNanos;
+        final long refillTokens = bandwidth.refillTokens;
+
+        if (!bandwidth.refillIntervally) {
+            long divided = multiplyExactOrReturnMaxValue(refillPeriodNanos, deficit);
+            if (divided == Long.MAX_VALUE) {
+                // math overflow happen.
+                // there is no sense to stay in integer arithmetic when having deal with so big numbers
+                return (long)((double) deficit / (double) refillTokens * (double) refillPeriodNanos);
+            }
+            return (divided - roundingError[bandwidthIndex]) / refillTokens;
+        }
+
+        long waitForNextRefillNanos = lastRefillTimeNanos[bandwidthIndex] + refillPeriodNanos - currentTimeNanos;
+        if (deficit <= refillTokens) {
+            return waitForNextRefillNanos;
+        }
+
+        deficit -= refillTokens;
+        if (deficit < refillTokens) {
+            return waitForNextRefillNanos + refillPeriodNanos;
+        }
+
+        long deficitPeriods = deficit / refillTokens + (deficit % refillTokens == 0L? 0 : 1);
+        long deficitNanos = multiplyExactOrReturnMaxValue(deficitPeriods, refillPeriodNanos);
+        if (deficitNanos == Long.MAX_VALUE) {
+            // math overflow happen
+            return Long.MAX_VALUE;
+        }
+        deficitNanos += waitForNextRefillNanos;
+        if (deficitNanos < 0) {
+            // math overflow happen
+            return Long.MAX_VALUE;
+        }
+        return deficitNanos;
+    }
+
+    @Override
+    public long getCurrentSize(int bandwidth) {
+        return currentSize[bandwidth];
+    }
+
+    @Override
+    public long getRoundingError(int bandwidth) {
+        return roundingError[bandwidth];
+    }
+
+    @Override
+    public MathType getMathType() {
+        return MathType.INTEGER_64_BITS;
+    }
+
+    @Override
+    public String toString() {
+        return "BucketState{" +
+                "bandwidthStates=" + Arrays.toString(toStateData()) +
+                '}';
+    }
+
+    @Override
+    public boolean equalsByContent(BucketState64BitsIntegerStructOfArrays other) {
+        return Arrays.equals(toStateData(), other.toStateData());
+    }
+
+}
@@ -0,0 +1,425 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j;
+
+import io.github.bucket4j.distributed.serialization.DeserializationAdapter;
+import io.github.bucket4j.distributed.serialization.Scope;
+import io.github.bucket4j.distributed.serialization.SerializationAdapter;
+import io.github.bucket4j.distributed.serialization.SerializationHandle;
+import io.github.bucket4j.distributed.versioning.Version;
+import io.github.bucket4j.distributed.versioning.Versions;
+import io.github.bucket4j.util.ComparableByContent;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import static io.github.bucket4j.distributed.versioning.Versions.v_8_15_0;
+
+/**
+ * Implementation of {@link BucketState} for {@link MathType#IEEE_754}.
+ *
+ * <p>
+ * Tokens are stored as {@code double}, so partially refilled token is just a fractional part of the number
+ * and there is no need to track rounding error separately.
+ * Overflow checks are not needed too, because {@code double} arithmetic saturates to infinity instead of wrapping,
+ * and conversion to {@code long} saturates to {@link Long#MAX_VALUE}.
+ * The price is precision: token counts are exact only below 2<sup>53</sup>.
+ */
+public class BucketStateIEEE754 implements BucketState, ComparableByContent<BucketStateIEEE754> {
+
+    /**
+     * Refill results closer to integer than this value are rounded to that integer,
+     * otherwise accumulated errors of floating point arithmetic can lead to situations like 2.9999999999999996 tokens instead of 3.
+     */
+    private static final double ROUNDING_TOLERANCE = 1e-9;
+
+    long[] lastRefillTimeNanos;
+    double[] tokens;
+
+    private BucketConfiguration configuration;
+
+    public static final SerializationHandle<BucketStateIEEE754> SERIALIZATION_HANDLE = new SerializationHandle<>() {
+        @Override
+        public <S> BucketStateIEEE754 deserialize(DeserializationAdapter<S> adapter, S input) throws IOException {
+            int formatNumber = adapter.readInt(input);
+            Versions.check(formatNumber, v_8_15_0, v_8_15_0);
+
+            long[] lastRefillTimeNanos = adapter.readLongArray(input);
+            double[] tokens = adapter.readDoubleArray(input);
+            return new BucketStateIEEE754(lastRefillTimeNanos, tokens);
+        }
+
+        @Override
+        public <O> void serialize(SerializationAdapter<O> adapter, O output, BucketStateIEEE754 state, Version backwardCompatibilityVersion, Scope scope) throws IOException {
+            adapter.writeInt(output, v_8_15_0.getNumber());
+
+            adapter.writeLongArray(output, state.lastRefillTimeNanos);
+            adapter.writeDoubleArray(output, state.tokens);
+        }
+
+        @Override
+        public int getTypeId() {
+            return 4;
+        }
+
+        @Override
+        public Class<BucketStateIEEE754> getSerializedType() {
+            return BucketStateIEEE754.class;
+        }
+
+        @Override
+        public BucketStateIEEE754 fromJsonCompatibleSnapshot(Map<String, Object> snapshot) throws IOException {
+            int formatNumber = readIntValue(snapshot, "version");
+            Versions.check(formatNumber, v_8_15_0, v_8_15_0);
+
+            long[] lastRefillTimeNanos = readLongArray(snapshot, "lastRefillTimeNanos");
+            double[] tokens = readDoubleArray(snapshot, "tokens");
+            Map<String, Object> configurationSnapshot = (Map<String, Object>) snapshot.get("configuration");
+            BucketConfiguration configuration = BucketConfiguration.SERIALIZATION_HANDLE.fromJsonCompatibleSnapshot(configurationSnapshot);
+            BucketStateIEEE754 state = new BucketStateIEEE754(lastRefillTimeNanos, tokens);
+            state.setConfiguration(configuration);
+            return state;
+        }
+
+        @Override
+        public Map<String, Object> toJsonCompatibleSnapshot(BucketStateIEEE754 state, Version backwardCompatibilityVersion, Scope scope) throws IOException {
+            Map<String, Object> result = new HashMap<>();
+            result.put("version", v_8_15_0.getNumber());
+            result.put("lastRefillTimeNanos", state.lastRefillTimeNanos);
+            result.put("tokens", state.tokens);
+            result.put("configuration", BucketConfiguration.SERIALIZATION_HANDLE.toJsonCompatibleSnapshot(state.configuration, backwardCompatibilityVersion, scope));
+            return result;
+        }
+
+        @Override
+        public String getTypeName() {
+            return "BucketStateIEEE754";
+        }
+    };
+
+    private BucketStateIEEE754(BucketStateIEEE754 otherState) {
+        this.lastRefillTimeNanos = otherState.lastRefillTimeNanos.clone();
+        this.tokens = otherState.tokens.clone();
+        this.configuration = otherState.configuration;
+    }
+
+    private BucketStateIEEE754(long[] lastRefillTimeNanos, double[] tokens) {
+        this.lastRefillTimeNanos = lastRefillTimeNanos;
+        this.tokens = tokens;
+    }
+
+    public BucketStateIEEE754(BucketConfiguration configuration, long currentTimeNanos) {
+        this.configuration = configuration;
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+
+        this.lastRefillTimeNanos = new long[bandwidths.length];
+        this.tokens = new double[bandwidths.length];
+        for(int i = 0; i < bandwidths.length; i++) {
+            tokens[i] = calculateInitialTokens(bandwidths[i], currentTimeNanos);
+            lastRefillTimeNanos[i] = calculateLastRefillTimeNanos(bandwidths[i], currentTimeNanos);
+        }
+    }
+
+    @Override
+    public BucketState copy() {
+        return new BucketStateIEEE754(this);
+    }
+
+    @Override
+    public BucketConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    @Override
+    public void setConfiguration(BucketConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    @Override
+    public BucketState replaceConfiguration(BucketConfiguration newConfiguration,
+                                            TokensInheritanceStrategy tokensInheritanceStrategy, long currentTimeNanos) {
+        BucketConfiguration previousConfiguration = this.configuration;
+        if (tokensInheritanceStrategy == TokensInheritanceStrategy.RESET) {
+            return new BucketStateIEEE754(newConfiguration, currentTimeNanos);
+        }
+
+        boolean nullIdComparisonCanBeApplied = countOfBandwidthsWithNullIdentifiers(previousConfiguration) < 2
+                && countOfBandwidthsWithNullIdentifiers(newConfiguration) < 2;
+
+        Bandwidth[] previousBandwidths = previousConfiguration.getBandwidths();
+        Bandwidth[] newBandwidths = newConfiguration.getBandwidths();
+
+        BucketStateIEEE754 newState = new BucketStateIEEE754(new long[newBandwidths.length], new double[newBandwidths.length]);
+        newState.setConfiguration(newConfiguration);
+        for (int newBandwidthIndex = 0; newBandwidthIndex < newBandwidths.length; newBandwidthIndex++) {
+            Bandwidth newBandwidth = newBandwidths[newBandwidthIndex];
+            Bandwidth previousBandwidth = null;
+            int previousBandwidthIndex = -1;
+            if (newBandwidth.getId() != null || nullIdComparisonCanBeApplied) {
+                for (int j = 0; j < previousBandwidths.length; j++) {
+                    if (Objects.equals(newBandwidth.getId(), previousBandwidths[j].getId()) ) {
+                        previousBandwidth = previousBandwidths[j];
+                        previousBandwidthIndex = j;
+                        break;
+                    }
+                }
+            }
+            if (previousBandwidth == null) {
+                newState.tokens[newBandwidthIndex] = calculateInitialTokens(newBandwidth, currentTimeNanos);
+                newState.lastRefillTimeNanos[newBandwidthIndex] = calculateLastRefillTimeNanos(newBandwidth, currentTimeNanos);
+                continue;
+            }
+
+            newState.lastRefillTimeNanos[newBandwidthIndex] = lastRefillTimeNanos[previousBandwidthIndex];
+            double currentSize = tokens[previousBandwidthIndex];
+            double newSize = switch (tokensInheritanceStrategy) {
+                case AS_IS -> currentSize;
+                case PROPORTIONALLY -> currentSize >= previousBandwidth.capacity
+                    // can come here if forceAddTokens has been used
+                    ? newBandwidth.capacity
+                    : currentSize * ((double) newBandwidth.capacity / (double) previousBandwidth.capacity);
+                case ADDITIVE -> currentSize >= previousBandwidth.capacity
+                    ? newBandwidth.capacity
+                    : currentSize + Math.max(0, newBandwidth.capacity - previousBandwidth.capacity);
+                default -> throw new IllegalStateException("Should never reach there");
+            };
+            if (!newBandwidth.isGready()) {
+                // intervally refilled bandwidth does not have partially refilled tokens
+                newSize = Math.floor(newSize);
+            }
+            newState.tokens[newBandwidthIndex] = Math.min(newSize, newBandwidth.capacity);
+        }
+        return newState;
+    }
+
+    private int countOfBandwidthsWithNullIdentifiers(BucketConfiguration configuration) {
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        int count = 0;
+        for (int i = 0; i < bandwidths.length; i++) {
+            if (bandwidths[i].getId() == null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void copyStateFrom(BucketState sourceState) {
+        BucketStateIEEE754 sourceStateIEEE754 = (BucketStateIEEE754) sourceState;
+        if (sourceStateIEEE754.configuration == configuration) {
+            System.arraycopy(sourceStateIEEE754.lastRefillTimeNanos, 0, lastRefillTimeNanos, 0, lastRefillTimeNanos.length);
+            System.arraycopy(sourceStateIEEE754.tokens, 0, tokens, 0, tokens.length);
+        } else {
+            this.configuration = sourceStateIEEE754.configuration;
+            this.lastRefillTimeNanos = sourceStateIEEE754.lastRefillTimeNanos.clone();
+            this.tokens = sourceStateIEEE754.tokens.clone();
+        }
+    }
+
+    @Override
+    public long getAvailableTokens() {
+        double availableTokens = tokens[0];
+        for (int i = 1; i < tokens.length; i++) {
+            availableTokens = Math.min(availableTokens, tokens[i]);
+        }
+        return (long) Math.floor(availableTokens);
+    }
+
+    @Override
+    public void consume(long toConsume) {
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] -= toConsume;
+        }
+    }
+
+    @Override
+    public long calculateDelayNanosAfterWillBePossibleToConsume(long tokensToConsume, long currentTimeNanos, boolean checkTokensToConsumeShouldBeLessThenCapacity) {
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        long delayAfterWillBePossibleToConsume = 0;
+        for (int i = 0; i < bandwidths.length; i++) {
+            Bandwidth bandwidth = bandwidths[i];
+            if (checkTokensToConsumeShouldBeLessThenCapacity && tokensToConsume > bandwidth.capacity) {
+                return Long.MAX_VALUE;
+            }
+            double deficit = tokensToConsume - tokens[i];
+            if (deficit > 0) {
+                long delay = calculateDelayNanos(i, bandwidth, deficit, currentTimeNanos);
+                delayAfterWillBePossibleToConsume = Math.max(delayAfterWillBePossibleToConsume, delay);
+            }
+        }
+        return delayAfterWillBePossibleToConsume;
+    }
+
+    @Override
+    public long calculateFullRefillingTime(long currentTimeNanos) {
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        long maxTimeToFullRefillNanos = 0;
+        for (int i = 0; i < bandwidths.length; i++) {
+            double deficit = bandwidths[i].capacity - tokens[i];
+            if (deficit > 0) {
+                maxTimeToFullRefillNanos = Math.max(maxTimeToFullRefillNanos, calculateDelayNanos(i, bandwidths[i], deficit, currentTimeNanos));
+            }
+        }
+        return maxTimeToFullRefillNanos;
+    }
+
+    @Override
+    public void refillAllBandwidth(long currentTimeNanos) {
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        for (int i = 0; i < bandwidths.length; i++) {
+            refill(i, bandwidths[i], currentTimeNanos);
+        }
+    }
+
+    @Override
+    public void addTokens(long tokensToAdd) {
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        for (int i = 0; i < bandwidths.length; i++) {
+            tokens[i] = Math.min(tokens[i] + tokensToAdd, bandwidths[i].capacity);
+        }
+    }
+
+    @Override
+    public void reset() {
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        for (int i = 0; i < bandwidths.length; i++) {
+            tokens[i] = bandwidths[i].capacity;
+        }
+    }
+
+    @Override
+    public void forceAddTokens(long tokensToAdd) {
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] += tokensToAdd;
+        }
+    }
+
+    private long calculateLastRefillTimeNanos(Bandwidth bandwidth, long currentTimeNanos) {
+        if (!bandwidth.isIntervallyAligned()) {
+            return currentTimeNanos;
+        }
+        return bandwidth.timeOfFirstRefillMillis * 1_000_000 - bandwidth.refillPeriodNanos;
+    }
+
+    private double calculateInitialTokens(Bandwidth bandwidth, long currentTimeNanos) {
+        if (!bandwidth.useAdaptiveInitialTokens) {
+            return bandwidth.initialTokens;
+        }
+
+        long timeOfFirstRefillNanos = bandwidth.timeOfFirstRefillMillis * 1_000_000;
+        if (currentTimeNanos >= timeOfFirstRefillNanos) {
+            return bandwidth.initialTokens;
+        }
+
+        long guaranteedBase = Math.max(0, bandwidth.capacity - bandwidth.refillTokens);
+        long nanosBeforeFirstRefill = timeOfFirstRefillNanos - currentTimeNanos;
+        double adaptiveTokens = Math.floor((double) nanosBeforeFirstRefill * (double) bandwidth.refillTokens / (double) bandwidth.refillPeriodNanos);
+        return Math.min(bandwidth.capacity, guaranteedBase + adaptiveTokens);
+    }
+
+    private void refill(int bandwidthIndex, Bandwidth bandwidth, long currentTimeNanos) {
+        long previousRefillNanos = lastRefillTimeNanos[bandwidthIndex];
+        if (currentTimeNanos <= previousRefillNanos) {
+            return;
+        }
+
+        long refillPeriodNanos = bandwidth.refillPeriodNanos;
+        long durationSinceLastRefillNanos = currentTimeNanos - previousRefillNanos;
+        double capacity = bandwidth.capacity;
+        double currentSize = tokens[bandwidthIndex];
+
+        if (bandwidth.isRefillIntervally()) {
+            long elapsedPeriods = durationSinceLastRefillNanos / refillPeriodNanos;
+            if (elapsedPeriods == 0) {
+                return;
+            }
+            lastRefillTimeNanos[bandwidthIndex] = previousRefillNanos + elapsedPeriods * refillPeriodNanos;
+            if (currentSize < capacity) {
+                tokens[bandwidthIndex] = Math.min(capacity, currentSize + (double) elapsedPeriods * (double) bandwidth.refillTokens);
+            }
+            return;
+        }
+
+        lastRefillTimeNanos[bandwidthIndex] = currentTimeNanos;
+        if (currentSize >= capacity) {
+            // can come here if forceAddTokens has been used
+            return;
+        }
+        double newSize = currentSize + (double) durationSinceLastRefillNanos * (double) bandwidth.refillTokens / (double) refillPeriodNanos;
+        double roundedSize = Math.rint(newSize);
+        if (Math.abs(newSize - roundedSize) < ROUNDING_TOLERANCE) {
+            newSize = roundedSize;
+        }
+        tokens[bandwidthIndex] = Math.min(capacity, newSize);
+    }
+
+    private long calculateDelayNanos(int bandwidthIndex, Bandwidth bandwidth, double deficit, long currentTimeNanos) {
+        double refillPeriodNanos = bandwidth.refillPeriodNanos;
+        double refillTokens = bandwidth.refillTokens;
+        if (!bandwidth.isRefillIntervally()) {
+            // conversion to long saturates to Long.MAX_VALUE in case of overflow
+            return (long) Math.ceil(deficit * refillPeriodNanos / refillTokens);
+        }
+
+        long timeOfNextRefillNanos = lastRefillTimeNanos[bandwidthIndex] + bandwidth.refillPeriodNanos;
+        long waitForNextRefillNanos = timeOfNextRefillNanos - currentTimeNanos;
+        double deficitPeriods = Math.ceil(deficit / refillTokens) - 1;
+        return (long) (waitForNextRefillNanos + deficitPeriods * refillPeriodNanos);
+    }
+
+    @Override
+    public long getCurrentSize(int bandwidth) {
+        return (long) Math.floor(tokens[bandwidth]);
+    }
+
+    /**
+     * Returns partially refilled token in the same units as {@link BucketState64BitsInteger} does,
+     * in other words {@code fraction * refillPeriodNanos}.
+     */
+    @Override
+    public long getRoundingError(int bandwidth) {
+        double size = tokens[bandwidth];
+        double fraction = size - Math.floor(size);
+        return (long) (fraction * configuration.getBandwidths()[bandwidth].refillPeriodNanos);
+    }
+
+    @Override
+    public MathType getMathType() {
+        return MathType.IEEE_754;
+    }
+
+    @Override
+    public String toString() {
+        return "BucketStateIEEE754{" +
+                "lastRefillTimeNanos=" + Arrays.toString(lastRefillTimeNanos) +
+                ", tokens=" + Arrays.toString(tokens) +
+                '}';
+    }
+
+    @Override
+    public boolean equalsByContent(BucketStateIEEE754 other) {
+        return Arrays.equals(lastRefillTimeNanos, other.lastRefillTimeNanos)
+                && Arrays.equals(tokens, other.tokens);
+    }
+
+}
@@ -0,0 +1,140 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Coarse-grained {@link TimeMeter} which reads the time from another time meter in background thread
+ * and caches it in volatile field, so {@link #currentTimeNanos()} costs single volatile read
+ * instead of call to {@link System#currentTimeMillis()} or {@link System#nanoTime()}.
+ *
+ * <p>
+ * <b>Accuracy/throughput trade-off.</b> The cached time lags behind the real time by up to {@code resolution}
+ * and by the delays of ticker thread scheduling, that leads to the following consequences:
+ * <ul>
+ *     <li>Bucket never allows to consume more tokens than configured, because it observes the time that is behind the real time,
+ *     but tokens are refilled with granularity of {@code resolution}, so bucket can reject requests
+ *     that would be allowed with precise clock.</li>
+ *     <li>Wait times reported by {@link Bucket#tryConsumeAndReturnRemaining(long)}, {@link BlockingBucket} and {@link SchedulingBucket}
+ *     can be overestimated by up to {@code resolution}.</li>
+ *     <li>When ticker thread does not get CPU (for example because of stop-the-world pause) the time is frozen until it is scheduled again.</li>
+ * </ul>
+ * So it makes sense to use this time meter only when bucket is accessed from hot path millions times per second
+ * and the resolution is small comparing to refill period of limits.
+ *
+ * <p>
+ * Cached time never goes backward, even if source time meter does it.
+ * The same instance can be shared between any number of buckets, and can be specified as client-side clock via
+ * {@link io.github.bucket4j.distributed.proxy.ClientSideConfig#withClientClock(TimeMeter)} in order to avoid clock reads by proxy-managers.
+ *
+ * @see io.github.bucket4j.local.LocalBucketBuilder#withCoarsePrecision(Duration)
+ */
+public final class CachedTimeMeter implements TimeMeter, AutoCloseable {
+
+    private static final Map<Duration, CachedTimeMeter> SHARED_MILLISECONDS = new ConcurrentHashMap<>();
+
+    private final TimeMeter source;
+    private final long resolutionNanos;
+    private final Thread ticker;
+
+    private volatile long currentTimeNanos;
+    private volatile boolean closed;
+
+    /**
+     * Creates the time meter and starts ticker daemon thread, which should be stopped via {@link #close()} when time meter is not needed anymore.
+     *
+     * @param source the time meter which is read by ticker thread
+     * @param resolution the period of ticker thread
+     */
+    public CachedTimeMeter(TimeMeter source, Duration resolution) {
+        if (source == null) {
+            throw BucketExceptions.nullTimeMeter();
+        }
+        if (resolution == null || resolution.isNegative() || resolution.isZero()) {
+            throw BucketExceptions.nonPositiveClockResolution(resolution);
+        }
+        this.source = source;
+        this.resolutionNanos = resolution.toNanos();
+        this.currentTimeNanos = source.currentTimeNanos();
+        this.ticker = new Thread(this::tick, "bucket4j-cached-time-meter-" + resolution);
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    /**
+     * Returns the instance based on {@link TimeMeter#SYSTEM_MILLISECONDS} which is shared by all callers that use the same resolution.
+     * Shared instances live until JVM shutdown, and {@link #close()} is ignored for them.
+     *
+     * @param resolution the period of ticker thread
+     *
+     * @return shared cached time meter
+     */
+    public static CachedTimeMeter sharedMilliseconds(Duration resolution) {
+        if (resolution == null || resolution.isNegative() || resolution.isZero()) {
+            throw BucketExceptions.nonPositiveClockResolution(resolution);
+        }
+        return SHARED_MILLISECONDS.computeIfAbsent(resolution, r -> new CachedTimeMeter(TimeMeter.SYSTEM_MILLISECONDS, r));
+    }
+
+    @Override
+    public long currentTimeNanos() {
+        return currentTimeNanos;
+    }
+
+    @Override
+    public boolean isWallClockBased() {
+        return source.isWallClockBased();
+    }
+
+    /**
+     * Stops the ticker thread, the time is frozen after that.
+     */
+    @Override
+    public void close() {
+        if (SHARED_MILLISECONDS.get(Duration.ofNanos(resolutionNanos)) == this) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(ticker);
+    }
+
+    private void tick() {
+        while (!closed) {
+            LockSupport.parkNanos(this, resolutionNanos);
+            long nowNanos = source.currentTimeNanos();
+            if (nowNanos > currentTimeNanos) {
+                currentTimeNanos = nowNanos;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CachedTimeMeter{" +
+                "source=" + source +
+                ", resolutionNanos=" + resolutionNanos +
+                '}';
+    }
+
+}
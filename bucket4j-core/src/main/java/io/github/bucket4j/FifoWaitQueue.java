@@ -0,0 +1,394 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * The queue of requests that have reserved tokens via {@link BlockingBucket} or {@link SchedulingBucket} and wait for refill.
+ *
+ * <p>
+ * Without queue each waiter parks independently or schedules its own task, so there are no ordering guarantees
+ * and the count of scheduled tasks grows together with the count of waiters.
+ * The queue wakes waiters strictly in the order of reservation,
+ * only the waiter at the head of queue is parked with timeout or has the timer task scheduled,
+ * so there is at most one timer per bucket regardless of how many requests are waiting.
+ *
+ * <p>
+ * The instance of queue is created per bucket and shared between all listenable views of this bucket.
+ * This class is the part of internal API, use {@link WaitQueueParameters} to configure queue for bucket.
+ */
+public final class FifoWaitQueue {
+
+    private final int maxWaiters;
+    private final long maxQueuedTokens;
+
+    private final AtomicInteger admittedWaiters = new AtomicInteger();
+    private final AtomicLong admittedTokens = new AtomicLong();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+    private Waiter timerOwner;
+
+    public FifoWaitQueue(WaitQueueParameters parameters) {
+        if (parameters == null) {
+            throw BucketExceptions.nullWaitQueueParameters();
+        }
+        this.maxWaiters = parameters.maxWaiters;
+        this.maxQueuedTokens = parameters.maxQueuedTokens;
+    }
+
+    /**
+     * Checks the limits of queue and admits the request, must be called before reservation of tokens.
+     * Admitted request must be finished either by waiting in the queue or by {@link #leave(long)}.
+     *
+     * @param tokens the amount of tokens that request is going to reserve
+     *
+     * @return false if request should be shed
+     */
+    boolean tryEnter(long tokens) {
+        if (admittedWaiters.incrementAndGet() > maxWaiters) {
+            admittedWaiters.decrementAndGet();
+            return false;
+        }
+        while (true) {
+            long current = admittedTokens.get();
+            if (tokens > maxQueuedTokens - current) {
+                admittedWaiters.decrementAndGet();
+                return false;
+            }
+            if (admittedTokens.compareAndSet(current, current + tokens)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases the place that was acquired by {@link #tryEnter(long)} by request which does not need to wait.
+     *
+     * @param tokens the amount of tokens that was specified for {@link #tryEnter(long)}
+     */
+    void leave(long tokens) {
+        admittedTokens.addAndGet(-tokens);
+        admittedWaiters.decrementAndGet();
+    }
+
+    /**
+     * Reserves tokens by {@code reservation} and, if reserved tokens are not available immediately, appends the waiter to the tail of queue.
+     * Both steps are done under the lock of queue, so the order of waiters in the queue is always the same as the order of reservations.
+     * Request must be admitted by {@link #tryEnter(long)} before, the place in queue is released when request does not need to wait.
+     * The waiter returned by this method must be passed either to {@link #schedule} or to {@link #park}, or to {@link #abandon} if request fails before that.
+     *
+     * @param tokens the amount of tokens that was specified for {@link #tryEnter(long)}
+     * @param reservation the reservation of tokens in the bucket
+     * @param nanosToSleepExtractor extracts the time to sleep from the result of reservation
+     *
+     * @return the result of reservation together with the waiter, the waiter is null when request does not need to wait
+     */
+    <R> Reservation<R> reserve(long tokens, Supplier<R> reservation, ToLongFunction<R> nanosToSleepExtractor) {
+        lock.lock();
+        try {
+            R result;
+            long nanosToSleep;
+            try {
+                result = reservation.get();
+                nanosToSleep = nanosToSleepExtractor.applyAsLong(result);
+            } catch (Throwable t) {
+                leave(tokens);
+                throw t;
+            }
+            if (nanosToSleep == 0L || nanosToSleep == LimitChecker.INFINITY_DURATION) {
+                leave(tokens);
+                return new Reservation<>(result, nanosToSleep, null);
+            }
+            Waiter waiter = new Waiter(tokens, nanosToSleep);
+            waiters.addLast(waiter);
+            return new Reservation<>(result, nanosToSleep, waiter);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Completes the future by {@code completion} when the time reserved by {@code waiter} passes, but not earlier than all previously queued waiters are woken.
+     */
+    void schedule(Waiter waiter, ScheduledExecutorService scheduler, CompletableFuture<?> future, Runnable completion) {
+        long nowNanos = System.nanoTime();
+        List<Waiter> expired = new ArrayList<>();
+        lock.lock();
+        try {
+            waiter.scheduler = scheduler;
+            waiter.future = future;
+            waiter.completion = completion;
+            waiter.deadlineNanos = nowNanos + waiter.nanosToSleep;
+            waiter.activated = true;
+            if (waiters.peekFirst() == waiter) {
+                advance(expired, nowNanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+        complete(expired);
+    }
+
+    /**
+     * Parks current thread for the time reserved by {@code waiter}, but not earlier than all previously queued waiters are woken.
+     */
+    void park(Waiter waiter, BlockingStrategy blockingStrategy) throws InterruptedException {
+        boolean headOnArrival;
+        InterruptedException interruption = null;
+        lock.lock();
+        try {
+            headOnArrival = activate(waiter);
+            while (!waiter.head) {
+                try {
+                    waiter.turn.await();
+                } catch (InterruptedException e) {
+                    if (!waiter.head) {
+                        waiters.remove(waiter);
+                        leave(waiter.tokens);
+                        throw e;
+                    }
+                    // the turn was passed to this waiter concurrently with interruption, so it needs to be passed further
+                    interruption = e;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (interruption != null) {
+            removeHead(waiter);
+            throw interruption;
+        }
+
+        try {
+            long remainingNanos = headOnArrival ? waiter.nanosToSleep : waiter.deadlineNanos - System.nanoTime();
+            if (remainingNanos > 0) {
+                blockingStrategy.park(remainingNanos);
+            }
+        } finally {
+            removeHead(waiter);
+        }
+    }
+
+    /**
+     * Parks current thread for the time reserved by {@code waiter} uninterruptibly, but not earlier than all previously queued waiters are woken.
+     */
+    void parkUninterruptibly(Waiter waiter, UninterruptibleBlockingStrategy blockingStrategy) {
+        boolean headOnArrival;
+        lock.lock();
+        try {
+            headOnArrival = activate(waiter);
+            while (!waiter.head) {
+                waiter.turn.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            long remainingNanos = headOnArrival ? waiter.nanosToSleep : waiter.deadlineNanos - System.nanoTime();
+            if (remainingNanos > 0) {
+                blockingStrategy.parkUninterruptibly(remainingNanos);
+            }
+        } finally {
+            removeHead(waiter);
+        }
+    }
+
+    /**
+     * Removes the {@code waiter} which will never reach {@link #park} or {@link #schedule}, for example because listener has thrown an exception,
+     * otherwise it would block all waiters behind it forever. Does nothing if waiter has been already activated.
+     */
+    void abandon(Waiter waiter) {
+        List<Waiter> expired = new ArrayList<>();
+        lock.lock();
+        try {
+            if (waiter.activated) {
+                return;
+            }
+            waiters.remove(waiter);
+            leave(waiter.tokens);
+            advance(expired, System.nanoTime());
+        } finally {
+            lock.unlock();
+        }
+        complete(expired);
+    }
+
+    /**
+     * Returns the count of requests that currently wait in the queue.
+     *
+     * @return the count of waiting requests
+     */
+    public int getWaitersCount() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // must be called under lock
+    private boolean activate(Waiter waiter) {
+        waiter.turn = lock.newCondition();
+        waiter.deadlineNanos = System.nanoTime() + waiter.nanosToSleep;
+        waiter.activated = true;
+        if (waiters.peekFirst() == waiter) {
+            waiter.head = true;
+            return true;
+        }
+        return false;
+    }
+
+    private void removeHead(Waiter waiter) {
+        List<Waiter> expired = new ArrayList<>();
+        lock.lock();
+        try {
+            waiters.remove(waiter);
+            leave(waiter.tokens);
+            advance(expired, System.nanoTime());
+        } finally {
+            lock.unlock();
+        }
+        complete(expired);
+    }
+
+    private void onTimer(Waiter owner) {
+        List<Waiter> expired = new ArrayList<>();
+        lock.lock();
+        try {
+            if (timerOwner == owner) {
+                timerOwner = null;
+            }
+            // scheduler is the source of truth about time for the waiter that owns the timer
+            if (waiters.peekFirst() == owner) {
+                waiters.pollFirst();
+                expired.add(owner);
+            }
+            advance(expired, System.nanoTime());
+        } finally {
+            lock.unlock();
+        }
+        complete(expired);
+    }
+
+    // must be called under lock
+    private void advance(List<Waiter> expired, long nowNanos) {
+        while (true) {
+            Waiter head = waiters.peekFirst();
+            if (head == null || !head.activated) {
+                // the waiter which has not reached park or schedule yet continues advancing by itself
+                return;
+            }
+            if (head.turn != null) {
+                // blocked thread acts as timer by itself
+                head.head = true;
+                head.turn.signal();
+                return;
+            }
+
+            long remainingNanos = head.deadlineNanos - nowNanos;
+            if (remainingNanos <= 0) {
+                waiters.pollFirst();
+                expired.add(head);
+                continue;
+            }
+            if (timerOwner == head) {
+                // timer is already scheduled
+                return;
+            }
+            timerOwner = head;
+            try {
+                head.scheduler.schedule(() -> onTimer(head), remainingNanos, TimeUnit.NANOSECONDS);
+                return;
+            } catch (Throwable t) {
+                timerOwner = null;
+                waiters.pollFirst();
+                leave(head.tokens);
+                head.future.completeExceptionally(t);
+            }
+        }
+    }
+
+    private void complete(List<Waiter> expired) {
+        for (Waiter waiter : expired) {
+            leave(waiter.tokens);
+            waiter.completion.run();
+        }
+    }
+
+    /**
+     * The result of reservation done by {@link #reserve(long, Supplier, ToLongFunction)}.
+     */
+    static final class Reservation<R> {
+
+        final R result;
+        final long nanosToSleep;
+        final Waiter waiter;
+
+        Reservation(R result, long nanosToSleep, Waiter waiter) {
+            this.result = result;
+            this.nanosToSleep = nanosToSleep;
+            this.waiter = waiter;
+        }
+    }
+
+    /**
+     * The place in queue that is taken at the moment of reservation,
+     * it becomes either blocked or scheduled waiter when reserving request reaches {@link #park} or {@link #schedule}.
+     * All mutable fields are guarded by the lock of queue.
+     */
+    static final class Waiter {
+
+        final long tokens;
+        final long nanosToSleep;
+
+        boolean activated;
+        long deadlineNanos;
+
+        // blocked waiter
+        Condition turn;
+        boolean head;
+
+        // scheduled waiter
+        ScheduledExecutorService scheduler;
+        CompletableFuture<?> future;
+        Runnable completion;
+
+        Waiter(long tokens, long nanosToSleep) {
+            this.tokens = tokens;
+            this.nanosToSleep = nanosToSleep;
+        }
+    }
+
+}
@@ -39,6 +39,18 @@ public class LimitChecker {
         }
     }
 
+    public static void checkItemCosts(long[] itemCosts) {
+        if (itemCosts == null) {
+            throw BucketExceptions.nullItemCosts();
+        }
+        if (itemCosts.length == 0) {
+            throw BucketExceptions.emptyItemCosts();
+        }
+        for (long itemCost : itemCosts) {
+            checkTokensToConsume(itemCost);
+        }
+    }
+
     public static void checkMaxWaitTime(long maxWaitTimeNanos) {
         if (maxWaitTimeNanos <= 0) {
             throw BucketExceptions.nonPositiveNanosToWait(maxWaitTimeNanos);
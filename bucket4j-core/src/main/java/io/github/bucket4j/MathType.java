@@ -20,7 +20,11 @@
 
 package io.github.bucket4j;
 
-@Experimental
+/**
+ * Specifies the arithmetic which is used by {@link BucketState} to calculate refill of tokens.
+ *
+ * @see io.github.bucket4j.local.LocalBucketBuilder#withMath(MathType)
+ */
 public enum MathType {
 
     /**
@@ -28,4 +32,15 @@ public enum MathType {
      */
     INTEGER_64_BITS,
 
+    /**
+     * Floating point arithmetic according to IEEE 754 standard.
+     *
+     * <p>
+     * Refill does not need divisions with remainder, tracking of rounding errors and overflow checks, so it is cheaper than {@link #INTEGER_64_BITS},
+     * but token counts are exact only up to 2<sup>53</sup>, so this type is not suitable for bandwidths with capacity greater than that.
+     *
+     * @see BucketStateIEEE754
+     */
+    IEEE_754,
+
 }
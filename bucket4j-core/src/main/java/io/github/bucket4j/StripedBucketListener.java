@@ -0,0 +1,166 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The listener that collects the same statistics as {@link SimpleBucketListener}, but is designed for highly concurrent usage.
+ *
+ * <p>
+ * Instead of single atomic counter per metric, each metric is collected in {@link LongAdder},
+ * which spreads updates from different threads across padded cells, so consuming threads do not compete for the same cache line.
+ * The price is that reading is more expensive than writing, which is the right trade-off for metrics that are updated on each consumption
+ * but are scraped by monitoring system once per several seconds.
+ *
+ * <p>
+ * Use {@link #snapshotAndReset()} when monitoring system expects deltas since the previous scrape,
+ * and {@link #snapshot()} or getters when it expects cumulative values.
+ */
+public class StripedBucketListener implements BucketListener {
+
+    private final LongAdder consumed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder delayedNanos = new LongAdder();
+    private final LongAdder parkedNanos = new LongAdder();
+    private final LongAdder interrupted = new LongAdder();
+
+    @Override
+    public void onConsumed(long tokens) {
+        consumed.add(tokens);
+    }
+
+    @Override
+    public void onRejected(long tokens) {
+        rejected.add(tokens);
+    }
+
+    @Override
+    public void onDelayed(long nanos) {
+        delayedNanos.add(nanos);
+    }
+
+    @Override
+    public void onParked(long nanos) {
+        parkedNanos.add(nanos);
+    }
+
+    @Override
+    public void onInterrupted(InterruptedException e) {
+        interrupted.increment();
+    }
+
+    public long getConsumed() {
+        return consumed.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getDelayedNanos() {
+        return delayedNanos.sum();
+    }
+
+    public long getParkedNanos() {
+        return parkedNanos.sum();
+    }
+
+    public long getInterrupted() {
+        return interrupted.sum();
+    }
+
+    /**
+     * Returns current values of all counters.
+     *
+     * <p>
+     * The values are not atomic as a whole, if listener is updated concurrently then snapshot can include part of concurrent updates.
+     *
+     * @return current values of all counters
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(consumed.sum(), rejected.sum(), delayedNanos.sum(), parkedNanos.sum(), interrupted.sum());
+    }
+
+    /**
+     * Returns current values of all counters and resets them to zero.
+     *
+     * <p>
+     * Each counter is read and reset in single pass, so concurrent update is either included to returned snapshot or will be included to the next one,
+     * but it is never lost.
+     *
+     * @return values of all counters accumulated since previous reset
+     */
+    public Snapshot snapshotAndReset() {
+        return new Snapshot(consumed.sumThenReset(), rejected.sumThenReset(), delayedNanos.sumThenReset(), parkedNanos.sumThenReset(), interrupted.sumThenReset());
+    }
+
+    /**
+     * Immutable values of counters collected by {@link StripedBucketListener}.
+     */
+    public static final class Snapshot {
+
+        private final long consumed;
+        private final long rejected;
+        private final long delayedNanos;
+        private final long parkedNanos;
+        private final long interrupted;
+
+        public Snapshot(long consumed, long rejected, long delayedNanos, long parkedNanos, long interrupted) {
+            this.consumed = consumed;
+            this.rejected = rejected;
+            this.delayedNanos = delayedNanos;
+            this.parkedNanos = parkedNanos;
+            this.interrupted = interrupted;
+        }
+
+        public long getConsumed() {
+            return consumed;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getDelayedNanos() {
+            return delayedNanos;
+        }
+
+        public long getParkedNanos() {
+            return parkedNanos;
+        }
+
+        public long getInterrupted() {
+            return interrupted;
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot{" +
+                    "consumed=" + consumed +
+                    ", rejected=" + rejected +
+                    ", delayedNanos=" + delayedNanos +
+                    ", parkedNanos=" + parkedNanos +
+                    ", interrupted=" + interrupted +
+                    '}';
+        }
+    }
+
+}
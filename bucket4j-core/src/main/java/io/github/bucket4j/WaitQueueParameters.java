@@ -0,0 +1,77 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j;
+
+/**
+ * Describes parameters of {@link FifoWaitQueue} which can be attached to bucket in order to serve waiters of
+ * {@link BlockingBucket} and {@link SchedulingBucket} in FIFO order.
+ *
+ * <p>
+ * When the limits of queue are reached, the new requests are shed before touching the bucket:
+ * {@code tryConsume} returns {@code false} and {@code consume} fails with {@link IllegalStateException}.
+ *
+ * @see io.github.bucket4j.local.LocalBucketBuilder#withWaitQueue(WaitQueueParameters)
+ * @see io.github.bucket4j.distributed.proxy.RemoteBucketBuilder#withWaitQueue(WaitQueueParameters)
+ */
+public class WaitQueueParameters {
+
+    private static final WaitQueueParameters UNBOUNDED = new WaitQueueParameters(Integer.MAX_VALUE, Long.MAX_VALUE);
+
+    public final int maxWaiters;
+    public final long maxQueuedTokens;
+
+    /**
+     * Creates the new instance of {@link WaitQueueParameters}
+     *
+     * @param maxWaiters how many requests can wait for tokens at the same time. Must be a positive number.
+     * @param maxQueuedTokens how many tokens can be requested by waiting requests in total. Must be a positive number.
+     */
+    public WaitQueueParameters(int maxWaiters, long maxQueuedTokens) {
+        if (maxWaiters <= 0) {
+            throw BucketExceptions.nonPositiveMaxWaiters(maxWaiters);
+        }
+        if (maxQueuedTokens <= 0) {
+            throw BucketExceptions.nonPositiveMaxQueuedTokens(maxQueuedTokens);
+        }
+        this.maxWaiters = maxWaiters;
+        this.maxQueuedTokens = maxQueuedTokens;
+    }
+
+    /**
+     * Returns parameters of queue that orders waiters but never sheds the requests.
+     *
+     * @return parameters of unbounded queue
+     */
+    public static WaitQueueParameters unbounded() {
+        return UNBOUNDED;
+    }
+
+    /**
+     * Returns parameters of queue that sheds the requests when {@code maxWaiters} requests are already waiting.
+     *
+     * @param maxWaiters how many requests can wait for tokens at the same time. Must be a positive number.
+     *
+     * @return parameters of bounded queue
+     */
+    public static WaitQueueParameters bounded(int maxWaiters) {
+        return new WaitQueueParameters(maxWaiters, Long.MAX_VALUE);
+    }
+
+}
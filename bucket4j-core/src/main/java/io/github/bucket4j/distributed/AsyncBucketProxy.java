@@ -115,6 +115,21 @@ public interface AsyncBucketProxy {
      */
     CompletableFuture<ConsumptionProbe> tryConsumeAndReturnRemaining(long numTokens);
 
+    /**
+     * Asynchronous version of {@link Bucket#tryConsumeBatch(long[])}, follows the same semantic.
+     *
+     * <p>
+     * For distributed buckets whole batch is sent to back-end as single command, so admission of items is atomic.
+     * Array of costs must not be modified until returned future is completed.
+     *
+     * @param itemCosts The costs of items in tokens, must not be empty, each cost must be a positive number.
+     *
+     * @return the future which eventually will be completed by {@link BatchConsumptionProbe probe} which describes how many items were admitted.
+     *
+     * @see Bucket#tryConsumeBatch(long[])
+     */
+    CompletableFuture<BatchConsumptionProbe> tryConsumeBatch(long[] itemCosts);
+
     /**
      * Asynchronous version of {@link Bucket#estimateAbilityToConsume(long)}, follows the same semantic.
      *
@@ -135,6 +135,11 @@ public class AsyncBucketProxyAdapter implements AsyncBucketProxy, AsyncOptimizat
         return completedFuture(() -> target.estimateAbilityToConsume(numTokens));
     }
 
+    @Override
+    public CompletableFuture<BatchConsumptionProbe> tryConsumeBatch(long[] itemCosts) {
+        return completedFuture(() -> target.tryConsumeBatch(itemCosts));
+    }
+
     @Override
     public CompletableFuture<Long> tryConsumeAsMuchAsPossible() {
         return completedFuture(() -> target.tryConsumeAsMuchAsPossible());
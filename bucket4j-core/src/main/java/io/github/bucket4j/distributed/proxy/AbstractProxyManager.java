@@ -22,13 +22,16 @@ package io.github.bucket4j.distributed.proxy;
 import io.github.bucket4j.BucketConfiguration;
 import io.github.bucket4j.BucketExceptions;
 import io.github.bucket4j.BucketListener;
+import io.github.bucket4j.FifoWaitQueue;
 import io.github.bucket4j.TimeMeter;
 import io.github.bucket4j.TokensInheritanceStrategy;
+import io.github.bucket4j.WaitQueueParameters;
 import io.github.bucket4j.distributed.AsyncBucketProxy;
 import io.github.bucket4j.distributed.BucketProxy;
 import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
 import io.github.bucket4j.distributed.proxy.optimization.Optimization;
 import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.MutableBucketEntry;
 import io.github.bucket4j.distributed.remote.RemoteCommand;
 import io.github.bucket4j.distributed.remote.Request;
 import io.github.bucket4j.distributed.remote.commands.GetConfigurationCommand;
@@ -61,7 +64,7 @@ public abstract class AbstractProxyManager<K> implements ProxyManager<K> {
             GetConfigurationCommand cmd = new GetConfigurationCommand();
             ExpirationAfterWriteStrategy expirationStrategy = clientSideConfig.getExpirationAfterWriteStrategy().orElse(null);
             Request<BucketConfiguration> request = new Request<>(cmd, getBackwardCompatibilityVersion(), getClientSideTime(), expirationStrategy);
-            return executeAsync(key, request).thenApply(result -> {
+            return executeAsyncAndNotifyListener(key, request).thenApply(result -> {
                 if (result.isBucketNotFound()) {
                     return Optional.empty();
                 }
@@ -98,7 +101,7 @@ public abstract class AbstractProxyManager<K> implements ProxyManager<K> {
         GetConfigurationCommand cmd = new GetConfigurationCommand();
 
         Request<BucketConfiguration> request = new Request<>(cmd, getBackwardCompatibilityVersion(), getClientSideTime(), null);
-        CommandResult<BucketConfiguration> result = this.execute(key, request);
+        CommandResult<BucketConfiguration> result = executeAndNotifyListener(key, request);
         if (result.isBucketNotFound()) {
             return Optional.empty();
         }
@@ -155,7 +158,7 @@ public abstract class AbstractProxyManager<K> implements ProxyManager<K> {
                 public <T> CompletableFuture<CommandResult<T>> executeAsync(RemoteCommand<T> command) {
                     ExpirationAfterWriteStrategy expirationStrategy = clientSideConfig.getExpirationAfterWriteStrategy().orElse(null);
                     Request<T> request = new Request<>(command, getBackwardCompatibilityVersion(), getClientSideTime(), expirationStrategy);
-                    Supplier<CompletableFuture<CommandResult<T>>> futureSupplier = () -> AbstractProxyManager.this.executeAsync(key, request);
+                    Supplier<CompletableFuture<CommandResult<T>>> futureSupplier = () -> executeAsyncAndNotifyListener(key, request);
                     return clientSideConfig.getExecutionStrategy().executeAsync(futureSupplier);
                 }
             };
@@ -172,6 +175,7 @@ public abstract class AbstractProxyManager<K> implements ProxyManager<K> {
         private Optimization requestOptimizer = DEFAULT_REQUEST_OPTIMIZER;
         private ImplicitConfigurationReplacement implicitConfigurationReplacement;
         private BucketListener listener = BucketListener.NOPE;
+        private WaitQueueParameters waitQueueParameters;
 
         @Override
         public RemoteBucketBuilder<K> withRecoveryStrategy(RecoveryStrategy recoveryStrategy) {
@@ -197,6 +201,15 @@ public abstract class AbstractProxyManager<K> implements ProxyManager<K> {
             return this;
         }
 
+        @Override
+        public RemoteBucketBuilder<K> withWaitQueue(WaitQueueParameters waitQueueParameters) {
+            if (waitQueueParameters == null) {
+                throw BucketExceptions.nullWaitQueueParameters();
+            }
+            this.waitQueueParameters = waitQueueParameters;
+            return this;
+        }
+
         @Override
         public BucketProxy build(K key, BucketConfiguration configuration) {
             if (configuration == null) {
@@ -216,15 +229,44 @@ public abstract class AbstractProxyManager<K> implements ProxyManager<K> {
                 public <T> CommandResult<T> execute(RemoteCommand<T> command) {
                     ExpirationAfterWriteStrategy expirationStrategy = clientSideConfig.getExpirationAfterWriteStrategy().orElse(null);
                     Request<T> request = new Request<>(command, getBackwardCompatibilityVersion(), getClientSideTime(), expirationStrategy);
-                    Supplier<CommandResult<T>> resultSupplier = () -> AbstractProxyManager.this.execute(key, request);
+                    Supplier<CommandResult<T>> resultSupplier = () -> executeAndNotifyListener(key, request);
                     return clientSideConfig.getExecutionStrategy().execute(resultSupplier);
                 }
             };
             commandExecutor = requestOptimizer.apply(commandExecutor);
 
-            return new DefaultBucketProxy(configurationSupplier, commandExecutor, recoveryStrategy, implicitConfigurationReplacement, listener);
+            FifoWaitQueue waitQueue = waitQueueParameters == null ? null : new FifoWaitQueue(waitQueueParameters);
+            return new DefaultBucketProxy(configurationSupplier, commandExecutor, recoveryStrategy, implicitConfigurationReplacement, listener, waitQueue);
+        }
+
+    }
+
+    private <T> CommandResult<T> executeAndNotifyListener(K key, Request<T> request) {
+        ProxyManagerListener listener = clientSideConfig.getProxyManagerListener();
+        if (listener == ProxyManagerListener.NOPE) {
+            return execute(key, request);
         }
+        long startNanos = System.nanoTime();
+        CommandResult<T> result;
+        try {
+            result = execute(key, request);
+        } catch (Throwable e) {
+            listener.onRemoteCommandExecuted(request.getCommand(), System.nanoTime() - startNanos, false, e);
+            throw e;
+        }
+        listener.onRemoteCommandExecuted(request.getCommand(), System.nanoTime() - startNanos, false, null);
+        return result;
+    }
 
+    private <T> CompletableFuture<CommandResult<T>> executeAsyncAndNotifyListener(K key, Request<T> request) {
+        ProxyManagerListener listener = clientSideConfig.getProxyManagerListener();
+        if (listener == ProxyManagerListener.NOPE) {
+            return executeAsync(key, request);
+        }
+        long startNanos = System.nanoTime();
+        return executeAsync(key, request).whenComplete((result, error) ->
+            listener.onRemoteCommandExecuted(request.getCommand(), System.nanoTime() - startNanos, true, error)
+        );
     }
 
     abstract protected <T> CommandResult<T> execute(K key, Request<T> request);
@@ -253,4 +295,21 @@ public abstract class AbstractProxyManager<K> implements ProxyManager<K> {
         return clientClock.get().currentTimeNanos();
     }
 
+    /**
+     * Executes {@link RemoteCommand#isReadOnly() read-only} request against the state that was read from storage without locking,
+     * it is the responsibility of caller to check that command is read-only.
+     *
+     * @param stateBytes the state that was read from storage, null means that bucket does not exist
+     * @param request the read-only request
+     *
+     * @return result of request
+     *
+     * @param <T> type of result
+     */
+    protected <T> CommandResult<T> executeReadOnlyLocally(byte[] stateBytes, Request<T> request) {
+        MutableBucketEntry entry = new MutableBucketEntry(stateBytes);
+        long currentTimeNanos = request.getClientSideTime() != null? request.getClientSideTime(): System.currentTimeMillis() * 1_000_000;
+        return request.getCommand().execute(entry, currentTimeNanos);
+    }
+
 }
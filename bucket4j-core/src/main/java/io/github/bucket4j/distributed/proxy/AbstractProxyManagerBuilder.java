@@ -27,6 +27,7 @@ import io.github.bucket4j.BucketExceptions;
 import io.github.bucket4j.BucketListener;
 import io.github.bucket4j.TimeMeter;
 import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapRetryPolicy;
 import io.github.bucket4j.distributed.versioning.Version;
 import io.github.bucket4j.distributed.versioning.Versions;
 
@@ -47,6 +48,9 @@ public abstract class AbstractProxyManagerBuilder<K, P extends ProxyManager<K>,
 
     private BucketListener defaultListener = BucketListener.NOPE;
     private RecoveryStrategy defaultRecoveryStrategy = RecoveryStrategy.RECONSTRUCT;
+    private ProxyManagerListener proxyManagerListener = ProxyManagerListener.NOPE;
+    private CompareAndSwapRetryPolicy compareAndSwapRetryPolicy = CompareAndSwapRetryPolicy.DEFAULT;
+    private int compareAndSwapStateCacheCapacity = 0;
 
     /**
      * Configures {@code backwardCompatibilityVersion}.
@@ -169,6 +173,48 @@ public abstract class AbstractProxyManagerBuilder<K, P extends ProxyManager<K>,
         return (B) this;
     }
 
+    /**
+     * Configures listener of events that happen during interaction with remote storage, like latency of commands, compare-and-swap retries and lock waiting.
+     *
+     * @param proxyManagerListener listener of interaction with storage
+     *
+     * @return this builder instance
+     */
+    public B proxyManagerListener(ProxyManagerListener proxyManagerListener) {
+        this.proxyManagerListener = Objects.requireNonNull(proxyManagerListener);
+        return (B) this;
+    }
+
+    /**
+     * Configures the policy that describes how to retry unsuccessful compare-and-swap.
+     * Makes sense only for proxy-managers built on top of compare-and-swap, other proxy-managers ignore it.
+     *
+     * @param compareAndSwapRetryPolicy the policy of compare-and-swap retries
+     *
+     * @return this builder instance
+     */
+    public B compareAndSwapRetryPolicy(CompareAndSwapRetryPolicy compareAndSwapRetryPolicy) {
+        this.compareAndSwapRetryPolicy = Objects.requireNonNull(compareAndSwapRetryPolicy);
+        return (B) this;
+    }
+
+    /**
+     * Enables optimistic caching of bucket state for proxy-managers built on top of compare-and-swap, other proxy-managers ignore it.
+     *
+     * @param capacity the max amount of keys for which state is remembered
+     *
+     * @return this builder instance
+     *
+     * @see ClientSideConfig#withCompareAndSwapStateCache(int)
+     */
+    public B compareAndSwapStateCache(int capacity) {
+        if (capacity <= 0) {
+            throw BucketExceptions.nonPositiveCompareAndSwapStateCacheCapacity(capacity);
+        }
+        this.compareAndSwapStateCacheCapacity = capacity;
+        return (B) this;
+    }
+
     /**
      * Returns the strategy for choosing time to live for buckets.
      *
@@ -233,7 +279,7 @@ public abstract class AbstractProxyManagerBuilder<K, P extends ProxyManager<K>,
     }
 
     public ClientSideConfig getClientSideConfig() {
-        return new ClientSideConfig(backwardCompatibilityVersion, clientSideClock, executionStrategy, requestTimeoutNanos, expirationStrategy, defaultListener, defaultRecoveryStrategy);
+        return new ClientSideConfig(backwardCompatibilityVersion, clientSideClock, executionStrategy, requestTimeoutNanos, expirationStrategy, defaultListener, defaultRecoveryStrategy, proxyManagerListener, compareAndSwapRetryPolicy, compareAndSwapStateCacheCapacity);
     }
 
 }
@@ -29,6 +29,8 @@ import io.github.bucket4j.TimeMeter;
 import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
 import io.github.bucket4j.distributed.proxy.AbstractProxyManager.DefaultAsyncRemoteBucketBuilder;
 import io.github.bucket4j.distributed.proxy.AbstractProxyManager.DefaultRemoteBucketBuilder;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AbstractCompareAndSwapBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapRetryPolicy;
 import io.github.bucket4j.distributed.versioning.Version;
 import io.github.bucket4j.distributed.versioning.Versions;
 
@@ -37,12 +39,15 @@ import io.github.bucket4j.distributed.versioning.Versions;
  * <ul>
  *     <li>Backward compatibility version, see {@link #backwardCompatibleWith(Version)} for more details.</li>
  *     <li>Client-side clock, see {@link #withClientClock(TimeMeter)} for more details.</li>
+ *     <li>Listener of interaction with storage, see {@link #withProxyManagerListener(ProxyManagerListener)} for more details.</li>
+ *     <li>Retry policy for compare-and-swap based storages, see {@link #withCompareAndSwapRetryPolicy(CompareAndSwapRetryPolicy)} for more details.</li>
+ *     <li>Optimistic state cache for compare-and-swap based storages, see {@link #withCompareAndSwapStateCache(int)} for more details.</li>
  * </ul>
  */
 public class ClientSideConfig {
 
     private static final ClientSideConfig defaultConfig = new ClientSideConfig(Versions.getLatest(), Optional.empty(),
-        ExecutionStrategy.SAME_TREAD, Optional.empty(), Optional.empty(), BucketListener.NOPE, RecoveryStrategy.RECONSTRUCT);
+        ExecutionStrategy.SAME_TREAD, Optional.empty(), Optional.empty(), BucketListener.NOPE, RecoveryStrategy.RECONSTRUCT, ProxyManagerListener.NOPE, CompareAndSwapRetryPolicy.DEFAULT, 0);
 
     private final Version backwardCompatibilityVersion;
     private final Optional<TimeMeter> clientSideClock;
@@ -56,12 +61,30 @@ public class ClientSideConfig {
     private final BucketListener defaultListener;
     private final RecoveryStrategy defaultRecoveryStrategy;
 
+    private final ProxyManagerListener proxyManagerListener;
+
+    private final CompareAndSwapRetryPolicy compareAndSwapRetryPolicy;
+    private final int compareAndSwapStateCacheCapacity;
+
     protected ClientSideConfig(Version backwardCompatibilityVersion, Optional<TimeMeter> clientSideClock,
                                ExecutionStrategy executionStrategy,
                                Optional<Long> requestTimeoutNanos,
                                Optional<ExpirationAfterWriteStrategy> expirationStrategy,
                                BucketListener defaultListener,
                                RecoveryStrategy defaultRecoveryStrategy) {
+        this(backwardCompatibilityVersion, clientSideClock, executionStrategy, requestTimeoutNanos, expirationStrategy,
+            defaultListener, defaultRecoveryStrategy, ProxyManagerListener.NOPE, CompareAndSwapRetryPolicy.DEFAULT, 0);
+    }
+
+    protected ClientSideConfig(Version backwardCompatibilityVersion, Optional<TimeMeter> clientSideClock,
+                               ExecutionStrategy executionStrategy,
+                               Optional<Long> requestTimeoutNanos,
+                               Optional<ExpirationAfterWriteStrategy> expirationStrategy,
+                               BucketListener defaultListener,
+                               RecoveryStrategy defaultRecoveryStrategy,
+                               ProxyManagerListener proxyManagerListener,
+                               CompareAndSwapRetryPolicy compareAndSwapRetryPolicy,
+                               int compareAndSwapStateCacheCapacity) {
         this.backwardCompatibilityVersion = Objects.requireNonNull(backwardCompatibilityVersion);
         this.clientSideClock = Objects.requireNonNull(clientSideClock);
         this.executionStrategy = executionStrategy;
@@ -69,6 +92,9 @@ public class ClientSideConfig {
         this.expirationStrategy = expirationStrategy;
         this.defaultListener = Objects.requireNonNull(defaultListener);
         this.defaultRecoveryStrategy = Objects.requireNonNull(defaultRecoveryStrategy);
+        this.proxyManagerListener = Objects.requireNonNull(proxyManagerListener);
+        this.compareAndSwapRetryPolicy = Objects.requireNonNull(compareAndSwapRetryPolicy);
+        this.compareAndSwapStateCacheCapacity = compareAndSwapStateCacheCapacity;
     }
 
     /**
@@ -98,7 +124,7 @@ public class ClientSideConfig {
      * @return new instance of {@link ClientSideConfig} with configured {@code backwardCompatibilityVersion}.
      */
     public ClientSideConfig backwardCompatibleWith(Version backwardCompatibilityVersion) {
-        return new ClientSideConfig(backwardCompatibilityVersion, clientSideClock, executionStrategy, requestTimeoutNanos, expirationStrategy, defaultListener, defaultRecoveryStrategy);
+        return new ClientSideConfig(backwardCompatibilityVersion, clientSideClock, executionStrategy, requestTimeoutNanos, expirationStrategy, defaultListener, defaultRecoveryStrategy, proxyManagerListener, compareAndSwapRetryPolicy, compareAndSwapStateCacheCapacity);
     }
 
     /**
@@ -116,7 +142,7 @@ public class ClientSideConfig {
      * @return new instance of {@link ClientSideConfig} with configured {@code clientClock}.
      */
     public ClientSideConfig withClientClock(TimeMeter clientClock) {
-        return new ClientSideConfig(backwardCompatibilityVersion, Optional.of(clientClock), executionStrategy, requestTimeoutNanos, expirationStrategy, defaultListener, defaultRecoveryStrategy);
+        return new ClientSideConfig(backwardCompatibilityVersion, Optional.of(clientClock), executionStrategy, requestTimeoutNanos, expirationStrategy, defaultListener, defaultRecoveryStrategy, proxyManagerListener, compareAndSwapRetryPolicy, compareAndSwapStateCacheCapacity);
     }
 
     /**
@@ -130,7 +156,7 @@ public class ClientSideConfig {
      * @return new instance of {@link ClientSideConfig} with configured {@code clientClock}.
      */
     public ClientSideConfig withExecutionStrategy(ExecutionStrategy executionStrategy) {
-        return new ClientSideConfig(backwardCompatibilityVersion, clientSideClock, executionStrategy, requestTimeoutNanos, expirationStrategy, defaultListener, defaultRecoveryStrategy);
+        return new ClientSideConfig(backwardCompatibilityVersion, clientSideClock, executionStrategy, requestTimeoutNanos, expirationStrategy, defaultListener, defaultRecoveryStrategy, proxyManagerListener, compareAndSwapRetryPolicy, compareAndSwapStateCacheCapacity);
     }
 
     /**
@@ -153,7 +179,7 @@ public class ClientSideConfig {
             throw BucketExceptions.nonPositiveRequestTimeout(requestTimeout);
         }
         long requestTimeoutNanos = requestTimeout.toNanos();
-        return new ClientSideConfig(backwardCompatibilityVersion, clientSideClock, executionStrategy, Optional.of(requestTimeoutNanos), expirationStrategy, defaultListener, defaultRecoveryStrategy);
+        return new ClientSideConfig(backwardCompatibilityVersion, clientSideClock, executionStrategy, Optional.of(requestTimeoutNanos), expirationStrategy, defaultListener, defaultRecoveryStrategy, proxyManagerListener, compareAndSwapRetryPolicy, compareAndSwapStateCacheCapacity);
     }
 
     /**
@@ -166,7 +192,62 @@ public class ClientSideConfig {
      * @return new instance of {@link ClientSideConfig} with configured {@code expirationStrategy}.
      */
     public ClientSideConfig withExpirationAfterWriteStrategy(ExpirationAfterWriteStrategy expirationStrategy) {
-        return new ClientSideConfig(backwardCompatibilityVersion, clientSideClock, executionStrategy, requestTimeoutNanos, Optional.of(expirationStrategy), defaultListener, defaultRecoveryStrategy);
+        return new ClientSideConfig(backwardCompatibilityVersion, clientSideClock, executionStrategy, requestTimeoutNanos, Optional.of(expirationStrategy), defaultListener, defaultRecoveryStrategy, proxyManagerListener, compareAndSwapRetryPolicy, compareAndSwapStateCacheCapacity);
+    }
+
+    /**
+     * Returns new instance of {@link ClientSideConfig} with configured {@code proxyManagerListener}.
+     *
+     * <p>
+     * By default, listener is {@link ProxyManagerListener#NOPE}. This means that interaction with storage is not measured at all.
+     *
+     * @param proxyManagerListener the listener of events that happen during interaction with remote storage.
+     *
+     * @return new instance of {@link ClientSideConfig} with configured {@code proxyManagerListener}.
+     */
+    public ClientSideConfig withProxyManagerListener(ProxyManagerListener proxyManagerListener) {
+        return new ClientSideConfig(backwardCompatibilityVersion, clientSideClock, executionStrategy, requestTimeoutNanos, expirationStrategy, defaultListener, defaultRecoveryStrategy, proxyManagerListener, compareAndSwapRetryPolicy, compareAndSwapStateCacheCapacity);
+    }
+
+    /**
+     * Returns new instance of {@link ClientSideConfig} with configured {@code compareAndSwapRetryPolicy}.
+     *
+     * <p>
+     * The policy is applicable only for proxy-managers based on {@link AbstractCompareAndSwapBasedProxyManager}, other proxy-managers ignore it.
+     * By default, policy is {@link CompareAndSwapRetryPolicy#DEFAULT}. This means that unsuccessful compare-and-swap is retried immediately without limits.
+     *
+     * @param compareAndSwapRetryPolicy the policy that describes how to retry unsuccessful compare-and-swap.
+     *
+     * @return new instance of {@link ClientSideConfig} with configured {@code compareAndSwapRetryPolicy}.
+     */
+    public ClientSideConfig withCompareAndSwapRetryPolicy(CompareAndSwapRetryPolicy compareAndSwapRetryPolicy) {
+        return new ClientSideConfig(backwardCompatibilityVersion, clientSideClock, executionStrategy, requestTimeoutNanos, expirationStrategy, defaultListener, defaultRecoveryStrategy, proxyManagerListener, compareAndSwapRetryPolicy, compareAndSwapStateCacheCapacity);
+    }
+
+    /**
+     * Returns new instance of {@link ClientSideConfig} with enabled optimistic caching of bucket state for compare-and-swap based storages.
+     *
+     * <p>
+     * By default, each compare-and-swap attempt starts from reading the state from storage.
+     * When cache is enabled, the state that was last read or written by this client is remembered,
+     * and the next attempt goes straight to compare-and-swap using remembered state as expected value.
+     * The actual state is read from storage only when compare-and-swap fails, so for keys that are mostly modified by single client
+     * the amount of round trips to storage is halved. Commands that do not modify the state, like {@code getAvailableTokens},
+     * are never served from cache.
+     *
+     * <p>
+     * The cache is direct-mapped, so at most {@code capacity} keys are remembered, and keys that collide in cache evict each other.
+     * The option is applicable only for proxy-managers based on {@link AbstractCompareAndSwapBasedProxyManager}, other proxy-managers ignore it.
+     *
+     * @param capacity the max amount of keys for which state is remembered, rounded up to power of two
+     *
+     * @return new instance of {@link ClientSideConfig} with enabled optimistic state cache.
+     */
+    public ClientSideConfig withCompareAndSwapStateCache(int capacity) {
+        if (capacity <= 0) {
+            throw BucketExceptions.nonPositiveCompareAndSwapStateCacheCapacity(capacity);
+        }
+        return new ClientSideConfig(backwardCompatibilityVersion, clientSideClock, executionStrategy, requestTimeoutNanos, expirationStrategy, defaultListener, defaultRecoveryStrategy, proxyManagerListener, compareAndSwapRetryPolicy, capacity);
     }
 
     /**
@@ -218,6 +299,39 @@ public class ClientSideConfig {
         return executionStrategy;
     }
 
+    /**
+     * Returns the listener of events that happen during interaction with remote storage
+     *
+     * @return the listener of events that happen during interaction with remote storage
+     *
+     * @see #withProxyManagerListener(ProxyManagerListener)
+     */
+    public ProxyManagerListener getProxyManagerListener() {
+        return proxyManagerListener;
+    }
+
+    /**
+     * Returns the policy that describes how to retry unsuccessful compare-and-swap
+     *
+     * @return the policy that describes how to retry unsuccessful compare-and-swap
+     *
+     * @see #withCompareAndSwapRetryPolicy(CompareAndSwapRetryPolicy)
+     */
+    public CompareAndSwapRetryPolicy getCompareAndSwapRetryPolicy() {
+        return compareAndSwapRetryPolicy;
+    }
+
+    /**
+     * Returns the capacity of optimistic state cache for compare-and-swap based storages, zero means that cache is disabled
+     *
+     * @return the capacity of optimistic state cache for compare-and-swap based storages
+     *
+     * @see #withCompareAndSwapStateCache(int)
+     */
+    public int getCompareAndSwapStateCacheCapacity() {
+        return compareAndSwapStateCacheCapacity;
+    }
+
     public <K> RemoteBucketBuilder<K> apply(DefaultRemoteBucketBuilder builder) {
         return builder.withListener(defaultListener)
             .withRecoveryStrategy(defaultRecoveryStrategy);
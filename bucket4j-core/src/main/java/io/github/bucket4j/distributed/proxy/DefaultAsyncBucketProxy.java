@@ -388,6 +388,21 @@ public class DefaultAsyncBucketProxy implements AsyncBucketProxy, AsyncOptimizat
         return execute(new EstimateAbilityToConsumeCommand(numTokens));
     }
 
+    @Override
+    public CompletableFuture<BatchConsumptionProbe> tryConsumeBatch(long[] itemCosts) {
+        checkItemCosts(itemCosts);
+
+        return execute(new TryConsumeBatchCommand(itemCosts)).thenApply(probe -> {
+            if (probe.getConsumedTokens() > 0) {
+                listener.onConsumed(probe.getConsumedTokens());
+            }
+            if (!probe.isAllAdmitted()) {
+                listener.onRejected(AbstractBucket.sumOfRejectedCosts(itemCosts, probe.getAdmittedItems()));
+            }
+            return probe;
+        });
+    }
+
     @Override
     public CompletableFuture<Long> tryConsumeAsMuchAsPossible() {
         return execute(new ConsumeAsMuchAsPossibleCommand(UNLIMITED_AMOUNT)).thenApply(consumedTokens -> {
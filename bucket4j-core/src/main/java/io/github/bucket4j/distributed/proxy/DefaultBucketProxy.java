@@ -42,7 +42,7 @@ public class DefaultBucketProxy extends AbstractBucket implements BucketProxy, O
 
     @Override
     public BucketProxy toListenable(BucketListener listener) {
-        return new DefaultBucketProxy(configurationSupplier, commandExecutor, recoveryStrategy, wasInitialized, implicitConfigurationReplacement, listener);
+        return new DefaultBucketProxy(configurationSupplier, commandExecutor, recoveryStrategy, wasInitialized, implicitConfigurationReplacement, listener, getWaitQueue());
     }
 
     @Override
@@ -57,11 +57,16 @@ public class DefaultBucketProxy extends AbstractBucket implements BucketProxy, O
 
     public DefaultBucketProxy(Supplier<BucketConfiguration> configurationSupplier, CommandExecutor commandExecutor, RecoveryStrategy recoveryStrategy,
                               ImplicitConfigurationReplacement implicitConfigurationReplacement, BucketListener listener) {
-        this(configurationSupplier, commandExecutor, recoveryStrategy, new AtomicBoolean(false), implicitConfigurationReplacement, listener);
+        this(configurationSupplier, commandExecutor, recoveryStrategy, implicitConfigurationReplacement, listener, null);
     }
 
-    private DefaultBucketProxy(Supplier<BucketConfiguration> configurationSupplier, CommandExecutor commandExecutor, RecoveryStrategy recoveryStrategy, AtomicBoolean wasInitialized, ImplicitConfigurationReplacement implicitConfigurationReplacement, BucketListener listener) {
-        super(listener);
+    public DefaultBucketProxy(Supplier<BucketConfiguration> configurationSupplier, CommandExecutor commandExecutor, RecoveryStrategy recoveryStrategy,
+                              ImplicitConfigurationReplacement implicitConfigurationReplacement, BucketListener listener, FifoWaitQueue waitQueue) {
+        this(configurationSupplier, commandExecutor, recoveryStrategy, new AtomicBoolean(false), implicitConfigurationReplacement, listener, waitQueue);
+    }
+
+    private DefaultBucketProxy(Supplier<BucketConfiguration> configurationSupplier, CommandExecutor commandExecutor, RecoveryStrategy recoveryStrategy, AtomicBoolean wasInitialized, ImplicitConfigurationReplacement implicitConfigurationReplacement, BucketListener listener, FifoWaitQueue waitQueue) {
+        super(listener, waitQueue);
 
         this.commandExecutor = Objects.requireNonNull(commandExecutor);
         this.recoveryStrategy = Objects.requireNonNull(recoveryStrategy);
@@ -94,6 +99,11 @@ public class DefaultBucketProxy extends AbstractBucket implements BucketProxy, O
         return execute(new EstimateAbilityToConsumeCommand(numTokens));
     }
 
+    @Override
+    protected BatchConsumptionProbe tryConsumeBatchImpl(long[] itemCosts) {
+        return execute(new TryConsumeBatchCommand(itemCosts));
+    }
+
     @Override
     protected long reserveAndCalculateTimeToSleepImpl(long tokensToConsume, long maxWaitTimeNanos) {
         ReserveAndCalculateTimeToSleepCommand consumeCommand = new ReserveAndCalculateTimeToSleepCommand(tokensToConsume, maxWaitTimeNanos);
@@ -0,0 +1,202 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.proxy;
+
+import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.MutableBucketEntry;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import io.github.bucket4j.distributed.remote.Request;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Local copy of bucket states that is used by proxy-managers to serve {@link io.github.bucket4j.distributed.remote.RemoteCommand#isReadOnly() read-only} commands
+ * like {@code getAvailableTokens} or {@code estimateAbilityToConsume} without network hops to the owner of the bucket.
+ *
+ * <p>
+ * Each cached state lives at most {@code timeToLive}, in addition proxy-manager invalidates the state when it modifies the bucket
+ * or when it is notified by storage about modification, so the answers of read-only commands can be stale at most for {@code timeToLive}.
+ * Commands that modify the state are never served from cache.
+ *
+ * <p>
+ * The cache is direct-mapped: it has {@code maxKeys} slots rounded up to power of two, each key can occupy only one slot,
+ * and new key evicts the key that occupies the same slot.
+ *
+ * <p>
+ * The loading of state is protected from races with invalidation: the state that was read before invalidation of the same key is not cached,
+ * modifications of other keys do not affect the loading.
+ *
+ * @param <K> type of key
+ */
+public class NearCache<K> {
+
+    private static final int MAX_SIZE = 1 << 30;
+
+    private final long timeToLiveNanos;
+    private final AtomicReferenceArray<Entry<K>> slots;
+    private final int mask;
+    private final AtomicLong loadingStamps = new AtomicLong();
+
+    public NearCache(Duration timeToLive, int maxKeys) {
+        if (timeToLive.isZero() || timeToLive.isNegative()) {
+            throw BucketExceptions.nonPositiveNearCacheTimeToLive(timeToLive);
+        }
+        if (maxKeys <= 0) {
+            throw BucketExceptions.nonPositiveNearCacheMaxKeys(maxKeys);
+        }
+        this.timeToLiveNanos = timeToLive.toNanos();
+        int size = maxKeys == 1 ? 1 : Integer.highestOneBit(Math.min(maxKeys - 1, MAX_SIZE / 2)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Checks that request can be served from cache.
+     *
+     * @param request the request to check
+     *
+     * @return true if request can be served from cache
+     */
+    public boolean isCacheable(Request<?> request) {
+        return request.getCommand().isReadOnly();
+    }
+
+    /**
+     * Executes request against cached state.
+     *
+     * @param key the bucket key
+     * @param request the read-only request
+     *
+     * @return result of request, or null if there is no actual state in the cache
+     *
+     * @param <T> type of result
+     */
+    public <T> CommandResult<T> execute(K key, Request<T> request) {
+        int index = slotIndex(key);
+        Entry<K> entry = slots.get(index);
+        if (entry == null || entry.state == null || !entry.key.equals(key)) {
+            return null;
+        }
+        if (entry.expiresAtNanos - System.nanoTime() <= 0) {
+            slots.compareAndSet(index, entry, null);
+            return null;
+        }
+        return executeLocally(entry.state, request);
+    }
+
+    /**
+     * Takes the slot of key for loading, must be called before reading state from storage,
+     * the returned stamp should be passed to {@link #putAndExecute(Object, RemoteBucketState, long, Request)}.
+     *
+     * @param key the bucket key
+     *
+     * @return the stamp of loading
+     */
+    public long beginLoad(K key) {
+        long stamp = loadingStamps.incrementAndGet();
+        slots.set(slotIndex(key), new Entry<>(key, null, 0L, stamp));
+        return stamp;
+    }
+
+    /**
+     * Remembers the state that was read from storage and executes request against it.
+     * The state is not remembered if the key was invalidated or its slot was taken by another loading after {@code stampBeforeRead} was taken.
+     *
+     * @param key the bucket key
+     * @param state the state that was read from storage, null means that bucket does not exist
+     * @param stampBeforeRead the stamp that was returned by {@link #beginLoad(Object)} before reading the state
+     * @param request the read-only request
+     *
+     * @return result of request
+     *
+     * @param <T> type of result
+     */
+    public <T> CommandResult<T> putAndExecute(K key, RemoteBucketState state, long stampBeforeRead, Request<T> request) {
+        int index = slotIndex(key);
+        Entry<K> loadingEntry = slots.get(index);
+        if (loadingEntry != null && loadingEntry.state == null && loadingEntry.stamp == stampBeforeRead) {
+            Entry<K> loadedEntry = state == null ? null : new Entry<>(key, state.copy(), System.nanoTime() + timeToLiveNanos, stampBeforeRead);
+            // invalidation removes the loading entry, so state that was read before invalidation can not be cached
+            slots.compareAndSet(index, loadingEntry, loadedEntry);
+        }
+        return executeLocally(state, request);
+    }
+
+    /**
+     * Removes cached state for the key, should be called after modification of bucket.
+     *
+     * @param key the bucket key
+     */
+    public void invalidate(K key) {
+        int index = slotIndex(key);
+        while (true) {
+            Entry<K> entry = slots.get(index);
+            if (entry == null || !entry.key.equals(key)) {
+                return;
+            }
+            // the loaded state can be stored concurrently, so invalidation should retry until slot is cleared
+            if (slots.compareAndSet(index, entry, null)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes all cached states.
+     */
+    public void invalidateAll() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+    }
+
+    private int slotIndex(K key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static <T> CommandResult<T> executeLocally(RemoteBucketState state, Request<T> request) {
+        // read-only commands refill the state before reading, so they should work with the copy
+        MutableBucketEntry entry = new MutableBucketEntry(state == null ? null : state.copy());
+        long currentTimeNanos = request.getClientSideTime() != null? request.getClientSideTime(): System.currentTimeMillis() * 1_000_000;
+        return request.getCommand().execute(entry, currentTimeNanos);
+    }
+
+    private static final class Entry<K> {
+
+        private final K key;
+        // null means that state is being loaded
+        private final RemoteBucketState state;
+        private final long expiresAtNanos;
+        private final long stamp;
+
+        private Entry(K key, RemoteBucketState state, long expiresAtNanos, long stamp) {
+            this.key = key;
+            this.state = state;
+            this.expiresAtNanos = expiresAtNanos;
+            this.stamp = stamp;
+        }
+
+    }
+
+}
@@ -0,0 +1,101 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.proxy;
+
+import io.github.bucket4j.BucketListener;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AbstractCompareAndSwapBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.pessimistic_locking.AbstractLockBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.AbstractSelectForUpdateBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.jfr.JfrProxyManagerListener;
+import io.github.bucket4j.distributed.remote.RemoteCommand;
+
+/**
+ * Interface for listening events that happen inside {@link ProxyManager} during interaction with remote storage.
+ * In contrast to {@link BucketListener} which reports what happened with tokens,
+ * this listener reports how expensive the interaction with storage was, so the typical use-case of this interface is monitoring of backend.
+ *
+ * <p>
+ * The listener is configured per proxy-manager via {@link AbstractProxyManagerBuilder#proxyManagerListener(ProxyManagerListener)}
+ * or {@link ClientSideConfig#withProxyManagerListener(ProxyManagerListener)}.
+ * When listener is not configured, the proxy-manager does not measure anything, so there is no overhead for users that do not need in metrics.
+ *
+ * <p>
+ * All methods are invoked on client side, potentially concurrently from many threads, so implementation must be thread-safe and fast.
+ *
+ * @see JfrProxyManagerListener
+ */
+public interface ProxyManagerListener {
+
+    /**
+     * This method is called each time when command has been executed by proxy-manager.
+     * The duration includes all retries and time of waiting for locks.
+     *
+     * @param command the command that was executed
+     * @param durationNanos the amount of nanoseconds spent on execution
+     * @param async {@code true} if command was executed via asynchronous API
+     * @param error the failure that happened during execution, or {@code null} if command was executed successfully
+     */
+    default void onRemoteCommandExecuted(RemoteCommand<?> command, long durationNanos, boolean async, Throwable error) {
+        // do nothing by default
+    }
+
+    /**
+     * This method is called by {@link AbstractCompareAndSwapBasedProxyManager} each time when compare-and-swap was unsuccessful and will be retried.
+     *
+     * @param attempt the number of unsuccessful attempts for current command, starting from {@code 1}
+     */
+    default void onCompareAndSwapRetry(int attempt) {
+        // do nothing by default
+    }
+
+    /**
+     * This method is called by {@link AbstractLockBasedProxyManager} and {@link AbstractSelectForUpdateBasedProxyManager}
+     * each time when lock for bucket has been acquired.
+     *
+     * @param waitNanos the amount of nanoseconds spent to acquire the lock and read the data
+     */
+    default void onLockAcquired(long waitNanos) {
+        // do nothing by default
+    }
+
+    /**
+     * This method is called each time when serialized state of bucket has been read from storage.
+     *
+     * @param bytes the size of serialized state
+     */
+    default void onStateRead(int bytes) {
+        // do nothing by default
+    }
+
+    /**
+     * This method is called each time when serialized state of bucket is going to be written to storage.
+     *
+     * @param bytes the size of serialized state
+     */
+    default void onStateWritten(int bytes) {
+        // do nothing by default
+    }
+
+    /**
+     * The default listener that do nothing.
+     */
+    ProxyManagerListener NOPE = new ProxyManagerListener() {};
+
+}
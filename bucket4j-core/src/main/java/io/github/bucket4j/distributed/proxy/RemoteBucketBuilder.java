@@ -23,6 +23,7 @@ package io.github.bucket4j.distributed.proxy;
 import io.github.bucket4j.BucketConfiguration;
 import io.github.bucket4j.BucketListener;
 import io.github.bucket4j.TokensInheritanceStrategy;
+import io.github.bucket4j.WaitQueueParameters;
 import io.github.bucket4j.distributed.BucketProxy;
 import io.github.bucket4j.distributed.proxy.optimization.Optimization;
 
@@ -92,6 +93,17 @@ public interface RemoteBucketBuilder<K> {
      */
     RemoteBucketBuilder<K> withListener(BucketListener listener);
 
+    /**
+     * Specifies parameters of queue that will be used to wake waiters of {@link io.github.bucket4j.BlockingBucket}
+     * and {@link io.github.bucket4j.SchedulingBucket} in FIFO order by single timer per bucket.
+     * The queue is local to the bucket proxy, it does not order waiters from different proxies.
+     *
+     * @param waitQueueParameters the limits of queue, requests above these limits are shed.
+     *
+     * @return this builder instance
+     */
+    RemoteBucketBuilder<K> withWaitQueue(WaitQueueParameters waitQueueParameters);
+
     /**
      * Has the same semantic with {@link #build(Object, BucketConfiguration)},
      * but additionally provides ability to provide configuration lazily, that can be helpful when figuring-out the right configuration parameters
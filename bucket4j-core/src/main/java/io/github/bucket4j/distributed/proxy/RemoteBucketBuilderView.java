@@ -25,6 +25,7 @@ import java.util.function.Supplier;
 import io.github.bucket4j.BucketConfiguration;
 import io.github.bucket4j.BucketListener;
 import io.github.bucket4j.TokensInheritanceStrategy;
+import io.github.bucket4j.WaitQueueParameters;
 import io.github.bucket4j.distributed.BucketProxy;
 import io.github.bucket4j.distributed.proxy.optimization.Optimization;
 
@@ -61,6 +62,12 @@ public class RemoteBucketBuilderView<K, KeyOld> implements RemoteBucketBuilder<K
         return this;
     }
 
+    @Override
+    public RemoteBucketBuilder<K> withWaitQueue(WaitQueueParameters waitQueueParameters) {
+        target.withWaitQueue(waitQueueParameters);
+        return this;
+    }
+
     @Override
     public BucketProxy build(K key, Supplier<BucketConfiguration> configurationSupplier) {
         return target.build(mapper.apply(key), configurationSupplier);
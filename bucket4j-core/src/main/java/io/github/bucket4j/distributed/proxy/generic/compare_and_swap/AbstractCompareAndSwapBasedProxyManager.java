@@ -20,6 +20,7 @@
 
 package io.github.bucket4j.distributed.proxy.generic.compare_and_swap;
 
+import io.github.bucket4j.BucketExceptions;
 import io.github.bucket4j.TimeMeter;
 import io.github.bucket4j.distributed.proxy.AbstractProxyManager;
 import io.github.bucket4j.distributed.proxy.ClientSideConfig;
@@ -31,6 +32,10 @@ import io.github.bucket4j.distributed.remote.Request;
 
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * The base class for proxy managers that built on top of idea that underlining storage provide transactions and locking.
@@ -41,18 +46,62 @@ public abstract class AbstractCompareAndSwapBasedProxyManager<K> extends Abstrac
 
     private static final CommandResult<?> UNSUCCESSFUL_CAS_RESULT = null;
 
+    private static final int CONTENTION_LOCK_STRIPES = 64;
+
+    private final ReentrantLock[] contentionLocks;
+    private final AtomicReference<CompletableFuture<Void>>[] asyncContentionLocks;
+    private final CompareAndSwapStateCache<K> stateCache;
+
     protected AbstractCompareAndSwapBasedProxyManager(ClientSideConfig clientSideConfig) {
         super(injectTimeClock(clientSideConfig));
+        if (clientSideConfig.getCompareAndSwapRetryPolicy().isLockingEnabled()) {
+            contentionLocks = new ReentrantLock[CONTENTION_LOCK_STRIPES];
+            asyncContentionLocks = new AtomicReference[CONTENTION_LOCK_STRIPES];
+            for (int i = 0; i < CONTENTION_LOCK_STRIPES; i++) {
+                contentionLocks[i] = new ReentrantLock();
+                asyncContentionLocks[i] = new AtomicReference<>(CompletableFuture.completedFuture(null));
+            }
+        } else {
+            contentionLocks = null;
+            asyncContentionLocks = null;
+        }
+        int stateCacheCapacity = clientSideConfig.getCompareAndSwapStateCacheCapacity();
+        stateCache = stateCacheCapacity > 0 ? new CompareAndSwapStateCache<>(stateCacheCapacity) : null;
     }
 
     @Override
     public <T> CommandResult<T> execute(K key, Request<T> request) {
         Timeout timeout = Timeout.of(getClientSideConfig());
         CompareAndSwapOperation operation = timeout.call(requestTimeout -> beginCompareAndSwapOperation(key));
-        while (true) {
-            CommandResult<T> result = execute(request, operation, timeout);
-            if (result != UNSUCCESSFUL_CAS_RESULT) {
-                return result;
+        CompareAndSwapRetryPolicy retryPolicy = getClientSideConfig().getCompareAndSwapRetryPolicy();
+        int unsuccessfulAttempts = 0;
+        ReentrantLock lock = null;
+        try {
+            while (true) {
+                CommandResult<T> result = execute(key, request, operation, timeout);
+                if (result != UNSUCCESSFUL_CAS_RESULT) {
+                    return result;
+                }
+                unsuccessfulAttempts++;
+                if (retryPolicy.isAttemptsExhausted(unsuccessfulAttempts)) {
+                    throw BucketExceptions.compareAndSwapAttemptsExhausted(unsuccessfulAttempts);
+                }
+                getClientSideConfig().getProxyManagerListener().onCompareAndSwapRetry(unsuccessfulAttempts);
+                if (lock == null && retryPolicy.isLockingRequired(unsuccessfulAttempts)) {
+                    // time spent on waiting for the lock plays the role of backoff
+                    ReentrantLock contentionLock = contentionLocks[stripeIndex(key)];
+                    lockContention(contentionLock, timeout);
+                    lock = contentionLock;
+                    continue;
+                }
+                long backoffNanos = retryPolicy.nextBackoffNanos(unsuccessfulAttempts);
+                if (backoffNanos > 0) {
+                    backoff(backoffNanos, timeout);
+                }
+            }
+        } finally {
+            if (lock != null) {
+                lock.unlock();
             }
         }
     }
@@ -61,56 +110,188 @@ public abstract class AbstractCompareAndSwapBasedProxyManager<K> extends Abstrac
     public <T> CompletableFuture<CommandResult<T>> executeAsync(K key, Request<T> request) {
         Timeout timeout = Timeout.of(getClientSideConfig());
         AsyncCompareAndSwapOperation operation = beginAsyncCompareAndSwapOperation(key);
-        CompletableFuture<CommandResult<T>> result = executeAsync(request, operation, timeout);
-        return result.thenCompose((CommandResult<T> response) -> retryIfCasWasUnsuccessful(operation, request, response, timeout));
+        CompletableFuture<CommandResult<T>> result = executeAsync(key, request, operation, timeout);
+        return result.thenCompose((CommandResult<T> response) -> retryIfCasWasUnsuccessful(key, operation, request, response, timeout, 0, false));
+    }
+
+    private void lockContention(ReentrantLock lock, Timeout timeout) {
+        timeout.run(requestTimeout -> {
+            try {
+                if (requestTimeout.isEmpty()) {
+                    lock.lockInterruptibly();
+                    return;
+                }
+                long remainingNanos = requestTimeout.get();
+                long lockStartNanos = System.nanoTime();
+                if (!lock.tryLock(remainingNanos, TimeUnit.NANOSECONDS)) {
+                    long requestTimeoutNanos = getClientSideConfig().getRequestTimeoutNanos().get();
+                    long nanosElapsed = requestTimeoutNanos - remainingNanos + (System.nanoTime() - lockStartNanos);
+                    throw BucketExceptions.timeoutReached(nanosElapsed, requestTimeoutNanos);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw BucketExceptions.from(e);
+            }
+        });
+    }
+
+    private static void backoff(long backoffNanos, Timeout timeout) {
+        timeout.run(requestTimeout -> {
+            // the request fails by timeout on next attempt if backoff is longer than remaining time
+            long parkNanos = requestTimeout.isEmpty() ? backoffNanos : Math.min(backoffNanos, requestTimeout.get());
+            try {
+                TimeUnit.NANOSECONDS.sleep(parkNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw BucketExceptions.from(e);
+            }
+        });
     }
 
     protected abstract CompareAndSwapOperation beginCompareAndSwapOperation(K key);
 
     protected abstract AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(K key);
 
-    private <T> CommandResult<T> execute(Request<T> request, CompareAndSwapOperation operation, Timeout timeout) {
-        RemoteCommand<T> command = request.getCommand();
+    private <T> CommandResult<T> execute(K key, Request<T> request, CompareAndSwapOperation operation, Timeout timeout) {
+        // read-only commands are never served from cache, so there is no sense to try
+        if (stateCache != null && !request.getCommand().isReadOnly()) {
+            byte[] cachedStateBytes = stateCache.get(key);
+            if (cachedStateBytes != null) {
+                CommandResult<T> result = execute(key, request, operation, timeout, cachedStateBytes, true);
+                if (result != UNSUCCESSFUL_CAS_RESULT) {
+                    return result;
+                }
+                // cached state is stale or command does not modify the state, so actual state needs to be read from storage
+                stateCache.invalidate(key, cachedStateBytes);
+            }
+        }
+
         byte[] originalStateBytes = timeout.call(operation::getStateData).orElse(null);
+        if (originalStateBytes != null) {
+            getClientSideConfig().getProxyManagerListener().onStateRead(originalStateBytes.length);
+        }
+        return execute(key, request, operation, timeout, originalStateBytes, false);
+    }
+
+    private <T> CommandResult<T> execute(K key, Request<T> request, CompareAndSwapOperation operation, Timeout timeout, byte[] originalStateBytes, boolean fromCache) {
+        RemoteCommand<T> command = request.getCommand();
         MutableBucketEntry entry = new MutableBucketEntry(originalStateBytes);
         CommandResult<T> result = command.execute(entry, getClientSideTime());
         if (!entry.isStateModified()) {
+            if (fromCache) {
+                return null;
+            }
+            rememberState(key, originalStateBytes);
             return result;
         }
 
         byte[] newStateBytes = entry.getStateBytes(request.getBackwardCompatibilityVersion());
+        getClientSideConfig().getProxyManagerListener().onStateWritten(newStateBytes.length);
         if (timeout.call(requestTimeout -> operation.compareAndSwap(originalStateBytes, newStateBytes, entry.get(), requestTimeout))) {
+            rememberState(key, newStateBytes);
             return result;
         } else {
             return null;
         }
     }
 
-    private <T> CompletableFuture<CommandResult<T>> retryIfCasWasUnsuccessful(AsyncCompareAndSwapOperation operation, Request<T> request, CommandResult<T> casResponse, Timeout timeout) {
+    private <T> CompletableFuture<CommandResult<T>> retryIfCasWasUnsuccessful(K key, AsyncCompareAndSwapOperation operation, Request<T> request, CommandResult<T> casResponse, Timeout timeout, int unsuccessfulAttempts, boolean locked) {
         if (casResponse != UNSUCCESSFUL_CAS_RESULT) {
             return CompletableFuture.completedFuture(casResponse);
+        }
+        CompareAndSwapRetryPolicy retryPolicy = getClientSideConfig().getCompareAndSwapRetryPolicy();
+        int attempt = unsuccessfulAttempts + 1;
+        if (retryPolicy.isAttemptsExhausted(attempt)) {
+            return CompletableFuture.failedFuture(BucketExceptions.compareAndSwapAttemptsExhausted(attempt));
+        }
+        getClientSideConfig().getProxyManagerListener().onCompareAndSwapRetry(attempt);
+
+        if (!locked && retryPolicy.isLockingRequired(attempt)) {
+            // asynchronous lock is emulated by chain of futures, each escalated request waits for completion of previous one
+            CompletableFuture<Void> release = new CompletableFuture<>();
+            CompletableFuture<Void> previous = asyncContentionLocks[stripeIndex(key)].getAndSet(release);
+            CompletableFuture<CommandResult<T>> resultFuture = previous
+                .thenCompose(ignored -> executeAsync(key, request, operation, timeout))
+                .thenCompose((CommandResult<T> response) -> retryIfCasWasUnsuccessful(key, operation, request, response, timeout, attempt, true));
+            resultFuture.whenComplete((result, error) -> release.complete(null));
+            return resultFuture;
+        }
+
+        long backoffNanos = retryPolicy.nextBackoffNanos(attempt);
+        CompletableFuture<CommandResult<T>> retryFuture;
+        if (backoffNanos > 0) {
+            Executor delayedExecutor = CompletableFuture.delayedExecutor(backoffNanos, TimeUnit.NANOSECONDS);
+            retryFuture = CompletableFuture.supplyAsync(() -> null, delayedExecutor)
+                .thenCompose(ignored -> executeAsync(key, request, operation, timeout));
         } else {
-            return executeAsync(request, operation, timeout).thenCompose((CommandResult<T> response) -> retryIfCasWasUnsuccessful(operation, request, response, timeout));
+            retryFuture = executeAsync(key, request, operation, timeout);
+        }
+        return retryFuture.thenCompose((CommandResult<T> response) -> retryIfCasWasUnsuccessful(key, operation, request, response, timeout, attempt, locked));
+    }
+
+    private <T> CompletableFuture<CommandResult<T>> executeAsync(K key, Request<T> request, AsyncCompareAndSwapOperation operation, Timeout timeout) {
+        if (stateCache != null && !request.getCommand().isReadOnly()) {
+            byte[] cachedStateBytes = stateCache.get(key);
+            if (cachedStateBytes != null) {
+                return executeAsync(key, request, operation, timeout, cachedStateBytes, true)
+                    .thenCompose((CommandResult<T> result) -> {
+                        if (result != UNSUCCESSFUL_CAS_RESULT) {
+                            return CompletableFuture.completedFuture(result);
+                        }
+                        stateCache.invalidate(key, cachedStateBytes);
+                        return readAndExecuteAsync(key, request, operation, timeout);
+                    });
+            }
         }
+        return readAndExecuteAsync(key, request, operation, timeout);
     }
 
-    private <T> CompletableFuture<CommandResult<T>> executeAsync(Request<T> request, AsyncCompareAndSwapOperation operation, Timeout timeout) {
+    private <T> CompletableFuture<CommandResult<T>> readAndExecuteAsync(K key, Request<T> request, AsyncCompareAndSwapOperation operation, Timeout timeout) {
         return timeout.callAsync(operation::getStateData)
             .thenApply((Optional<byte[]> originalStateBytes) -> originalStateBytes.orElse(null))
             .thenCompose((byte[] originalStateBytes) -> {
-                RemoteCommand<T> command = request.getCommand();
-                MutableBucketEntry entry = new MutableBucketEntry(originalStateBytes);
-                CommandResult<T> result = command.execute(entry, getClientSideTime());
-                if (!entry.isStateModified()) {
-                    return CompletableFuture.completedFuture(result);
+                if (originalStateBytes != null) {
+                    getClientSideConfig().getProxyManagerListener().onStateRead(originalStateBytes.length);
                 }
+                return executeAsync(key, request, operation, timeout, originalStateBytes, false);
+            });
+    }
 
-                byte[] newStateBytes = entry.getStateBytes(request.getBackwardCompatibilityVersion());
-                return timeout.callAsync(requestTimeout -> operation.compareAndSwap(originalStateBytes, newStateBytes, entry.get(), requestTimeout))
-                    .thenApply((casWasSuccessful) -> casWasSuccessful? result : null);
+    private <T> CompletableFuture<CommandResult<T>> executeAsync(K key, Request<T> request, AsyncCompareAndSwapOperation operation, Timeout timeout, byte[] originalStateBytes, boolean fromCache) {
+        RemoteCommand<T> command = request.getCommand();
+        MutableBucketEntry entry = new MutableBucketEntry(originalStateBytes);
+        CommandResult<T> result = command.execute(entry, getClientSideTime());
+        if (!entry.isStateModified()) {
+            if (fromCache) {
+                return CompletableFuture.completedFuture(null);
+            }
+            rememberState(key, originalStateBytes);
+            return CompletableFuture.completedFuture(result);
+        }
+
+        byte[] newStateBytes = entry.getStateBytes(request.getBackwardCompatibilityVersion());
+        getClientSideConfig().getProxyManagerListener().onStateWritten(newStateBytes.length);
+        return timeout.callAsync(requestTimeout -> operation.compareAndSwap(originalStateBytes, newStateBytes, entry.get(), requestTimeout))
+            .thenApply((casWasSuccessful) -> {
+                if (!casWasSuccessful) {
+                    return null;
+                }
+                rememberState(key, newStateBytes);
+                return result;
             });
     }
 
+    private void rememberState(K key, byte[] stateBytes) {
+        if (stateCache != null && stateBytes != null) {
+            stateCache.put(key, stateBytes);
+        }
+    }
+
+    private int stripeIndex(K key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (CONTENTION_LOCK_STRIPES - 1);
+    }
+
     private static ClientSideConfig injectTimeClock(ClientSideConfig clientSideConfig) {
         if (clientSideConfig.getClientSideClock().isPresent()) {
             return clientSideConfig;
@@ -0,0 +1,178 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.proxy.generic.compare_and_swap;
+
+import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Describes how {@link AbstractCompareAndSwapBasedProxyManager} reacts to unsuccessful compare-and-swap.
+ *
+ * <p>
+ * By default, unsuccessful compare-and-swap is retried immediately until success or until request timeout is reached.
+ * On hot keys shared by many clients it amplifies the load on storage, so the policy allows to:
+ * <ul>
+ *     <li>limit the amount of attempts, see {@link #withMaxAttempts(int)};</li>
+ *     <li>wait for random time before retry, see {@link #withJitteredBackoff(Duration, Duration)};</li>
+ *     <li>serialize retries for the same key inside the current JVM, see {@link #withLockingAfter(int)}.</li>
+ * </ul>
+ *
+ * @see ClientSideConfig#withCompareAndSwapRetryPolicy(CompareAndSwapRetryPolicy)
+ */
+public class CompareAndSwapRetryPolicy {
+
+    private static final int UNLIMITED = Integer.MAX_VALUE;
+
+    /**
+     * The default policy, that retries immediately without limits.
+     */
+    public static final CompareAndSwapRetryPolicy DEFAULT = new CompareAndSwapRetryPolicy(UNLIMITED, 0, 0, UNLIMITED);
+
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final int unsuccessfulAttemptsBeforeLocking;
+
+    private CompareAndSwapRetryPolicy(int maxAttempts, long initialBackoffNanos, long maxBackoffNanos, int unsuccessfulAttemptsBeforeLocking) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoffNanos;
+        this.maxBackoffNanos = maxBackoffNanos;
+        this.unsuccessfulAttemptsBeforeLocking = unsuccessfulAttemptsBeforeLocking;
+    }
+
+    /**
+     * Returns new policy with limited amount of compare-and-swap attempts per request.
+     * When all attempts are unsuccessful, the request fails with {@link BucketExceptions.BucketExecutionException}.
+     *
+     * @param maxAttempts max amount of compare-and-swap attempts, including the first one
+     *
+     * @return new policy with limited amount of attempts
+     */
+    public CompareAndSwapRetryPolicy withMaxAttempts(int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw BucketExceptions.nonPositiveCompareAndSwapMaxAttempts(maxAttempts);
+        }
+        return new CompareAndSwapRetryPolicy(maxAttempts, initialBackoffNanos, maxBackoffNanos, unsuccessfulAttemptsBeforeLocking);
+    }
+
+    /**
+     * Returns new policy that waits before each retry. The upper bound of waiting starts from {@code initialBackoff}
+     * and doubles after each unsuccessful attempt until {@code maxBackoff}, the actual waiting time is chosen randomly between zero and upper bound,
+     * so clients that failed at the same time do not retry at the same time.
+     *
+     * <p>
+     * Synchronous requests park the current thread, asynchronous requests are rescheduled without blocking of any thread.
+     *
+     * @param initialBackoff upper bound of waiting before the first retry
+     * @param maxBackoff max upper bound of waiting before retry
+     *
+     * @return new policy with jittered exponential backoff
+     */
+    public CompareAndSwapRetryPolicy withJitteredBackoff(Duration initialBackoff, Duration maxBackoff) {
+        if (initialBackoff.isZero() || initialBackoff.isNegative() || initialBackoff.compareTo(maxBackoff) > 0) {
+            throw BucketExceptions.wrongCompareAndSwapBackoff(initialBackoff, maxBackoff);
+        }
+        return new CompareAndSwapRetryPolicy(maxAttempts, initialBackoff.toNanos(), maxBackoff.toNanos(), unsuccessfulAttemptsBeforeLocking);
+    }
+
+    /**
+     * Returns new policy that escalates to locking when request observed {@code unsuccessfulAttempts} unsuccessful compare-and-swaps in a row.
+     * Escalated requests for the same key are executed one by one inside current JVM,
+     * so contention with other requests from the same JVM is eliminated and only contention with other JVMs remains.
+     *
+     * <p>
+     * The lock is a striped {@link java.util.concurrent.locks.ReentrantLock} local to the current JVM, storage is not locked.
+     * So this option does not coordinate different clients: when many processes compete for the same key,
+     * escalated requests still use compare-and-swap against each other, use {@link #withJitteredBackoff(Duration, Duration)} to reduce that contention.
+     *
+     * @param unsuccessfulAttempts amount of unsuccessful attempts after which request should be escalated to locking
+     *
+     * @return new policy with escalation to locking
+     */
+    public CompareAndSwapRetryPolicy withLockingAfter(int unsuccessfulAttempts) {
+        if (unsuccessfulAttempts <= 0) {
+            throw BucketExceptions.nonPositiveUnsuccessfulAttemptsBeforeLocking(unsuccessfulAttempts);
+        }
+        return new CompareAndSwapRetryPolicy(maxAttempts, initialBackoffNanos, maxBackoffNanos, unsuccessfulAttempts);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public boolean isLockingEnabled() {
+        return unsuccessfulAttemptsBeforeLocking != UNLIMITED;
+    }
+
+    /**
+     * Checks whether request should be failed instead of retry.
+     *
+     * @param unsuccessfulAttempts amount of unsuccessful attempts that request observed
+     *
+     * @return true if no more attempts are allowed
+     */
+    public boolean isAttemptsExhausted(int unsuccessfulAttempts) {
+        return unsuccessfulAttempts >= maxAttempts;
+    }
+
+    /**
+     * Checks whether request should be escalated to locking.
+     *
+     * @param unsuccessfulAttempts amount of unsuccessful attempts that request observed
+     *
+     * @return true if request should be escalated to locking
+     */
+    public boolean isLockingRequired(int unsuccessfulAttempts) {
+        return unsuccessfulAttempts >= unsuccessfulAttemptsBeforeLocking;
+    }
+
+    /**
+     * Calculates time to wait before the next attempt.
+     *
+     * @param unsuccessfulAttempts amount of unsuccessful attempts that request observed
+     *
+     * @return the amount of nanoseconds to wait before the next attempt, zero means that retry should be performed immediately
+     */
+    public long nextBackoffNanos(int unsuccessfulAttempts) {
+        if (initialBackoffNanos == 0) {
+            return 0;
+        }
+        int shift = Math.min(unsuccessfulAttempts - 1, 62);
+        long upperBound = initialBackoffNanos << shift;
+        if (upperBound <= 0 || upperBound > maxBackoffNanos || (upperBound >> shift) != initialBackoffNanos) {
+            upperBound = maxBackoffNanos;
+        }
+        return ThreadLocalRandom.current().nextLong(upperBound + 1);
+    }
+
+    @Override
+    public String toString() {
+        return "CompareAndSwapRetryPolicy{" +
+                "maxAttempts=" + (maxAttempts == UNLIMITED ? "unlimited" : maxAttempts) +
+                ", initialBackoffNanos=" + initialBackoffNanos +
+                ", maxBackoffNanos=" + maxBackoffNanos +
+                ", unsuccessfulAttemptsBeforeLocking=" + (isLockingEnabled() ? unsuccessfulAttemptsBeforeLocking : "never") +
+                '}';
+    }
+
+}
@@ -0,0 +1,80 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.proxy.generic.compare_and_swap;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Direct-mapped cache of last known state bytes, each key can occupy only one slot, keys that collide evict each other.
+ *
+ * @param <K> type of key
+ */
+class CompareAndSwapStateCache<K> {
+
+    private static final int MAX_SIZE = 1 << 30;
+
+    private final AtomicReferenceArray<Entry<K>> slots;
+    private final int mask;
+
+    CompareAndSwapStateCache(int capacity) {
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(Math.min(capacity - 1, MAX_SIZE / 2)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    byte[] get(K key) {
+        Entry<K> entry = slots.get(slotIndex(key));
+        if (entry != null && entry.key.equals(key)) {
+            return entry.stateBytes;
+        }
+        return null;
+    }
+
+    void put(K key, byte[] stateBytes) {
+        slots.set(slotIndex(key), new Entry<>(key, stateBytes));
+    }
+
+    void invalidate(K key, byte[] staleStateBytes) {
+        int index = slotIndex(key);
+        Entry<K> entry = slots.get(index);
+        if (entry != null && entry.stateBytes == staleStateBytes && entry.key.equals(key)) {
+            // state could be already replaced by concurrent request, in such case slot should not be cleared
+            slots.compareAndSet(index, entry, null);
+        }
+    }
+
+    private int slotIndex(K key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static final class Entry<K> {
+
+        private final K key;
+        private final byte[] stateBytes;
+
+        private Entry(K key, byte[] stateBytes) {
+            this.key = key;
+            this.stateBytes = stateBytes;
+        }
+
+    }
+
+}
@@ -24,6 +24,7 @@ import io.github.bucket4j.BucketExceptions;
 import io.github.bucket4j.TimeMeter;
 import io.github.bucket4j.distributed.proxy.AbstractProxyManager;
 import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.ProxyManagerListener;
 import io.github.bucket4j.distributed.proxy.Timeout;
 import io.github.bucket4j.distributed.remote.CommandResult;
 import io.github.bucket4j.distributed.remote.MutableBucketEntry;
@@ -77,9 +78,14 @@ public abstract class AbstractLockBasedProxyManager<K> extends AbstractProxyMana
 
     private <T> CommandResult<T> execute(Request<T> request, LockBasedTransaction transaction, Timeout timeout) {
         RemoteCommand<T> command = request.getCommand();
+        if (command.isReadOnly()) {
+            return executeReadOnly(request, transaction, timeout);
+        }
         timeout.run(transaction::begin);
 
         // lock and get data
+        ProxyManagerListener listener = getClientSideConfig().getProxyManagerListener();
+        long lockStartNanos = listener == ProxyManagerListener.NOPE ? 0 : System.nanoTime();
         byte[] persistedDataOnBeginOfTransaction;
         try {
             persistedDataOnBeginOfTransaction = timeout.call(transaction::lockAndGet);
@@ -87,6 +93,12 @@ public abstract class AbstractLockBasedProxyManager<K> extends AbstractProxyMana
             unlockAndRollback(transaction);
             throw BucketExceptions.from(t);
         }
+        if (listener != ProxyManagerListener.NOPE) {
+            listener.onLockAcquired(System.nanoTime() - lockStartNanos);
+            if (persistedDataOnBeginOfTransaction != null) {
+                listener.onStateRead(persistedDataOnBeginOfTransaction.length);
+            }
+        }
 
         // check that command is able to provide initial state in case of bucket does not exist
         if (persistedDataOnBeginOfTransaction == null && !request.getCommand().isInitializationCommand()) {
@@ -99,6 +111,7 @@ public abstract class AbstractLockBasedProxyManager<K> extends AbstractProxyMana
             CommandResult<T> result = command.execute(entry, super.getClientSideTime());
             if (entry.isStateModified()) {
                 byte[] bytes = entry.getStateBytes(request.getBackwardCompatibilityVersion());
+                listener.onStateWritten(bytes.length);
                 if (persistedDataOnBeginOfTransaction == null) {
                     timeout.run(requestTimeout -> transaction.create(bytes, entry.get(), requestTimeout));
                 } else {
@@ -122,6 +135,19 @@ public abstract class AbstractLockBasedProxyManager<K> extends AbstractProxyMana
         }
     }
 
+    private <T> CommandResult<T> executeReadOnly(Request<T> request, LockBasedTransaction transaction, Timeout timeout) {
+        byte[] persistedData;
+        try {
+            persistedData = timeout.call(transaction::get);
+        } catch (Throwable t) {
+            throw BucketExceptions.from(t);
+        }
+        if (persistedData != null) {
+            getClientSideConfig().getProxyManagerListener().onStateRead(persistedData.length);
+        }
+        return executeReadOnlyLocally(persistedData, request);
+    }
+
     private static ClientSideConfig injectTimeClock(ClientSideConfig clientSideConfig) {
         if (clientSideConfig.getClientSideClock().isPresent()) {
             return clientSideConfig;
@@ -69,6 +69,28 @@ public interface LockBasedTransaction {
      */
     byte[] lockAndGet(Optional<Long> timeoutNanos);
 
+    /**
+     * Returns data that is associated with the key, this method is used for {@link io.github.bucket4j.distributed.remote.RemoteCommand#isReadOnly() read-only} commands.
+     * Default implementation locks and unlocks data in the scope of transaction that is rolled back after read,
+     * storages that are able to read data without locking and outside of transaction should override it.
+     *
+     * @param timeoutNanos optional timeout in nanoseconds
+     *
+     * @return the data by the key associated with this transaction, or null data associated with key does not exist
+     */
+    default byte[] get(Optional<Long> timeoutNanos) {
+        begin(timeoutNanos);
+        try {
+            return lockAndGet(timeoutNanos);
+        } finally {
+            try {
+                unlock();
+            } finally {
+                rollback();
+            }
+        }
+    }
+
     /**
      * Unlocks data by the key associated with this transaction.
      */
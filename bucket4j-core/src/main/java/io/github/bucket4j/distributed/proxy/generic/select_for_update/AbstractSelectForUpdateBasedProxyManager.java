@@ -24,6 +24,7 @@ import io.github.bucket4j.BucketExceptions;
 import io.github.bucket4j.TimeMeter;
 import io.github.bucket4j.distributed.proxy.AbstractProxyManager;
 import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.ProxyManagerListener;
 import io.github.bucket4j.distributed.proxy.Timeout;
 import io.github.bucket4j.distributed.remote.CommandResult;
 import io.github.bucket4j.distributed.remote.MutableBucketEntry;
@@ -87,9 +88,14 @@ public abstract class AbstractSelectForUpdateBasedProxyManager<K> extends Abstra
 
     private <T> CommandResult<T> execute(Request<T> request, SelectForUpdateBasedTransaction transaction, Timeout timeout) {
         RemoteCommand<T> command = request.getCommand();
+        if (command.isReadOnly()) {
+            return executeReadOnly(request, transaction, timeout);
+        }
         timeout.run(transaction::begin);
 
         // lock and get data
+        ProxyManagerListener listener = getClientSideConfig().getProxyManagerListener();
+        long lockStartNanos = listener == ProxyManagerListener.NOPE ? 0 : System.nanoTime();
         LockAndGetResult lockResult;
         byte[] persistedDataOnBeginOfTransaction;
         try {
@@ -116,6 +122,12 @@ public abstract class AbstractSelectForUpdateBasedProxyManager<K> extends Abstra
 
         // check that command is able to provide initial state in case of bucket does not exist
         persistedDataOnBeginOfTransaction = lockResult.getData();
+        if (listener != ProxyManagerListener.NOPE) {
+            listener.onLockAcquired(System.nanoTime() - lockStartNanos);
+            if (persistedDataOnBeginOfTransaction != null) {
+                listener.onStateRead(persistedDataOnBeginOfTransaction.length);
+            }
+        }
         if (persistedDataOnBeginOfTransaction == null && !request.getCommand().isInitializationCommand()) {
             transaction.rollback();
             return CommandResult.bucketNotFound();
@@ -127,6 +139,7 @@ public abstract class AbstractSelectForUpdateBasedProxyManager<K> extends Abstra
             if (entry.isStateModified()) {
                 RemoteBucketState modifiedState = entry.get();
                 byte[] bytes = entry.getStateBytes(request.getBackwardCompatibilityVersion());
+                listener.onStateWritten(bytes.length);
                 timeout.run(threshold -> transaction.update(bytes, modifiedState, threshold));
             }
             timeout.run(transaction::commit);
@@ -137,6 +150,19 @@ public abstract class AbstractSelectForUpdateBasedProxyManager<K> extends Abstra
         }
     }
 
+    private <T> CommandResult<T> executeReadOnly(Request<T> request, SelectForUpdateBasedTransaction transaction, Timeout timeout) {
+        byte[] persistedData;
+        try {
+            persistedData = timeout.call(transaction::get);
+        } catch (Throwable t) {
+            throw BucketExceptions.from(t);
+        }
+        if (persistedData != null) {
+            getClientSideConfig().getProxyManagerListener().onStateRead(persistedData.length);
+        }
+        return executeReadOnlyLocally(persistedData, request);
+    }
+
     private static ClientSideConfig injectTimeClock(ClientSideConfig clientSideConfig) {
         if (clientSideConfig.getClientSideClock().isPresent()) {
             return clientSideConfig;
@@ -66,6 +66,25 @@ public interface SelectForUpdateBasedTransaction {
      */
     LockAndGetResult tryLockAndGet(Optional<Long> timeoutNanos);
 
+    /**
+     * Returns data that is associated with the key, this method is used for {@link io.github.bucket4j.distributed.remote.RemoteCommand#isReadOnly() read-only} commands.
+     * Default implementation locks data in the scope of transaction that is rolled back after read,
+     * storages that are able to read data without locking and outside of transaction should override it.
+     *
+     * @param timeoutNanos optional timeout in nanoseconds
+     *
+     * @return the data by the key associated with this transaction, or null data associated with key does not exist
+     */
+    default byte[] get(Optional<Long> timeoutNanos) {
+        begin(timeoutNanos);
+        try {
+            LockAndGetResult lockResult = tryLockAndGet(timeoutNanos);
+            return lockResult.isLocked() ? lockResult.getData() : null;
+        } finally {
+            rollback();
+        }
+    }
+
     /**
      * Creates empty data by for the key associated with this transaction.
      * This operation is required to be able to lock data in the scope of next transaction.
@@ -0,0 +1,108 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.proxy.jfr;
+
+import io.github.bucket4j.distributed.proxy.ProxyManagerListener;
+import io.github.bucket4j.distributed.remote.RemoteCommand;
+
+import java.util.Objects;
+
+/**
+ * The {@link ProxyManagerListener} that translates events of proxy-manager to Java Flight Recorder events.
+ *
+ * <p>
+ * Events are emitted only when they are enabled in the active recording, so listener can be left configured in production,
+ * the cost of disabled event is a check of flag. The following events are supported:
+ * <ul>
+ *     <li><b>io.github.bucket4j.RemoteCommand</b> - execution of command by proxy-manager, including all retries.</li>
+ *     <li><b>io.github.bucket4j.CompareAndSwapRetry</b> - unsuccessful compare-and-swap that will be retried.</li>
+ *     <li><b>io.github.bucket4j.LockAcquired</b> - acquisition of lock for bucket by lock based proxy-manager.</li>
+ *     <li><b>io.github.bucket4j.StatePayload</b> - size of serialized bucket state that was read or written.</li>
+ * </ul>
+ * Each event contains the name of backend that was provided at listener construction time,
+ * so events from different proxy-managers inside same JVM can be distinguished.
+ */
+public class JfrProxyManagerListener implements ProxyManagerListener {
+
+    private final String backend;
+
+    /**
+     * Creates the listener
+     *
+     * @param backend the name of backend that will be attached to each event, for example "postgresql" or "hazelcast"
+     */
+    public JfrProxyManagerListener(String backend) {
+        this.backend = Objects.requireNonNull(backend);
+    }
+
+    @Override
+    public void onRemoteCommandExecuted(RemoteCommand<?> command, long durationNanos, boolean async, Throwable error) {
+        RemoteCommandEvent event = new RemoteCommandEvent();
+        if (event.isEnabled()) {
+            event.backend = backend;
+            event.command = command.getClass().getSimpleName();
+            event.executionNanos = durationNanos;
+            event.async = async;
+            event.failure = error == null ? null : error.getClass().getName();
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onCompareAndSwapRetry(int attempt) {
+        CompareAndSwapRetryEvent event = new CompareAndSwapRetryEvent();
+        if (event.isEnabled()) {
+            event.backend = backend;
+            event.attempt = attempt;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onLockAcquired(long waitNanos) {
+        LockAcquiredEvent event = new LockAcquiredEvent();
+        if (event.isEnabled()) {
+            event.backend = backend;
+            event.waitNanos = waitNanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onStateRead(int bytes) {
+        emitPayloadEvent(bytes, false);
+    }
+
+    @Override
+    public void onStateWritten(int bytes) {
+        emitPayloadEvent(bytes, true);
+    }
+
+    private void emitPayloadEvent(int bytes, boolean write) {
+        StatePayloadEvent event = new StatePayloadEvent();
+        if (event.isEnabled()) {
+            event.backend = backend;
+            event.bytes = bytes;
+            event.write = write;
+            event.commit();
+        }
+    }
+
+}
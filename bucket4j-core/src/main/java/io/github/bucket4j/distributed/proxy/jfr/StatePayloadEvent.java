@@ -0,0 +1,47 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.proxy.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("io.github.bucket4j.StatePayload")
+@Label("State Payload")
+@Description("Size of serialized bucket state that was read from or written to storage")
+@Category({"Bucket4j", "Proxy Manager"})
+@StackTrace(false)
+class StatePayloadEvent extends Event {
+
+    @Label("Backend")
+    String backend;
+
+    @Label("Size")
+    @DataAmount(DataAmount.BYTES)
+    int bytes;
+
+    @Label("Write")
+    boolean write;
+
+}
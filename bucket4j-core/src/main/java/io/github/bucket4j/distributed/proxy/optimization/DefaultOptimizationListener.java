@@ -19,15 +19,23 @@
  */
 package io.github.bucket4j.distributed.proxy.optimization;
 
+import io.github.bucket4j.util.LockFreeHistogram;
+
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * The simple listener that just stores all events as AtomicLong counters and provides getters for them.
+ * The simple listener that just stores all events as AtomicLong counters and {@link LockFreeHistogram histograms} and provides getters for them.
  */
 public class DefaultOptimizationListener implements OptimizationListener {
 
     private final AtomicLong mergeCount = new AtomicLong();
     private final AtomicLong skipCount = new AtomicLong();
+    private final AtomicLong propagatedCount = new AtomicLong();
+    private final AtomicLong syncCount = new AtomicLong();
+    private final AtomicLong overConsumedTokens = new AtomicLong();
+    private final LockFreeHistogram batchSizeHistogram = new LockFreeHistogram();
+    private final LockFreeHistogram syncLatencyHistogram = new LockFreeHistogram();
+    private final LockFreeHistogram queueDepthHistogram = new LockFreeHistogram();
 
     @Override
     public void incrementMergeCount(int count) {
@@ -39,6 +47,28 @@ public class DefaultOptimizationListener implements OptimizationListener {
         skipCount.addAndGet(count);
     }
 
+    @Override
+    public void recordBatchSize(int batchSize) {
+        propagatedCount.addAndGet(batchSize);
+        syncCount.incrementAndGet();
+        batchSizeHistogram.record(batchSize);
+    }
+
+    @Override
+    public void recordSyncLatency(long latencyNanos) {
+        syncLatencyHistogram.record(latencyNanos);
+    }
+
+    @Override
+    public void recordOverConsumption(long tokens) {
+        overConsumedTokens.addAndGet(tokens);
+    }
+
+    @Override
+    public void recordQueueDepth(int queueDepth) {
+        queueDepthHistogram.record(queueDepth);
+    }
+
     public long getMergeCount() {
         return mergeCount.get();
     }
@@ -47,4 +77,47 @@ public class DefaultOptimizationListener implements OptimizationListener {
         return skipCount.get();
     }
 
+    /**
+     * @return the count of requests that were propagated to external storage,
+     * requests served locally are counted when their postponed tokens are flushed, see {@link OptimizationListener#recordBatchSize(int)}
+     */
+    public long getPropagatedCount() {
+        return propagatedCount.get();
+    }
+
+    /**
+     * @return the count of calls to external storage
+     */
+    public long getSyncCount() {
+        return syncCount.get();
+    }
+
+    /**
+     * @return the share of requests that were served locally without own call to external storage, in range {@code [0, 1]}
+     */
+    public double getLocalHitRatio() {
+        long skipped = skipCount.get();
+        long total = skipped + syncCount.get();
+        return total == 0 ? 0.0 : (double) skipped / total;
+    }
+
+    /**
+     * @return estimated amount of tokens that were consumed over the limits because of delayed synchronization
+     */
+    public long getOverConsumedTokens() {
+        return overConsumedTokens.get();
+    }
+
+    public LockFreeHistogram getBatchSizeHistogram() {
+        return batchSizeHistogram;
+    }
+
+    public LockFreeHistogram getSyncLatencyHistogram() {
+        return syncLatencyHistogram;
+    }
+
+    public LockFreeHistogram getQueueDepthHistogram() {
+        return queueDepthHistogram;
+    }
+
 }
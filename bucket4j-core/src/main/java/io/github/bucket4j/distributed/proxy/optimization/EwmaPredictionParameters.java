@@ -0,0 +1,111 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.proxy.optimization;
+
+import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.distributed.proxy.optimization.predictive.EwmaConsumptionPredictor;
+import io.github.bucket4j.distributed.proxy.optimization.predictive.PredictiveOptimization;
+
+import java.time.Duration;
+
+/**
+ * Specifies the parameters of {@link EwmaConsumptionPredictor} that estimates the consumption rate of other nodes
+ * by exponentially weighted moving average, and used by {@link PredictiveOptimization} as alternative to fixed window of samples.
+ *
+ * @see Optimizations#predictingByEwma(DelayParameters, EwmaPredictionParameters)
+ */
+public class EwmaPredictionParameters {
+
+    public static final int DEFAULT_MIN_OBSERVATIONS = 2;
+    public static final double DEFAULT_CONFIDENCE = 2.0;
+
+    public final long halfLifeNanos;
+    public final int minObservations;
+    public final double confidence;
+    public final long sampleMaxAgeNanos;
+    public final long maxPredictionErrorTokens;
+
+    /**
+     * Creates new instance of {@link EwmaPredictionParameters}
+     *
+     * @param halfLife the period after which the weight of observation becomes two times less.
+     * @param minObservations the minimum amount of observed rates that required to make prediction about distributed consumption rate.
+     * @param confidence the width of confidence interval measured in standard deviations of observed rate, for example {@code 2.0} means ~95% confidence.
+     * @param sampleMaxAge the maximum period of time between synchronizations, all observations are forgotten when it is exceeded.
+     * @param maxPredictionErrorTokens the bound for estimated prediction error, synchronization is performed when estimated error exceeds this bound.
+     */
+    public EwmaPredictionParameters(Duration halfLife, int minObservations, double confidence, Duration sampleMaxAge, long maxPredictionErrorTokens) {
+        this(halfLife.toNanos(), minObservations, confidence, sampleMaxAge.toNanos(), maxPredictionErrorTokens);
+    }
+
+    public EwmaPredictionParameters(long halfLifeNanos, int minObservations, double confidence, long sampleMaxAgeNanos, long maxPredictionErrorTokens) {
+        if (halfLifeNanos <= 0) {
+            throw BucketExceptions.nonPositiveHalfLifeForEwmaPredictionParameters(halfLifeNanos);
+        }
+        this.halfLifeNanos = halfLifeNanos;
+
+        if (minObservations < 1) {
+            throw BucketExceptions.wrongValueOfMinObservationsForEwmaPredictionParameters(minObservations);
+        }
+        this.minObservations = minObservations;
+
+        if (!(confidence > 0.0) || Double.isInfinite(confidence)) {
+            throw BucketExceptions.wrongValueOfConfidenceForEwmaPredictionParameters(confidence);
+        }
+        this.confidence = confidence;
+
+        if (sampleMaxAgeNanos <= 0) {
+            throw BucketExceptions.nonPositiveSampleMaxAgeForPredictionParameters(sampleMaxAgeNanos);
+        }
+        this.sampleMaxAgeNanos = sampleMaxAgeNanos;
+
+        if (maxPredictionErrorTokens <= 0) {
+            throw BucketExceptions.nonPositiveMaxPredictionErrorTokensForEwmaPredictionParameters(maxPredictionErrorTokens);
+        }
+        this.maxPredictionErrorTokens = maxPredictionErrorTokens;
+    }
+
+    public static EwmaPredictionParameters createDefault(DelayParameters delayParameters) {
+        long halfLife = delayParameters.maxUnsynchronizedTimeoutNanos * 4;
+        long sampleMaxAge = delayParameters.maxUnsynchronizedTimeoutNanos * 2;
+        return new EwmaPredictionParameters(halfLife, DEFAULT_MIN_OBSERVATIONS, DEFAULT_CONFIDENCE, sampleMaxAge, delayParameters.maxUnsynchronizedTokens);
+    }
+
+    public long getHalfLifeNanos() {
+        return halfLifeNanos;
+    }
+
+    public int getMinObservations() {
+        return minObservations;
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
+
+    public long getSampleMaxAgeNanos() {
+        return sampleMaxAgeNanos;
+    }
+
+    public long getMaxPredictionErrorTokens() {
+        return maxPredictionErrorTokens;
+    }
+
+}
@@ -49,4 +49,58 @@ public interface OptimizationListener {
      */
     void incrementSkipCount(int count);
 
+    /**
+     * This method is invoked every time when request to external storage is executed,
+     * the batch size is the number of requests that were propagated to external storage by this single call.
+     *
+     * <p>For optimizations that merge requests, the batch consists of requests merged into the call.
+     * For optimizations that serve requests locally and postpone synchronization, like delaying and predicting,
+     * the batch consists of the requests served locally since previous synchronization whose consumed tokens are flushed by the call,
+     * plus the request that initiated the synchronization, if any. So the same request can be reported both by {@link #incrementSkipCount(int)}
+     * and later as part of batch.
+     *
+     * <p>Default implementation does nothing.
+     *
+     * @param batchSize number of requests that were propagated to external storage by single call
+     */
+    default void recordBatchSize(int batchSize) {
+        // do nothing
+    }
+
+    /**
+     * This method is invoked every time when request to external storage is completed.
+     *
+     * <p>Default implementation does nothing.
+     *
+     * @param latencyNanos the time spent to execute request in external storage
+     */
+    default void recordSyncLatency(long latencyNanos) {
+        // do nothing
+    }
+
+    /**
+     * This method is invoked every time when synchronization with external storage detects
+     * that tokens consumed locally without synchronization exceeded the limits.
+     *
+     * <p>Default implementation does nothing.
+     *
+     * @param tokens estimated amount of tokens that were consumed over the limits
+     */
+    default void recordOverConsumption(long tokens) {
+        // do nothing
+    }
+
+    /**
+     * This method is invoked every time when request is going to be propagated to external storage,
+     * the queue depth is the number of requests that wait for another request to the same bucket that is in progress.
+     *
+     * <p>Default implementation does nothing.
+     *
+     * @param queueDepth number of requests that were waiting in the queue at the moment when current request was enqueued, including current one,
+     *                   zero means that request was executed immediately
+     */
+    default void recordQueueDepth(int queueDepth) {
+        // do nothing
+    }
+
 }
@@ -19,11 +19,15 @@
  */
 package io.github.bucket4j.distributed.proxy.optimization;
 
+import io.github.bucket4j.BucketExceptions;
 import io.github.bucket4j.TimeMeter;
 import io.github.bucket4j.distributed.proxy.optimization.batch.BatchingOptimization;
+import io.github.bucket4j.distributed.proxy.optimization.predictive.EwmaConsumptionPredictor;
 import io.github.bucket4j.distributed.proxy.optimization.predictive.PredictiveOptimization;
 import io.github.bucket4j.distributed.proxy.optimization.delay.DelayOptimization;
 
+import java.util.concurrent.ScheduledExecutorService;
+
 /**
  * Provides factory methods for all request optimizations that are built-in into Bucket4j library.
  *
@@ -58,6 +62,25 @@ public class Optimizations {
         return new DelayOptimization(delayParameters, NopeOptimizationListener.INSTANCE, TimeMeter.SYSTEM_MILLISECONDS);
     }
 
+    /**
+     * Has the same semantic as {@link #delaying(DelayParameters)} but synchronization with external storage is performed in background
+     * before thresholds are violated, so foreground requests do not wait for round-trip to external storage
+     * unless local copy of bucket says that there are not enough tokens.
+     *
+     * @param delayParameters thresholds that control whether request can be served locally without synchronization with external storage
+     * @param backgroundSyncScheduler scheduler that is used to synchronize with external storage in background
+     *
+     * @return new instance of {@link DelayOptimization}
+     *
+     * @see DelayOptimization
+     */
+    public static Optimization delayingWithBackgroundSync(DelayParameters delayParameters, ScheduledExecutorService backgroundSyncScheduler) {
+        if (backgroundSyncScheduler == null) {
+            throw BucketExceptions.nullScheduler();
+        }
+        return new DelayOptimization(delayParameters, backgroundSyncScheduler, NopeOptimizationListener.INSTANCE, TimeMeter.SYSTEM_MILLISECONDS);
+    }
+
     /**
      * Creates optimization that can serve requests locally without synchronization with external storage until thresholds are not violated,
      * and additionally tries to predict aggregated consumption rate in whole cluster in order to reduce the risk of overconsumption that caused by {@link DelayOptimization}.
@@ -90,4 +113,37 @@ public class Optimizations {
         return new PredictiveOptimization(defaultPrediction, delayParameters, NopeOptimizationListener.INSTANCE, TimeMeter.SYSTEM_MILLISECONDS);
     }
 
+    /**
+     * Creates optimization that has the same semantic as {@link #predicting(DelayParameters, PredictionParameters)},
+     * but estimates consumption rate in the cluster by exponentially weighted moving average instead of fixed window of samples,
+     * and adapts the frequency of synchronization to the estimated prediction error.
+     *
+     * @param delayParameters thresholds that control whether request can be served locally without synchronization with external storage
+     * @param predictionParameters parameters of exponentially weighted moving average
+     *
+     * @return new instance of {@link PredictiveOptimization}
+     *
+     * @see PredictiveOptimization
+     * @see EwmaConsumptionPredictor
+     * @see EwmaPredictionParameters
+     */
+    public static Optimization predictingByEwma(DelayParameters delayParameters, EwmaPredictionParameters predictionParameters) {
+        return new PredictiveOptimization(() -> new EwmaConsumptionPredictor(predictionParameters), delayParameters, NopeOptimizationListener.INSTANCE, TimeMeter.SYSTEM_MILLISECONDS);
+    }
+
+    /**
+     * Has the same semantic as {@link #predictingByEwma(DelayParameters, EwmaPredictionParameters)} but uses default {@link EwmaPredictionParameters}.
+     *
+     * @param delayParameters thresholds that control whether request can be served locally without synchronization with external storage
+     *
+     * @return new instance of {@link PredictiveOptimization}
+     *
+     * @see PredictiveOptimization
+     * @see EwmaPredictionParameters
+     */
+    public static Optimization predictingByEwma(DelayParameters delayParameters) {
+        EwmaPredictionParameters defaultPrediction = EwmaPredictionParameters.createDefault(delayParameters);
+        return predictingByEwma(delayParameters, defaultPrediction);
+    }
+
 }
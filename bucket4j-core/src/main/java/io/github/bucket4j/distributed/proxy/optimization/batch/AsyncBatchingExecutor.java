@@ -50,14 +50,19 @@ public class AsyncBatchingExecutor implements AsyncCommandExecutor {
         Function<RemoteCommand<?>, CompletableFuture<CommandResult<?>>> taskExecutor = new Function<>() {
             @Override
             public CompletableFuture<CommandResult<?>> apply(RemoteCommand<?> remoteCommand) {
-                CompletableFuture<? extends CommandResult<?>> future = wrappedExecutor.executeAsync(remoteCommand);
+                listener.recordBatchSize(1);
+                long startNanos = System.nanoTime();
+                CompletableFuture<? extends CommandResult<?>> future = wrappedExecutor.executeAsync(remoteCommand)
+                    .whenComplete((result, error) -> listener.recordSyncLatency(System.nanoTime() - startNanos));
                 return (CompletableFuture<CommandResult<?>>) future;
             }
         };
         Function<MultiCommand, CompletableFuture<CommandResult<MultiResult>>> combinedTaskExecutor = new Function<>() {
             @Override
             public CompletableFuture<CommandResult<MultiResult>> apply(MultiCommand multiCommand) {
-                return wrappedExecutor.executeAsync(multiCommand);
+                long startNanos = System.nanoTime();
+                return wrappedExecutor.executeAsync(multiCommand)
+                    .whenComplete((result, error) -> listener.recordSyncLatency(System.nanoTime() - startNanos));
             }
         };
         Function<List<RemoteCommand<?>>, MultiCommand> taskCombiner = new Function<>() {
@@ -66,10 +71,11 @@ public class AsyncBatchingExecutor implements AsyncCommandExecutor {
                 if (commands.size() > 1) {
                     listener.incrementMergeCount(commands.size() - 1);
                 }
+                listener.recordBatchSize(commands.size());
                 return MultiCommand.merge(commands);
             }
         };
-        this.batchingHelper = AsyncBatchHelper.create(taskCombiner, combinedTaskExecutor, taskExecutor, combinedResultSplitter);
+        this.batchingHelper = AsyncBatchHelper.create(taskCombiner, combinedTaskExecutor, taskExecutor, combinedResultSplitter, listener::recordQueueDepth);
     }
 
 
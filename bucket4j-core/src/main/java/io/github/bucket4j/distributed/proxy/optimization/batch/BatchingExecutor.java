@@ -45,19 +45,31 @@ public class BatchingExecutor implements CommandExecutor {
                 if (commands.size() > 1) {
                     listener.incrementMergeCount(commands.size() - 1);
                 }
+                listener.recordBatchSize(commands.size());
                 return MultiCommand.merge(commands);
             }
         };
         Function<MultiCommand, CommandResult<MultiResult>> combinedTaskExecutor = new Function<>() {
             @Override
             public CommandResult<MultiResult> apply(MultiCommand multiCommand) {
-                return wrappedExecutor.execute(multiCommand);
+                long startNanos = System.nanoTime();
+                try {
+                    return wrappedExecutor.execute(multiCommand);
+                } finally {
+                    listener.recordSyncLatency(System.nanoTime() - startNanos);
+                }
             }
         };
         Function<RemoteCommand<?>, CommandResult<?>> taskExecutor = new Function<>() {
             @Override
             public CommandResult<?> apply(RemoteCommand<?> remoteCommand) {
-                return wrappedExecutor.execute(remoteCommand);
+                listener.recordBatchSize(1);
+                long startNanos = System.nanoTime();
+                try {
+                    return wrappedExecutor.execute(remoteCommand);
+                } finally {
+                    listener.recordSyncLatency(System.nanoTime() - startNanos);
+                }
             }
         };
         BiFunction<MultiCommand, CommandResult<MultiResult>, List<CommandResult<?>>> combinedResultSplitter = new BiFunction<>() {
@@ -66,7 +78,7 @@ public class BatchingExecutor implements CommandExecutor {
                 return multiCommand.unwrap(multiResult);
             }
         };
-        this.batchingHelper = BatchHelper.create(taskCombiner, combinedTaskExecutor, taskExecutor, combinedResultSplitter);
+        this.batchingHelper = BatchHelper.create(taskCombiner, combinedTaskExecutor, taskExecutor, combinedResultSplitter, listener::recordQueueDepth);
     }
 
     @Override
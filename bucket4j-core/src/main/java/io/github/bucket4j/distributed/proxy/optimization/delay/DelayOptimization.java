@@ -26,16 +26,20 @@ import io.github.bucket4j.distributed.proxy.CommandExecutor;
 import io.github.bucket4j.distributed.proxy.optimization.Optimization;
 import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
 import io.github.bucket4j.distributed.proxy.optimization.OptimizationListener;
-import io.github.bucket4j.distributed.proxy.optimization.batch.AsyncBatchingExecutor;
-import io.github.bucket4j.distributed.proxy.optimization.batch.BatchingExecutor;
-import io.github.bucket4j.distributed.proxy.optimization.batch.BatchingOptimization;
+
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * Optimization that can serve requests locally without synchronization with external storage until thresholds are not violated.
- * This optimization is based on top of {@link BatchingOptimization}, so multiple parallel request to same bucket are grouped.
+ * Executors created by this optimization are thread-safe, requests that can be served locally are processed in parallel without locking,
+ * only synchronizations with external storage are serialized.
  *
  * <p>Usage of this optimization can lead to temporal overconsumption because the synchronization with external storage is performed periodically when thresholds are violated.
  *
+ * <p>By default, the synchronization is performed inline by the request that violates the thresholds, so this request pays for a full round-trip to the storage.
+ * When {@code backgroundSyncScheduler} is specified, the synchronization is initiated from the scheduler when half of thresholds is reached,
+ * so foreground requests are served locally unless the local copy of bucket says that there are not enough tokens.
+ *
  * @see DelayParameters
  */
 public class DelayOptimization implements Optimization {
@@ -43,28 +47,40 @@ public class DelayOptimization implements Optimization {
     private final DelayParameters delayParameters;
     private final OptimizationListener listener;
     private final TimeMeter timeMeter;
+    private final ScheduledExecutorService backgroundSyncScheduler;
 
     public DelayOptimization(DelayParameters delayParameters, OptimizationListener listener, TimeMeter timeMeter) {
+        this(delayParameters, null, listener, timeMeter);
+    }
+
+    /**
+     * Creates delay optimization that performs synchronization with external storage in background.
+     *
+     * @param delayParameters thresholds that control whether request can be served locally without synchronization with external storage
+     * @param backgroundSyncScheduler scheduler that is used to synchronize with external storage in background, {@code null} means inline synchronization
+     * @param listener the listener for optimization events
+     * @param timeMeter the clock
+     */
+    public DelayOptimization(DelayParameters delayParameters, ScheduledExecutorService backgroundSyncScheduler, OptimizationListener listener, TimeMeter timeMeter) {
         this.delayParameters = delayParameters;
+        this.backgroundSyncScheduler = backgroundSyncScheduler;
         this.timeMeter = timeMeter;
         this.listener = listener;
     }
 
     @Override
     public Optimization withListener(OptimizationListener listener) {
-        return new DelayOptimization(delayParameters, listener, timeMeter);
+        return new DelayOptimization(delayParameters, backgroundSyncScheduler, listener, timeMeter);
     }
 
     @Override
     public CommandExecutor apply(CommandExecutor originalExecutor) {
-        DelayedCommandExecutor predictiveCommandExecutor = new DelayedCommandExecutor(originalExecutor, delayParameters, listener, timeMeter);
-        return new BatchingExecutor(predictiveCommandExecutor, listener);
+        return new DelayedCommandExecutor(originalExecutor, delayParameters, backgroundSyncScheduler, listener, timeMeter);
     }
 
     @Override
     public AsyncCommandExecutor apply(AsyncCommandExecutor originalExecutor) {
-        DelayedCommandExecutor predictiveCommandExecutor = new DelayedCommandExecutor(originalExecutor, delayParameters, listener, timeMeter);
-        return new AsyncBatchingExecutor(predictiveCommandExecutor, listener);
+        return new DelayedCommandExecutor(originalExecutor, delayParameters, backgroundSyncScheduler, listener, timeMeter);
     }
 
 }
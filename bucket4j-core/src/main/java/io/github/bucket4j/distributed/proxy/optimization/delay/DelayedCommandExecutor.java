@@ -35,11 +35,34 @@ import io.github.bucket4j.distributed.remote.commands.MultiCommand;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
+/**
+ * Thread-safe executor that serves requests from local copy of bucket while thresholds specified by {@link DelayParameters} are not violated.
+ *
+ * <p>
+ * The local copy of bucket is published as immutable {@link LocalState} and updated via compare-and-swap,
+ * so local requests from different threads are served in parallel without locking.
+ * Only the synchronization with remote storage is serialized: by {@code remoteExecutionLock} for synchronous executor,
+ * and by chain of futures for asynchronous executor.
+ *
+ * <p>
+ * When {@code backgroundSyncScheduler} is specified, postponed tokens are flushed from the scheduler
+ * when half of {@link DelayParameters#maxUnsynchronizedTokens} or half of {@link DelayParameters#maxUnsynchronizedTimeoutNanos} is reached,
+ * so foreground requests are served locally while the thresholds themselves are not violated.
+ * In this mode the request is propagated to remote storage inline only when local copy of bucket was never synchronized,
+ * when the local copy says that there are not enough tokens, or when the background synchronization was not able to run ahead of the thresholds.
+ */
 class DelayedCommandExecutor implements CommandExecutor, AsyncCommandExecutor {
 
     private static final int ORIGINAL_COMMAND_INDEX = 1;
-    private static final int GET_SNAPSHOT_COMMAND_INDEX = 2;
+
+    private static final LocalState NOT_SYNCHRONIZED = new LocalState(null, 0L, 0L, 0L, 0L);
 
     private final CommandExecutor originalExecutor;
     private final AsyncCommandExecutor originalAsyncExecutor;
@@ -47,29 +70,42 @@ class DelayedCommandExecutor implements CommandExecutor, AsyncCommandExecutor {
     private final OptimizationListener listener;
     private final TimeMeter timeMeter;
 
-    private RemoteBucketState state;
+    // null when synchronization is performed inline by the request that violates the thresholds
+    private final ScheduledExecutorService backgroundSyncScheduler;
+    private final long backgroundSyncTokensThreshold;
+    private final long backgroundSyncTimeoutNanos;
 
-    private long lastSyncTimeNanos;
-    private long postponedToConsumeTokens;
+    private final AtomicReference<LocalState> localStateReference = new AtomicReference<>(NOT_SYNCHRONIZED);
+    private final ReentrantLock remoteExecutionLock = new ReentrantLock();
+    private final AtomicReference<CompletableFuture<?>> lastSynchronizationFuture = new AtomicReference<>(CompletableFuture.completedFuture(null));
+    private final AtomicBoolean backgroundSyncRequested = new AtomicBoolean();
+    private final AtomicBoolean backgroundTimerScheduled = new AtomicBoolean();
 
-    DelayedCommandExecutor(CommandExecutor originalExecutor, DelayParameters delayParameters, OptimizationListener listener, TimeMeter timeMeter) {
-        this.originalExecutor = originalExecutor;
-        this.originalAsyncExecutor = null;
-        this.delayParameters = delayParameters;
-        this.listener = listener;
-        this.timeMeter = timeMeter;
+    DelayedCommandExecutor(CommandExecutor originalExecutor, DelayParameters delayParameters, ScheduledExecutorService backgroundSyncScheduler,
+                           OptimizationListener listener, TimeMeter timeMeter) {
+        this(originalExecutor, null, delayParameters, backgroundSyncScheduler, listener, timeMeter);
+    }
+
+    DelayedCommandExecutor(AsyncCommandExecutor originalAsyncExecutor, DelayParameters delayParameters, ScheduledExecutorService backgroundSyncScheduler,
+                           OptimizationListener listener, TimeMeter timeMeter) {
+        this(null, originalAsyncExecutor, delayParameters, backgroundSyncScheduler, listener, timeMeter);
     }
 
-    DelayedCommandExecutor(AsyncCommandExecutor originalAsyncExecutor, DelayParameters delayParameters, OptimizationListener listener, TimeMeter timeMeter) {
-        this.originalExecutor = null;
+    private DelayedCommandExecutor(CommandExecutor originalExecutor, AsyncCommandExecutor originalAsyncExecutor, DelayParameters delayParameters,
+                                   ScheduledExecutorService backgroundSyncScheduler, OptimizationListener listener, TimeMeter timeMeter) {
+        this.originalExecutor = originalExecutor;
         this.originalAsyncExecutor = originalAsyncExecutor;
         this.delayParameters = delayParameters;
+        this.backgroundSyncScheduler = backgroundSyncScheduler;
         this.listener = listener;
         this.timeMeter = timeMeter;
+        this.backgroundSyncTokensThreshold = Math.max(1, delayParameters.maxUnsynchronizedTokens / 2);
+        this.backgroundSyncTimeoutNanos = Math.max(1, delayParameters.maxUnsynchronizedTimeoutNanos / 2);
     }
 
     @Override
     public <T> CommandResult<T> execute(RemoteCommand<T> command) {
+        long syncCountBeforeLocalAttempt = localStateReference.get().syncCount;
         CommandResult<T> localResult = tryConsumeLocally(command);
         if (localResult != null) {
             // remote call is not needed
@@ -77,16 +113,29 @@ class DelayedCommandExecutor implements CommandExecutor, AsyncCommandExecutor {
             return localResult;
         }
 
-        MultiCommand remoteCommand = prepareRemoteCommand(command);
-        CommandResult<MultiResult> commandResult = originalExecutor.execute(remoteCommand);
-        rememberRemoteCommandResult(commandResult);
-        return commandResult.isError() ?
-            (CommandResult<T>) commandResult :
-            (CommandResult<T>) commandResult.getData().getResults().get(ORIGINAL_COMMAND_INDEX);
+        remoteExecutionLock.lock();
+        try {
+            if (localStateReference.get().syncCount != syncCountBeforeLocalAttempt) {
+                // synchronization was performed while this thread waited for remote execution lock, so local copy can be fresh enough
+                localResult = tryConsumeLocally(command);
+                if (localResult != null) {
+                    listener.incrementSkipCount(1);
+                    return localResult;
+                }
+            }
+
+            CommandResult<MultiResult> remoteResult = executeRemote(command);
+            return remoteResult.isError() ?
+                (CommandResult<T>) remoteResult :
+                (CommandResult<T>) remoteResult.getData().getResults().get(ORIGINAL_COMMAND_INDEX);
+        } finally {
+            remoteExecutionLock.unlock();
+        }
     }
 
     @Override
     public <T> CompletableFuture<CommandResult<T>> executeAsync(RemoteCommand<T> command) {
+        long syncCountBeforeLocalAttempt = localStateReference.get().syncCount;
         CommandResult<T> result = tryConsumeLocally(command);
         if (result != null) {
             // remote call is not needed
@@ -94,46 +143,122 @@ class DelayedCommandExecutor implements CommandExecutor, AsyncCommandExecutor {
             return CompletableFuture.completedFuture(result);
         }
 
-        MultiCommand remoteCommand = prepareRemoteCommand(command);
-        CompletableFuture<CommandResult<MultiResult>> resultFuture = originalAsyncExecutor.executeAsync(remoteCommand);
-        return resultFuture.thenApply((CommandResult<MultiResult> remoteResult) -> {
-            rememberRemoteCommandResult(remoteResult);
-            return remoteResult.isError() ?
+        return synchronizeAsync(previous -> {
+            if (localStateReference.get().syncCount != syncCountBeforeLocalAttempt) {
+                // synchronization was performed while this request waited for previous synchronization, so local copy can be fresh enough
+                CommandResult<T> localResult = tryConsumeLocally(command);
+                if (localResult != null) {
+                    listener.incrementSkipCount(1);
+                    return CompletableFuture.completedFuture(localResult);
+                }
+            }
+            return executeRemoteAsync(command).thenApply((CommandResult<MultiResult> remoteResult) -> remoteResult.isError() ?
                 (CommandResult<T>) remoteResult :
-                (CommandResult<T>) remoteResult.getData().getResults().get(ORIGINAL_COMMAND_INDEX);
+                (CommandResult<T>) remoteResult.getData().getResults().get(ORIGINAL_COMMAND_INDEX));
         });
     }
 
-    private <T> CommandResult<T> tryConsumeLocally(RemoteCommand<T> command) {
-        long currentTimeNanos = timeMeter.currentTimeNanos();
-        if (isNeedToExecuteRemoteImmediately(command, currentTimeNanos)) {
-            return null;
-        }
+    private <R> CompletableFuture<R> synchronizeAsync(Function<Object, CompletableFuture<R>> synchronization) {
+        // the next synchronization starts only after completion of previous one
+        CompletableFuture<Void> synchronizationFuture = new CompletableFuture<>();
+        CompletableFuture<?> previousSynchronizationFuture = lastSynchronizationFuture.getAndSet(synchronizationFuture);
+        CompletableFuture<R> resultFuture = previousSynchronizationFuture.thenCompose(synchronization);
+        resultFuture.whenComplete((result, error) -> synchronizationFuture.complete(null));
+        return resultFuture;
+    }
 
-        // execute local command
-        MutableBucketEntry entry = new MutableBucketEntry(state.copy());
-        CommandResult<T> result = command.execute(entry, currentTimeNanos);
-        if (result.isConfigurationNeedToBeReplaced()) {
-            return null;
-        }
-        long locallyConsumedTokens = command.getConsumedTokens(result.getData());
-        if (locallyConsumedTokens == Long.MAX_VALUE) {
-            return null;
+    // command is null for background synchronization which only flushes postponed tokens
+    private CommandResult<MultiResult> executeRemote(RemoteCommand<?> command) {
+        LocalState flushed = takePostponedTokens();
+        MultiCommand remoteCommand = prepareRemoteCommand(command, flushed.postponedToConsumeTokens);
+        CommandResult<MultiResult> remoteResult;
+        listener.recordBatchSize(batchSize(command, flushed));
+        long startNanos = System.nanoTime();
+        try {
+            remoteResult = originalExecutor.execute(remoteCommand);
+        } catch (Throwable e) {
+            returnPostponedTokens(flushed);
+            throw e;
+        } finally {
+            listener.recordSyncLatency(System.nanoTime() - startNanos);
         }
+        rememberRemoteCommandResult(remoteResult, flushed.postponedToConsumeTokens);
+        return remoteResult;
+    }
 
-        if (!isLocalExecutionResultSatisfiesThreshold(locallyConsumedTokens)) {
-            return null;
+    // command is null for background synchronization which only flushes postponed tokens
+    private CompletableFuture<CommandResult<MultiResult>> executeRemoteAsync(RemoteCommand<?> command) {
+        LocalState flushed = takePostponedTokens();
+        MultiCommand remoteCommand = prepareRemoteCommand(command, flushed.postponedToConsumeTokens);
+        CompletableFuture<CommandResult<MultiResult>> resultFuture;
+        listener.recordBatchSize(batchSize(command, flushed));
+        long startNanos = System.nanoTime();
+        try {
+            resultFuture = originalAsyncExecutor.executeAsync(remoteCommand);
+        } catch (Throwable e) {
+            returnPostponedTokens(flushed);
+            throw e;
         }
+        return resultFuture
+            .whenComplete((remoteResult, error) -> {
+                listener.recordSyncLatency(System.nanoTime() - startNanos);
+                if (error != null) {
+                    returnPostponedTokens(flushed);
+                }
+            })
+            .thenApply((CommandResult<MultiResult> remoteResult) -> {
+                rememberRemoteCommandResult(remoteResult, flushed.postponedToConsumeTokens);
+                return remoteResult;
+            });
+    }
 
-        postponedToConsumeTokens += locallyConsumedTokens;
-        if (entry.isStateModified()) {
-            state = entry.get();
-        }
+    private <T> CommandResult<T> tryConsumeLocally(RemoteCommand<T> command) {
+        long currentTimeNanos = timeMeter.currentTimeNanos();
+        while (true) {
+            LocalState localState = localStateReference.get();
+            if (isNeedToExecuteRemoteImmediately(localState, command, currentTimeNanos)) {
+                return null;
+            }
 
-        return result;
+            // execute local command
+            MutableBucketEntry entry = new MutableBucketEntry(localState.state.copy());
+            CommandResult<T> result = command.execute(entry, currentTimeNanos);
+            if (result.isConfigurationNeedToBeReplaced()) {
+                return null;
+            }
+            long locallyConsumedTokens = command.getConsumedTokens(result.getData());
+            if (locallyConsumedTokens == Long.MAX_VALUE) {
+                return null;
+            }
+
+            if (backgroundSyncScheduler != null && locallyConsumedTokens < command.estimateTokensToConsume()) {
+                // local copy of bucket says that there are not enough tokens, need to ask remote storage
+                return null;
+            }
+
+            if (!isLocalExecutionResultSatisfiesThreshold(localState, locallyConsumedTokens)) {
+                return null;
+            }
+
+            if (!entry.isStateModified() && locallyConsumedTokens == 0) {
+                // nothing to publish
+                requestBackgroundSyncIfNeeded(localState, currentTimeNanos);
+                return result;
+            }
+            RemoteBucketState newState = entry.isStateModified() ? entry.get() : localState.state;
+            LocalState newLocalState = new LocalState(newState, localState.lastSyncTimeNanos,
+                localState.postponedToConsumeTokens + locallyConsumedTokens,
+                locallyConsumedTokens > 0 ? localState.postponedRequests + 1 : localState.postponedRequests, localState.syncCount);
+            if (localStateReference.compareAndSet(localState, newLocalState)) {
+                requestBackgroundSyncIfNeeded(newLocalState, currentTimeNanos);
+                return result;
+            }
+            // local state was concurrently updated by another thread, need to repeat against fresh state
+        }
     }
 
-    private boolean isLocalExecutionResultSatisfiesThreshold(long locallyConsumedTokens) {
+    private boolean isLocalExecutionResultSatisfiesThreshold(LocalState localState, long locallyConsumedTokens) {
+        long postponedToConsumeTokens = localState.postponedToConsumeTokens;
         if (locallyConsumedTokens == Long.MAX_VALUE || postponedToConsumeTokens + locallyConsumedTokens < 0) {
             // math overflow
             return false;
@@ -141,18 +266,19 @@ class DelayedCommandExecutor implements CommandExecutor, AsyncCommandExecutor {
         return postponedToConsumeTokens + locallyConsumedTokens <= delayParameters.maxUnsynchronizedTokens;
     }
 
-    private <T> boolean isNeedToExecuteRemoteImmediately(RemoteCommand<T> command, long currentTimeNanos) {
-        if (state == null) {
+    private <T> boolean isNeedToExecuteRemoteImmediately(LocalState localState, RemoteCommand<T> command, long currentTimeNanos) {
+        if (localState.state == null) {
             // was never synchronized before
             return true;
         }
 
-        if (currentTimeNanos - lastSyncTimeNanos  > delayParameters.maxUnsynchronizedTimeoutNanos) {
+        if (currentTimeNanos - localState.lastSyncTimeNanos > delayParameters.maxUnsynchronizedTimeoutNanos) {
             // too long period passed since last sync
             return true;
         }
 
-        if (command.isImmediateSyncRequired(postponedToConsumeTokens, currentTimeNanos - lastSyncTimeNanos)) {
+        long postponedToConsumeTokens = localState.postponedToConsumeTokens;
+        if (command.isImmediateSyncRequired(postponedToConsumeTokens, currentTimeNanos - localState.lastSyncTimeNanos)) {
             // need to execute immediately because of special command
             return true;
         }
@@ -166,24 +292,161 @@ class DelayedCommandExecutor implements CommandExecutor, AsyncCommandExecutor {
         return commandTokens + postponedToConsumeTokens > delayParameters.maxUnsynchronizedTokens;
     }
 
-    private <T> MultiCommand prepareRemoteCommand(RemoteCommand<T> command) {
+    private void requestBackgroundSyncIfNeeded(LocalState localState, long currentTimeNanos) {
+        if (backgroundSyncScheduler == null || localState.postponedToConsumeTokens == 0) {
+            return;
+        }
+        if (localState.postponedToConsumeTokens < backgroundSyncTokensThreshold
+                && currentTimeNanos - localState.lastSyncTimeNanos < backgroundSyncTimeoutNanos) {
+            return;
+        }
+        if (backgroundSyncRequested.compareAndSet(false, true)) {
+            backgroundSyncScheduler.execute(this::syncInBackground);
+        }
+    }
+
+    private void syncByTimer() {
+        backgroundTimerScheduled.set(false);
+        if (localStateReference.get().postponedToConsumeTokens > 0 && backgroundSyncRequested.compareAndSet(false, true)) {
+            syncInBackground();
+        }
+    }
+
+    private void syncInBackground() {
+        if (originalExecutor != null) {
+            remoteExecutionLock.lock();
+            try {
+                executeRemote(null);
+                backgroundSyncRequested.set(false);
+            } catch (Throwable e) {
+                onBackgroundSyncFailure();
+            } finally {
+                remoteExecutionLock.unlock();
+            }
+        } else {
+            synchronizeAsync(previous -> executeRemoteAsync(null)).whenComplete((remoteResult, error) -> {
+                if (error != null) {
+                    onBackgroundSyncFailure();
+                } else {
+                    backgroundSyncRequested.set(false);
+                }
+            });
+        }
+    }
+
+    private void onBackgroundSyncFailure() {
+        // the next foreground request will be propagated to remote storage and will handle the problem
+        while (true) {
+            LocalState localState = localStateReference.get();
+            LocalState newLocalState = new LocalState(null, localState.lastSyncTimeNanos, localState.postponedToConsumeTokens, localState.postponedRequests, localState.syncCount);
+            if (localStateReference.compareAndSet(localState, newLocalState)) {
+                break;
+            }
+        }
+        backgroundSyncRequested.set(false);
+    }
+
+    private MultiCommand prepareRemoteCommand(RemoteCommand<?> command, long postponedTokens) {
         List<RemoteCommand<?>> commands = new ArrayList<>(3);
-        commands.add(new ConsumeIgnoringRateLimitsCommand(this.postponedToConsumeTokens));
-        commands.add(command);
+        commands.add(new ConsumeIgnoringRateLimitsCommand(postponedTokens));
+        if (command != null) {
+            commands.add(command);
+        }
         commands.add(new CreateSnapshotCommand());
         return new MultiCommand(commands);
     }
 
-    private void rememberRemoteCommandResult(CommandResult<MultiResult> multiResult) {
-        postponedToConsumeTokens = 0;
-        lastSyncTimeNanos = timeMeter.currentTimeNanos();
-        CommandResult<?> snapshotResult = multiResult.isError() ? multiResult : multiResult.getData().getResults().get(GET_SNAPSHOT_COMMAND_INDEX);
-        if (snapshotResult.isError()) {
-            state = null;
+    // returns the replaced state, which carries postponed tokens and requests that are going to be flushed
+    private LocalState takePostponedTokens() {
+        while (true) {
+            LocalState localState = localStateReference.get();
+            if (localState.postponedToConsumeTokens == 0) {
+                return localState;
+            }
+            LocalState newLocalState = new LocalState(localState.state, localState.lastSyncTimeNanos, 0L, 0L, localState.syncCount);
+            if (localStateReference.compareAndSet(localState, newLocalState)) {
+                return localState;
+            }
+        }
+    }
+
+    private void returnPostponedTokens(LocalState flushed) {
+        if (flushed.postponedToConsumeTokens == 0) {
             return;
         }
-        this.state = (RemoteBucketState) snapshotResult.getData();
+        while (true) {
+            LocalState localState = localStateReference.get();
+            LocalState newLocalState = new LocalState(localState.state, localState.lastSyncTimeNanos,
+                localState.postponedToConsumeTokens + flushed.postponedToConsumeTokens,
+                localState.postponedRequests + flushed.postponedRequests, localState.syncCount);
+            if (localStateReference.compareAndSet(localState, newLocalState)) {
+                return;
+            }
+        }
     }
 
+    private void rememberRemoteCommandResult(CommandResult<MultiResult> multiResult, long flushedTokens) {
+        long lastSyncTimeNanos = timeMeter.currentTimeNanos();
+        RemoteBucketState snapshot = null;
+        if (!multiResult.isError()) {
+            // snapshot is always the last command for both foreground and background synchronization
+            List<CommandResult<?>> results = multiResult.getData().getResults();
+            CommandResult<?> snapshotResult = results.get(results.size() - 1);
+            snapshot = snapshotResult.isError() ? null : (RemoteBucketState) snapshotResult.getData();
+        }
+        if (snapshot != null) {
+            recordOverConsumption(flushedTokens, snapshot);
+        }
+        while (true) {
+            LocalState localState = localStateReference.get();
+            RemoteBucketState newState = snapshot;
+            if (snapshot != null && localState.postponedToConsumeTokens > 0) {
+                // decrease available tokens by amount that consumed locally while remote request was in progress
+                newState = snapshot.copy();
+                newState.consume(localState.postponedToConsumeTokens);
+            }
+            LocalState newLocalState = new LocalState(newState, lastSyncTimeNanos, localState.postponedToConsumeTokens, localState.postponedRequests, localState.syncCount + 1);
+            if (localStateReference.compareAndSet(localState, newLocalState)) {
+                break;
+            }
+        }
+        if (snapshot != null && backgroundSyncScheduler != null && backgroundTimerScheduled.compareAndSet(false, true)) {
+            backgroundSyncScheduler.schedule(this::syncByTimer, backgroundSyncTimeoutNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static int batchSize(RemoteCommand<?> command, LocalState flushed) {
+        // requests served locally since previous synchronization are propagated together with the request that initiated synchronization
+        long batchSize = flushed.postponedRequests + (command == null ? 0 : 1);
+        return (int) Math.min(Integer.MAX_VALUE, batchSize);
+    }
+
+    private void recordOverConsumption(long flushedTokens, RemoteBucketState snapshot) {
+        long availableTokens = snapshot.getAvailableTokens();
+        if (flushedTokens > 0 && availableTokens < 0) {
+            // tokens that were consumed locally without synchronization made the balance negative
+            listener.recordOverConsumption(Math.min(flushedTokens, -availableTokens));
+        }
+    }
+
+    private static final class LocalState {
+
+        // null when bucket was never synchronized or last synchronization failed
+        private final RemoteBucketState state;
+        private final long lastSyncTimeNanos;
+        private final long postponedToConsumeTokens;
+        // count of locally served requests which consumed postponedToConsumeTokens
+        private final long postponedRequests;
+        private final long syncCount;
+
+        private LocalState(RemoteBucketState state, long lastSyncTimeNanos, long postponedToConsumeTokens, long postponedRequests, long syncCount) {
+            this.state = state;
+            this.lastSyncTimeNanos = lastSyncTimeNanos;
+            this.postponedToConsumeTokens = postponedToConsumeTokens;
+            this.postponedRequests = postponedRequests;
+            this.syncCount = syncCount;
+        }
+
+    }
 
 }
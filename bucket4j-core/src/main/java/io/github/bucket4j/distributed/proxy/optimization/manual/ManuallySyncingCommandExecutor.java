@@ -23,153 +23,238 @@ import io.github.bucket4j.TimeMeter;
 import io.github.bucket4j.distributed.proxy.AsyncCommandExecutor;
 import io.github.bucket4j.distributed.proxy.CommandExecutor;
 import io.github.bucket4j.distributed.proxy.optimization.OptimizationListener;
-import io.github.bucket4j.distributed.remote.*;
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.MultiResult;
+import io.github.bucket4j.distributed.remote.MutableBucketEntry;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import io.github.bucket4j.distributed.remote.RemoteCommand;
 import io.github.bucket4j.distributed.remote.commands.ConsumeIgnoringRateLimitsCommand;
 import io.github.bucket4j.distributed.remote.commands.CreateSnapshotCommand;
 import io.github.bucket4j.distributed.remote.commands.MultiCommand;
 
+import io.github.bucket4j.util.concurrent.batch.AsyncBatchHelper;
+import io.github.bucket4j.util.concurrent.batch.BatchHelper;
+
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
+/**
+ * Thread-safe executor that serves requests from local copy of bucket until synchronization is explicitly requested.
+ *
+ * <p>
+ * The local copy of bucket is published as immutable {@link LocalState} and updated via compare-and-swap,
+ * so local requests from different threads are served in parallel without locking.
+ * Requests that need to be propagated to remote storage are grouped via {@link BatchHelper} or {@link AsyncBatchHelper},
+ * the async path never blocks the calling thread.
+ */
 class ManuallySyncingCommandExecutor implements CommandExecutor, AsyncCommandExecutor {
 
     private static final int ORIGINAL_COMMAND_INDEX = 1;
     private static final int GET_SNAPSHOT_COMMAND_INDEX = 2;
 
-    private final CommandExecutor originalExecutor;
-    private final AsyncCommandExecutor originalAsyncExecutor;
+    private static final LocalState NOT_SYNCHRONIZED = new LocalState(null, 0L, 0L);
+
+    private final BatchHelper<RemoteCommand<?>, CommandResult<?>, MultiCommand, List<CommandResult<?>>> remoteBatchHelper;
+    private final AsyncBatchHelper<RemoteCommand<?>, CommandResult<?>, MultiCommand, List<CommandResult<?>>> asyncRemoteBatchHelper;
     private final OptimizationListener listener;
     private final TimeMeter timeMeter;
 
-    private RemoteBucketState state;
-
-    private long lastSyncTimeNanos;
-    private long postponedToConsumeTokens;
-
-    private final ReentrantLock localStateMutationLock = new ReentrantLock();
-    private final ReentrantLock remoteExecutionLock = new ReentrantLock();
-    private CompletableFuture<?> inProgressSynchronizationFuture = CompletableFuture.completedFuture(null);
+    private final AtomicReference<LocalState> localStateReference = new AtomicReference<>(NOT_SYNCHRONIZED);
 
     ManuallySyncingCommandExecutor(CommandExecutor originalExecutor, OptimizationListener listener, TimeMeter timeMeter) {
-        this.originalExecutor = originalExecutor;
-        this.originalAsyncExecutor = null;
         this.listener = listener;
         this.timeMeter = timeMeter;
+        this.asyncRemoteBatchHelper = null;
+
+        Function<RemoteCommand<?>, CommandResult<?>> taskExecutor = new Function<>() {
+            @Override
+            public CommandResult<?> apply(RemoteCommand<?> remoteCommand) {
+                listener.recordBatchSize(1);
+                long startNanos = System.nanoTime();
+                CommandResult<MultiResult> remoteResult;
+                try {
+                    remoteResult = (CommandResult<MultiResult>) originalExecutor.execute(remoteCommand);
+                } finally {
+                    listener.recordSyncLatency(System.nanoTime() - startNanos);
+                }
+                rememberRemoteCommandResult((MultiCommand) remoteCommand, remoteResult);
+                return remoteResult;
+            }
+        };
+        Function<MultiCommand, List<CommandResult<?>>> combinedTaskExecutor = new Function<>() {
+            @Override
+            public List<CommandResult<?>> apply(MultiCommand multiCommand) {
+                long startNanos = System.nanoTime();
+                CommandResult<MultiResult> combinedResult;
+                try {
+                    combinedResult = originalExecutor.execute(multiCommand);
+                } finally {
+                    listener.recordSyncLatency(System.nanoTime() - startNanos);
+                }
+                return rememberRemoteCommandResults(multiCommand, combinedResult);
+            }
+        };
+        this.remoteBatchHelper = BatchHelper.create(taskCombiner(), combinedTaskExecutor, taskExecutor, combinedResultSplitter(), listener::recordQueueDepth);
     }
 
     ManuallySyncingCommandExecutor(AsyncCommandExecutor originalAsyncExecutor, OptimizationListener listener, TimeMeter timeMeter) {
-        this.originalExecutor = null;
-        this.originalAsyncExecutor = originalAsyncExecutor;
         this.listener = listener;
         this.timeMeter = timeMeter;
+        this.remoteBatchHelper = null;
+
+        Function<RemoteCommand<?>, CompletableFuture<CommandResult<?>>> taskExecutor = new Function<>() {
+            @Override
+            public CompletableFuture<CommandResult<?>> apply(RemoteCommand<?> remoteCommand) {
+                listener.recordBatchSize(1);
+                long startNanos = System.nanoTime();
+                CompletableFuture<CommandResult<MultiResult>> resultFuture = originalAsyncExecutor.executeAsync((RemoteCommand<MultiResult>) remoteCommand);
+                return resultFuture.thenApply((CommandResult<MultiResult> remoteResult) -> {
+                    listener.recordSyncLatency(System.nanoTime() - startNanos);
+                    rememberRemoteCommandResult((MultiCommand) remoteCommand, remoteResult);
+                    return remoteResult;
+                });
+            }
+        };
+        Function<MultiCommand, CompletableFuture<List<CommandResult<?>>>> combinedTaskExecutor = new Function<>() {
+            @Override
+            public CompletableFuture<List<CommandResult<?>>> apply(MultiCommand multiCommand) {
+                long startNanos = System.nanoTime();
+                return originalAsyncExecutor.executeAsync(multiCommand)
+                    .thenApply((CommandResult<MultiResult> combinedResult) -> {
+                        listener.recordSyncLatency(System.nanoTime() - startNanos);
+                        return rememberRemoteCommandResults(multiCommand, combinedResult);
+                    });
+            }
+        };
+        this.asyncRemoteBatchHelper = AsyncBatchHelper.create(taskCombiner(), combinedTaskExecutor, taskExecutor, combinedResultSplitter(), listener::recordQueueDepth);
     }
 
     @Override
     public <T> CommandResult<T> execute(RemoteCommand<T> command) {
-        MultiCommand remoteCommand;
-        localStateMutationLock.lock();
-        try {
-            CommandResult<T> localResult = tryConsumeLocally(command);
-            if (localResult != null) {
-                // remote call is not needed
-                listener.incrementSkipCount(1);
-                return localResult;
-            } else {
-                remoteCommand = prepareRemoteCommand(command);
-            }
-        } finally {
-            localStateMutationLock.unlock();
+        CommandResult<T> localResult = tryConsumeLocally(command);
+        if (localResult != null) {
+            // remote call is not needed
+            listener.incrementSkipCount(1);
+            return localResult;
         }
 
-        remoteExecutionLock.lock();
+        long postponedTokens = takePostponedTokens();
+        MultiCommand remoteCommand = prepareRemoteCommand(command, postponedTokens);
+        CommandResult<MultiResult> remoteResult;
         try {
-            CommandResult<MultiResult> remoteResult = originalExecutor.execute(remoteCommand);
-            rememberRemoteCommandResult(remoteResult);
-            return remoteResult.isError() ?
-                (CommandResult<T>) remoteResult :
-                (CommandResult<T>) remoteResult.getData().getResults().get(ORIGINAL_COMMAND_INDEX);
-        } finally {
-            remoteExecutionLock.unlock();
+            remoteResult = (CommandResult<MultiResult>) remoteBatchHelper.execute(remoteCommand);
+        } catch (Throwable e) {
+            returnPostponedTokens(postponedTokens);
+            throw e;
         }
+        return remoteResult.isError() ?
+            (CommandResult<T>) remoteResult :
+            (CommandResult<T>) remoteResult.getData().getResults().get(ORIGINAL_COMMAND_INDEX);
     }
 
     @Override
     public <T> CompletableFuture<CommandResult<T>> executeAsync(RemoteCommand<T> command) {
-        MultiCommand remoteCommand;
-        localStateMutationLock.lock();
-        try {
-            CommandResult<T> result = tryConsumeLocally(command);
-            if (result != null) {
-                // remote call is not needed
-                listener.incrementSkipCount(1);
-                return CompletableFuture.completedFuture(result);
-            } else {
-                remoteCommand = prepareRemoteCommand(command);
-            }
-        } finally {
-            localStateMutationLock.unlock();
+        CommandResult<T> result = tryConsumeLocally(command);
+        if (result != null) {
+            // remote call is not needed
+            listener.incrementSkipCount(1);
+            return CompletableFuture.completedFuture(result);
         }
 
-        remoteExecutionLock.lock();
-        CompletableFuture<CommandResult<MultiResult>> resultFuture;
-        try {
-            resultFuture = inProgressSynchronizationFuture.thenCompose(f -> originalAsyncExecutor.executeAsync(remoteCommand));
-            inProgressSynchronizationFuture = resultFuture.exceptionally((Throwable ex) -> null);
-        } finally {
-            remoteExecutionLock.unlock();
-        }
+        long postponedTokens = takePostponedTokens();
+        MultiCommand remoteCommand = prepareRemoteCommand(command, postponedTokens);
+        return asyncRemoteBatchHelper.executeAsync(remoteCommand)
+            .whenComplete((batchedResult, error) -> {
+                if (error != null) {
+                    returnPostponedTokens(postponedTokens);
+                }
+            })
+            .thenApply((CommandResult<?> batchedResult) -> {
+                CommandResult<MultiResult> remoteResult = (CommandResult<MultiResult>) batchedResult;
+                return remoteResult.isError() ?
+                    (CommandResult<T>) remoteResult :
+                    (CommandResult<T>) remoteResult.getData().getResults().get(ORIGINAL_COMMAND_INDEX);
+            });
+    }
 
-        return resultFuture.thenApply((CommandResult<MultiResult> remoteResult) -> {
-            rememberRemoteCommandResult(remoteResult);
-            return remoteResult.isError() ?
-                (CommandResult<T>) remoteResult :
-                (CommandResult<T>) remoteResult.getData().getResults().get(ORIGINAL_COMMAND_INDEX);
-        });
+    private Function<List<RemoteCommand<?>>, MultiCommand> taskCombiner() {
+        return new Function<>() {
+            @Override
+            public MultiCommand apply(List<RemoteCommand<?>> commands) {
+                if (commands.size() > 1) {
+                    listener.incrementMergeCount(commands.size() - 1);
+                }
+                listener.recordBatchSize(commands.size());
+                // commands are never merged, because each of them is already MultiCommand
+                return new MultiCommand(commands);
+            }
+        };
+    }
+
+    private static BiFunction<MultiCommand, List<CommandResult<?>>, List<CommandResult<?>>> combinedResultSplitter() {
+        return new BiFunction<>() {
+            @Override
+            public List<CommandResult<?>> apply(MultiCommand multiCommand, List<CommandResult<?>> results) {
+                return results;
+            }
+        };
     }
 
     private <T> CommandResult<T> tryConsumeLocally(RemoteCommand<T> command) {
         long currentTimeNanos = timeMeter.currentTimeNanos();
-        if (isNeedToExecuteRemoteImmediately(command, currentTimeNanos)) {
-            return null;
-        }
+        while (true) {
+            LocalState localState = localStateReference.get();
+            if (isNeedToExecuteRemoteImmediately(localState, command, currentTimeNanos)) {
+                return null;
+            }
 
-        // execute local command
-        MutableBucketEntry entry = new MutableBucketEntry(state.copy());
-        CommandResult<T> result = command.execute(entry, currentTimeNanos);
-        if (result.isConfigurationNeedToBeReplaced()) {
-            return null;
-        }
-        long locallyConsumedTokens = command.getConsumedTokens(result.getData());
-        if (locallyConsumedTokens == Long.MAX_VALUE) {
-            return null;
-        }
+            // execute local command
+            MutableBucketEntry entry = new MutableBucketEntry(localState.state.copy());
+            CommandResult<T> result = command.execute(entry, currentTimeNanos);
+            if (result.isConfigurationNeedToBeReplaced()) {
+                return null;
+            }
+            long locallyConsumedTokens = command.getConsumedTokens(result.getData());
+            if (locallyConsumedTokens == Long.MAX_VALUE) {
+                return null;
+            }
 
-        if (!isLocalExecutionResultSatisfiesThreshold(locallyConsumedTokens)) {
-            return null;
-        }
+            if (!isLocalExecutionResultSatisfiesThreshold(localState, locallyConsumedTokens)) {
+                return null;
+            }
 
-        postponedToConsumeTokens += locallyConsumedTokens;
-        if (entry.isStateModified()) {
-            state = entry.get();
+            if (!entry.isStateModified() && locallyConsumedTokens == 0) {
+                // nothing to publish
+                return result;
+            }
+            RemoteBucketState newState = entry.isStateModified() ? entry.get() : localState.state;
+            LocalState newLocalState = new LocalState(newState, localState.lastSyncTimeNanos,
+                localState.postponedToConsumeTokens + locallyConsumedTokens);
+            if (localStateReference.compareAndSet(localState, newLocalState)) {
+                return result;
+            }
+            // local state was concurrently updated by another thread, need to repeat against fresh state
         }
-
-        return result;
     }
 
-    private boolean isLocalExecutionResultSatisfiesThreshold(long locallyConsumedTokens) {
+    private boolean isLocalExecutionResultSatisfiesThreshold(LocalState localState, long locallyConsumedTokens) {
         // check math overflow
-        return locallyConsumedTokens != Long.MAX_VALUE && postponedToConsumeTokens + locallyConsumedTokens >= 0;
+        return locallyConsumedTokens != Long.MAX_VALUE && localState.postponedToConsumeTokens + locallyConsumedTokens >= 0;
     }
 
-    private <T> boolean isNeedToExecuteRemoteImmediately(RemoteCommand<T> command, long currentTimeNanos) {
-        if (state == null) {
+    private <T> boolean isNeedToExecuteRemoteImmediately(LocalState localState, RemoteCommand<T> command, long currentTimeNanos) {
+        if (localState.state == null) {
             // was never synchronized before
             return true;
         }
 
-        if (command.isImmediateSyncRequired(postponedToConsumeTokens, currentTimeNanos - lastSyncTimeNanos)) {
+        long postponedToConsumeTokens = localState.postponedToConsumeTokens;
+        if (command.isImmediateSyncRequired(postponedToConsumeTokens, currentTimeNanos - localState.lastSyncTimeNanos)) {
             // need to execute immediately because of special command
             return true;
         }
@@ -183,34 +268,99 @@ class ManuallySyncingCommandExecutor implements CommandExecutor, AsyncCommandExe
         return false;
     }
 
-    private <T> MultiCommand prepareRemoteCommand(RemoteCommand<T> command) {
+    private <T> MultiCommand prepareRemoteCommand(RemoteCommand<T> command, long postponedTokens) {
         List<RemoteCommand<?>> commands = new ArrayList<>(3);
-        commands.add(new ConsumeIgnoringRateLimitsCommand(this.postponedToConsumeTokens));
-        this.postponedToConsumeTokens = 0;
+        commands.add(new ConsumeIgnoringRateLimitsCommand(postponedTokens));
         commands.add(command);
         commands.add(new CreateSnapshotCommand());
         return new MultiCommand(commands);
     }
 
-    private void rememberRemoteCommandResult(CommandResult<MultiResult> remoteResult) {
-        localStateMutationLock.lock();
-        try {
-            lastSyncTimeNanos = timeMeter.currentTimeNanos();
-            CommandResult<?> snapshotResult = remoteResult.isError() ? remoteResult : remoteResult.getData().getResults().get(GET_SNAPSHOT_COMMAND_INDEX);
-            if (snapshotResult.isError()) {
-                state = null;
+    private long takePostponedTokens() {
+        while (true) {
+            LocalState localState = localStateReference.get();
+            if (localState.postponedToConsumeTokens == 0) {
+                return 0;
+            }
+            LocalState newLocalState = new LocalState(localState.state, localState.lastSyncTimeNanos, 0L);
+            if (localStateReference.compareAndSet(localState, newLocalState)) {
+                return localState.postponedToConsumeTokens;
+            }
+        }
+    }
+
+    private void returnPostponedTokens(long postponedTokens) {
+        if (postponedTokens == 0) {
+            return;
+        }
+        while (true) {
+            LocalState localState = localStateReference.get();
+            LocalState newLocalState = new LocalState(localState.state, localState.lastSyncTimeNanos,
+                localState.postponedToConsumeTokens + postponedTokens);
+            if (localStateReference.compareAndSet(localState, newLocalState)) {
                 return;
             }
-            this.state = (RemoteBucketState) snapshotResult.getData();
+        }
+    }
+
+    private List<CommandResult<?>> rememberRemoteCommandResults(MultiCommand combinedCommand, CommandResult<MultiResult> combinedResult) {
+        if (combinedResult.isError()) {
+            rememberRemoteCommandResult(null, combinedResult);
+            return Collections.nCopies(combinedCommand.getCommands().size(), combinedResult);
+        }
+        List<CommandResult<?>> results = combinedResult.getData().getResults();
+        // results are remembered in order of execution, so the freshest snapshot wins
+        for (int i = 0; i < results.size(); i++) {
+            rememberRemoteCommandResult((MultiCommand) combinedCommand.getCommands().get(i), (CommandResult<MultiResult>) results.get(i));
+        }
+        return results;
+    }
 
-            // decrease available tokens by amount that consumed while remote request was in progress
-            if (postponedToConsumeTokens > 0) {
-                this.state.consume(postponedToConsumeTokens);
+    private void rememberRemoteCommandResult(MultiCommand remoteCommand, CommandResult<MultiResult> multiResult) {
+        long lastSyncTimeNanos = timeMeter.currentTimeNanos();
+        CommandResult<?> snapshotResult = multiResult.isError() ? multiResult : multiResult.getData().getResults().get(GET_SNAPSHOT_COMMAND_INDEX);
+        RemoteBucketState snapshot = snapshotResult.isError() ? null : (RemoteBucketState) snapshotResult.getData();
+        if (snapshot != null) {
+            recordOverConsumption(remoteCommand, snapshot);
+        }
+        while (true) {
+            LocalState localState = localStateReference.get();
+            RemoteBucketState newState = snapshot;
+            if (snapshot != null && localState.postponedToConsumeTokens > 0) {
+                // decrease available tokens by amount that consumed locally while remote request was in progress
+                newState = snapshot.copy();
+                newState.consume(localState.postponedToConsumeTokens);
             }
-        } finally {
-            localStateMutationLock.unlock();
+            LocalState newLocalState = new LocalState(newState, lastSyncTimeNanos, localState.postponedToConsumeTokens);
+            if (localStateReference.compareAndSet(localState, newLocalState)) {
+                return;
+            }
+        }
+    }
+
+    private void recordOverConsumption(MultiCommand remoteCommand, RemoteBucketState snapshot) {
+        ConsumeIgnoringRateLimitsCommand flushCommand = (ConsumeIgnoringRateLimitsCommand) remoteCommand.getCommands().get(0);
+        long flushedTokens = flushCommand.getTokensToConsume();
+        long availableTokens = snapshot.getAvailableTokens();
+        if (flushedTokens > 0 && availableTokens < 0) {
+            // tokens that were consumed locally without synchronization made the balance negative
+            listener.recordOverConsumption(Math.min(flushedTokens, -availableTokens));
         }
     }
 
+    private static final class LocalState {
+
+        // null when bucket was never synchronized or last synchronization failed
+        private final RemoteBucketState state;
+        private final long lastSyncTimeNanos;
+        private final long postponedToConsumeTokens;
+
+        private LocalState(RemoteBucketState state, long lastSyncTimeNanos, long postponedToConsumeTokens) {
+            this.state = state;
+            this.lastSyncTimeNanos = lastSyncTimeNanos;
+            this.postponedToConsumeTokens = postponedToConsumeTokens;
+        }
+
+    }
 
 }
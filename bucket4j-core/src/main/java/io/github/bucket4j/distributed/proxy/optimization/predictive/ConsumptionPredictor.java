@@ -0,0 +1,73 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.proxy.optimization.predictive;
+
+/**
+ * Predicts the consumption rate of other nodes in the cluster on the basis of observations made during synchronizations with external storage.
+ *
+ * <p>
+ * Instances of this interface are stateful, each {@link PredictiveOptimization} creates new predictor per bucket.
+ * Implementations are not required to be thread-safe, because access to predictor is serialized by the optimization.
+ *
+ * @see Sampling
+ * @see EwmaConsumptionPredictor
+ */
+public interface ConsumptionPredictor {
+
+    /**
+     * Checks whether prediction can not be made and request should be propagated to external storage immediately.
+     *
+     * @param currentTimeNanos current time
+     *
+     * @return {@code true} if the prediction is not possible or too imprecise
+     */
+    boolean isNeedToExecuteRemoteImmediately(long currentTimeNanos);
+
+    /**
+     * Predicts how many tokens were consumed by other nodes since last synchronization.
+     *
+     * @param currentTimeNanos current time
+     *
+     * @return amount of tokens consumed by others since last synchronization, or {@link Long#MAX_VALUE} in case of overflow
+     */
+    long predictedConsumptionByOthersSinceLastSync(long currentTimeNanos);
+
+    /**
+     * Registers the observation made during synchronization with external storage.
+     *
+     * @param selfConsumedTokens tokens that were consumed by this node since previous synchronization
+     * @param consumedTokensCounter the value of consumption counter observed in external storage
+     * @param now time of synchronization
+     */
+    void rememberRemoteCommandResult(long selfConsumedTokens, long consumedTokensCounter, long now);
+
+    /**
+     * Returns the time of last synchronization with external storage.
+     *
+     * @return the time of last synchronization with external storage
+     */
+    long getLastSyncTimeNanos();
+
+    /**
+     * Forgets all observations.
+     */
+    void clear();
+
+}
@@ -0,0 +1,173 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.proxy.optimization.predictive;
+
+import io.github.bucket4j.distributed.proxy.optimization.EwmaPredictionParameters;
+
+/**
+ * Predicts the consumption rate of other nodes by exponentially weighted moving average of rates observed between synchronizations.
+ *
+ * <p>
+ * In opposite to {@link Sampling}, which takes into account only the oldest and the freshest samples from fixed window,
+ * this predictor weights each observation by its age with configured half-life, so reaction on bursts is smoother,
+ * and additionally tracks the variance of observed rate that is used to build confidence bounds.
+ * The width of confidence interval controls how long the bucket can act locally:
+ * synchronization is requested when estimated prediction error since last synchronization exceeds {@link EwmaPredictionParameters#maxPredictionErrorTokens},
+ * so the synchronization frequency grows when consumption of other nodes is unstable, and decreases when it is stable.
+ *
+ * @see EwmaPredictionParameters
+ */
+public class EwmaConsumptionPredictor implements ConsumptionPredictor {
+
+    private static final double LN_2 = Math.log(2.0);
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final EwmaPredictionParameters parameters;
+
+    private boolean hasBaseline;
+    private long lastSyncTimeNanos;
+    private long lastObservedConsumptionCounter;
+    private long selfConsumedSinceLastObservation;
+
+    private int observations;
+    private double rateMean;
+    private double rateVariance;
+
+    public EwmaConsumptionPredictor(EwmaPredictionParameters parameters) {
+        this.parameters = parameters;
+    }
+
+    @Override
+    public boolean isNeedToExecuteRemoteImmediately(long currentTimeNanos) {
+        if (!hasBaseline || observations < parameters.minObservations) {
+            return true;
+        }
+        long nanosSinceLastSync = currentTimeNanos - lastSyncTimeNanos;
+        if (nanosSinceLastSync > parameters.sampleMaxAgeNanos) {
+            return true;
+        }
+        double estimatedErrorTokens = parameters.confidence * Math.sqrt(rateVariance) * nanosSinceLastSync;
+        return estimatedErrorTokens > parameters.maxPredictionErrorTokens;
+    }
+
+    @Override
+    public long predictedConsumptionByOthersSinceLastSync(long currentTimeNanos) {
+        long timeSinceLastSync = currentTimeNanos - lastSyncTimeNanos;
+        if (timeSinceLastSync <= 0 || rateMean == 0.0) {
+            return 0L;
+        }
+
+        double predictedConsumptionSinceLastSync = rateMean * timeSinceLastSync;
+        if (predictedConsumptionSinceLastSync >= Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return (long) predictedConsumptionSinceLastSync;
+    }
+
+    @Override
+    public void rememberRemoteCommandResult(long selfConsumedTokens, long consumedTokensCounter, long now) {
+        if (!hasBaseline
+                || consumedTokensCounter < lastObservedConsumptionCounter
+                || now < lastSyncTimeNanos
+                || now - lastSyncTimeNanos > parameters.sampleMaxAgeNanos) {
+            // the history is absent or can not be trusted anymore
+            clear();
+            resetBaseline(consumedTokensCounter, now);
+            return;
+        }
+
+        selfConsumedSinceLastObservation += selfConsumedTokens;
+        long timeSinceLastObservation = now - lastSyncTimeNanos;
+        if (timeSinceLastObservation == 0) {
+            // cannot divide by zero, just accumulate self consumption until time moves forward
+            return;
+        }
+
+        long tokensConsumedByOthers = consumedTokensCounter - lastObservedConsumptionCounter - selfConsumedSinceLastObservation;
+        if (tokensConsumedByOthers < 0) {
+            tokensConsumedByOthers = 0;
+        }
+        double observedRate = (double) tokensConsumedByOthers / (double) timeSinceLastObservation;
+
+        if (observations == 0) {
+            rateMean = observedRate;
+            rateVariance = 0.0;
+        } else {
+            double alpha = 1.0 - Math.exp(-LN_2 * timeSinceLastObservation / parameters.halfLifeNanos);
+            double diff = observedRate - rateMean;
+            double increment = alpha * diff;
+            rateMean += increment;
+            rateVariance = (1.0 - alpha) * (rateVariance + diff * increment);
+        }
+        if (observations < Integer.MAX_VALUE) {
+            observations++;
+        }
+        resetBaseline(consumedTokensCounter, now);
+    }
+
+    @Override
+    public long getLastSyncTimeNanos() {
+        return lastSyncTimeNanos;
+    }
+
+    @Override
+    public void clear() {
+        hasBaseline = false;
+        observations = 0;
+        rateMean = 0.0;
+        rateVariance = 0.0;
+        selfConsumedSinceLastObservation = 0;
+    }
+
+    /**
+     * Returns the predicted consumption rate of other nodes.
+     *
+     * @return the predicted consumption rate of other nodes in tokens per second
+     */
+    public double getPredictedRatePerSecond() {
+        return rateMean * NANOS_PER_SECOND;
+    }
+
+    /**
+     * Returns the lower bound of confidence interval for consumption rate of other nodes.
+     *
+     * @return the lower bound of confidence interval in tokens per second
+     */
+    public double getRateLowerBoundPerSecond() {
+        return Math.max(0.0, rateMean - parameters.confidence * Math.sqrt(rateVariance)) * NANOS_PER_SECOND;
+    }
+
+    /**
+     * Returns the upper bound of confidence interval for consumption rate of other nodes.
+     *
+     * @return the upper bound of confidence interval in tokens per second
+     */
+    public double getRateUpperBoundPerSecond() {
+        return (rateMean + parameters.confidence * Math.sqrt(rateVariance)) * NANOS_PER_SECOND;
+    }
+
+    private void resetBaseline(long consumedTokensCounter, long now) {
+        hasBaseline = true;
+        lastSyncTimeNanos = now;
+        lastObservedConsumptionCounter = consumedTokensCounter;
+        selfConsumedSinceLastObservation = 0;
+    }
+
+}
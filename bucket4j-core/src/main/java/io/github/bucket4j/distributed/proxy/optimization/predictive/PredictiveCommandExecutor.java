@@ -28,7 +28,18 @@ import io.github.bucket4j.distributed.remote.commands.*;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe executor that serves requests from local copy of bucket with respect to predicted consumption of other nodes.
+ *
+ * <p>
+ * Because {@link ConsumptionPredictor} is stateful, the local decision is made under short {@code localStateMutationLock}
+ * that is never held during interaction with remote storage.
+ * Synchronizations with remote storage are serialized: by {@code remoteExecutionLock} for synchronous executor,
+ * and by chain of futures for asynchronous executor.
+ */
 class PredictiveCommandExecutor implements CommandExecutor, AsyncCommandExecutor {
 
     private static final int ORIGINAL_COMMAND_INDEX = 1;
@@ -39,29 +50,38 @@ class PredictiveCommandExecutor implements CommandExecutor, AsyncCommandExecutor
     private final DelayParameters delayParameters;
     private final OptimizationListener listener;
     private final TimeMeter timeMeter;
-    private final Sampling sampling;
+    private final ConsumptionPredictor sampling;
+
+    private final ReentrantLock localStateMutationLock = new ReentrantLock();
+    private final ReentrantLock remoteExecutionLock = new ReentrantLock();
+    private final AtomicReference<CompletableFuture<?>> lastSynchronizationFuture = new AtomicReference<>(CompletableFuture.completedFuture(null));
 
     private RemoteBucketState state;
     private long postponedToConsumeTokens;
+    // count of locally served requests which consumed postponedToConsumeTokens
+    private long postponedRequests;
+    // count of postponed requests that are flushed by synchronization in progress, synchronizations are serialized
+    private long flushingRequests;
     private long speculativelyConsumedByPredictionTokens;
+    private volatile long syncCount;
 
     PredictiveCommandExecutor(CommandExecutor originalExecutor, DelayParameters delayParameters,
-                              PredictionParameters predictionParameters, OptimizationListener listener,
+                              ConsumptionPredictor predictor, OptimizationListener listener,
                               TimeMeter timeMeter) {
         this.originalExecutor = originalExecutor;
         this.originalAsyncExecutor = null;
-        this.sampling = new Sampling(predictionParameters);
+        this.sampling = predictor;
         this.delayParameters = delayParameters;
         this.listener = listener;
         this.timeMeter = timeMeter;
     }
 
     PredictiveCommandExecutor(AsyncCommandExecutor originalAsyncExecutor, DelayParameters delayParameters,
-                              PredictionParameters predictionParameters, OptimizationListener listener,
+                              ConsumptionPredictor predictor, OptimizationListener listener,
                               TimeMeter timeMeter) {
         this.originalExecutor = null;
         this.originalAsyncExecutor = originalAsyncExecutor;
-        this.sampling = new Sampling(predictionParameters);
+        this.sampling = predictor;
         this.delayParameters = delayParameters;
         this.listener = listener;
         this.timeMeter = timeMeter;
@@ -69,6 +89,7 @@ class PredictiveCommandExecutor implements CommandExecutor, AsyncCommandExecutor
 
     @Override
     public <T> CommandResult<T> execute(RemoteCommand<T> command) {
+        long syncCountBeforeLocalAttempt = syncCount;
         CommandResult<T> result = tryConsumeLocally(command);
         if (result != null) {
             // remote call is not needed
@@ -76,17 +97,41 @@ class PredictiveCommandExecutor implements CommandExecutor, AsyncCommandExecutor
             return result;
         }
 
-        MultiCommand remoteCommand = prepareRemoteCommand(command);
-        CommandResult<MultiResult> remoteResult = originalExecutor.execute(remoteCommand);
-
-        rememberRemoteCommandResult(remoteCommand, remoteResult);
-        return remoteResult.isError() ?
-            (CommandResult<T>)remoteResult :
-            (CommandResult<T>) remoteResult.getData().getResults().get(ORIGINAL_COMMAND_INDEX);
+        remoteExecutionLock.lock();
+        try {
+            if (syncCount != syncCountBeforeLocalAttempt) {
+                // synchronization was performed while this thread waited for remote execution lock, so local copy can be fresh enough
+                result = tryConsumeLocally(command);
+                if (result != null) {
+                    listener.incrementSkipCount(1);
+                    return result;
+                }
+            }
+
+            MultiCommand remoteCommand = prepareRemoteCommand(command);
+            CommandResult<MultiResult> remoteResult;
+            listener.recordBatchSize(batchSize());
+            long startNanos = System.nanoTime();
+            try {
+                remoteResult = originalExecutor.execute(remoteCommand);
+            } catch (Throwable e) {
+                returnPostponedTokens(remoteCommand);
+                throw e;
+            } finally {
+                listener.recordSyncLatency(System.nanoTime() - startNanos);
+            }
+            rememberRemoteCommandResult(remoteCommand, remoteResult);
+            return remoteResult.isError() ?
+                (CommandResult<T>)remoteResult :
+                (CommandResult<T>) remoteResult.getData().getResults().get(ORIGINAL_COMMAND_INDEX);
+        } finally {
+            remoteExecutionLock.unlock();
+        }
     }
 
     @Override
     public <T> CompletableFuture<CommandResult<T>> executeAsync(RemoteCommand<T> command) {
+        long syncCountBeforeLocalAttempt = syncCount;
         CommandResult<T> result = tryConsumeLocally(command);
         if (result != null) {
             // remote call is not needed
@@ -94,61 +139,102 @@ class PredictiveCommandExecutor implements CommandExecutor, AsyncCommandExecutor
             return CompletableFuture.completedFuture(result);
         }
 
-        MultiCommand remoteCommand = prepareRemoteCommand(command);
-        CompletableFuture<CommandResult<MultiResult>> resultFuture = originalAsyncExecutor.executeAsync(remoteCommand);
-        return resultFuture.thenApply((CommandResult<MultiResult> remoteResult) -> {
-            rememberRemoteCommandResult(remoteCommand, remoteResult);
-            return remoteResult.isError()?
-                (CommandResult<T>) remoteResult :
-                (CommandResult<T>) remoteResult.getData().getResults().get(ORIGINAL_COMMAND_INDEX);
-        });
+        // the next synchronization starts only after completion of previous one
+        CompletableFuture<Void> synchronizationFuture = new CompletableFuture<>();
+        CompletableFuture<?> previousSynchronizationFuture = lastSynchronizationFuture.getAndSet(synchronizationFuture);
+        CompletableFuture<CommandResult<T>> resultFuture = previousSynchronizationFuture
+            .thenCompose(previous -> executeRemoteAsync(command, syncCountBeforeLocalAttempt));
+        resultFuture.whenComplete((remoteResult, error) -> synchronizationFuture.complete(null));
+        return resultFuture;
     }
 
-    private <T> CommandResult<T> tryConsumeLocally(RemoteCommand<T> command) {
-        long currentTimeNanos = timeMeter.currentTimeNanos();
-        if (isNeedToExecuteRemoteImmediately(command, currentTimeNanos)) {
-            return null;
-        }
-
-
-        long predictedConsumptionSinceLastSync = sampling.predictedConsumptionByOthersSinceLastSync(currentTimeNanos);
-        if (predictedConsumptionSinceLastSync == Long.MAX_VALUE) {
-            return null;
-        }
-
-        long predictedConsumptionByOthersSinceLastLocalCall = predictedConsumptionSinceLastSync - speculativelyConsumedByPredictionTokens;
-        if (predictedConsumptionByOthersSinceLastLocalCall < 0) {
-            predictedConsumptionByOthersSinceLastLocalCall = 0;
-        }
-
-        // prepare local command
-        ConsumeAsMuchAsPossibleCommand consumeByPredictionCommand = new ConsumeAsMuchAsPossibleCommand(predictedConsumptionByOthersSinceLastLocalCall);
-        List<RemoteCommand<?>> commands = Arrays.asList(consumeByPredictionCommand, command);
-        MultiCommand multiCommand = new MultiCommand(commands);
-
-        // execute local command
-        MutableBucketEntry entry = new MutableBucketEntry(state.copy());
-        MultiResult multiResult = multiCommand.execute(entry, currentTimeNanos).getData();
-        if (multiResult.getResults().get(1).isConfigurationNeedToBeReplaced()) {
-            return null;
-        }
-
-        if (multiCommand.getConsumedTokens(multiResult) == Long.MAX_VALUE) {
-            return null;
+    private <T> CompletableFuture<CommandResult<T>> executeRemoteAsync(RemoteCommand<T> command, long syncCountBeforeLocalAttempt) {
+        if (syncCount != syncCountBeforeLocalAttempt) {
+            // synchronization was performed while this request waited for previous synchronization, so local copy can be fresh enough
+            CommandResult<T> localResult = tryConsumeLocally(command);
+            if (localResult != null) {
+                listener.incrementSkipCount(1);
+                return CompletableFuture.completedFuture(localResult);
+            }
         }
 
-        long locallyConsumedTokens = command.getConsumedTokens((T) multiResult.getResults().get(ORIGINAL_COMMAND_INDEX).getData());
-        if (!isLocalExecutionResultSatisfiesThreshold(locallyConsumedTokens)) {
-            return null;
+        MultiCommand remoteCommand = prepareRemoteCommand(command);
+        CompletableFuture<CommandResult<MultiResult>> resultFuture;
+        listener.recordBatchSize(batchSize());
+        long startNanos = System.nanoTime();
+        try {
+            resultFuture = originalAsyncExecutor.executeAsync(remoteCommand);
+        } catch (Throwable e) {
+            returnPostponedTokens(remoteCommand);
+            throw e;
         }
+        return resultFuture
+            .whenComplete((remoteResult, error) -> {
+                listener.recordSyncLatency(System.nanoTime() - startNanos);
+                if (error != null) {
+                    returnPostponedTokens(remoteCommand);
+                }
+            })
+            .thenApply((CommandResult<MultiResult> remoteResult) -> {
+                rememberRemoteCommandResult(remoteCommand, remoteResult);
+                return remoteResult.isError()?
+                    (CommandResult<T>) remoteResult :
+                    (CommandResult<T>) remoteResult.getData().getResults().get(ORIGINAL_COMMAND_INDEX);
+            });
+    }
 
-        postponedToConsumeTokens += locallyConsumedTokens;
-        speculativelyConsumedByPredictionTokens += predictedConsumptionByOthersSinceLastLocalCall;
-        if (entry.isStateModified()) {
-            state = entry.get();
+    private <T> CommandResult<T> tryConsumeLocally(RemoteCommand<T> command) {
+        localStateMutationLock.lock();
+        try {
+            long currentTimeNanos = timeMeter.currentTimeNanos();
+            if (isNeedToExecuteRemoteImmediately(command, currentTimeNanos)) {
+                return null;
+            }
+
+            long predictedConsumptionSinceLastSync = sampling.predictedConsumptionByOthersSinceLastSync(currentTimeNanos);
+            if (predictedConsumptionSinceLastSync == Long.MAX_VALUE) {
+                return null;
+            }
+
+            long predictedConsumptionByOthersSinceLastLocalCall = predictedConsumptionSinceLastSync - speculativelyConsumedByPredictionTokens;
+            if (predictedConsumptionByOthersSinceLastLocalCall < 0) {
+                predictedConsumptionByOthersSinceLastLocalCall = 0;
+            }
+
+            // prepare local command
+            ConsumeAsMuchAsPossibleCommand consumeByPredictionCommand = new ConsumeAsMuchAsPossibleCommand(predictedConsumptionByOthersSinceLastLocalCall);
+            List<RemoteCommand<?>> commands = Arrays.asList(consumeByPredictionCommand, command);
+            MultiCommand multiCommand = new MultiCommand(commands);
+
+            // execute local command
+            MutableBucketEntry entry = new MutableBucketEntry(state.copy());
+            MultiResult multiResult = multiCommand.execute(entry, currentTimeNanos).getData();
+            if (multiResult.getResults().get(1).isConfigurationNeedToBeReplaced()) {
+                return null;
+            }
+
+            if (multiCommand.getConsumedTokens(multiResult) == Long.MAX_VALUE) {
+                return null;
+            }
+
+            long locallyConsumedTokens = command.getConsumedTokens((T) multiResult.getResults().get(ORIGINAL_COMMAND_INDEX).getData());
+            if (!isLocalExecutionResultSatisfiesThreshold(locallyConsumedTokens)) {
+                return null;
+            }
+
+            postponedToConsumeTokens += locallyConsumedTokens;
+            if (locallyConsumedTokens > 0) {
+                postponedRequests++;
+            }
+            speculativelyConsumedByPredictionTokens += predictedConsumptionByOthersSinceLastLocalCall;
+            if (entry.isStateModified()) {
+                state = entry.get();
+            }
+
+            return (CommandResult<T>) multiResult.getResults().get(ORIGINAL_COMMAND_INDEX);
+        } finally {
+            localStateMutationLock.unlock();
         }
-
-        return (CommandResult<T>) multiResult.getResults().get(ORIGINAL_COMMAND_INDEX);
     }
 
     private boolean isLocalExecutionResultSatisfiesThreshold(long locallyConsumedTokens) {
@@ -160,6 +246,11 @@ class PredictiveCommandExecutor implements CommandExecutor, AsyncCommandExecutor
     }
 
     private <T> boolean isNeedToExecuteRemoteImmediately(RemoteCommand<T> command, long currentTimeNanos) {
+        if (state == null) {
+            // was never synchronized before or last synchronization failed
+            return true;
+        }
+
         if (sampling.isNeedToExecuteRemoteImmediately(currentTimeNanos)) {
             return true;
         }
@@ -186,26 +277,70 @@ class PredictiveCommandExecutor implements CommandExecutor, AsyncCommandExecutor
 
     private <T> MultiCommand prepareRemoteCommand(RemoteCommand<T> command) {
         List<RemoteCommand<?>> commands = new ArrayList<>(3);
-        commands.add(new ConsumeIgnoringRateLimitsCommand(this.postponedToConsumeTokens));
+        localStateMutationLock.lock();
+        try {
+            commands.add(new ConsumeIgnoringRateLimitsCommand(this.postponedToConsumeTokens));
+            this.postponedToConsumeTokens = 0;
+            this.flushingRequests = this.postponedRequests;
+            this.postponedRequests = 0;
+        } finally {
+            localStateMutationLock.unlock();
+        }
         commands.add(command);
         commands.add(new CreateSnapshotCommand());
         return new MultiCommand(commands);
     }
 
+    private int batchSize() {
+        // requests served locally since previous synchronization are propagated together with the request that initiated synchronization
+        return (int) Math.min(Integer.MAX_VALUE, flushingRequests + 1);
+    }
+
+    private void returnPostponedTokens(MultiCommand remoteCommand) {
+        ConsumeIgnoringRateLimitsCommand flushCommand = (ConsumeIgnoringRateLimitsCommand) remoteCommand.getCommands().get(0);
+        localStateMutationLock.lock();
+        try {
+            postponedToConsumeTokens += flushCommand.getTokensToConsume();
+            postponedRequests += flushingRequests;
+        } finally {
+            localStateMutationLock.unlock();
+        }
+    }
+
     private void rememberRemoteCommandResult(MultiCommand multiCommand, CommandResult<MultiResult> commandResult) {
-        postponedToConsumeTokens = 0;
-        speculativelyConsumedByPredictionTokens = 0;
-        CommandResult<?> snapshotResult = commandResult.isError() ? commandResult : commandResult.getData().getResults().get(GET_SNAPSHOT_COMMAND_INDEX);
-        if (snapshotResult.isError()) {
-            state = null;
-            sampling.clear();
-            return;
-        }
-        state = (RemoteBucketState) snapshotResult.getData();
-        long now = timeMeter.currentTimeNanos();
-        long consumedTokens = multiCommand.getConsumedTokens(commandResult.getData());
-        sampling.rememberRemoteCommandResult(consumedTokens, state.getRemoteStat().getConsumedTokens(), now);
+        localStateMutationLock.lock();
+        try {
+            syncCount++;
+            speculativelyConsumedByPredictionTokens = 0;
+            CommandResult<?> snapshotResult = commandResult.isError() ? commandResult : commandResult.getData().getResults().get(GET_SNAPSHOT_COMMAND_INDEX);
+            if (snapshotResult.isError()) {
+                state = null;
+                sampling.clear();
+                return;
+            }
+            state = (RemoteBucketState) snapshotResult.getData();
+            recordOverConsumption(multiCommand, state);
+            long now = timeMeter.currentTimeNanos();
+            long consumedTokens = multiCommand.getConsumedTokens(commandResult.getData());
+            sampling.rememberRemoteCommandResult(consumedTokens, state.getRemoteStat().getConsumedTokens(), now);
+
+            // decrease available tokens by amount that consumed locally while remote request was in progress
+            if (postponedToConsumeTokens > 0) {
+                state.consume(postponedToConsumeTokens);
+            }
+        } finally {
+            localStateMutationLock.unlock();
+        }
     }
 
+    private void recordOverConsumption(MultiCommand remoteCommand, RemoteBucketState snapshot) {
+        ConsumeIgnoringRateLimitsCommand flushCommand = (ConsumeIgnoringRateLimitsCommand) remoteCommand.getCommands().get(0);
+        long flushedTokens = flushCommand.getTokensToConsume();
+        long availableTokens = snapshot.getAvailableTokens();
+        if (flushedTokens > 0 && availableTokens < 0) {
+            // tokens that were consumed locally without synchronization made the balance negative
+            listener.recordOverConsumption(Math.min(flushedTokens, -availableTokens));
+        }
+    }
 
 }
@@ -27,51 +27,66 @@ import io.github.bucket4j.distributed.proxy.optimization.Optimization;
 import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
 import io.github.bucket4j.distributed.proxy.optimization.OptimizationListener;
 import io.github.bucket4j.distributed.proxy.optimization.PredictionParameters;
-import io.github.bucket4j.distributed.proxy.optimization.batch.AsyncBatchingExecutor;
-import io.github.bucket4j.distributed.proxy.optimization.batch.BatchingExecutor;
-import io.github.bucket4j.distributed.proxy.optimization.batch.BatchingOptimization;
 import io.github.bucket4j.distributed.proxy.optimization.delay.DelayOptimization;
 
+import java.util.function.Supplier;
+
 /**
  * Optimization that can serve requests locally without synchronization with external storage until thresholds are not violated.
- * This optimization is based on top of {@link BatchingOptimization} and {@link DelayOptimization},
+ * This optimization is based on top of {@link DelayOptimization},
  * and in additionally this optimization tries to predict aggregated consumption rate in whole cluster in order to reduce the risk of overconsumption that caused by {@link DelayOptimization}.
  *
  * <p>Usage of this optimization can lead to temporal over-consumption because the synchronization with external storage is performed periodically when thresholds are violated,
  * as well as under-consumption in case of the wrong prediction of aggregated consumption rate.
  *
+ * <p>Executors created by this optimization are thread-safe, requests that can be served locally are not queued behind each other,
+ * only synchronizations with external storage are serialized.
+ *
+ * <p>The way of prediction is pluggable via {@link ConsumptionPredictor}, by default {@link Sampling} is used.
+ *
  * @see DelayParameters
  * @see PredictionParameters
+ * @see ConsumptionPredictor
  */
 public class PredictiveOptimization implements Optimization {
 
     private final DelayParameters delayParameters;
-    private final PredictionParameters predictionParameters;
+    private final Supplier<ConsumptionPredictor> predictorFactory;
     private final OptimizationListener listener;
     private final TimeMeter timeMeter;
 
     public PredictiveOptimization(PredictionParameters predictionParameters, DelayParameters delayParameters, OptimizationListener listener, TimeMeter timeMeter) {
+        this(() -> new Sampling(predictionParameters), delayParameters, listener, timeMeter);
+    }
+
+    /**
+     * Creates predictive optimization with custom way of prediction.
+     *
+     * @param predictorFactory the factory of predictors, it is invoked once per each bucket because predictors are stateful
+     * @param delayParameters thresholds that control whether request can be served locally without synchronization with external storage
+     * @param listener the listener for optimization events
+     * @param timeMeter the clock
+     */
+    public PredictiveOptimization(Supplier<ConsumptionPredictor> predictorFactory, DelayParameters delayParameters, OptimizationListener listener, TimeMeter timeMeter) {
         this.delayParameters = delayParameters;
-        this.predictionParameters = predictionParameters;
+        this.predictorFactory = predictorFactory;
         this.listener = listener;
         this.timeMeter = timeMeter;
     }
 
     @Override
     public Optimization withListener(OptimizationListener listener) {
-        return new PredictiveOptimization(predictionParameters, delayParameters, listener, timeMeter);
+        return new PredictiveOptimization(predictorFactory, delayParameters, listener, timeMeter);
     }
 
     @Override
     public CommandExecutor apply(CommandExecutor originalExecutor) {
-        PredictiveCommandExecutor predictiveCommandExecutor = new PredictiveCommandExecutor(originalExecutor, delayParameters, predictionParameters, listener, timeMeter);
-        return new BatchingExecutor(predictiveCommandExecutor, listener);
+        return new PredictiveCommandExecutor(originalExecutor, delayParameters, predictorFactory.get(), listener, timeMeter);
     }
 
     @Override
     public AsyncCommandExecutor apply(AsyncCommandExecutor originalExecutor) {
-        PredictiveCommandExecutor predictiveCommandExecutor = new PredictiveCommandExecutor(originalExecutor, delayParameters, predictionParameters, listener, timeMeter);
-        return new AsyncBatchingExecutor(predictiveCommandExecutor, listener);
+        return new PredictiveCommandExecutor(originalExecutor, delayParameters, predictorFactory.get(), listener, timeMeter);
     }
 
 }
@@ -24,7 +24,12 @@ import io.github.bucket4j.distributed.proxy.optimization.PredictionParameters;
 import java.util.Iterator;
 import java.util.LinkedList;
 
-public class Sampling {
+/**
+ * Predicts the consumption rate of other nodes by comparison of the oldest and the freshest samples from fixed window of synchronizations.
+ *
+ * @see PredictionParameters
+ */
+public class Sampling implements ConsumptionPredictor {
 
     private final PredictionParameters predictionParameters;
 
@@ -35,6 +40,7 @@ public class Sampling {
         this.predictionParameters = predictionParameters;
     }
 
+    @Override
     public boolean isNeedToExecuteRemoteImmediately(long currentTimeNanos) {
         while (!samples.isEmpty()) {
             Sample sample = samples.getFirst();
@@ -48,6 +54,7 @@ public class Sampling {
         return othersRate == Double.POSITIVE_INFINITY || samples.size() < predictionParameters.minSamples;
     }
 
+    @Override
     public long predictedConsumptionByOthersSinceLastSync(long currentTimeNanos) {
         Sample freshSample = samples.getLast();
         long timeSinceLastSync = currentTimeNanos - freshSample.syncTimeNanos;
@@ -62,6 +69,7 @@ public class Sampling {
         return (long) predictedConsumptionSinceLastSync;
     }
 
+    @Override
     public void rememberRemoteCommandResult(long selfConsumedTokens, long consumedTokensCounter, long now) {
         othersRate = 0.0;
         Sample freshSample = new Sample(now, consumedTokensCounter, selfConsumedTokens);
@@ -115,10 +123,12 @@ public class Sampling {
         this.othersRate = (double) tokensConsumedByOthersDuringSamplingPeriod / (double) timeBetweenSynchronizations;
     }
 
+    @Override
     public long getLastSyncTimeNanos() {
         return samples.getLast().syncTimeNanos;
     }
 
+    @Override
     public void clear() {
         samples.clear();
     }
@@ -20,8 +20,11 @@
 package io.github.bucket4j.distributed.proxy.optimization.skiponzero;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 import io.github.bucket4j.TimeMeter;
 import io.github.bucket4j.distributed.proxy.AsyncCommandExecutor;
@@ -34,33 +37,97 @@ import io.github.bucket4j.distributed.remote.RemoteBucketState;
 import io.github.bucket4j.distributed.remote.RemoteCommand;
 import io.github.bucket4j.distributed.remote.commands.CreateSnapshotCommand;
 import io.github.bucket4j.distributed.remote.commands.MultiCommand;
+import io.github.bucket4j.util.concurrent.batch.AsyncBatchHelper;
+import io.github.bucket4j.util.concurrent.batch.BatchHelper;
 
+/**
+ * Thread-safe executor that answers locally when the last known state of bucket says that there are no tokens.
+ *
+ * <p>
+ * The local decision is made before request is enqueued, so requests that can be answered locally never wait for requests that are in progress.
+ * Requests that need to be propagated to remote storage are grouped via {@link BatchHelper} or {@link AsyncBatchHelper},
+ * the async path never blocks the calling thread.
+ */
 class SkipSyncOnZeroCommandExecutor implements CommandExecutor, AsyncCommandExecutor {
 
     private static final int ORIGINAL_COMMAND_INDEX = 0;
     private static final int GET_SNAPSHOT_COMMAND_INDEX = 1;
 
-    private final CommandExecutor originalExecutor;
-    private final AsyncCommandExecutor originalAsyncExecutor;
+    private static final LocalState NOT_SYNCHRONIZED = new LocalState(null, 0L);
+
+    private final BatchHelper<RemoteCommand<?>, CommandResult<?>, MultiCommand, List<CommandResult<?>>> remoteBatchHelper;
+    private final AsyncBatchHelper<RemoteCommand<?>, CommandResult<?>, MultiCommand, List<CommandResult<?>>> asyncRemoteBatchHelper;
     private final OptimizationListener listener;
     private final TimeMeter timeMeter;
 
-    private RemoteBucketState state;
-
-    private long lastSyncTimeNanos;
+    private volatile LocalState localState = NOT_SYNCHRONIZED;
 
     SkipSyncOnZeroCommandExecutor(CommandExecutor originalExecutor, OptimizationListener listener, TimeMeter timeMeter) {
-        this.originalExecutor = originalExecutor;
-        this.originalAsyncExecutor = null;
         this.listener = listener;
         this.timeMeter = timeMeter;
+        this.asyncRemoteBatchHelper = null;
+
+        Function<RemoteCommand<?>, CommandResult<?>> taskExecutor = new Function<>() {
+            @Override
+            public CommandResult<?> apply(RemoteCommand<?> remoteCommand) {
+                listener.recordBatchSize(1);
+                long startNanos = System.nanoTime();
+                CommandResult<MultiResult> remoteResult;
+                try {
+                    remoteResult = (CommandResult<MultiResult>) originalExecutor.execute(remoteCommand);
+                } finally {
+                    listener.recordSyncLatency(System.nanoTime() - startNanos);
+                }
+                rememberRemoteCommandResult(remoteResult);
+                return remoteResult;
+            }
+        };
+        Function<MultiCommand, List<CommandResult<?>>> combinedTaskExecutor = new Function<>() {
+            @Override
+            public List<CommandResult<?>> apply(MultiCommand multiCommand) {
+                long startNanos = System.nanoTime();
+                CommandResult<MultiResult> combinedResult;
+                try {
+                    combinedResult = originalExecutor.execute(multiCommand);
+                } finally {
+                    listener.recordSyncLatency(System.nanoTime() - startNanos);
+                }
+                return rememberRemoteCommandResults(multiCommand, combinedResult);
+            }
+        };
+        this.remoteBatchHelper = BatchHelper.create(taskCombiner(), combinedTaskExecutor, taskExecutor, combinedResultSplitter(), listener::recordQueueDepth);
     }
 
     SkipSyncOnZeroCommandExecutor(AsyncCommandExecutor originalAsyncExecutor, OptimizationListener listener, TimeMeter timeMeter) {
-        this.originalExecutor = null;
-        this.originalAsyncExecutor = originalAsyncExecutor;
         this.listener = listener;
         this.timeMeter = timeMeter;
+        this.remoteBatchHelper = null;
+
+        Function<RemoteCommand<?>, CompletableFuture<CommandResult<?>>> taskExecutor = new Function<>() {
+            @Override
+            public CompletableFuture<CommandResult<?>> apply(RemoteCommand<?> remoteCommand) {
+                listener.recordBatchSize(1);
+                long startNanos = System.nanoTime();
+                CompletableFuture<CommandResult<MultiResult>> resultFuture = originalAsyncExecutor.executeAsync((RemoteCommand<MultiResult>) remoteCommand);
+                return resultFuture.thenApply((CommandResult<MultiResult> remoteResult) -> {
+                    listener.recordSyncLatency(System.nanoTime() - startNanos);
+                    rememberRemoteCommandResult(remoteResult);
+                    return remoteResult;
+                });
+            }
+        };
+        Function<MultiCommand, CompletableFuture<List<CommandResult<?>>>> combinedTaskExecutor = new Function<>() {
+            @Override
+            public CompletableFuture<List<CommandResult<?>>> apply(MultiCommand multiCommand) {
+                long startNanos = System.nanoTime();
+                return originalAsyncExecutor.executeAsync(multiCommand)
+                    .thenApply((CommandResult<MultiResult> combinedResult) -> {
+                        listener.recordSyncLatency(System.nanoTime() - startNanos);
+                        return rememberRemoteCommandResults(multiCommand, combinedResult);
+                    });
+            }
+        };
+        this.asyncRemoteBatchHelper = AsyncBatchHelper.create(taskCombiner(), combinedTaskExecutor, taskExecutor, combinedResultSplitter(), listener::recordQueueDepth);
     }
 
     @Override
@@ -73,8 +140,7 @@ class SkipSyncOnZeroCommandExecutor implements CommandExecutor, AsyncCommandExec
         }
 
         MultiCommand remoteCommand = prepareRemoteCommand(command);
-        CommandResult<MultiResult> remoteResult = originalExecutor.execute(remoteCommand);
-        rememberRemoteCommandResult(remoteResult);
+        CommandResult<MultiResult> remoteResult = (CommandResult<MultiResult>) remoteBatchHelper.execute(remoteCommand);
         return remoteResult.isError() ?
             (CommandResult<T>) remoteResult :
             (CommandResult<T>) remoteResult.getData().getResults().get(ORIGINAL_COMMAND_INDEX);
@@ -90,25 +156,49 @@ class SkipSyncOnZeroCommandExecutor implements CommandExecutor, AsyncCommandExec
         }
 
         MultiCommand remoteCommand = prepareRemoteCommand(command);
-        CompletableFuture<CommandResult<MultiResult>> resultFuture = originalAsyncExecutor.executeAsync(remoteCommand);
-        return resultFuture.thenApply((CommandResult<MultiResult> remoteResult) -> {
-            rememberRemoteCommandResult(remoteResult);
+        CompletableFuture<CommandResult<?>> resultFuture = asyncRemoteBatchHelper.executeAsync(remoteCommand);
+        return resultFuture.thenApply((CommandResult<?> batchedResult) -> {
+            CommandResult<MultiResult> remoteResult = (CommandResult<MultiResult>) batchedResult;
             return remoteResult.isError() ?
                 (CommandResult<T>) remoteResult :
                 (CommandResult<T>) remoteResult.getData().getResults().get(ORIGINAL_COMMAND_INDEX);
         });
     }
 
+    private Function<List<RemoteCommand<?>>, MultiCommand> taskCombiner() {
+        return new Function<>() {
+            @Override
+            public MultiCommand apply(List<RemoteCommand<?>> commands) {
+                if (commands.size() > 1) {
+                    listener.incrementMergeCount(commands.size() - 1);
+                }
+                listener.recordBatchSize(commands.size());
+                // commands are never merged, because each of them is already MultiCommand
+                return new MultiCommand(commands);
+            }
+        };
+    }
+
+    private static BiFunction<MultiCommand, List<CommandResult<?>>, List<CommandResult<?>>> combinedResultSplitter() {
+        return new BiFunction<>() {
+            @Override
+            public List<CommandResult<?>> apply(MultiCommand multiCommand, List<CommandResult<?>> results) {
+                return results;
+            }
+        };
+    }
+
     private <T> CommandResult<T> tryExecuteLocally(RemoteCommand<T> command) {
         long currentTimeNanos = timeMeter.currentTimeNanos();
+        LocalState localState = this.localState;
 
         long commandConsumeTokens = command.estimateTokensToConsume();
-        if (isNeedToExecuteRemoteImmediately(command, commandConsumeTokens, currentTimeNanos)) {
+        if (isNeedToExecuteRemoteImmediately(localState, command, commandConsumeTokens, currentTimeNanos)) {
             return null;
         }
 
         // execute local command
-        MutableBucketEntry entry = new MutableBucketEntry(state.copy());
+        MutableBucketEntry entry = new MutableBucketEntry(localState.state.copy());
         CommandResult<T> result = command.execute(entry, currentTimeNanos);
         if (result.isConfigurationNeedToBeReplaced()) {
             return null;
@@ -121,9 +211,6 @@ class SkipSyncOnZeroCommandExecutor implements CommandExecutor, AsyncCommandExec
             return null;
         }
 
-        if (entry.isStateModified()) {
-            state = entry.get();
-        }
         if (locallyConsumedTokens > 0) {
             // something can be consumed, it needs to execute request on server
             return null;
@@ -136,8 +223,8 @@ class SkipSyncOnZeroCommandExecutor implements CommandExecutor, AsyncCommandExec
         return locallyConsumedTokens != Long.MAX_VALUE && locallyConsumedTokens >= 0;
     }
 
-    private <T> boolean isNeedToExecuteRemoteImmediately(RemoteCommand<T> command, long commandConsumeTokens, long currentTimeNanos) {
-        if (state == null) {
+    private <T> boolean isNeedToExecuteRemoteImmediately(LocalState localState, RemoteCommand<T> command, long commandConsumeTokens, long currentTimeNanos) {
+        if (localState.state == null) {
             // was never synchronized before
             return true;
         }
@@ -147,7 +234,7 @@ class SkipSyncOnZeroCommandExecutor implements CommandExecutor, AsyncCommandExec
             return true;
         }
 
-        if (command.isImmediateSyncRequired(0, currentTimeNanos - lastSyncTimeNanos)) {
+        if (command.isImmediateSyncRequired(0, currentTimeNanos - localState.lastSyncTimeNanos)) {
             // need to execute immediately because of special command
             return true;
         }
@@ -161,21 +248,46 @@ class SkipSyncOnZeroCommandExecutor implements CommandExecutor, AsyncCommandExec
     }
 
     private <T> MultiCommand prepareRemoteCommand(RemoteCommand<T> command) {
-        List<RemoteCommand<?>> commands = new ArrayList<>(3);
+        List<RemoteCommand<?>> commands = new ArrayList<>(2);
         commands.add(command);
         commands.add(new CreateSnapshotCommand());
         return new MultiCommand(commands);
     }
 
+    private List<CommandResult<?>> rememberRemoteCommandResults(MultiCommand combinedCommand, CommandResult<MultiResult> combinedResult) {
+        if (combinedResult.isError()) {
+            rememberRemoteCommandResult(combinedResult);
+            return Collections.nCopies(combinedCommand.getCommands().size(), combinedResult);
+        }
+        List<CommandResult<?>> results = combinedResult.getData().getResults();
+        // results are remembered in order of execution, so the freshest snapshot wins
+        for (CommandResult<?> result : results) {
+            rememberRemoteCommandResult((CommandResult<MultiResult>) result);
+        }
+        return results;
+    }
+
     private void rememberRemoteCommandResult(CommandResult<MultiResult> remoteResult) {
-        lastSyncTimeNanos = timeMeter.currentTimeNanos();
+        long lastSyncTimeNanos = timeMeter.currentTimeNanos();
         CommandResult<?> snapshotResult = remoteResult.isError() ? remoteResult : remoteResult.getData().getResults().get(GET_SNAPSHOT_COMMAND_INDEX);
         if (snapshotResult.isError()) {
-            state = null;
+            localState = new LocalState(null, lastSyncTimeNanos);
             return;
         }
-        this.state = (RemoteBucketState) snapshotResult.getData();
+        localState = new LocalState((RemoteBucketState) snapshotResult.getData(), lastSyncTimeNanos);
     }
 
+    private static final class LocalState {
+
+        // null when bucket was never synchronized or last synchronization failed
+        private final RemoteBucketState state;
+        private final long lastSyncTimeNanos;
+
+        private LocalState(RemoteBucketState state, long lastSyncTimeNanos) {
+            this.state = state;
+            this.lastSyncTimeNanos = lastSyncTimeNanos;
+        }
+
+    }
 
 }
@@ -27,14 +27,14 @@ import io.github.bucket4j.distributed.proxy.CommandExecutor;
 import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
 import io.github.bucket4j.distributed.proxy.optimization.Optimization;
 import io.github.bucket4j.distributed.proxy.optimization.OptimizationListener;
-import io.github.bucket4j.distributed.proxy.optimization.batch.AsyncBatchingExecutor;
-import io.github.bucket4j.distributed.proxy.optimization.batch.BatchingExecutor;
-import io.github.bucket4j.distributed.proxy.optimization.batch.BatchingOptimization;
+import io.github.bucket4j.util.concurrent.batch.AsyncBatchHelper;
+import io.github.bucket4j.util.concurrent.batch.BatchHelper;
 
 /**
  * Optimization that can serve requests locally without synchronization with external storage when it detects that there is no tokens in remote storage,
  * in such case synchronization with storage is being postponed to proposed refill of first token.
- * This optimization is based on top of {@link BatchingOptimization}, so multiple parallel request to same bucket are grouped.
+ * Requests that can be answered locally are never queued, requests that need to be propagated to external storage are grouped
+ * via {@link BatchHelper} or {@link AsyncBatchHelper}, so asynchronous executor never blocks the calling thread.
  *
  * <p>Usage of this optimization can lead to temporal under-consumption in case of tokens are being added to bucket via API like {@link Bucket#addTokens(long)} or {@link Bucket#reset()}.
  *
@@ -57,14 +57,12 @@ public class SkipSyncOnZeroOptimization implements Optimization {
 
     @Override
     public CommandExecutor apply(CommandExecutor originalExecutor) {
-        SkipSyncOnZeroCommandExecutor predictiveCommandExecutor = new SkipSyncOnZeroCommandExecutor(originalExecutor, listener, timeMeter);
-        return new BatchingExecutor(predictiveCommandExecutor, listener);
+        return new SkipSyncOnZeroCommandExecutor(originalExecutor, listener, timeMeter);
     }
 
     @Override
     public AsyncCommandExecutor apply(AsyncCommandExecutor originalExecutor) {
-        SkipSyncOnZeroCommandExecutor predictiveCommandExecutor = new SkipSyncOnZeroCommandExecutor(originalExecutor, listener, timeMeter);
-        return new AsyncBatchingExecutor(predictiveCommandExecutor, listener);
+        return new SkipSyncOnZeroCommandExecutor(originalExecutor, listener, timeMeter);
     }
 
 }
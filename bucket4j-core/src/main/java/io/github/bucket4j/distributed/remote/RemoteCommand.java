@@ -59,6 +59,15 @@ public interface RemoteCommand<T> {
         return false;
     }
 
+    /**
+     * Returns true if command never modifies the bucket state, such commands can be served from local copy of state.
+     *
+     * @return true if command never modifies the bucket state
+     */
+    default boolean isReadOnly() {
+        return false;
+    }
+
     default boolean canBeMerged(RemoteCommand<?> another) {
         return false;
     }
@@ -165,6 +165,11 @@ public class CheckConfigurationVersionAndExecuteCommand<T> implements RemoteComm
         return ComparableByContent.equals(targetCommand, other.targetCommand);
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return targetCommand.isReadOnly();
+    }
+
     @Override
     public boolean isImmediateSyncRequired(long unsynchronizedTokens, long nanosSinceLastSync) {
         return targetCommand.isImmediateSyncRequired(unsynchronizedTokens, nanosSinceLastSync);
@@ -110,6 +110,11 @@ public class GetConfigurationCommand implements RemoteCommand<BucketConfiguratio
         return true;
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Override
     public boolean isImmediateSyncRequired(long unsynchronizedTokens, long nanosSinceLastSync) {
         return false;
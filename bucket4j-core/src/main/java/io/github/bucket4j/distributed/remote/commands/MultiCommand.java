@@ -238,6 +238,16 @@ public class MultiCommand implements RemoteCommand<MultiResult>, ComparableByCon
         return true;
     }
 
+    @Override
+    public boolean isReadOnly() {
+        for (RemoteCommand<?> command : commands) {
+            if (!command.isReadOnly()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public boolean isImmediateSyncRequired(long unsynchronizedTokens, long nanosSinceLastSync) {
         for (RemoteCommand<?> command : commands) {
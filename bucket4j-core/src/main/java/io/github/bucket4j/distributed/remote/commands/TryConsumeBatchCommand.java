@@ -0,0 +1,160 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.remote.commands;
+
+import io.github.bucket4j.BatchConsumptionProbe;
+import io.github.bucket4j.distributed.serialization.DeserializationAdapter;
+import io.github.bucket4j.distributed.serialization.Scope;
+import io.github.bucket4j.distributed.serialization.SerializationAdapter;
+import io.github.bucket4j.distributed.serialization.SerializationHandle;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.MutableBucketEntry;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import io.github.bucket4j.distributed.remote.RemoteCommand;
+import io.github.bucket4j.distributed.versioning.Version;
+import io.github.bucket4j.distributed.versioning.Versions;
+import io.github.bucket4j.util.ComparableByContent;
+
+import static io.github.bucket4j.distributed.versioning.Versions.v_8_15_0;
+
+
+public class TryConsumeBatchCommand implements RemoteCommand<BatchConsumptionProbe>, ComparableByContent<TryConsumeBatchCommand> {
+
+    private final long[] itemCosts;
+
+    public static final SerializationHandle<TryConsumeBatchCommand> SERIALIZATION_HANDLE = new SerializationHandle<>() {
+        @Override
+        public <S> TryConsumeBatchCommand deserialize(DeserializationAdapter<S> adapter, S input) throws IOException {
+            int formatNumber = adapter.readInt(input);
+            Versions.check(formatNumber, v_8_15_0, v_8_15_0);
+
+            long[] itemCosts = adapter.readLongArray(input);
+
+            return new TryConsumeBatchCommand(itemCosts);
+        }
+
+        @Override
+        public <O> void serialize(SerializationAdapter<O> adapter, O output, TryConsumeBatchCommand command, Version backwardCompatibilityVersion, Scope scope) throws IOException {
+            adapter.writeInt(output, v_8_15_0.getNumber());
+
+            adapter.writeLongArray(output, command.itemCosts);
+        }
+
+        @Override
+        public int getTypeId() {
+            return 43;
+        }
+
+        @Override
+        public Class<TryConsumeBatchCommand> getSerializedType() {
+            return TryConsumeBatchCommand.class;
+        }
+
+        @Override
+        public TryConsumeBatchCommand fromJsonCompatibleSnapshot(Map<String, Object> snapshot) {
+            int formatNumber = readIntValue(snapshot, "version");
+            Versions.check(formatNumber, v_8_15_0, v_8_15_0);
+
+            long[] itemCosts = readLongArray(snapshot, "itemCosts");
+            return new TryConsumeBatchCommand(itemCosts);
+        }
+
+        @Override
+        public Map<String, Object> toJsonCompatibleSnapshot(TryConsumeBatchCommand command, Version backwardCompatibilityVersion, Scope scope) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("version", v_8_15_0.getNumber());
+            result.put("itemCosts", command.itemCosts);
+            return result;
+        }
+
+        @Override
+        public String getTypeName() {
+            return "TryConsumeBatchCommand";
+        }
+
+    };
+
+    public TryConsumeBatchCommand(long[] itemCosts) {
+        this.itemCosts = itemCosts;
+    }
+
+    @Override
+    public CommandResult<BatchConsumptionProbe> execute(MutableBucketEntry mutableEntry, long currentTimeNanos) {
+        if (!mutableEntry.exists()) {
+            return CommandResult.bucketNotFound();
+        }
+
+        RemoteBucketState state = mutableEntry.get();
+        BatchConsumptionProbe probe = BatchConsumptionProbe.consumePrefix(state.getState(), itemCosts, currentTimeNanos);
+        if (probe.getConsumedTokens() > 0) {
+            state.getRemoteStat().addConsumedTokens(probe.getConsumedTokens());
+            mutableEntry.set(state);
+        }
+        return CommandResult.success(probe, BatchConsumptionProbe.SERIALIZATION_HANDLE);
+    }
+
+    public long[] getItemCosts() {
+        return itemCosts;
+    }
+
+    @Override
+    public SerializationHandle getSerializationHandle() {
+        return SERIALIZATION_HANDLE;
+    }
+
+    @Override
+    public boolean equalsByContent(TryConsumeBatchCommand other) {
+        return Arrays.equals(itemCosts, other.itemCosts);
+    }
+
+    @Override
+    public boolean isImmediateSyncRequired(long unsynchronizedTokens, long nanosSinceLastSync) {
+        return false;
+    }
+
+    @Override
+    public long estimateTokensToConsume() {
+        long tokens = 0;
+        for (long itemCost : itemCosts) {
+            tokens += itemCost;
+            if (tokens < 0) {
+                return Long.MAX_VALUE;
+            }
+        }
+        return tokens;
+    }
+
+    @Override
+    public long getConsumedTokens(BatchConsumptionProbe result) {
+        return result.getConsumedTokens();
+    }
+
+    @Override
+    public Version getRequiredVersion() {
+        return v_8_15_0;
+    }
+
+}
@@ -39,9 +39,11 @@ public class SerializationHandles {
             Bandwidth.SERIALIZATION_HANDLE, // 1
             BucketConfiguration.SERIALIZATION_HANDLE, // 2
             BucketState64BitsInteger.SERIALIZATION_HANDLE, // 3
-//            BucketStateIEEE754.SERIALIZATION_HANDLE, // 4
+            BucketStateIEEE754.SERIALIZATION_HANDLE, // 4
             RemoteBucketState.SERIALIZATION_HANDLE, // 5
             RemoteStat.SERIALIZATION_HANDLE, // 6
+            BucketState64BitsIntegerSingleBandwidth.SERIALIZATION_HANDLE, // 7
+            BucketState64BitsIntegerStructOfArrays.SERIALIZATION_HANDLE, // 8
 
             CommandResult.SERIALIZATION_HANDLE, // 10
             ConsumptionProbe.SERIALIZATION_HANDLE, // 11
@@ -53,6 +55,7 @@ public class SerializationHandles {
             UsageOfObsoleteApiError.SERIALIZATION_HANDLE, // 17
             UsageOfUnsupportedApiError.SERIALIZATION_HANDLE, // 18
             UnsupportedNamedTypeError.SERIALIZATION_HANDLE, // 19
+            BatchConsumptionProbe.SERIALIZATION_HANDLE, // 20
 
             CreateInitialStateAndExecuteCommand.SERIALIZATION_HANDLE, // 21
             MultiCommand.SERIALIZATION_HANDLE, // 22
@@ -75,6 +78,7 @@ public class SerializationHandles {
             ConfigurationNeedToBeReplacedError.SERIALIZATION_HANDLE, // 40
             CreateInitialStateWithVersionOrReplaceConfigurationAndExecuteCommand.SERIALIZATION_HANDLE, // 41
             CheckConfigurationVersionAndExecuteCommand.SERIALIZATION_HANDLE, // 42
+            TryConsumeBatchCommand.SERIALIZATION_HANDLE, // 43
 
             LockFreeBucket.SERIALIZATION_HANDLE, // 60
             SynchronizedBucket.SERIALIZATION_HANDLE, // 61
@@ -0,0 +1,336 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.flow;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.SchedulingBucket;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import io.github.bucket4j.distributed.AsyncBucketProxyAdapter;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link Flow.Processor} which limits the rate of elements passed from upstream publisher to downstream subscriber,
+ * each element costs one token of bucket.
+ *
+ * <p>
+ * In contrast to checking each element via {@link Bucket#tryConsume(long)}, tokens are taken from the bucket before elements are requested from upstream:
+ * <ul>
+ *     <li>demand of downstream subscriber is converted to chunk of at most {@code maxTokensPerRequest} tokens,
+ *     chunk is taken via {@link AsyncBucketProxy#tryConsumeAsMuchAsPossible(long)} and exactly as many elements are requested from upstream;</li>
+ *     <li>when bucket is empty, one token is reserved via {@link SchedulingBucket#consume(long, ScheduledExecutorService)},
+ *     so processing is resumed by timer of scheduler instead of polling the bucket;</li>
+ *     <li>the next chunk is taken only when at least half of previous one is received from upstream,
+ *     so at most {@code maxTokensPerRequest} tokens are consumed in advance.</li>
+ * </ul>
+ * Tokens consumed in advance are not returned to the bucket when downstream cancels subscription or upstream completes.
+ *
+ * <p>
+ * Processor supports exactly one subscriber and exactly one upstream subscription.
+ * Signals to subscriber are serialized by drain loop, so elements emitted by upstream re-entrantly from {@code request}
+ * are queued and delivered after the current signal returns instead of being delivered recursively.
+ *
+ * @param <T> the type of elements
+ */
+public class RateLimitingProcessor<T> implements Flow.Processor<T, T> {
+
+    private static final Throwable COMPLETED = new Throwable("completed");
+
+    private final AsyncBucketProxy bucket;
+    private final ScheduledExecutorService scheduler;
+    private final long maxTokensPerRequest;
+    private final long replenishThreshold;
+
+    private final AtomicReference<Flow.Subscription> upstream = new AtomicReference<>();
+    private final AtomicReference<Flow.Subscriber<? super T>> downstream = new AtomicReference<>();
+
+    // requested by downstream, but not requested from upstream yet
+    private final AtomicLong demand = new AtomicLong();
+    // requested from upstream, but not received yet
+    private final AtomicLong outstanding = new AtomicLong();
+    private final AtomicInteger drainWip = new AtomicInteger();
+    private volatile boolean acquiring;
+    private volatile boolean cancelled;
+
+    // signals to downstream are serialized by this counter, nothing is emitted until onSubscribe of downstream returns
+    private final ConcurrentLinkedQueue<T> items = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger emitWip = new AtomicInteger();
+    private final AtomicReference<Throwable> terminal = new AtomicReference<>();
+    private volatile boolean subscribed;
+    private boolean done;
+
+    /**
+     * Creates processor which takes tokens from asynchronous bucket.
+     *
+     * @param bucket the bucket to take tokens from
+     * @param scheduler the scheduler which is used to resume processing when bucket is empty
+     * @param maxTokensPerRequest the max number of tokens which can be taken by one request to bucket, must be a positive number.
+     */
+    public RateLimitingProcessor(AsyncBucketProxy bucket, ScheduledExecutorService scheduler, long maxTokensPerRequest) {
+        if (bucket == null) {
+            throw BucketExceptions.nullBucket();
+        }
+        if (scheduler == null) {
+            throw BucketExceptions.nullScheduler();
+        }
+        if (maxTokensPerRequest <= 0) {
+            throw BucketExceptions.nonPositiveMaxTokensPerRequest(maxTokensPerRequest);
+        }
+        this.bucket = bucket;
+        this.scheduler = scheduler;
+        this.maxTokensPerRequest = maxTokensPerRequest;
+        this.replenishThreshold = maxTokensPerRequest / 2;
+    }
+
+    /**
+     * Creates processor which takes tokens from synchronous bucket.
+     *
+     * @param bucket the bucket to take tokens from
+     * @param scheduler the scheduler which is used to resume processing when bucket is empty
+     * @param maxTokensPerRequest the max number of tokens which can be taken by one request to bucket, must be a positive number.
+     */
+    public RateLimitingProcessor(Bucket bucket, ScheduledExecutorService scheduler, long maxTokensPerRequest) {
+        this(bucket == null ? null : AsyncBucketProxyAdapter.fromSync(bucket), scheduler, maxTokensPerRequest);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber);
+        if (!downstream.compareAndSet(null, subscriber)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    // do nothing
+                }
+                @Override
+                public void cancel() {
+                    // do nothing
+                }
+            });
+            subscriber.onError(new IllegalStateException("RateLimitingProcessor supports only one subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    cancelUpstream();
+                    terminate(BucketExceptions.nonPositiveDemand(n));
+                    return;
+                }
+                addDemand(n);
+                drain();
+            }
+            @Override
+            public void cancel() {
+                cancelUpstream();
+            }
+        });
+        subscribed = true;
+        emit();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        Objects.requireNonNull(subscription);
+        if (!upstream.compareAndSet(null, subscription)) {
+            subscription.cancel();
+            return;
+        }
+        if (cancelled) {
+            subscription.cancel();
+            return;
+        }
+        drain();
+    }
+
+    @Override
+    public void onNext(T item) {
+        Objects.requireNonNull(item);
+        long remaining = outstanding.decrementAndGet();
+        items.offer(item);
+        emit();
+        if (remaining == replenishThreshold) {
+            drain();
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        Objects.requireNonNull(throwable);
+        terminate(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        terminate(COMPLETED);
+    }
+
+    private void drain() {
+        if (drainWip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            requestTokens();
+            missed = drainWip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void requestTokens() {
+        if (upstream.get() == null || acquiring || cancelled || terminal.get() != null) {
+            return;
+        }
+        long inFlight = outstanding.get();
+        if (inFlight > replenishThreshold) {
+            return;
+        }
+        long tokens = Math.min(demand.get(), maxTokensPerRequest - inFlight);
+        if (tokens <= 0) {
+            return;
+        }
+
+        acquiring = true;
+        bucket.tryConsumeAsMuchAsPossible(tokens).whenComplete((consumedTokens, error) -> {
+            if (error != null) {
+                fail(error);
+            } else if (consumedTokens > 0) {
+                grant(consumedTokens);
+            } else {
+                bucket.asScheduler().consume(1, scheduler).whenComplete((nothing, waitError) -> {
+                    if (waitError != null) {
+                        fail(waitError);
+                    } else {
+                        grant(1);
+                    }
+                });
+            }
+        });
+    }
+
+    private void grant(long tokens) {
+        produced(tokens);
+        outstanding.addAndGet(tokens);
+        acquiring = false;
+        if (!cancelled) {
+            upstream.get().request(tokens);
+        }
+        drain();
+    }
+
+    private void fail(Throwable error) {
+        cancelUpstream();
+        terminate(error);
+    }
+
+    private void cancelUpstream() {
+        cancelled = true;
+        Flow.Subscription subscription = upstream.get();
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    private void terminate(Throwable signal) {
+        if (terminal.compareAndSet(null, signal)) {
+            emit();
+        }
+    }
+
+    private void emit() {
+        if (emitWip.getAndIncrement() != 0) {
+            // signal is queued and will be emitted by the thread which is already in the loop
+            return;
+        }
+        int missed = 1;
+        do {
+            if (subscribed) {
+                emitQueued();
+            }
+            missed = emitWip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    // must be called only from the drain loop of emit
+    private void emitQueued() {
+        Flow.Subscriber<? super T> subscriber = downstream.get();
+        while (!done) {
+            // terminal is read before poll, because upstream enqueues all elements before terminal signal
+            Throwable signal = terminal.get();
+            if (cancelled) {
+                items.clear();
+                if (signal == null) {
+                    return;
+                }
+            } else {
+                T item = items.poll();
+                if (item != null) {
+                    subscriber.onNext(item);
+                    continue;
+                }
+                if (signal == null) {
+                    return;
+                }
+            }
+            done = true;
+            if (signal == COMPLETED) {
+                subscriber.onComplete();
+            } else {
+                subscriber.onError(signal);
+            }
+        }
+    }
+
+    private void addDemand(long n) {
+        while (true) {
+            long current = demand.get();
+            if (current == Long.MAX_VALUE) {
+                return;
+            }
+            long updated = current + n;
+            if (updated < 0) {
+                updated = Long.MAX_VALUE;
+            }
+            if (demand.compareAndSet(current, updated)) {
+                return;
+            }
+        }
+    }
+
+    private void produced(long n) {
+        while (true) {
+            long current = demand.get();
+            if (current == Long.MAX_VALUE) {
+                return;
+            }
+            if (demand.compareAndSet(current, current - n)) {
+                return;
+            }
+        }
+    }
+
+}
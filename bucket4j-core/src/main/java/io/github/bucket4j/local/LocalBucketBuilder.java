@@ -24,6 +24,7 @@ import io.github.bucket4j.*;
 import io.github.bucket4j.BandwidthBuilder.BandwidthBuilderBuildStage;
 import io.github.bucket4j.BandwidthBuilder.BandwidthBuilderCapacityStage;
 
+import java.time.Duration;
 import java.util.Objects;
 import java.util.function.Function;
 
@@ -60,7 +61,9 @@ public class LocalBucketBuilder {
 
     private TimeMeter timeMeter = TimeMeter.SYSTEM_MILLISECONDS;
     private SynchronizationStrategy synchronizationStrategy = SynchronizationStrategy.LOCK_FREE;
+    private MathType mathType = MathType.INTEGER_64_BITS;
     private BucketListener listener = BucketListener.NOPE;
+    private WaitQueueParameters waitQueueParameters;
 
     /**
      * Specifies {@link TimeMeter#SYSTEM_NANOTIME} as time meter for buckets that will be created by this builder.
@@ -82,6 +85,23 @@ public class LocalBucketBuilder {
         return this;
     }
 
+    /**
+     * Specifies {@link CachedTimeMeter#sharedMilliseconds(Duration)} as time meter for buckets that will be created by this builder.
+     *
+     * <p>
+     * Coarse time meter trades accuracy for throughput: reading of time becomes single volatile read,
+     * but bucket observes the time which is behind the real time by up to {@code resolution},
+     * see {@link CachedTimeMeter} for details.
+     *
+     * @param resolution how often time is updated by background thread
+     *
+     * @return this builder instance
+     */
+    public LocalBucketBuilder withCoarsePrecision(Duration resolution) {
+        this.timeMeter = CachedTimeMeter.sharedMilliseconds(resolution);
+        return this;
+    }
+
     /**
      * Specifies {@code customTimeMeter} time meter for buckets that will be created by this builder.
      *
@@ -124,6 +144,40 @@ public class LocalBucketBuilder {
         return this;
     }
 
+    /**
+     * Specifies parameters of queue that will be used to wake waiters of {@link io.github.bucket4j.BlockingBucket}
+     * and {@link io.github.bucket4j.SchedulingBucket} in FIFO order by single timer per bucket.
+     * By default there is no queue, each waiter parks independently or schedules its own task.
+     *
+     * @param waitQueueParameters the limits of queue, requests above these limits are shed.
+     *
+     * @return this builder instance
+     */
+    public LocalBucketBuilder withWaitQueue(WaitQueueParameters waitQueueParameters) {
+        if (waitQueueParameters == null) {
+            throw BucketExceptions.nullWaitQueueParameters();
+        }
+        this.waitQueueParameters = waitQueueParameters;
+        return this;
+    }
+
+    /**
+     * Specifies the arithmetic which is used to calculate refill of tokens, by default {@link MathType#INTEGER_64_BITS} is used.
+     *
+     * @param mathType the arithmetic for buckets that will be created by this builder
+     *
+     * @return this builder instance
+     *
+     * @see MathType#IEEE_754
+     */
+    public LocalBucketBuilder withMath(MathType mathType) {
+        if (mathType == null) {
+            throw BucketExceptions.nullMathType();
+        }
+        this.mathType = mathType;
+        return this;
+    }
+
     /**
      * Constructs the bucket.
      *
@@ -131,10 +185,11 @@ public class LocalBucketBuilder {
      */
     public LocalBucket build() {
         BucketConfiguration configuration = buildConfiguration();
+        FifoWaitQueue waitQueue = waitQueueParameters == null ? null : new FifoWaitQueue(waitQueueParameters);
         return switch (synchronizationStrategy) {
-            case LOCK_FREE -> new LockFreeBucket(configuration, MathType.INTEGER_64_BITS, timeMeter, listener);
-            case SYNCHRONIZED -> new SynchronizedBucket(configuration, MathType.INTEGER_64_BITS, timeMeter, listener);
-            case NONE -> new ThreadUnsafeBucket(configuration, MathType.INTEGER_64_BITS, timeMeter, listener);
+            case LOCK_FREE -> new LockFreeBucket(configuration, mathType, timeMeter, listener, waitQueue);
+            case SYNCHRONIZED -> new SynchronizedBucket(configuration, mathType, timeMeter, listener, waitQueue);
+            case NONE -> new ThreadUnsafeBucket(configuration, mathType, timeMeter, listener, waitQueue);
         };
     }
 
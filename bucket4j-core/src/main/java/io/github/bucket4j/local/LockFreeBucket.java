@@ -44,18 +44,22 @@ public class LockFreeBucket extends AbstractBucket implements LocalBucket, Compa
     private final TimeMeter timeMeter;
 
     public LockFreeBucket(BucketConfiguration configuration, MathType mathType, TimeMeter timeMeter, BucketListener listener) {
-        this(new AtomicReference<>(createStateWithConfiguration(configuration, mathType, timeMeter)), timeMeter, listener);
+        this(configuration, mathType, timeMeter, listener, null);
     }
 
-    private LockFreeBucket(AtomicReference<BucketState> stateRef, TimeMeter timeMeter, BucketListener listener) {
-        super(listener);
+    public LockFreeBucket(BucketConfiguration configuration, MathType mathType, TimeMeter timeMeter, BucketListener listener, FifoWaitQueue waitQueue) {
+        this(new AtomicReference<>(createStateWithConfiguration(configuration, mathType, timeMeter)), timeMeter, listener, waitQueue);
+    }
+
+    private LockFreeBucket(AtomicReference<BucketState> stateRef, TimeMeter timeMeter, BucketListener listener, FifoWaitQueue waitQueue) {
+        super(listener, waitQueue);
         this.timeMeter = timeMeter;
         this.stateRef = stateRef;
     }
 
     @Override
     public Bucket toListenable(BucketListener listener) {
-        return new LockFreeBucket(stateRef, timeMeter, listener);
+        return new LockFreeBucket(stateRef, timeMeter, listener, getWaitQueue());
     }
 
     @Override
@@ -76,7 +80,7 @@ public class LockFreeBucket extends AbstractBucket implements LocalBucket, Compa
                 return toConsume;
             } else {
                 previousState = stateRef.get();
-                newState.copyStateFrom(previousState);
+                newState = copyState(newState, previousState);
             }
         }
     }
@@ -98,7 +102,7 @@ public class LockFreeBucket extends AbstractBucket implements LocalBucket, Compa
                 return true;
             } else {
                 previousState = stateRef.get();
-                newState.copyStateFrom(previousState);
+                newState = copyState(newState, previousState);
             }
         }
     }
@@ -124,7 +128,7 @@ public class LockFreeBucket extends AbstractBucket implements LocalBucket, Compa
                 return ConsumptionProbe.consumed(remainingTokens, nanosToWaitForReset);
             } else {
                 previousState = stateRef.get();
-                newState.copyStateFrom(previousState);
+                newState = copyState(newState, previousState);
             }
         }
     }
@@ -145,6 +149,23 @@ public class LockFreeBucket extends AbstractBucket implements LocalBucket, Compa
         }
     }
 
+    @Override
+    protected BatchConsumptionProbe tryConsumeBatchImpl(long[] itemCosts) {
+        BucketState previousState = stateRef.get();
+        BucketState newState = previousState.copy();
+        long currentTimeNanos = timeMeter.currentTimeNanos();
+
+        while (true) {
+            BatchConsumptionProbe probe = BatchConsumptionProbe.consumePrefix(newState, itemCosts, currentTimeNanos);
+            if (probe.getConsumedTokens() == 0 || stateRef.compareAndSet(previousState, newState)) {
+                return probe;
+            } else {
+                previousState = stateRef.get();
+                newState = copyState(newState, previousState);
+            }
+        }
+    }
+
     @Override
     protected long reserveAndCalculateTimeToSleepImpl(long tokensToConsume, long waitIfBusyNanosLimit) {
         BucketState previousState = stateRef.get();
@@ -160,7 +181,7 @@ public class LockFreeBucket extends AbstractBucket implements LocalBucket, Compa
                     return 0L;
                 }
                 previousState = stateRef.get();
-                newState.copyStateFrom(previousState);
+                newState = copyState(newState, previousState);
                 continue;
             }
 
@@ -173,7 +194,7 @@ public class LockFreeBucket extends AbstractBucket implements LocalBucket, Compa
                 return nanosToCloseDeficit;
             }
             previousState = stateRef.get();
-            newState.copyStateFrom(previousState);
+            newState = copyState(newState, previousState);
         }
     }
 
@@ -192,7 +213,7 @@ public class LockFreeBucket extends AbstractBucket implements LocalBucket, Compa
                     return new VerboseResult<>(currentTimeNanos, 0L, newState.copy());
                 }
                 previousState = stateRef.get();
-                newState.copyStateFrom(previousState);
+                newState = copyState(newState, previousState);
                 continue;
             }
 
@@ -205,7 +226,7 @@ public class LockFreeBucket extends AbstractBucket implements LocalBucket, Compa
                 return new VerboseResult<>(currentTimeNanos, nanosToCloseDeficit, newState.copy());
             }
             previousState = stateRef.get();
-            newState.copyStateFrom(previousState);
+            newState = copyState(newState, previousState);
         }
     }
 
@@ -222,7 +243,7 @@ public class LockFreeBucket extends AbstractBucket implements LocalBucket, Compa
                 return;
             } else {
                 previousState = stateRef.get();
-                newState.copyStateFrom(previousState);
+                newState = copyState(newState, previousState);
             }
         }
     }
@@ -240,7 +261,7 @@ public class LockFreeBucket extends AbstractBucket implements LocalBucket, Compa
                 return;
             } else {
                 previousState = stateRef.get();
-                newState.copyStateFrom(previousState);
+                newState = copyState(newState, previousState);
             }
         }
     }
@@ -258,7 +279,7 @@ public class LockFreeBucket extends AbstractBucket implements LocalBucket, Compa
                 return;
             } else {
                 previousState = stateRef.get();
-                newState.copyStateFrom(previousState);
+                newState = copyState(newState, previousState);
             }
         }
     }
@@ -276,7 +297,7 @@ public class LockFreeBucket extends AbstractBucket implements LocalBucket, Compa
                 return;
             } else {
                 previousState = stateRef.get();
-                newState.copyStateFrom(previousState);
+                newState = copyState(newState, previousState);
             }
         }
     }
@@ -299,7 +320,7 @@ public class LockFreeBucket extends AbstractBucket implements LocalBucket, Compa
                 return nanosToCloseDeficit;
             } else {
                 previousState = stateRef.get();
-                newState.copyStateFrom(previousState);
+                newState = copyState(newState, previousState);
             }
         }
     }
@@ -322,7 +343,7 @@ public class LockFreeBucket extends AbstractBucket implements LocalBucket, Compa
                 return new VerboseResult<>(currentTimeNanos, toConsume, newState.copy());
             } else {
                 previousState = stateRef.get();
-                newState.copyStateFrom(previousState);
+                newState = copyState(newState, previousState);
             }
         }
     }
@@ -344,7 +365,7 @@ public class LockFreeBucket extends AbstractBucket implements LocalBucket, Compa
                 return new VerboseResult<>(currentTimeNanos, true, newState.copy());
             } else {
                 previousState = stateRef.get();
-                newState.copyStateFrom(previousState);
+                newState = copyState(newState, previousState);
             }
         }
     }
@@ -371,7 +392,7 @@ public class LockFreeBucket extends AbstractBucket implements LocalBucket, Compa
                 return new VerboseResult<>(currentTimeNanos, consumptionProbe, newState.copy());
             } else {
                 previousState = stateRef.get();
-                newState.copyStateFrom(previousState);
+                newState = copyState(newState, previousState);
             }
         }
     }
@@ -415,7 +436,7 @@ public class LockFreeBucket extends AbstractBucket implements LocalBucket, Compa
                 return new VerboseResult<>(currentTimeNanos, Nothing.INSTANCE, newState.copy());
             } else {
                 previousState = stateRef.get();
-                newState.copyStateFrom(previousState);
+                newState = copyState(newState, previousState);
             }
         }
     }
@@ -433,7 +454,7 @@ public class LockFreeBucket extends AbstractBucket implements LocalBucket, Compa
                 return new VerboseResult<>(currentTimeNanos, Nothing.INSTANCE, newState.copy());
             } else {
                 previousState = stateRef.get();
-                newState.copyStateFrom(previousState);
+                newState = copyState(newState, previousState);
             }
         }
     }
@@ -451,7 +472,7 @@ public class LockFreeBucket extends AbstractBucket implements LocalBucket, Compa
                 return new VerboseResult<>(currentTimeNanos, Nothing.INSTANCE, newState.copy());
             } else {
                 previousState = stateRef.get();
-                newState.copyStateFrom(previousState);
+                newState = copyState(newState, previousState);
             }
         }
     }
@@ -469,7 +490,7 @@ public class LockFreeBucket extends AbstractBucket implements LocalBucket, Compa
                 return new VerboseResult<>(currentTimeNanos, null, newState.copy());
             } else {
                 previousState = stateRef.get();
-                newState.copyStateFrom(previousState);
+                newState = copyState(newState, previousState);
             }
         }
     }
@@ -492,7 +513,7 @@ public class LockFreeBucket extends AbstractBucket implements LocalBucket, Compa
                 return new VerboseResult<>(currentTimeNanos, nanosToCloseDeficit, newState.copy());
             } else {
                 previousState = stateRef.get();
-                newState.copyStateFrom(previousState);
+                newState = copyState(newState, previousState);
             }
         }
     }
@@ -520,6 +541,15 @@ public class LockFreeBucket extends AbstractBucket implements LocalBucket, Compa
         return SynchronizationStrategy.LOCK_FREE;
     }
 
+    private static BucketState copyState(BucketState target, BucketState source) {
+        if (target.getClass() != source.getClass()) {
+            // layout of state can be changed by concurrent replacement of configuration, for example from single to multiple bandwidths
+            return source.copy();
+        }
+        target.copyStateFrom(source);
+        return target;
+    }
+
     private static BucketState createStateWithConfiguration(BucketConfiguration configuration, MathType mathType, TimeMeter timeMeter) {
         return BucketState.createInitialState(configuration, mathType, timeMeter.currentTimeNanos());
     }
@@ -544,7 +574,7 @@ public class LockFreeBucket extends AbstractBucket implements LocalBucket, Compa
             bucketState.setConfiguration(bucketConfiguration);
 
             AtomicReference<BucketState> stateRef = new AtomicReference<>(bucketState);
-            return new LockFreeBucket(stateRef, TimeMeter.SYSTEM_MILLISECONDS, BucketListener.NOPE);
+            return new LockFreeBucket(stateRef, TimeMeter.SYSTEM_MILLISECONDS, BucketListener.NOPE, null);
         }
 
         @Override
@@ -576,7 +606,7 @@ public class LockFreeBucket extends AbstractBucket implements LocalBucket, Compa
             Map<String, Object> stateSnapshot = (Map<String, Object>) snapshot.get("state");
             BucketState state = BucketState.fromJsonCompatibleSnapshot(stateSnapshot);
 
-            return new LockFreeBucket(new AtomicReference<>(state), TimeMeter.SYSTEM_MILLISECONDS, BucketListener.NOPE);
+            return new LockFreeBucket(new AtomicReference<>(state), TimeMeter.SYSTEM_MILLISECONDS, BucketListener.NOPE, null);
         }
 
         @Override
@@ -50,12 +50,16 @@ public class SynchronizedBucket extends AbstractBucket implements LocalBucket, C
         this(configuration, mathType, timeMeter, listener, new ReentrantLock());
     }
 
+    public SynchronizedBucket(BucketConfiguration configuration, MathType mathType, TimeMeter timeMeter, BucketListener listener, FifoWaitQueue waitQueue) {
+        this(listener, timeMeter, new ReentrantLock(), BucketState.createInitialState(configuration, mathType, timeMeter.currentTimeNanos()), waitQueue);
+    }
+
     SynchronizedBucket(BucketConfiguration configuration, MathType mathType, TimeMeter timeMeter, BucketListener listener, Lock lock) {
-        this(listener, timeMeter, lock, BucketState.createInitialState(configuration, mathType, timeMeter.currentTimeNanos()));
+        this(listener, timeMeter, lock, BucketState.createInitialState(configuration, mathType, timeMeter.currentTimeNanos()), null);
     }
 
-    private SynchronizedBucket(BucketListener listener, TimeMeter timeMeter, Lock lock, BucketState initialState) {
-        super(listener);
+    private SynchronizedBucket(BucketListener listener, TimeMeter timeMeter, Lock lock, BucketState initialState, FifoWaitQueue waitQueue) {
+        super(listener, waitQueue);
         this.configuration = initialState.getConfiguration();
         this.timeMeter = timeMeter;
         this.state = initialState;
@@ -68,7 +72,7 @@ public class SynchronizedBucket extends AbstractBucket implements LocalBucket, C
 
     @Override
     public Bucket toListenable(BucketListener listener) {
-        return new SynchronizedBucket(listener, timeMeter, lock, state);
+        return new SynchronizedBucket(listener, timeMeter, lock, state, getWaitQueue());
     }
 
     @Override
@@ -144,6 +148,17 @@ public class SynchronizedBucket extends AbstractBucket implements LocalBucket, C
         }
     }
 
+    @Override
+    protected BatchConsumptionProbe tryConsumeBatchImpl(long[] itemCosts) {
+        long currentTimeNanos = timeMeter.currentTimeNanos();
+        lock.lock();
+        try {
+            return BatchConsumptionProbe.consumePrefix(state, itemCosts, currentTimeNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
     @Override
     protected long reserveAndCalculateTimeToSleepImpl(long tokensToConsume, long waitIfBusyNanosLimit) {
         long currentTimeNanos = timeMeter.currentTimeNanos();
@@ -456,7 +471,7 @@ public class SynchronizedBucket extends AbstractBucket implements LocalBucket, C
             BucketState bucketState = BucketState.deserialize(adapter, input);
             bucketState.setConfiguration(bucketConfiguration);
 
-            return new SynchronizedBucket(BucketListener.NOPE, TimeMeter.SYSTEM_MILLISECONDS, new ReentrantLock(), bucketState);
+            return new SynchronizedBucket(BucketListener.NOPE, TimeMeter.SYSTEM_MILLISECONDS, new ReentrantLock(), bucketState, null);
         }
 
         @Override
@@ -487,7 +502,7 @@ public class SynchronizedBucket extends AbstractBucket implements LocalBucket, C
             Map<String, Object> stateSnapshot = (Map<String, Object>) snapshot.get("state");
             BucketState state = BucketState.fromJsonCompatibleSnapshot(stateSnapshot);
 
-            return new SynchronizedBucket(BucketListener.NOPE, TimeMeter.SYSTEM_MILLISECONDS, new ReentrantLock(), state);
+            return new SynchronizedBucket(BucketListener.NOPE, TimeMeter.SYSTEM_MILLISECONDS, new ReentrantLock(), state, null);
         }
 
         @Override
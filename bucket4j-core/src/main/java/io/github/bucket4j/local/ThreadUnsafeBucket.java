@@ -44,11 +44,15 @@ public class ThreadUnsafeBucket extends AbstractBucket implements LocalBucket, C
     private BucketState state;
 
     public ThreadUnsafeBucket(BucketConfiguration configuration, MathType mathType, TimeMeter timeMeter, BucketListener listener) {
-        this(listener, timeMeter, BucketState.createInitialState(configuration, mathType, timeMeter.currentTimeNanos()));
+        this(configuration, mathType, timeMeter, listener, null);
     }
 
-    private ThreadUnsafeBucket(BucketListener listener, TimeMeter timeMeter, BucketState initialState) {
-        super(listener);
+    public ThreadUnsafeBucket(BucketConfiguration configuration, MathType mathType, TimeMeter timeMeter, BucketListener listener, FifoWaitQueue waitQueue) {
+        this(listener, timeMeter, BucketState.createInitialState(configuration, mathType, timeMeter.currentTimeNanos()), waitQueue);
+    }
+
+    private ThreadUnsafeBucket(BucketListener listener, TimeMeter timeMeter, BucketState initialState, FifoWaitQueue waitQueue) {
+        super(listener, waitQueue);
         this.configuration = initialState.getConfiguration();
         this.timeMeter = timeMeter;
         this.state = initialState;
@@ -60,7 +64,7 @@ public class ThreadUnsafeBucket extends AbstractBucket implements LocalBucket, C
 
     @Override
     public Bucket toListenable(BucketListener listener) {
-        return new ThreadUnsafeBucket(listener, timeMeter, state);
+        return new ThreadUnsafeBucket(listener, timeMeter, state, getWaitQueue());
     }
 
     @Override
@@ -116,6 +120,12 @@ public class ThreadUnsafeBucket extends AbstractBucket implements LocalBucket, C
         return EstimationProbe.canBeConsumed(availableToConsume);
     }
 
+    @Override
+    protected BatchConsumptionProbe tryConsumeBatchImpl(long[] itemCosts) {
+        long currentTimeNanos = timeMeter.currentTimeNanos();
+        return BatchConsumptionProbe.consumePrefix(state, itemCosts, currentTimeNanos);
+    }
+
     @Override
     protected long reserveAndCalculateTimeToSleepImpl(long tokensToConsume, long waitIfBusyNanosLimit) {
         long currentTimeNanos = timeMeter.currentTimeNanos();
@@ -338,7 +348,7 @@ public class ThreadUnsafeBucket extends AbstractBucket implements LocalBucket, C
             BucketState bucketState = BucketState.deserialize(adapter, input);
             bucketState.setConfiguration(bucketConfiguration);
 
-            return new ThreadUnsafeBucket(BucketListener.NOPE, TimeMeter.SYSTEM_MILLISECONDS, bucketState);
+            return new ThreadUnsafeBucket(BucketListener.NOPE, TimeMeter.SYSTEM_MILLISECONDS, bucketState, null);
         }
 
         @Override
@@ -369,7 +379,7 @@ public class ThreadUnsafeBucket extends AbstractBucket implements LocalBucket, C
             Map<String, Object> stateSnapshot = (Map<String, Object>) snapshot.get("state");
             BucketState state = BucketState.fromJsonCompatibleSnapshot(stateSnapshot);
 
-            return new ThreadUnsafeBucket(BucketListener.NOPE, TimeMeter.SYSTEM_MILLISECONDS, state);
+            return new ThreadUnsafeBucket(BucketListener.NOPE, TimeMeter.SYSTEM_MILLISECONDS, state, null);
         }
 
         @Override
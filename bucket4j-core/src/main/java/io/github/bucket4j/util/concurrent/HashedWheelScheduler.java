@@ -0,0 +1,446 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.util.concurrent;
+
+import io.github.bucket4j.BucketExceptions;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Coarse-grained {@link ScheduledExecutorService} based on hashed timing wheel,
+ * intended to be used as scheduler for {@link io.github.bucket4j.SchedulingBucket} and for background tasks of bucket4j.
+ *
+ * <p>
+ * In contrast to {@link ScheduledThreadPoolExecutor}, which keeps tasks in binary heap protected by lock,
+ * scheduling and cancellation of task are O(1) and do not contend with each other:
+ * <ul>
+ *     <li>new task is appended to lock-free queue and moved to the wheel by worker thread at the next tick;</li>
+ *     <li>cancelled task is appended to lock-free queue and unlinked from the wheel by worker thread at the next tick.</li>
+ * </ul>
+ * The price is precision: task is never executed earlier than requested, but can be executed up to one tick later.
+ * Typical waits of rate limiter are measured in milliseconds, so default tick of one millisecond is good enough for most cases.
+ *
+ * <p>
+ * All tasks are executed by single worker thread, so they should be short, completion of {@link java.util.concurrent.CompletableFuture}
+ * returned by {@link io.github.bucket4j.SchedulingBucket} is a good example of such task.
+ * Heavy work should be offloaded to another executor.
+ *
+ * <p>
+ * Like {@link ScheduledThreadPoolExecutor} with default policies, delayed tasks are still executed after {@link #shutdown()},
+ * but periodic tasks are not rescheduled anymore.
+ */
+public class HashedWheelScheduler extends AbstractExecutorService implements ScheduledExecutorService {
+
+    public static final Duration DEFAULT_TICK_DURATION = Duration.ofMillis(1);
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private static final int RUNNING = 0;
+    private static final int SHUTDOWN = 1;
+    private static final int STOP = 2;
+
+    private final long tickNanos;
+    private final WheelBucket[] wheel;
+    private final int mask;
+    private final long startNanos;
+    private final Queue<WheelTask<?>> pendingTasks = new ConcurrentLinkedQueue<>();
+    private final Queue<WheelTask<?>> cancelledTasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger state = new AtomicInteger(RUNNING);
+    private final CountDownLatch terminationLatch = new CountDownLatch(1);
+    private final Thread worker;
+
+    // accessed only by worker thread, or after termination of worker
+    private int tasksInWheel;
+    private final List<Runnable> unprocessedTasks = new ArrayList<>();
+
+    /**
+     * Creates scheduler with {@link #DEFAULT_TICK_DURATION} and {@link #DEFAULT_WHEEL_SIZE}.
+     */
+    public HashedWheelScheduler() {
+        this(DEFAULT_TICK_DURATION, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * Creates scheduler which worker is daemon thread.
+     *
+     * @param tickDuration the precision of scheduler
+     * @param wheelSize the number of buckets in the wheel, rounded up to the power of two.
+     *                  Tasks with delay greater than {@code tickDuration * wheelSize} are not a problem, they just wait for several rounds of the wheel.
+     */
+    public HashedWheelScheduler(Duration tickDuration, int wheelSize) {
+        this(tickDuration, wheelSize, runnable -> {
+            Thread thread = new Thread(runnable, "bucket4j-hashed-wheel-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Creates scheduler which worker thread is created by {@code threadFactory}.
+     *
+     * @param tickDuration the precision of scheduler
+     * @param wheelSize the number of buckets in the wheel, rounded up to the power of two
+     * @param threadFactory the factory for worker thread
+     */
+    public HashedWheelScheduler(Duration tickDuration, int wheelSize, ThreadFactory threadFactory) {
+        if (tickDuration == null || tickDuration.isNegative() || tickDuration.isZero()) {
+            throw BucketExceptions.nonPositiveTimerTickDuration(tickDuration);
+        }
+        if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw BucketExceptions.illegalTimerWheelSize(wheelSize);
+        }
+        this.tickNanos = tickDuration.toNanos();
+        int normalizedWheelSize = Integer.highestOneBit(wheelSize);
+        if (normalizedWheelSize < wheelSize) {
+            normalizedWheelSize <<= 1;
+        }
+        this.wheel = new WheelBucket[normalizedWheelSize];
+        for (int i = 0; i < normalizedWheelSize; i++) {
+            wheel[i] = new WheelBucket();
+        }
+        this.mask = normalizedWheelSize - 1;
+        this.startNanos = System.nanoTime();
+        this.worker = threadFactory.newThread(this::runWorker);
+        this.worker.start();
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return enqueue(new WheelTask<Void>(command, null, deadlineNanos(delay, unit), 0));
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        return enqueue(new WheelTask<>(callable, deadlineNanos(delay, unit), 0));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("period " + period + " should be positive");
+        }
+        return enqueue(new WheelTask<Void>(command, null, deadlineNanos(initialDelay, unit), unit.toNanos(period)));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        if (delay <= 0) {
+            throw new IllegalArgumentException("delay " + delay + " should be positive");
+        }
+        return enqueue(new WheelTask<Void>(command, null, deadlineNanos(initialDelay, unit), -unit.toNanos(delay)));
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        schedule(command, 0, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void shutdown() {
+        state.compareAndSet(RUNNING, SHUTDOWN);
+        LockSupport.unpark(worker);
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        state.set(STOP);
+        LockSupport.unpark(worker);
+        if (Thread.currentThread() == worker) {
+            // worker will collect unprocessed tasks itself on exit from the current tick
+            return new ArrayList<>();
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                terminationLatch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        List<Runnable> result = new ArrayList<>(unprocessedTasks);
+        unprocessedTasks.clear();
+        drainPendingTasks(result);
+        return result;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return state.get() != RUNNING;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminationLatch.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminationLatch.await(timeout, unit);
+    }
+
+    private long deadlineNanos(long delay, TimeUnit unit) {
+        // protection from overflow, such delays are never reached anyway
+        long delayNanos = Math.min(Math.max(unit.toNanos(delay), 0), Long.MAX_VALUE >> 2);
+        return System.nanoTime() + delayNanos;
+    }
+
+    private <V> WheelTask<V> enqueue(WheelTask<V> task) {
+        if (state.get() != RUNNING) {
+            throw new RejectedExecutionException("Scheduler has been shut down");
+        }
+        pendingTasks.add(task);
+        if (state.get() != RUNNING && pendingTasks.remove(task)) {
+            // worker can already be terminated, so nobody guarantees that task will be executed
+            throw new RejectedExecutionException("Scheduler has been shut down");
+        }
+        return task;
+    }
+
+    private void runWorker() {
+        long tick = 0;
+        try {
+            while (true) {
+                int currentState = state.get();
+                if (currentState == STOP) {
+                    break;
+                }
+                if (currentState == SHUTDOWN && tasksInWheel == 0 && pendingTasks.isEmpty()) {
+                    break;
+                }
+                waitForTick(tick);
+                removeCancelledTasks();
+                transferPendingTasks(tick);
+                expireTasks(wheel[(int) (tick & mask)]);
+                tick++;
+            }
+        } finally {
+            for (WheelBucket bucket : wheel) {
+                bucket.drainTo(unprocessedTasks);
+            }
+            tasksInWheel = 0;
+            terminationLatch.countDown();
+        }
+    }
+
+    private void waitForTick(long tick) {
+        long tickDeadlineNanos = startNanos + (tick + 1) * tickNanos;
+        while (true) {
+            long sleepNanos = tickDeadlineNanos - System.nanoTime();
+            if (sleepNanos <= 0 || state.get() == STOP) {
+                return;
+            }
+            // tasks are executed in this thread, interrupted status left by them should not convert parking to busy spin
+            Thread.interrupted();
+            LockSupport.parkNanos(this, sleepNanos);
+        }
+    }
+
+    private void removeCancelledTasks() {
+        WheelTask<?> task;
+        while ((task = cancelledTasks.poll()) != null) {
+            if (task.bucket != null) {
+                task.bucket.remove(task);
+                tasksInWheel--;
+            }
+        }
+    }
+
+    private void transferPendingTasks(long tick) {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            WheelTask<?> task = pendingTasks.poll();
+            if (task == null) {
+                return;
+            }
+            if (task.isCancelled()) {
+                continue;
+            }
+            long expirationTick = Math.max(0, task.deadlineNanos - startNanos) / tickNanos;
+            long targetTick = Math.max(expirationTick, tick);
+            task.remainingRounds = (targetTick - tick) / wheel.length;
+            wheel[(int) (targetTick & mask)].add(task);
+            tasksInWheel++;
+        }
+    }
+
+    private void expireTasks(WheelBucket bucket) {
+        WheelTask<?> task = bucket.head;
+        while (task != null) {
+            WheelTask<?> next = task.next;
+            if (task.isCancelled()) {
+                bucket.remove(task);
+                tasksInWheel--;
+            } else if (task.remainingRounds <= 0) {
+                bucket.remove(task);
+                tasksInWheel--;
+                task.run();
+            } else {
+                task.remainingRounds--;
+            }
+            task = next;
+        }
+    }
+
+    private void drainPendingTasks(List<Runnable> destination) {
+        WheelTask<?> task;
+        while ((task = pendingTasks.poll()) != null) {
+            if (!task.isCancelled()) {
+                destination.add(task);
+            }
+        }
+    }
+
+    private static final class WheelBucket {
+
+        private WheelTask<?> head;
+        private WheelTask<?> tail;
+
+        private void add(WheelTask<?> task) {
+            task.bucket = this;
+            if (tail == null) {
+                head = task;
+            } else {
+                tail.next = task;
+                task.prev = tail;
+            }
+            tail = task;
+        }
+
+        private void remove(WheelTask<?> task) {
+            if (task.prev == null) {
+                head = task.next;
+            } else {
+                task.prev.next = task.next;
+            }
+            if (task.next == null) {
+                tail = task.prev;
+            } else {
+                task.next.prev = task.prev;
+            }
+            task.prev = null;
+            task.next = null;
+            task.bucket = null;
+        }
+
+        private void drainTo(List<Runnable> destination) {
+            while (head != null) {
+                WheelTask<?> task = head;
+                remove(task);
+                if (!task.isCancelled()) {
+                    destination.add(task);
+                }
+            }
+        }
+
+    }
+
+    private final class WheelTask<V> extends FutureTask<V> implements RunnableScheduledFuture<V> {
+
+        /**
+         * Positive value means fixed rate, negative value means fixed delay, zero means one-shot task.
+         */
+        private final long periodNanos;
+        private volatile long deadlineNanos;
+
+        // accessed only by worker thread
+        private long remainingRounds;
+        private WheelBucket bucket;
+        private WheelTask<?> prev;
+        private WheelTask<?> next;
+
+        private WheelTask(Runnable runnable, V result, long deadlineNanos, long periodNanos) {
+            super(runnable, result);
+            this.deadlineNanos = deadlineNanos;
+            this.periodNanos = periodNanos;
+        }
+
+        private WheelTask(Callable<V> callable, long deadlineNanos, long periodNanos) {
+            super(callable);
+            this.deadlineNanos = deadlineNanos;
+            this.periodNanos = periodNanos;
+        }
+
+        @Override
+        public boolean isPeriodic() {
+            return periodNanos != 0;
+        }
+
+        @Override
+        public void run() {
+            if (!isPeriodic()) {
+                super.run();
+            } else if (super.runAndReset()) {
+                if (state.get() != RUNNING) {
+                    super.cancel(false);
+                    return;
+                }
+                deadlineNanos = periodNanos > 0 ? deadlineNanos + periodNanos : System.nanoTime() - periodNanos;
+                // rescheduling through the queue prevents re-execution of the task in the tick which is being processed
+                pendingTasks.add(this);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                cancelledTasks.add(this);
+            }
+            return cancelled;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other == this) {
+                return 0;
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+
+    }
+
+}
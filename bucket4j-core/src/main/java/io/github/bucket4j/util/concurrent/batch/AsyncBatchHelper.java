@@ -26,6 +26,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
 
 import static java.util.Objects.requireNonNull;
 
@@ -41,12 +42,15 @@ public class AsyncBatchHelper<T, R, CT, CR> {
 
     private static final WaitingTask<?, ?> QUEUE_EMPTY_BUT_EXECUTION_IN_PROGRESS = new WaitingTask<>(null);
     private static final WaitingTask<?, ?> QUEUE_EMPTY = new WaitingTask<>(null);
+    private static final IntConsumer NOPE_QUEUE_DEPTH_LISTENER = queueDepth -> {};
 
     private final Function<List<T>, CT> taskCombiner;
     private final Function<CT, CompletableFuture<CR>> asyncCombinedTaskExecutor;
     private final Function<T, CompletableFuture<R>> asyncTaskExecutor;
     private final BiFunction<CT, CR, List<R>> combinedResultSplitter;
 
+    private final IntConsumer queueDepthListener;
+
     private final AtomicReference<WaitingTask> headReference = new AtomicReference<>(QUEUE_EMPTY);
 
     public static <T, R, CT, CR> AsyncBatchHelper<T, R, CT, CR> create(
@@ -54,7 +58,21 @@ public class AsyncBatchHelper<T, R, CT, CR> {
             Function<CT, CompletableFuture<CR>> asyncCombinedTaskExecutor,
             Function<T, CompletableFuture<R>> asyncTaskExecutor,
             BiFunction<CT, CR, List<R>> combinedResultSplitter) {
-        return new AsyncBatchHelper<>(taskCombiner, asyncCombinedTaskExecutor, asyncTaskExecutor, combinedResultSplitter);
+        return new AsyncBatchHelper<>(taskCombiner, asyncCombinedTaskExecutor, asyncTaskExecutor, combinedResultSplitter, NOPE_QUEUE_DEPTH_LISTENER);
+    }
+
+    /**
+     * Creates batch helper that additionally reports the depth of queue each time when task is submitted.
+     *
+     * @param queueDepthListener receives number of tasks that wait in the queue including submitted one, zero means that task is executed immediately
+     */
+    public static <T, R, CT, CR> AsyncBatchHelper<T, R, CT, CR> create(
+            Function<List<T>, CT> taskCombiner,
+            Function<CT, CompletableFuture<CR>> asyncCombinedTaskExecutor,
+            Function<T, CompletableFuture<R>> asyncTaskExecutor,
+            BiFunction<CT, CR, List<R>> combinedResultSplitter,
+            IntConsumer queueDepthListener) {
+        return new AsyncBatchHelper<>(taskCombiner, asyncCombinedTaskExecutor, asyncTaskExecutor, combinedResultSplitter, queueDepthListener);
     }
 
     public static <T, R, CT, CR> AsyncBatchHelper<T, R, CT, CR> create(
@@ -73,17 +91,19 @@ public class AsyncBatchHelper<T, R, CT, CR> {
                 });
             }
         };
-        return new AsyncBatchHelper<>(taskCombiner, asyncCombinedTaskExecutor, asyncTaskExecutor, combinedResultSplitter);
+        return new AsyncBatchHelper<>(taskCombiner, asyncCombinedTaskExecutor, asyncTaskExecutor, combinedResultSplitter, NOPE_QUEUE_DEPTH_LISTENER);
     }
 
     private AsyncBatchHelper(Function<List<T>, CT> taskCombiner,
                         Function<CT, CompletableFuture<CR>> asyncCombinedTaskExecutor,
                         Function<T, CompletableFuture<R>> asyncTaskExecutor,
-                        BiFunction<CT, CR, List<R>> combinedResultSplitter) {
+                        BiFunction<CT, CR, List<R>> combinedResultSplitter,
+                        IntConsumer queueDepthListener) {
         this.taskCombiner = requireNonNull(taskCombiner);
         this.asyncCombinedTaskExecutor = requireNonNull(asyncCombinedTaskExecutor);
         this.asyncTaskExecutor = requireNonNull(asyncTaskExecutor);
         this.combinedResultSplitter = requireNonNull(combinedResultSplitter);
+        this.queueDepthListener = requireNonNull(queueDepthListener);
     }
 
     public CompletableFuture<R> executeAsync(T task) {
@@ -159,6 +179,7 @@ public class AsyncBatchHelper<T, R, CT, CR> {
             WaitingTask<T, R> previous = headReference.get();
             if (previous == QUEUE_EMPTY) {
                 if (headReference.compareAndSet(previous, QUEUE_EMPTY_BUT_EXECUTION_IN_PROGRESS)) {
+                    queueDepthListener.accept(0);
                     return null;
                 } else {
                     continue;
@@ -166,7 +187,9 @@ public class AsyncBatchHelper<T, R, CT, CR> {
             }
 
             waitingTask.previous = previous;
+            waitingTask.depth = previous.depth + 1;
             if (headReference.compareAndSet(previous, waitingTask)) {
+                queueDepthListener.accept(waitingTask.depth);
                 return waitingTask;
             } else {
                 waitingTask.previous = null;
@@ -209,6 +232,7 @@ public class AsyncBatchHelper<T, R, CT, CR> {
         public final CompletableFuture<R> future = new CompletableFuture<>();
 
         public WaitingTask<T, R> previous;
+        public int depth;
 
         WaitingTask(T task) {
             this.wrappedTask = task;
@@ -27,6 +27,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
 
 import static java.util.Objects.requireNonNull;
 
@@ -43,6 +44,7 @@ public class BatchHelper<T, R, CT, CR> {
     private static final Object NEED_TO_EXECUTE_NEXT_BATCH = new Object();
     private static final WaitingTask<?, ?> QUEUE_EMPTY_BUT_EXECUTION_IN_PROGRESS = new WaitingTask<>(null);
     private static final WaitingTask<?, ?> QUEUE_EMPTY = new WaitingTask<>(null);
+    private static final IntConsumer NOPE_QUEUE_DEPTH_LISTENER = queueDepth -> {};
 
     private final Function<List<T>, CT> taskCombiner;
     private final Function<CT, CR> combinedTaskExecutor;
@@ -50,6 +52,8 @@ public class BatchHelper<T, R, CT, CR> {
 
     private final BiFunction<CT, CR, List<R>> combinedResultSplitter;
 
+    private final IntConsumer queueDepthListener;
+
     private final AtomicReference<WaitingTask> headReference = new AtomicReference<>(QUEUE_EMPTY);
 
     public static <T, R, CT, CR> BatchHelper<T, R, CT, CR> create(
@@ -57,7 +61,21 @@ public class BatchHelper<T, R, CT, CR> {
             Function<CT, CR> combinedTaskExecutor,
             Function<T, R> taskExecutor,
             BiFunction<CT, CR, List<R>> combinedResultSplitter) {
-        return new BatchHelper<>(taskCombiner, combinedTaskExecutor, taskExecutor, combinedResultSplitter);
+        return new BatchHelper<>(taskCombiner, combinedTaskExecutor, taskExecutor, combinedResultSplitter, NOPE_QUEUE_DEPTH_LISTENER);
+    }
+
+    /**
+     * Creates batch helper that additionally reports the depth of queue each time when task is submitted.
+     *
+     * @param queueDepthListener receives number of tasks that wait in the queue including submitted one, zero means that task is executed immediately
+     */
+    public static <T, R, CT, CR> BatchHelper<T, R, CT, CR> create(
+            Function<List<T>, CT> taskCombiner,
+            Function<CT, CR> combinedTaskExecutor,
+            Function<T, R> taskExecutor,
+            BiFunction<CT, CR, List<R>> combinedResultSplitter,
+            IntConsumer queueDepthListener) {
+        return new BatchHelper<>(taskCombiner, combinedTaskExecutor, taskExecutor, combinedResultSplitter, queueDepthListener);
     }
 
     public static <T, R, CT, CR> BatchHelper<T, R, CT, CR> create(
@@ -73,17 +91,19 @@ public class BatchHelper<T, R, CT, CR> {
                 return results.get(0);
             }
         };
-        return new BatchHelper<>(taskCombiner, combinedTaskExecutor, taskExecutor, combinedResultSplitter);
+        return new BatchHelper<>(taskCombiner, combinedTaskExecutor, taskExecutor, combinedResultSplitter, NOPE_QUEUE_DEPTH_LISTENER);
     }
 
     private BatchHelper(Function<List<T>, CT> taskCombiner,
                         Function<CT, CR> combinedTaskExecutor,
                         Function<T, R> taskExecutor,
-                        BiFunction<CT, CR, List<R>> combinedResultSplitter) {
+                        BiFunction<CT, CR, List<R>> combinedResultSplitter,
+                        IntConsumer queueDepthListener) {
         this.taskCombiner = requireNonNull(taskCombiner);
         this.combinedTaskExecutor = requireNonNull(combinedTaskExecutor);
         this.taskExecutor = requireNonNull(taskExecutor);
         this.combinedResultSplitter = requireNonNull(combinedResultSplitter);
+        this.queueDepthListener = requireNonNull(queueDepthListener);
     }
 
     public R execute(T task) {
@@ -154,6 +174,7 @@ public class BatchHelper<T, R, CT, CR> {
             WaitingTask<T, R> previous = headReference.get();
             if (previous == QUEUE_EMPTY) {
                 if (headReference.compareAndSet(previous, QUEUE_EMPTY_BUT_EXECUTION_IN_PROGRESS)) {
+                    queueDepthListener.accept(0);
                     return null;
                 } else {
                     continue;
@@ -161,7 +182,9 @@ public class BatchHelper<T, R, CT, CR> {
             }
 
             currentTask.previous = previous;
+            currentTask.depth = previous.depth + 1;
             if (headReference.compareAndSet(previous, currentTask)) {
+                queueDepthListener.accept(currentTask.depth);
                 return currentTask;
             } else {
                 currentTask.previous = null;
@@ -225,6 +248,7 @@ public class BatchHelper<T, R, CT, CR> {
         public final Thread thread = Thread.currentThread();
 
         public WaitingTask<T, R> previous;
+        public int depth;
 
         WaitingTask(T task) {
             this.wrappedTask = task;
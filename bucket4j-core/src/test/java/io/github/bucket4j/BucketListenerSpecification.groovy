@@ -43,4 +43,38 @@ class BucketListenerSpecification extends Specification {
             type << BucketType.values()
     }
 
+    @Unroll
+    def "#type bucket should report consumed and rejected tokens to striped listener"(BucketType type) {
+        setup:
+            TimeMeterMock clock = new TimeMeterMock()
+            StripedBucketListener listener = new StripedBucketListener()
+            BucketConfiguration configuration = BucketConfiguration.builder()
+                .addLimit({it.capacity(10).refillGreedy(10, Duration.ofSeconds(1))})
+                .build()
+            Bucket bucket = type.createBucket(configuration, clock).toListenable(listener)
+
+        when:
+            bucket.tryConsume(9)
+            bucket.tryConsume(2)
+        then:
+            listener.getConsumed() == 9
+            listener.getRejected() == 2
+
+        when:
+            StripedBucketListener.Snapshot snapshot = listener.snapshotAndReset()
+        then:
+            snapshot.getConsumed() == 9
+            snapshot.getRejected() == 2
+            listener.snapshot().getConsumed() == 0
+            listener.snapshot().getRejected() == 0
+
+        when:
+            bucket.tryConsume(1)
+        then:
+            listener.snapshotAndReset().getConsumed() == 1
+
+        where:
+            type << BucketType.values()
+    }
+
 }
@@ -0,0 +1,88 @@
+package io.github.bucket4j
+
+import io.github.bucket4j.mock.TimeMeterMock
+import spock.lang.Specification
+import spock.lang.Timeout
+
+import java.time.Duration
+
+class CachedTimeMeterSpecification extends Specification {
+
+    def "Should check parameters"() {
+        when:
+            new CachedTimeMeter(null, Duration.ofMillis(1))
+        then:
+            thrown(IllegalArgumentException)
+
+        when:
+            new CachedTimeMeter(TimeMeter.SYSTEM_NANOTIME, Duration.ZERO)
+        then:
+            thrown(IllegalArgumentException)
+
+        when:
+            Bucket.builder().withCoarsePrecision(null)
+        then:
+            thrown(IllegalArgumentException)
+    }
+
+    @Timeout(10)
+    def "Should follow the source and never go backward"() {
+        setup:
+            TimeMeterMock source = new TimeMeterMock(1000)
+            CachedTimeMeter timeMeter = new CachedTimeMeter(source, Duration.ofMillis(1))
+        expect:
+            timeMeter.currentTimeNanos() == 1000
+            timeMeter.isWallClockBased() == source.isWallClockBased()
+
+        when:
+            source.setCurrentTimeNanos(5000)
+            while (timeMeter.currentTimeNanos() != 5000) {
+                Thread.sleep(1)
+            }
+            source.setCurrentTimeNanos(3000)
+            Thread.sleep(20)
+        then:
+            timeMeter.currentTimeNanos() == 5000
+
+        when:
+            timeMeter.close()
+            Thread.sleep(20)
+            source.setCurrentTimeNanos(9000)
+            Thread.sleep(20)
+        then: "time is frozen after close"
+            timeMeter.currentTimeNanos() == 5000
+
+        cleanup:
+            timeMeter.close()
+    }
+
+    def "Shared instances should be reused and should not be closed"() {
+        setup:
+            CachedTimeMeter timeMeter = CachedTimeMeter.sharedMilliseconds(Duration.ofMillis(1))
+        when:
+            timeMeter.close()
+            long before = timeMeter.currentTimeNanos()
+            Thread.sleep(20)
+        then:
+            CachedTimeMeter.sharedMilliseconds(Duration.ofNanos(1_000_000)).is(timeMeter)
+            timeMeter.isWallClockBased()
+            timeMeter.currentTimeNanos() > before
+    }
+
+    @Timeout(10)
+    def "Bucket with coarse precision should refill tokens"() {
+        setup:
+            Bucket bucket = Bucket.builder()
+                .addLimit({it.capacity(10).refillGreedy(10, Duration.ofMillis(100))})
+                .withCoarsePrecision(Duration.ofMillis(1))
+                .build()
+        when:
+            bucket.tryConsume(10)
+            while (!bucket.tryConsume(5)) {
+                Thread.sleep(1)
+            }
+        then:
+            !bucket.tryConsume(10)
+    }
+
+}
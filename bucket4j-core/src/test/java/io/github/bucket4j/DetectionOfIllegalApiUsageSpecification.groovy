@@ -188,6 +188,42 @@ class DetectionOfIllegalApiUsageSpecification extends Specification {
             ex.message == nonPositiveTokensToConsume(-1).message
     }
 
+    @Unroll
+    def "#type should check costs of items in batch"(BucketType type) {
+        setup:
+            BucketConfiguration configuration = BucketConfiguration.builder()
+                .addLimit({limit -> limit.capacity(3).refillGreedy(3, ofMinutes(1))})
+                .build()
+            Bucket bucket = type.createBucket(configuration)
+
+        when:
+            bucket.tryConsumeBatch(null)
+        then:
+            IllegalArgumentException ex = thrown()
+            ex.message == nullItemCosts().message
+
+        when:
+            bucket.tryConsumeBatch(new long[0])
+        then:
+            ex = thrown()
+            ex.message == emptyItemCosts().message
+
+        when:
+            bucket.tryConsumeBatch([1L, 0L] as long[])
+        then:
+            ex = thrown()
+            ex.message == nonPositiveTokensToConsume(0).message
+
+        when:
+            bucket.tryConsumeBatch([1L, -1L] as long[])
+        then:
+            ex = thrown()
+            ex.message == nonPositiveTokensToConsume(-1).message
+
+        where:
+            type << BucketType.values()
+    }
+
     def "Should detect the high rate of refill"() {
         when:
            Bucket.builder().addLimit(Bandwidth.simple(2, ofNanos(1)))
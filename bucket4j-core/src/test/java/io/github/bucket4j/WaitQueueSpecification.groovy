@@ -0,0 +1,363 @@
+package io.github.bucket4j
+
+import io.github.bucket4j.distributed.BucketProxy
+import io.github.bucket4j.local.SynchronizationStrategy
+import io.github.bucket4j.mock.BlockingStrategyMock
+import io.github.bucket4j.mock.ProxyManagerMock
+import io.github.bucket4j.mock.TimeMeterMock
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+
+class WaitQueueSpecification extends Specification {
+
+    private TimeMeterMock clock = new TimeMeterMock()
+    private List<Map<String, Object>> scheduledTasks = []
+    private ScheduledExecutorService scheduler = [
+        schedule: { Runnable task, long delay, TimeUnit unit ->
+            scheduledTasks.add([task: task, delayNanos: unit.toNanos(delay)])
+            return null
+        }
+    ] as ScheduledExecutorService
+
+    def "Should check parameters"() {
+        when:
+            new WaitQueueParameters(0, 1)
+        then:
+            thrown(IllegalArgumentException)
+
+        when:
+            new WaitQueueParameters(1, 0)
+        then:
+            thrown(IllegalArgumentException)
+
+        when:
+            Bucket.builder().withWaitQueue(null)
+        then:
+            thrown(IllegalArgumentException)
+
+        expect:
+            WaitQueueParameters.unbounded().maxWaiters == Integer.MAX_VALUE
+            WaitQueueParameters.bounded(3).maxWaiters == 3
+            WaitQueueParameters.bounded(3).maxQueuedTokens == Long.MAX_VALUE
+    }
+
+    @Unroll
+    def "#strategy bucket should schedule single timer and complete waiters in FIFO order"(SynchronizationStrategy strategy) {
+        setup:
+            Bucket bucket = Bucket.builder()
+                .addLimit({it.capacity(10).refillGreedy(10, Duration.ofSeconds(1))})
+                .withCustomTimePrecision(clock)
+                .withSynchronizationStrategy(strategy)
+                .withWaitQueue(WaitQueueParameters.unbounded())
+                .build()
+            bucket.tryConsume(10)
+            List<Integer> completed = new CopyOnWriteArrayList<>()
+        when:
+            for (int i = 1; i <= 3; i++) {
+                int waiter = i
+                bucket.asScheduler().tryConsume(1, Duration.ofSeconds(1), scheduler).thenRun({ completed.add(waiter) })
+            }
+        then: "only the head of queue has scheduled the timer"
+            scheduledTasks.size() == 1
+            scheduledTasks[0].delayNanos == 100_000_000
+            completed.isEmpty()
+
+        when:
+            scheduledTasks.remove(0).task.run()
+        then: "timer for the next waiter is scheduled only after the previous one is woken"
+            completed == [1]
+            scheduledTasks.size() == 1
+            scheduledTasks[0].delayNanos > 0
+            scheduledTasks[0].delayNanos <= 200_000_000
+
+        when:
+            scheduledTasks.remove(0).task.run()
+            scheduledTasks.remove(0).task.run()
+        then:
+            completed == [1, 2, 3]
+            scheduledTasks.isEmpty()
+        where:
+            strategy << SynchronizationStrategy.values()
+    }
+
+    def "Waiter should keep the place of its reservation even if the next reserver reaches the queue first"() {
+        setup:
+            Bucket bucket = Bucket.builder()
+                .addLimit({it.capacity(10).refillGreedy(10, Duration.ofSeconds(1))})
+                .withCustomTimePrecision(clock)
+                .withWaitQueue(WaitQueueParameters.unbounded())
+                .build()
+            bucket.tryConsume(10)
+            List<Integer> completed = new CopyOnWriteArrayList<>()
+            boolean secondReserved = false
+            Bucket firstReserver = bucket.toListenable(new SimpleBucketListener() {
+                @Override
+                void onDelayed(long nanos) {
+                    super.onDelayed(nanos)
+                    if (!secondReserved) {
+                        // the second request reserves and schedules itself between reservation and scheduling of the first one
+                        secondReserved = true
+                        bucket.asScheduler().tryConsume(1, Duration.ofSeconds(1), scheduler).thenRun({ completed.add(2) })
+                    }
+                }
+            })
+        when:
+            firstReserver.asScheduler().tryConsume(1, Duration.ofSeconds(1), scheduler).thenRun({ completed.add(1) })
+        then: "the timer is owned by the first reserver"
+            secondReserved
+            scheduledTasks.size() == 1
+            scheduledTasks[0].delayNanos == 100_000_000
+            completed.isEmpty()
+
+        when:
+            scheduledTasks.remove(0).task.run()
+        then:
+            completed == [1]
+            scheduledTasks.size() == 1
+
+        when:
+            scheduledTasks.remove(0).task.run()
+        then:
+            completed == [1, 2]
+            scheduledTasks.isEmpty()
+    }
+
+    def "Waiter should leave the queue when listener throws before parking or scheduling"() {
+        setup:
+            Bucket bucket = Bucket.builder()
+                .addLimit({it.capacity(10).refillGreedy(10, Duration.ofSeconds(1))})
+                .withCustomTimePrecision(clock)
+                .withWaitQueue(WaitQueueParameters.bounded(1))
+                .build()
+            bucket.tryConsume(10)
+            FifoWaitQueue waitQueue = bucket.getWaitQueue()
+            Bucket throwingOnDelay = bucket.toListenable(new SimpleBucketListener() {
+                @Override
+                void onDelayed(long nanos) {
+                    throw new IllegalStateException("listener failure")
+                }
+            })
+            Bucket throwingBeforeParking = bucket.toListenable(new SimpleBucketListener() {
+                @Override
+                void beforeParking(long nanos) {
+                    throw new IllegalStateException("listener failure")
+                }
+            })
+            List<Integer> completed = new CopyOnWriteArrayList<>()
+
+        when:
+            CompletableFuture<Boolean> failed = throwingOnDelay.asScheduler().tryConsume(1, Duration.ofSeconds(1), scheduler)
+        then:
+            failed.isCompletedExceptionally()
+            waitQueue.getWaitersCount() == 0
+            scheduledTasks.isEmpty()
+
+        when:
+            throwingBeforeParking.asBlocking().consume(1, new BlockingStrategyMock(clock))
+        then:
+            thrown(IllegalStateException)
+            waitQueue.getWaitersCount() == 0
+
+        when: "the place in bounded queue is released and the next waiter is not blocked by abandoned ones"
+            bucket.asScheduler().tryConsume(1, Duration.ofSeconds(1), scheduler).thenRun({ completed.add(1) })
+        then:
+            scheduledTasks.size() == 1
+            scheduledTasks[0].delayNanos == 300_000_000
+
+        when:
+            scheduledTasks.remove(0).task.run()
+        then:
+            completed == [1]
+            waitQueue.getWaitersCount() == 0
+    }
+
+    def "Should shed requests when queue is full"() {
+        setup:
+            Bucket bucket = Bucket.builder()
+                .addLimit({it.capacity(10).refillGreedy(10, Duration.ofSeconds(1))})
+                .withCustomTimePrecision(clock)
+                .withWaitQueue(WaitQueueParameters.bounded(2))
+                .build()
+            bucket.tryConsume(10)
+            bucket.asScheduler().tryConsume(1, Duration.ofSeconds(1), scheduler)
+            bucket.asScheduler().consume(1, scheduler)
+            long tokensBeforeShedding = bucket.getAvailableTokens()
+
+        when: "the request is shed without reservation of tokens"
+            CompletableFuture<Boolean> shedResult = bucket.asScheduler().tryConsume(1, Duration.ofSeconds(1), scheduler)
+        then:
+            shedResult.isDone()
+            !shedResult.get()
+            bucket.getAvailableTokens() == tokensBeforeShedding
+
+        when:
+            bucket.asScheduler().consume(1, scheduler).get()
+        then:
+            ExecutionException e = thrown(ExecutionException)
+            e.cause instanceof IllegalStateException
+
+        when:
+            bucket.asBlocking().consume(1, new BlockingStrategyMock(clock))
+        then:
+            thrown(IllegalStateException)
+
+        when:
+            VerboseResult<Boolean> verboseResult = bucket.asScheduler().asVerbose().tryConsume(1, Duration.ofSeconds(1).toNanos(), scheduler).get()
+        then:
+            !verboseResult.value
+
+        when: "the place in queue is released after waiter is woken"
+            scheduledTasks.remove(0).task.run()
+        then:
+            !bucket.asScheduler().tryConsume(1, Duration.ofSeconds(1), scheduler).isDone()
+    }
+
+    def "Should shed requests when too many tokens are queued"() {
+        setup:
+            Bucket bucket = Bucket.builder()
+                .addLimit({it.capacity(10).refillGreedy(10, Duration.ofSeconds(1))})
+                .withCustomTimePrecision(clock)
+                .withWaitQueue(new WaitQueueParameters(100, 5))
+                .build()
+            bucket.tryConsume(10)
+        expect:
+            !bucket.asScheduler().tryConsume(3, Duration.ofSeconds(1), scheduler).isDone()
+            !bucket.asScheduler().tryConsume(2, Duration.ofSeconds(1), scheduler).isDone()
+            !bucket.asScheduler().tryConsume(1, Duration.ofSeconds(1), scheduler).get()
+    }
+
+    def "Should not queue requests that do not need to wait"() {
+        setup:
+            BlockingStrategyMock blockingStrategy = new BlockingStrategyMock(clock)
+            Bucket bucket = Bucket.builder()
+                .addLimit({it.capacity(10).refillGreedy(10, Duration.ofSeconds(1))})
+                .withCustomTimePrecision(clock)
+                .withWaitQueue(WaitQueueParameters.bounded(1))
+                .build()
+        when:
+            for (int i = 0; i < 10; i++) {
+                assert bucket.asBlocking().tryConsume(1, Duration.ofSeconds(1), blockingStrategy)
+            }
+            bucket.asBlocking().consume(1, blockingStrategy)
+            bucket.asBlocking().consumeUninterruptibly(1, blockingStrategy)
+        then:
+            blockingStrategy.parkedNanos == 200_000_000
+            scheduledTasks.isEmpty()
+    }
+
+    def "Blocked threads should be woken in FIFO order"() {
+        setup:
+            Bucket bucket = Bucket.builder()
+                .addLimit({it.capacity(1).refillGreedy(1, Duration.ofMillis(20))})
+                .withNanosecondPrecision()
+                .withWaitQueue(WaitQueueParameters.unbounded())
+                .build()
+            bucket.tryConsume(1)
+            FifoWaitQueue waitQueue = bucket.getWaitQueue()
+            List<Integer> completed = new CopyOnWriteArrayList<>()
+            List<Thread> threads = []
+        when:
+            for (int i = 1; i <= 5; i++) {
+                int waiter = i
+                Thread thread = new Thread({
+                    bucket.asBlocking().consume(1)
+                    completed.add(waiter)
+                })
+                thread.start()
+                threads.add(thread)
+                while (waitQueue.getWaitersCount() + completed.size() < waiter) {
+                    Thread.sleep(1)
+                }
+            }
+            threads.each { it.join() }
+        then:
+            completed == [1, 2, 3, 4, 5]
+            waitQueue.getWaitersCount() == 0
+    }
+
+    def "Interrupted waiter should leave the queue without blocking others"() {
+        setup:
+            Bucket bucket = Bucket.builder()
+                .addLimit({it.capacity(1).refillGreedy(1, Duration.ofMillis(50))})
+                .withNanosecondPrecision()
+                .withWaitQueue(WaitQueueParameters.bounded(2))
+                .build()
+            bucket.tryConsume(1)
+            FifoWaitQueue waitQueue = bucket.getWaitQueue()
+            Thread head = new Thread({ bucket.asBlocking().consume(1) })
+            Thread interrupted = new Thread({
+                try {
+                    bucket.asBlocking().consume(1)
+                } catch (InterruptedException e) {
+                    // expected
+                }
+            })
+        when:
+            head.start()
+            while (waitQueue.getWaitersCount() < 1) {
+                Thread.sleep(1)
+            }
+            interrupted.start()
+            while (waitQueue.getWaitersCount() < 2) {
+                Thread.sleep(1)
+            }
+            interrupted.interrupt()
+            interrupted.join()
+        then:
+            waitQueue.getWaitersCount() <= 1
+            bucket.asBlocking().tryConsume(1, Duration.ofSeconds(1))
+
+        when:
+            head.join()
+        then:
+            waitQueue.getWaitersCount() == 0
+    }
+
+    def "Bucket created by toListenable should share the queue with source bucket"() {
+        setup:
+            Bucket bucket = Bucket.builder()
+                .addLimit({it.capacity(10).refillGreedy(10, Duration.ofSeconds(1))})
+                .withCustomTimePrecision(clock)
+                .withWaitQueue(WaitQueueParameters.bounded(1))
+                .build()
+            Bucket listenableBucket = bucket.toListenable(new SimpleBucketListener())
+            bucket.tryConsume(10)
+        when:
+            bucket.asScheduler().tryConsume(1, Duration.ofSeconds(1), scheduler)
+        then:
+            !listenableBucket.asScheduler().tryConsume(1, Duration.ofSeconds(1), scheduler).get()
+    }
+
+    def "Should support wait queue for distributed buckets"() {
+        setup:
+            ProxyManagerMock<String> proxyManager = new ProxyManagerMock<>(clock)
+            BucketConfiguration configuration = BucketConfiguration.builder()
+                .addLimit({it.capacity(10).refillGreedy(10, Duration.ofSeconds(1))})
+                .build()
+            BucketProxy bucket = proxyManager.builder()
+                .withWaitQueue(WaitQueueParameters.bounded(1))
+                .build("42", { configuration })
+            bucket.tryConsume(10)
+            List<Integer> completed = new CopyOnWriteArrayList<>()
+        when:
+            bucket.asScheduler().consume(1, scheduler).thenRun({ completed.add(1) })
+            boolean shedResult = bucket.asScheduler().tryConsume(1, Duration.ofSeconds(1), scheduler).get()
+        then:
+            !shedResult
+            scheduledTasks.size() == 1
+            scheduledTasks[0].delayNanos == 100_000_000
+
+        when:
+            scheduledTasks.remove(0).task.run()
+        then:
+            completed == [1]
+    }
+
+}
@@ -0,0 +1,111 @@
+package io.github.bucket4j.api_specifications.regular
+
+import io.github.bucket4j.Bandwidth
+import io.github.bucket4j.BatchConsumptionProbe
+import io.github.bucket4j.Bucket
+import io.github.bucket4j.BucketConfiguration
+import io.github.bucket4j.SimpleBucketListener
+import io.github.bucket4j.distributed.AsyncBucketProxy
+import io.github.bucket4j.mock.BucketType
+import io.github.bucket4j.mock.TimeMeterMock
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.time.Duration
+
+import static java.lang.Long.MAX_VALUE
+
+class TryConsumeBatchSpecification extends Specification {
+
+    TimeMeterMock clock = new TimeMeterMock()
+    SimpleBucketListener listener = new SimpleBucketListener()
+
+    BucketConfiguration configuration = BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(10, Duration.ofSeconds(1)))
+            .build()
+
+    @Unroll
+    def "#n tryConsumeBatch specification"(int n, List<Long> costs, long initialTokens, int expectedAdmitted, long expectedConsumed, long expectedRemaining, long expectedWait) {
+        setup:
+            BucketConfiguration configuration = BucketConfiguration.builder()
+                .addLimit(Bandwidth.simple(100, Duration.ofNanos(100)).withInitialTokens(initialTokens))
+                .build()
+            long[] itemCosts = costs as long[]
+        expect:
+            for (BucketType type : BucketType.values()) {
+                TimeMeterMock timeMeter = new TimeMeterMock(0)
+                Bucket bucket = type.createBucket(configuration, timeMeter)
+                checkProbe(bucket.tryConsumeBatch(itemCosts), costs.size(), expectedAdmitted, expectedConsumed, expectedRemaining, expectedWait)
+                assert bucket.getAvailableTokens() == initialTokens - expectedConsumed
+
+                AsyncBucketProxy asyncBucket = type.createAsyncBucket(configuration, timeMeter)
+                checkProbe(asyncBucket.tryConsumeBatch(itemCosts).get(), costs.size(), expectedAdmitted, expectedConsumed, expectedRemaining, expectedWait)
+            }
+        where:
+            n | costs         | initialTokens | expectedAdmitted | expectedConsumed | expectedRemaining | expectedWait
+            1 | [10, 20, 30]  |      100      |        3         |        60        |        40         |       0
+            2 | [10, 20, 30]  |       35      |        2         |        30        |         5         |      25
+            3 | [50, 1]       |       40      |        0         |         0        |        40         |      10
+            4 | [5, 120]      |       10      |        1         |         5        |         5         |   MAX_VALUE
+            5 | [5, 30, 1]    |       10      |        1         |         5        |         5         |      25
+            6 | [1, 1, 1, 1]  |        4      |        4         |         4        |         0         |       0
+    }
+
+    @Unroll
+    def "#type test listener for tryConsumeBatch"(BucketType type) {
+        setup:
+            Bucket bucket = type.createBucket(configuration, clock, listener)
+
+        when:
+            bucket.tryConsumeBatch([3L, 4L] as long[])
+        then:
+            listener.getConsumed() == 7
+            listener.getRejected() == 0
+
+        when:
+            bucket.tryConsumeBatch([2L, 5L, 1L] as long[])
+        then:
+            listener.getConsumed() == 9
+            listener.getRejected() == 6
+
+        when:
+            bucket.tryConsumeBatch([1L] as long[])
+        then:
+            listener.getConsumed() == 10
+            listener.getRejected() == 6
+
+        where:
+            type << BucketType.values()
+    }
+
+    @Unroll
+    def "#type test listener for async tryConsumeBatch"(BucketType type) {
+        setup:
+            AsyncBucketProxy bucket = type.createAsyncBucket(configuration, clock, listener)
+
+        when:
+            bucket.tryConsumeBatch([3L, 4L] as long[]).get()
+        then:
+            listener.getConsumed() == 7
+            listener.getRejected() == 0
+
+        when:
+            bucket.tryConsumeBatch([2L, 5L, 1L] as long[]).get()
+        then:
+            listener.getConsumed() == 9
+            listener.getRejected() == 6
+
+        where:
+            type << BucketType.values()
+    }
+
+    private static void checkProbe(BatchConsumptionProbe probe, int items, int expectedAdmitted, long expectedConsumed, long expectedRemaining, long expectedWait) {
+        assert probe.admittedItems == expectedAdmitted
+        assert probe.rejectedItems == items - expectedAdmitted
+        assert probe.allAdmitted == (expectedAdmitted == items)
+        assert probe.consumedTokens == expectedConsumed
+        assert probe.remainingTokens == expectedRemaining
+        assert probe.nanosToWaitForRefill == expectedWait
+    }
+
+}
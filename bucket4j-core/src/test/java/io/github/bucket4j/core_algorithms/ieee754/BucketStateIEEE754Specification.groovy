@@ -0,0 +1,183 @@
+package io.github.bucket4j.core_algorithms.ieee754
+
+import io.github.bucket4j.Bandwidth
+import io.github.bucket4j.Bucket
+import io.github.bucket4j.BucketConfiguration
+import io.github.bucket4j.BucketState
+import io.github.bucket4j.BucketStateIEEE754
+import io.github.bucket4j.MathType
+import io.github.bucket4j.TokensInheritanceStrategy
+import io.github.bucket4j.mock.TimeMeterMock
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.time.Duration
+
+class BucketStateIEEE754Specification extends Specification {
+
+    private TimeMeterMock clock = new TimeMeterMock(0)
+
+    def "Builder should create IEEE 754 state"() {
+        setup:
+            Bucket bucket = Bucket.builder()
+                .addLimit({it.capacity(10).refillGreedy(10, Duration.ofSeconds(1))})
+                .withMath(MathType.IEEE_754)
+                .withCustomTimePrecision(clock)
+                .build()
+        expect:
+            bucket.asVerbose().getAvailableTokens().getState() instanceof BucketStateIEEE754
+
+        when:
+            Bucket.builder().withMath(null)
+        then:
+            thrown(IllegalArgumentException)
+    }
+
+    def "Should accumulate partially refilled tokens without rounding error"() {
+        setup:
+            Bucket bucket = Bucket.builder()
+                .addLimit({it.capacity(10).refillGreedy(3, Duration.ofNanos(10)).initialTokens(0)})
+                .withMath(MathType.IEEE_754)
+                .withCustomTimePrecision(clock)
+                .build()
+        when:
+            clock.addTime(3)
+        then: "0.9 tokens"
+            bucket.getAvailableTokens() == 0
+            bucket.estimateAbilityToConsume(1).nanosToWaitForRefill == 1
+
+        when:
+            clock.addTime(1)
+        then: "1.2 tokens"
+            bucket.tryConsume(1)
+            bucket.estimateAbilityToConsume(1).nanosToWaitForRefill == 3
+
+        when:
+            clock.addTime(100)
+        then:
+            bucket.getAvailableTokens() == 10
+    }
+
+    def "Greedy refill should be bit-identical to straightforward division"() {
+        setup:
+            long[] periods = [3, 10, 1_000, 999_999_937, 1_000_000_000, 3_600_000_000_000]
+            long[] refillTokens = [1, 3, 7, 10, 999, 1_000_000, 999_999_937]
+            long[] elapsed = [1, 2, 3, 7, 333, 1_000_001, 999_999_999, 123_456_789_012]
+        expect:
+            for (long period : periods) {
+                for (long tokens : refillTokens) {
+                    if (tokens > period) {
+                        continue
+                    }
+                    BucketConfiguration configuration = BucketConfiguration.builder()
+                        .addLimit({it.capacity(1_000_000_000_000_000L).refillGreedy(tokens, Duration.ofNanos(period)).initialTokens(0)})
+                        .build()
+                    for (long elapsedNanos : elapsed) {
+                        BucketStateIEEE754 state = new BucketStateIEEE754(configuration, 0)
+                        state.refillAllBandwidth(elapsedNanos)
+
+                        double expected = (double) elapsedNanos * (double) tokens / (double) period
+                        double rounded = Math.rint(expected)
+                        if (Math.abs(expected - rounded) < 1e-9) {
+                            expected = rounded
+                        }
+                        assert Double.doubleToRawLongBits(state.tokens[0]) == Double.doubleToRawLongBits(expected)
+                    }
+                }
+            }
+    }
+
+    def "Should refill intervally refilled bandwidth only by completed periods"() {
+        setup:
+            Bucket bucket = Bucket.builder()
+                .addLimit({it.capacity(10).refillIntervally(5, Duration.ofNanos(100)).initialTokens(0)})
+                .withMath(MathType.IEEE_754)
+                .withCustomTimePrecision(clock)
+                .build()
+        expect:
+            bucket.estimateAbilityToConsume(7).nanosToWaitForRefill == 200
+
+        when:
+            clock.addTime(99)
+        then:
+            bucket.getAvailableTokens() == 0
+            bucket.estimateAbilityToConsume(7).nanosToWaitForRefill == 101
+
+        when:
+            clock.addTime(1)
+        then:
+            bucket.getAvailableTokens() == 5
+
+        when:
+            clock.addTime(150)
+        then:
+            bucket.getAvailableTokens() == 10
+    }
+
+    def "Should saturate instead of overflow"() {
+        setup:
+            Bucket bucket = Bucket.builder()
+                .addLimit({it.capacity(10).refillGreedy(10, Duration.ofSeconds(1))})
+                .withMath(MathType.IEEE_754)
+                .withCustomTimePrecision(clock)
+                .build()
+        when:
+            bucket.addTokens(Long.MAX_VALUE)
+        then:
+            bucket.getAvailableTokens() == 10
+
+        when:
+            bucket.forceAddTokens(Long.MAX_VALUE)
+        then:
+            bucket.getAvailableTokens() == Long.MAX_VALUE
+
+        when:
+            clock.addTime(Long.MAX_VALUE / 2 as long)
+            bucket.reset()
+            bucket.consumeIgnoringRateLimits(10)
+        then:
+            bucket.estimateAbilityToConsume(Long.MAX_VALUE).nanosToWaitForRefill == Long.MAX_VALUE
+    }
+
+    @Unroll
+    def "Should behave like integer state #strategy"(TokensInheritanceStrategy strategy) {
+        setup:
+            BucketConfiguration configuration = BucketConfiguration.builder()
+                .addLimit({it.capacity(100).refillGreedy(10, Duration.ofNanos(1000))})
+                .addLimit({it.capacity(1000).refillIntervally(200, Duration.ofNanos(10_000))})
+                .build()
+            BucketConfiguration newConfiguration = BucketConfiguration.builder()
+                .addLimit({it.capacity(200).refillGreedy(20, Duration.ofNanos(1000))})
+                .addLimit({it.capacity(500).refillIntervally(100, Duration.ofNanos(10_000))})
+                .build()
+            BucketState integerState = BucketState.createInitialState(configuration, MathType.INTEGER_64_BITS, 0)
+            BucketState ieeeState = BucketState.createInitialState(configuration, MathType.IEEE_754, 0)
+            Random random = new Random(42)
+            long time = 0
+        expect:
+            for (int i = 0; i < 1000; i++) {
+                time += random.nextInt(500)
+                long tokens = random.nextInt(20)
+                for (BucketState state : [integerState, ieeeState]) {
+                    state.refillAllBandwidth(time)
+                    if (state.getAvailableTokens() >= tokens) {
+                        state.consume(tokens)
+                    }
+                }
+                assert integerState.getAvailableTokens() == ieeeState.getAvailableTokens()
+                assert Math.abs(integerState.calculateDelayNanosAfterWillBePossibleToConsume(50, time, false)
+                    - ieeeState.calculateDelayNanosAfterWillBePossibleToConsume(50, time, false)) <= 1
+                assert integerState.calculateFullRefillingTime(time) - ieeeState.calculateFullRefillingTime(time) in [-1L, 0L]
+            }
+
+        when:
+            BucketState replacedIntegerState = integerState.replaceConfiguration(newConfiguration, strategy, time)
+            BucketState replacedIeeeState = ieeeState.replaceConfiguration(newConfiguration, strategy, time)
+        then:
+            replacedIeeeState instanceof BucketStateIEEE754
+            Math.abs(replacedIntegerState.getAvailableTokens() - replacedIeeeState.getAvailableTokens()) <= 1
+        where:
+            strategy << TokensInheritanceStrategy.values()
+    }
+
+}
@@ -0,0 +1,169 @@
+package io.github.bucket4j.core_algorithms.integer
+
+import io.github.bucket4j.Bucket
+import io.github.bucket4j.BucketConfiguration
+import io.github.bucket4j.BucketState
+import io.github.bucket4j.BucketState64BitsInteger
+import io.github.bucket4j.BucketState64BitsIntegerSingleBandwidth
+import io.github.bucket4j.MathType
+import io.github.bucket4j.TokensInheritanceStrategy
+import io.github.bucket4j.distributed.serialization.DataOutputSerializationAdapter
+import io.github.bucket4j.distributed.serialization.Scope
+import io.github.bucket4j.distributed.versioning.Versions
+import io.github.bucket4j.local.SynchronizationStrategy
+import io.github.bucket4j.mock.TimeMeterMock
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.time.Duration
+import java.time.Instant
+
+class BucketState64BitsIntegerSingleBandwidthSpecification extends Specification {
+
+    private static final BucketConfiguration GREEDY = BucketConfiguration.builder()
+        .addLimit({it.capacity(100).refillGreedy(7, Duration.ofNanos(1000))})
+        .build()
+    private static final BucketConfiguration INTERVALLY = BucketConfiguration.builder()
+        .addLimit({it.capacity(100).refillIntervally(30, Duration.ofNanos(3000)).initialTokens(10)})
+        .build()
+    private static final BucketConfiguration INTERVALLY_ALIGNED = BucketConfiguration.builder()
+        .addLimit({it.capacity(100).refillIntervallyAlignedWithAdaptiveInitialTokens(30, Duration.ofNanos(3_000_000), Instant.ofEpochMilli(5))})
+        .build()
+    private static final BucketConfiguration MULTIPLE = BucketConfiguration.builder()
+        .addLimit({it.capacity(100).refillGreedy(7, Duration.ofNanos(1000))})
+        .addLimit({it.capacity(1000).refillIntervally(200, Duration.ofNanos(10_000))})
+        .build()
+
+    def "Initial state should be specialized only for single bandwidth"() {
+        expect:
+            BucketState.createInitialState(GREEDY, MathType.INTEGER_64_BITS, 0) instanceof BucketState64BitsIntegerSingleBandwidth
+            BucketState.createInitialState(MULTIPLE, MathType.INTEGER_64_BITS, 0) instanceof BucketState64BitsInteger
+
+        when:
+            new BucketState64BitsIntegerSingleBandwidth(MULTIPLE, 0)
+        then:
+            thrown(IllegalArgumentException)
+    }
+
+    @Unroll
+    def "Should behave exactly like general state #name"(String name, BucketConfiguration configuration) {
+        setup:
+            BucketState generalState = new BucketState64BitsInteger(configuration, 0)
+            BucketState singleState = new BucketState64BitsIntegerSingleBandwidth(configuration, 0)
+            Random random = new Random(42)
+            long time = 0
+        expect:
+            for (int i = 0; i < 3000; i++) {
+                time += random.nextInt(2000)
+                long tokens = random.nextInt(40)
+                int operation = random.nextInt(10)
+                for (BucketState state : [generalState, singleState]) {
+                    state.refillAllBandwidth(time)
+                    if (operation == 0) {
+                        state.addTokens(tokens)
+                    } else if (operation == 1) {
+                        state.forceAddTokens(tokens)
+                    } else if (operation == 2) {
+                        state.consume(tokens)
+                    } else if (state.getAvailableTokens() >= tokens) {
+                        state.consume(tokens)
+                    }
+                }
+                assert generalState.getCurrentSize(0) == singleState.getCurrentSize(0)
+                assert generalState.getRoundingError(0) == singleState.getRoundingError(0)
+                assert generalState.calculateDelayNanosAfterWillBePossibleToConsume(tokens * 3, time, true) ==
+                    singleState.calculateDelayNanosAfterWillBePossibleToConsume(tokens * 3, time, true)
+                assert generalState.calculateFullRefillingTime(time) == singleState.calculateFullRefillingTime(time)
+                if (operation == 3) {
+                    generalState.reset()
+                    singleState.reset()
+                }
+            }
+        where:
+            name                 | configuration
+            "greedy"             | GREEDY
+            "intervally"         | INTERVALLY
+            "intervally aligned" | INTERVALLY_ALIGNED
+    }
+
+    @Unroll
+    def "Should switch layout when number of bandwidths is changed by replacement of configuration #strategy"(TokensInheritanceStrategy strategy) {
+        setup:
+            BucketState singleState = BucketState.createInitialState(GREEDY, MathType.INTEGER_64_BITS, 0)
+            BucketState generalState = new BucketState64BitsInteger(GREEDY, 0)
+            singleState.consume(30)
+            generalState.consume(30)
+        when:
+            BucketState multipleState = singleState.replaceConfiguration(MULTIPLE, strategy, 500)
+        then:
+            multipleState instanceof BucketState64BitsInteger
+            multipleState.getAvailableTokens() == generalState.replaceConfiguration(MULTIPLE, strategy, 500).getAvailableTokens()
+
+        when:
+            BucketState backToSingleState = multipleState.replaceConfiguration(INTERVALLY, strategy, 1000)
+        then:
+            backToSingleState instanceof BucketState64BitsIntegerSingleBandwidth
+            backToSingleState.getConfiguration() == INTERVALLY
+        where:
+            strategy << TokensInheritanceStrategy.values()
+    }
+
+    def "Should be serialized in the same format as general state"() {
+        setup:
+            BucketState singleState = new BucketState64BitsIntegerSingleBandwidth(GREEDY, 0)
+            BucketState generalState = new BucketState64BitsInteger(GREEDY, 0)
+            for (BucketState state : [singleState, generalState]) {
+                state.refillAllBandwidth(1234)
+                state.consume(42)
+            }
+        expect:
+            serialize(singleState) == serialize(generalState)
+            BucketState.toJsonCompatibleSnapshot(singleState, Versions.v_8_10_0, Scope.PERSISTED_STATE) ==
+                BucketState.toJsonCompatibleSnapshot(generalState, Versions.v_8_10_0, Scope.PERSISTED_STATE)
+
+        when:
+            BucketState deserialized = deserialize(serialize(generalState))
+        then:
+            deserialized instanceof BucketState64BitsIntegerSingleBandwidth
+            deserialized.getCurrentSize(0) == singleState.getCurrentSize(0)
+            deserialized.getRoundingError(0) == singleState.getRoundingError(0)
+    }
+
+    @Unroll
+    def "#strategy bucket should survive changing of state layout"(SynchronizationStrategy strategy) {
+        setup:
+            TimeMeterMock clock = new TimeMeterMock(0)
+            Bucket bucket = Bucket.builder()
+                .addLimit({it.capacity(100).refillGreedy(7, Duration.ofNanos(1000))})
+                .withSynchronizationStrategy(strategy)
+                .withCustomTimePrecision(clock)
+                .build()
+        when:
+            bucket.tryConsume(10)
+            bucket.replaceConfiguration(MULTIPLE, TokensInheritanceStrategy.AS_IS)
+            bucket.tryConsume(10)
+        then: "bandwidths without identifiers are not inherited"
+            bucket.getAvailableTokens() == 90
+            bucket.asVerbose().getAvailableTokens().getState() instanceof BucketState64BitsInteger
+
+        when:
+            bucket.replaceConfiguration(GREEDY, TokensInheritanceStrategy.AS_IS)
+            bucket.tryConsume(10)
+        then:
+            bucket.getAvailableTokens() == 90
+            bucket.asVerbose().getAvailableTokens().getState() instanceof BucketState64BitsIntegerSingleBandwidth
+        where:
+            strategy << SynchronizationStrategy.values()
+    }
+
+    private static byte[] serialize(BucketState state) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream()
+        BucketState.serialize(DataOutputSerializationAdapter.INSTANCE, new DataOutputStream(bytes), state, Versions.v_8_10_0, Scope.PERSISTED_STATE)
+        return bytes.toByteArray()
+    }
+
+    private static BucketState deserialize(byte[] bytes) {
+        return BucketState.deserialize(DataOutputSerializationAdapter.INSTANCE, new DataInputStream(new ByteArrayInputStream(bytes)))
+    }
+
+}
@@ -0,0 +1,167 @@
+package io.github.bucket4j.core_algorithms.integer
+
+import io.github.bucket4j.Bucket
+import io.github.bucket4j.BucketConfiguration
+import io.github.bucket4j.BucketState
+import io.github.bucket4j.BucketState64BitsInteger
+import io.github.bucket4j.BucketState64BitsIntegerStructOfArrays
+import io.github.bucket4j.ConfigurationBuilder
+import io.github.bucket4j.MathType
+import io.github.bucket4j.TokensInheritanceStrategy
+import io.github.bucket4j.distributed.serialization.DataOutputSerializationAdapter
+import io.github.bucket4j.distributed.serialization.Scope
+import io.github.bucket4j.distributed.versioning.Versions
+import io.github.bucket4j.local.LocalBucketBuilder
+import io.github.bucket4j.local.SynchronizationStrategy
+import io.github.bucket4j.mock.TimeMeterMock
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.time.Duration
+
+class BucketState64BitsIntegerStructOfArraysSpecification extends Specification {
+
+    private static final BucketConfiguration MANY = configuration(7)
+    private static final BucketConfiguration FEW = configuration(3)
+
+    private static BucketConfiguration configuration(int bandwidths) {
+        ConfigurationBuilder builder = BucketConfiguration.builder()
+        for (int i = 0; i < bandwidths; i++) {
+            long capacity = 50 + 40 * i
+            long tokens = 3 + i
+            Duration period = Duration.ofNanos(1000 + 997 * i)
+            String id = "limit-" + i
+            if (i % 2 == 0) {
+                builder.addLimit({it.capacity(capacity).refillGreedy(tokens, period).id(id)})
+            } else {
+                builder.addLimit({it.capacity(capacity).refillIntervally(tokens, period).id(id)})
+            }
+        }
+        return builder.build()
+    }
+
+    def "Initial state should use struct of arrays layout only for many bandwidths"() {
+        expect:
+            BucketState.createInitialState(MANY, MathType.INTEGER_64_BITS, 0) instanceof BucketState64BitsIntegerStructOfArrays
+            BucketState.createInitialState(FEW, MathType.INTEGER_64_BITS, 0) instanceof BucketState64BitsInteger
+    }
+
+    def "Should behave exactly like interleaved state"() {
+        setup:
+            BucketState interleavedState = new BucketState64BitsInteger(MANY, 0)
+            BucketState structOfArraysState = new BucketState64BitsIntegerStructOfArrays(MANY, 0)
+            Random random = new Random(42)
+            long time = 0
+        expect:
+            for (int i = 0; i < 3000; i++) {
+                time += random.nextInt(3000)
+                long tokens = random.nextInt(40)
+                int operation = random.nextInt(10)
+                for (BucketState state : [interleavedState, structOfArraysState]) {
+                    state.refillAllBandwidth(time)
+                    if (operation == 0) {
+                        state.addTokens(tokens)
+                    } else if (operation == 1) {
+                        state.forceAddTokens(tokens)
+                    } else if (operation == 2) {
+                        state.consume(tokens)
+                    } else if (state.getAvailableTokens() >= tokens) {
+                        state.consume(tokens)
+                    }
+                }
+                for (int j = 0; j < MANY.getBandwidths().length; j++) {
+                    assert interleavedState.getCurrentSize(j) == structOfArraysState.getCurrentSize(j)
+                    assert interleavedState.getRoundingError(j) == structOfArraysState.getRoundingError(j)
+                }
+                assert interleavedState.getAvailableTokens() == structOfArraysState.getAvailableTokens()
+                assert interleavedState.calculateDelayNanosAfterWillBePossibleToConsume(tokens * 3, time, true) ==
+                    structOfArraysState.calculateDelayNanosAfterWillBePossibleToConsume(tokens * 3, time, true)
+                assert interleavedState.calculateFullRefillingTime(time) == structOfArraysState.calculateFullRefillingTime(time)
+                if (operation == 3) {
+                    interleavedState.reset()
+                    structOfArraysState.reset()
+                }
+            }
+    }
+
+    @Unroll
+    def "Should switch layout when number of bandwidths is changed by replacement of configuration #strategy"(TokensInheritanceStrategy strategy) {
+        setup:
+            BucketState state = BucketState.createInitialState(MANY, MathType.INTEGER_64_BITS, 0)
+            state.consume(30)
+        when:
+            BucketState fewState = state.replaceConfiguration(FEW, strategy, 500)
+        then:
+            fewState instanceof BucketState64BitsInteger
+            fewState.getAvailableTokens() == new BucketState64BitsInteger(MANY, 0).with {
+                it.consume(30)
+                it.replaceConfiguration(FEW, strategy, 500).getAvailableTokens()
+            }
+
+        when:
+            BucketState manyState = fewState.replaceConfiguration(MANY, strategy, 1000)
+        then:
+            manyState instanceof BucketState64BitsIntegerStructOfArrays
+            manyState.getConfiguration() == MANY
+        where:
+            strategy << TokensInheritanceStrategy.values()
+    }
+
+    def "Should be serialized in the same format as interleaved state"() {
+        setup:
+            BucketState structOfArraysState = new BucketState64BitsIntegerStructOfArrays(MANY, 0)
+            BucketState interleavedState = new BucketState64BitsInteger(MANY, 0)
+            for (BucketState state : [structOfArraysState, interleavedState]) {
+                state.refillAllBandwidth(1234)
+                state.consume(42)
+            }
+        expect:
+            serialize(structOfArraysState) == serialize(interleavedState)
+            BucketState.toJsonCompatibleSnapshot(structOfArraysState, Versions.v_8_10_0, Scope.PERSISTED_STATE) ==
+                BucketState.toJsonCompatibleSnapshot(interleavedState, Versions.v_8_10_0, Scope.PERSISTED_STATE)
+
+        when:
+            BucketState deserialized = deserialize(serialize(interleavedState))
+        then:
+            deserialized instanceof BucketState64BitsIntegerStructOfArrays
+            deserialized.toString() == interleavedState.toString()
+    }
+
+    @Unroll
+    def "#strategy bucket should survive changing of state layout"(SynchronizationStrategy strategy) {
+        setup:
+            TimeMeterMock clock = new TimeMeterMock(0)
+            LocalBucketBuilder builder = Bucket.builder()
+                .withSynchronizationStrategy(strategy)
+                .withCustomTimePrecision(clock)
+            MANY.getBandwidths().each { builder.addLimit(it) }
+            Bucket bucket = builder.build()
+        when:
+            bucket.tryConsume(10)
+            bucket.replaceConfiguration(FEW, TokensInheritanceStrategy.AS_IS)
+            bucket.tryConsume(10)
+        then:
+            bucket.getAvailableTokens() == 30
+            bucket.asVerbose().getAvailableTokens().getState() instanceof BucketState64BitsInteger
+
+        when:
+            bucket.replaceConfiguration(MANY, TokensInheritanceStrategy.AS_IS)
+            bucket.tryConsume(10)
+        then:
+            bucket.getAvailableTokens() == 20
+            bucket.asVerbose().getAvailableTokens().getState() instanceof BucketState64BitsIntegerStructOfArrays
+        where:
+            strategy << SynchronizationStrategy.values()
+    }
+
+    private static byte[] serialize(BucketState state) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream()
+        BucketState.serialize(DataOutputSerializationAdapter.INSTANCE, new DataOutputStream(bytes), state, Versions.v_8_10_0, Scope.PERSISTED_STATE)
+        return bytes.toByteArray()
+    }
+
+    private static BucketState deserialize(byte[] bytes) {
+        return BucketState.deserialize(DataOutputSerializationAdapter.INSTANCE, new DataInputStream(new ByteArrayInputStream(bytes)))
+    }
+
+}
@@ -0,0 +1,86 @@
+package io.github.bucket4j.core_algorithms.integer
+
+import io.github.bucket4j.BucketConfiguration
+import io.github.bucket4j.BucketState
+import io.github.bucket4j.ConfigurationBuilder
+import io.github.bucket4j.MathType
+import io.github.bucket4j.distributed.serialization.DataOutputSerializationAdapter
+import io.github.bucket4j.distributed.serialization.Scope
+import io.github.bucket4j.distributed.versioning.Versions
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.time.Duration
+
+class LazyRefillSpecification extends Specification {
+
+    @Unroll
+    def "Skipping of refill should not be observable with #bandwidths bandwidths intervally=#intervally"(int bandwidths, boolean intervally) {
+        setup:
+            ConfigurationBuilder builder = BucketConfiguration.builder()
+            for (int i = 0; i < bandwidths; i++) {
+                long capacity = 20 + 10 * i
+                long tokens = 3 + i
+                Duration period = Duration.ofNanos(1000 + 997 * i)
+                if (intervally || i % 2 == 1) {
+                    builder.addLimit({it.capacity(capacity).refillIntervally(tokens, period)})
+                } else {
+                    builder.addLimit({it.capacity(capacity).refillGreedy(tokens, period)})
+                }
+            }
+            BucketConfiguration configuration = builder.build()
+            BucketState lazyState = BucketState.createInitialState(configuration, MathType.INTEGER_64_BITS, 0)
+            BucketState eagerState = lazyState.copy()
+            Random random = new Random(42)
+            long time = 0
+        expect:
+            for (int i = 0; i < 5000; i++) {
+                // idle periods are needed to make bandwidths full
+                time += random.nextInt(10) == 0 ? random.nextInt(50_000) : random.nextInt(300)
+                long tokens = random.nextInt(5)
+                int operation = random.nextInt(12)
+                // state restored from binary form does not know anything about skipped refills
+                eagerState = deserialize(serialize(eagerState), configuration)
+                for (BucketState state : [lazyState, eagerState]) {
+                    state.refillAllBandwidth(time)
+                    if (operation == 0) {
+                        state.addTokens(tokens)
+                    } else if (operation == 1) {
+                        state.forceAddTokens(tokens)
+                    } else if (operation == 2) {
+                        state.reset()
+                    } else if (operation < 6 && state.getAvailableTokens() >= tokens) {
+                        state.consume(tokens)
+                    }
+                }
+                assert lazyState.toString() == eagerState.toString()
+                assert lazyState.getAvailableTokens() == eagerState.getAvailableTokens()
+                if (operation == 6) {
+                    assert lazyState.calculateDelayNanosAfterWillBePossibleToConsume(tokens * 20, time, false) ==
+                        eagerState.calculateDelayNanosAfterWillBePossibleToConsume(tokens * 20, time, false)
+                    assert lazyState.calculateFullRefillingTime(time) == eagerState.calculateFullRefillingTime(time)
+                }
+            }
+        where:
+            bandwidths | intervally
+            1          | false
+            1          | true
+            3          | false
+            3          | true
+            7          | false
+            7          | true
+    }
+
+    private static byte[] serialize(BucketState state) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream()
+        BucketState.serialize(DataOutputSerializationAdapter.INSTANCE, new DataOutputStream(bytes), state, Versions.v_8_10_0, Scope.PERSISTED_STATE)
+        return bytes.toByteArray()
+    }
+
+    private static BucketState deserialize(byte[] bytes, BucketConfiguration configuration) {
+        BucketState state = BucketState.deserialize(DataOutputSerializationAdapter.INSTANCE, new DataInputStream(new ByteArrayInputStream(bytes)))
+        state.setConfiguration(configuration)
+        return state
+    }
+
+}
@@ -0,0 +1,120 @@
+package io.github.bucket4j.distributed.proxy
+
+import io.github.bucket4j.Bandwidth
+import io.github.bucket4j.BucketConfiguration
+import io.github.bucket4j.BucketState
+import io.github.bucket4j.MathType
+import io.github.bucket4j.distributed.remote.CommandResult
+import io.github.bucket4j.distributed.remote.RemoteBucketState
+import io.github.bucket4j.distributed.remote.RemoteStat
+import io.github.bucket4j.distributed.remote.Request
+import io.github.bucket4j.distributed.remote.commands.GetAvailableTokensCommand
+import io.github.bucket4j.distributed.remote.commands.TryConsumeCommand
+import io.github.bucket4j.distributed.remote.commands.VerboseCommand
+import io.github.bucket4j.distributed.versioning.Versions
+import spock.lang.Specification
+
+import java.time.Duration
+
+class NearCacheSpecification extends Specification {
+
+    private BucketConfiguration configuration = BucketConfiguration.builder()
+        .addLimit(Bandwidth.simple(100, Duration.ofMinutes(1)))
+        .build()
+    private RemoteBucketState state = new RemoteBucketState(BucketState.createInitialState(configuration, MathType.INTEGER_64_BITS, 0L), new RemoteStat(0), null)
+    private Request<Long> getAvailableTokens = new Request<>(new GetAvailableTokensCommand(), Versions.getLatest(), 0L, null)
+
+    def "Should declare read-only commands"() {
+        expect:
+            new GetAvailableTokensCommand().isReadOnly()
+            VerboseCommand.from(new GetAvailableTokensCommand()).isReadOnly()
+            !new TryConsumeCommand(1).isReadOnly()
+            !VerboseCommand.from(new TryConsumeCommand(1)).isReadOnly()
+    }
+
+    def "Should serve read-only commands from cached state"() {
+        setup:
+            NearCache<Integer> nearCache = new NearCache<>(Duration.ofMinutes(1), 10)
+        expect:
+            nearCache.isCacheable(getAvailableTokens)
+            !nearCache.isCacheable(new Request<>(new TryConsumeCommand(1), Versions.getLatest(), 0L, null))
+            nearCache.execute(1, getAvailableTokens) == null
+
+        when:
+            long stamp = nearCache.beginLoad(1)
+            CommandResult<Long> loadedResult = nearCache.putAndExecute(1, state, stamp, getAvailableTokens)
+            state.consume(10)
+        then: "cache holds copy of state"
+            loadedResult.getData() == 100
+            nearCache.execute(1, getAvailableTokens).getData() == 100
+
+        when:
+            nearCache.invalidate(1)
+        then:
+            nearCache.execute(1, getAvailableTokens) == null
+    }
+
+    def "Should not cache state that was read before invalidation"() {
+        setup:
+            NearCache<Integer> nearCache = new NearCache<>(Duration.ofMinutes(1), 10)
+        when:
+            long stamp = nearCache.beginLoad(1)
+            nearCache.invalidate(1)
+            CommandResult<Long> result = nearCache.putAndExecute(1, state, stamp, getAvailableTokens)
+        then:
+            result.getData() == 100
+            nearCache.execute(1, getAvailableTokens) == null
+    }
+
+    def "Modification of other key should not cancel the loading"() {
+        setup:
+            NearCache<Integer> nearCache = new NearCache<>(Duration.ofMinutes(1), 16)
+        when:
+            long stamp = nearCache.beginLoad(1)
+            nearCache.invalidate(2)
+            nearCache.putAndExecute(1, state, stamp, getAvailableTokens)
+        then:
+            nearCache.execute(1, getAvailableTokens).getData() == 100
+    }
+
+    def "Should respect time to live"() {
+        setup:
+            NearCache<Integer> nearCache = new NearCache<>(Duration.ofMillis(50), 16)
+        when:
+            nearCache.putAndExecute(1, state, nearCache.beginLoad(1), getAvailableTokens)
+        then:
+            nearCache.execute(1, getAvailableTokens) != null
+
+        when:
+            Thread.sleep(100)
+        then:
+            nearCache.execute(1, getAvailableTokens) == null
+    }
+
+    def "New key should evict the key that occupies the same slot"() {
+        setup:
+            NearCache<Integer> nearCache = new NearCache<>(Duration.ofMinutes(1), 1)
+        when:
+            nearCache.putAndExecute(1, state, nearCache.beginLoad(1), getAvailableTokens)
+            nearCache.putAndExecute(2, state, nearCache.beginLoad(2), getAvailableTokens)
+        then:
+            nearCache.execute(1, getAvailableTokens) == null
+            nearCache.execute(2, getAvailableTokens) != null
+
+        when: "invalidation of evicted key does not affect the key that occupies the slot"
+            nearCache.invalidate(1)
+        then:
+            nearCache.execute(2, getAvailableTokens) != null
+    }
+
+    def "Should report bucket absence without caching"() {
+        setup:
+            NearCache<Integer> nearCache = new NearCache<>(Duration.ofMinutes(1), 10)
+        when:
+            CommandResult<Long> result = nearCache.putAndExecute(1, null, nearCache.beginLoad(1), getAvailableTokens)
+        then:
+            result.isBucketNotFound()
+            nearCache.execute(1, getAvailableTokens) == null
+    }
+
+}
@@ -0,0 +1,225 @@
+package io.github.bucket4j.distributed.proxy
+
+import io.github.bucket4j.Bandwidth
+import io.github.bucket4j.Bucket
+import io.github.bucket4j.BucketConfiguration
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AbstractCompareAndSwapBasedProxyManager
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AsyncCompareAndSwapOperation
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapOperation
+import io.github.bucket4j.distributed.proxy.jfr.JfrProxyManagerListener
+import io.github.bucket4j.distributed.remote.RemoteBucketState
+import io.github.bucket4j.distributed.remote.RemoteCommand
+import io.github.bucket4j.mock.CompareAndSwapBasedProxyManagerMock
+import io.github.bucket4j.mock.LockBasedProxyManagerMock
+import io.github.bucket4j.mock.TimeMeterMock
+import jdk.jfr.Recording
+import jdk.jfr.consumer.RecordedEvent
+import jdk.jfr.consumer.RecordingFile
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+
+class ProxyManagerListenerSpecification extends Specification {
+
+    private TimeMeterMock clock = new TimeMeterMock()
+    private RecordingProxyManagerListener listener = new RecordingProxyManagerListener()
+    private BucketConfiguration configuration = BucketConfiguration.builder()
+        .addLimit(Bandwidth.simple(10, Duration.ofSeconds(1)))
+        .build()
+
+    def "Should not measure anything by default"() {
+        expect:
+            ClientSideConfig.getDefault().getProxyManagerListener() == ProxyManagerListener.NOPE
+    }
+
+    def "Should report command execution and payload sizes"() {
+        setup:
+            ClientSideConfig config = ClientSideConfig.getDefault().withClientClock(clock).withProxyManagerListener(listener)
+            CompareAndSwapBasedProxyManagerMock<Integer> proxyManager = new CompareAndSwapBasedProxyManagerMock<>(config)
+            Bucket bucket = proxyManager.builder().build(1, configuration)
+        when:
+            bucket.tryConsume(1)
+        then: "first attempt failed because bucket does not exist, second attempt created the bucket"
+            listener.executedCommands.size() == 2
+            listener.executedCommands.every { !it.async && it.error == null }
+            listener.writtenBytes.size() == 1
+            listener.writtenBytes[0] > 0
+
+        when:
+            bucket.asVerbose().tryConsume(1)
+        then:
+            listener.executedCommands.size() == 3
+            listener.readBytes.size() == 1
+            listener.writtenBytes.size() == 2
+
+        when:
+            proxyManager.asAsync().builder().build(1, configuration).tryConsume(1).get()
+        then:
+            listener.executedCommands.size() == 4
+            listener.executedCommands[3].async
+    }
+
+    def "Should report compare-and-swap retries"() {
+        setup:
+            ClientSideConfig config = ClientSideConfig.getDefault().withClientClock(clock).withProxyManagerListener(listener)
+            ContendedProxyManager proxyManager = new ContendedProxyManager(config)
+            Bucket bucket = proxyManager.builder().build(1, configuration)
+            bucket.getAvailableTokens()
+        when:
+            proxyManager.unsuccessfulAttemptsToSimulate = 2
+            bucket.tryConsume(1)
+        then:
+            listener.casRetries == [1, 2]
+
+        when:
+            proxyManager.unsuccessfulAttemptsToSimulate = 1
+            proxyManager.asAsync().builder().build(1, configuration).tryConsume(1).get()
+        then:
+            listener.casRetries == [1, 2, 1]
+    }
+
+    def "Should report lock acquisition"() {
+        setup:
+            ClientSideConfig config = ClientSideConfig.getDefault().withClientClock(clock).withProxyManagerListener(listener)
+            LockBasedProxyManagerMock<Integer> proxyManager = new LockBasedProxyManagerMock<>(config)
+            Bucket bucket = proxyManager.builder().build(1, configuration)
+        when:
+            bucket.tryConsume(1)
+        then:
+            listener.lockWaits.size() == 2
+            listener.lockWaits.every { it >= 0 }
+    }
+
+    def "Should emit JFR events"() {
+        setup:
+            Path dump = Files.createTempFile("bucket4j", ".jfr")
+            ClientSideConfig config = ClientSideConfig.getDefault()
+                .withClientClock(clock)
+                .withProxyManagerListener(new JfrProxyManagerListener("in-memory"))
+            ContendedProxyManager proxyManager = new ContendedProxyManager(config)
+            Bucket bucket = proxyManager.builder().build(1, configuration)
+            Recording recording = new Recording()
+            recording.enable("io.github.bucket4j.RemoteCommand")
+            recording.enable("io.github.bucket4j.CompareAndSwapRetry")
+            recording.enable("io.github.bucket4j.StatePayload")
+        when:
+            recording.start()
+            bucket.getAvailableTokens()
+            proxyManager.unsuccessfulAttemptsToSimulate = 1
+            bucket.tryConsume(1)
+            recording.stop()
+            recording.dump(dump)
+            List<RecordedEvent> events = RecordingFile.readAllEvents(dump)
+        then:
+            events.count { it.eventType.name == "io.github.bucket4j.RemoteCommand" } == 3
+            events.count { it.eventType.name == "io.github.bucket4j.CompareAndSwapRetry" } == 1
+            events.count { it.eventType.name == "io.github.bucket4j.StatePayload" } > 0
+            events.every { it.getString("backend") == "in-memory" }
+        cleanup:
+            recording.close()
+            Files.deleteIfExists(dump)
+    }
+
+    static class RecordingProxyManagerListener implements ProxyManagerListener {
+
+        List<Map<String, Object>> executedCommands = Collections.synchronizedList(new ArrayList<>())
+        List<Integer> casRetries = Collections.synchronizedList(new ArrayList<>())
+        List<Long> lockWaits = Collections.synchronizedList(new ArrayList<>())
+        List<Integer> readBytes = Collections.synchronizedList(new ArrayList<>())
+        List<Integer> writtenBytes = Collections.synchronizedList(new ArrayList<>())
+
+        @Override
+        void onRemoteCommandExecuted(RemoteCommand<?> command, long durationNanos, boolean async, Throwable error) {
+            executedCommands.add([command: command, durationNanos: durationNanos, async: async, error: error])
+        }
+
+        @Override
+        void onCompareAndSwapRetry(int attempt) {
+            casRetries.add(attempt)
+        }
+
+        @Override
+        void onLockAcquired(long waitNanos) {
+            lockWaits.add(waitNanos)
+        }
+
+        @Override
+        void onStateRead(int bytes) {
+            readBytes.add(bytes)
+        }
+
+        @Override
+        void onStateWritten(int bytes) {
+            writtenBytes.add(bytes)
+        }
+    }
+
+    static class ContendedProxyManager extends AbstractCompareAndSwapBasedProxyManager<Integer> {
+
+        private final Map<Integer, byte[]> stateMap = new HashMap<>()
+        int unsuccessfulAttemptsToSimulate
+
+        ContendedProxyManager(ClientSideConfig clientSideConfig) {
+            super(clientSideConfig)
+        }
+
+        @Override
+        protected CompareAndSwapOperation beginCompareAndSwapOperation(Integer key) {
+            return new CompareAndSwapOperation() {
+                @Override
+                Optional<byte[]> getStateData(Optional<Long> timeoutNanos) {
+                    return Optional.ofNullable(stateMap.get(key))
+                }
+
+                @Override
+                boolean compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState, Optional<Long> timeoutNanos) {
+                    return ContendedProxyManager.this.tryToSwap(key, newData)
+                }
+            }
+        }
+
+        @Override
+        protected AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(Integer key) {
+            return new AsyncCompareAndSwapOperation() {
+                @Override
+                CompletableFuture<Optional<byte[]>> getStateData(Optional<Long> timeoutNanos) {
+                    return CompletableFuture.completedFuture(Optional.ofNullable(stateMap.get(key)))
+                }
+
+                @Override
+                CompletableFuture<Boolean> compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState, Optional<Long> timeoutNanos) {
+                    return CompletableFuture.completedFuture(ContendedProxyManager.this.tryToSwap(key, newData))
+                }
+            }
+        }
+
+        boolean tryToSwap(Integer key, byte[] newData) {
+            if (unsuccessfulAttemptsToSimulate > 0) {
+                unsuccessfulAttemptsToSimulate--
+                return false
+            }
+            stateMap.put(key, newData)
+            return true
+        }
+
+        @Override
+        void removeProxy(Integer key) {
+            stateMap.remove(key)
+        }
+
+        @Override
+        protected CompletableFuture<Void> removeAsync(Integer key) {
+            stateMap.remove(key)
+            return CompletableFuture.completedFuture(null)
+        }
+
+        @Override
+        boolean isAsyncModeSupported() {
+            return true
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+package io.github.bucket4j.distributed.proxy.generic
+
+import io.github.bucket4j.Bandwidth
+import io.github.bucket4j.Bucket
+import io.github.bucket4j.BucketConfiguration
+import io.github.bucket4j.BucketExceptions
+import io.github.bucket4j.distributed.proxy.ClientSideConfig
+import io.github.bucket4j.distributed.proxy.ProxyManagerListenerSpecification.RecordingProxyManagerListener
+import io.github.bucket4j.mock.LockBasedProxyManagerMock
+import io.github.bucket4j.mock.SelectForUpdateBasedProxyManagerMock
+import io.github.bucket4j.mock.TimeMeterMock
+import spock.lang.Specification
+
+import java.time.Duration
+
+class ReadOnlyCommandSpecification extends Specification {
+
+    private TimeMeterMock clock = new TimeMeterMock()
+    private RecordingProxyManagerListener listener = new RecordingProxyManagerListener()
+    private BucketConfiguration configuration = BucketConfiguration.builder()
+        .addLimit(Bandwidth.simple(10, Duration.ofSeconds(1)))
+        .build()
+
+    def "Read-only commands should not lock state in lock based proxy manager"() {
+        setup:
+            ClientSideConfig config = ClientSideConfig.getDefault().withClientClock(clock).withProxyManagerListener(listener)
+            LockBasedProxyManagerMock<Integer> proxyManager = new LockBasedProxyManagerMock<>(config)
+            proxyManager.setLockFreeReadSupported(lockFreeReadSupported)
+            Bucket bucket = proxyManager.builder().build(1, configuration)
+            bucket.tryConsume(3)
+            int locksBefore = proxyManager.getLockCount()
+            int writesBefore = listener.writtenBytes.size()
+        when:
+            long availableTokens = bucket.getAvailableTokens()
+            long nanosToWait = bucket.estimateAbilityToConsume(8).nanosToWaitForRefill
+        then:
+            availableTokens == 7
+            nanosToWait == 100_000_000
+            proxyManager.getLockCount() - locksBefore == expectedLocks
+            listener.writtenBytes.size() == writesBefore
+
+        when:
+            clock.addTime(100_000_000)
+        then:
+            bucket.getAvailableTokens() == 8
+        where:
+            lockFreeReadSupported | expectedLocks
+            true                  | 0
+            false                 | 2
+    }
+
+    def "Read-only commands should not lock state in select-for-update based proxy manager"() {
+        setup:
+            ClientSideConfig config = ClientSideConfig.getDefault().withClientClock(clock).withProxyManagerListener(listener)
+            SelectForUpdateBasedProxyManagerMock<Integer> proxyManager = new SelectForUpdateBasedProxyManagerMock<>(config)
+            proxyManager.setLockFreeReadSupported(lockFreeReadSupported)
+            Bucket bucket = proxyManager.builder().build(1, configuration)
+            bucket.tryConsume(3)
+            int locksBefore = proxyManager.getLockCount()
+        when:
+            long availableTokens = bucket.getAvailableTokens()
+        then:
+            availableTokens == 7
+            proxyManager.getLockCount() - locksBefore == expectedLocks
+        where:
+            lockFreeReadSupported | expectedLocks
+            true                  | 0
+            false                 | 1
+    }
+
+    def "Storage failure on read-only command should be wrapped the same way as on locked path"() {
+        setup:
+            LockBasedProxyManagerMock<Integer> lockBasedProxyManager = new LockBasedProxyManagerMock<>(ClientSideConfig.getDefault().withClientClock(clock))
+            SelectForUpdateBasedProxyManagerMock<Integer> selectForUpdateProxyManager = new SelectForUpdateBasedProxyManagerMock<>(ClientSideConfig.getDefault().withClientClock(clock))
+            Bucket lockBasedBucket = lockBasedProxyManager.builder().build(1, configuration)
+            Bucket selectForUpdateBucket = selectForUpdateProxyManager.builder().build(1, configuration)
+            lockBasedBucket.tryConsume(1)
+            selectForUpdateBucket.tryConsume(1)
+            IllegalStateException storageFailure = new IllegalStateException("connection lost")
+            lockBasedProxyManager.setReadFailure(storageFailure)
+            selectForUpdateProxyManager.setReadFailure(storageFailure)
+
+        when:
+            lockBasedBucket.getAvailableTokens()
+        then:
+            BucketExceptions.BucketExecutionException e1 = thrown()
+            e1.cause.is(storageFailure)
+
+        when:
+            selectForUpdateBucket.getAvailableTokens()
+        then:
+            BucketExceptions.BucketExecutionException e2 = thrown()
+            e2.cause.is(storageFailure)
+    }
+
+    def "Read-only command should be executed against missing bucket without creating it"() {
+        setup:
+            LockBasedProxyManagerMock<Integer> proxyManager = new LockBasedProxyManagerMock<>(ClientSideConfig.getDefault().withClientClock(clock))
+            Bucket bucket = proxyManager.builder().build(1, configuration)
+        when:
+            long availableTokens = bucket.getAvailableTokens()
+        then: "bucket is created by second attempt that is not read-only because it carries the configuration"
+            availableTokens == 10
+            proxyManager.getProxyConfiguration(1).isPresent()
+    }
+
+}
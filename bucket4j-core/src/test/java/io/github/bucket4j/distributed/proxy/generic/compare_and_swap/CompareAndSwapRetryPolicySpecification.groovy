@@ -0,0 +1,212 @@
+package io.github.bucket4j.distributed.proxy.generic.compare_and_swap
+
+import io.github.bucket4j.Bandwidth
+import io.github.bucket4j.Bucket
+import io.github.bucket4j.BucketConfiguration
+import io.github.bucket4j.BucketExceptions
+import io.github.bucket4j.TimeoutException
+import io.github.bucket4j.distributed.AsyncBucketProxy
+import io.github.bucket4j.distributed.proxy.ClientSideConfig
+import io.github.bucket4j.distributed.proxy.ProxyManagerListenerSpecification.ContendedProxyManager
+import io.github.bucket4j.distributed.proxy.ProxyManagerListenerSpecification.RecordingProxyManagerListener
+import io.github.bucket4j.mock.TimeMeterMock
+import spock.lang.Specification
+
+import java.lang.reflect.Field
+import java.time.Duration
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.locks.ReentrantLock
+
+class CompareAndSwapRetryPolicySpecification extends Specification {
+
+    private TimeMeterMock clock = new TimeMeterMock()
+    private RecordingProxyManagerListener listener = new RecordingProxyManagerListener()
+    private BucketConfiguration configuration = BucketConfiguration.builder()
+        .addLimit(Bandwidth.simple(10, Duration.ofSeconds(1)))
+        .build()
+
+    def "Should retry without limits by default"() {
+        setup:
+            CompareAndSwapRetryPolicy policy = ClientSideConfig.getDefault().getCompareAndSwapRetryPolicy()
+        expect:
+            policy == CompareAndSwapRetryPolicy.DEFAULT
+            !policy.isAttemptsExhausted(Integer.MAX_VALUE - 1)
+            !policy.isLockingEnabled()
+            !policy.isLockingRequired(Integer.MAX_VALUE - 1)
+            policy.nextBackoffNanos(100) == 0
+    }
+
+    def "Should check parameters"() {
+        when:
+            CompareAndSwapRetryPolicy.DEFAULT.withMaxAttempts(0)
+        then:
+            IllegalArgumentException e1 = thrown()
+            e1.message == BucketExceptions.nonPositiveCompareAndSwapMaxAttempts(0).message
+
+        when:
+            CompareAndSwapRetryPolicy.DEFAULT.withJitteredBackoff(Duration.ZERO, Duration.ofMillis(10))
+        then:
+            thrown(IllegalArgumentException)
+
+        when:
+            CompareAndSwapRetryPolicy.DEFAULT.withJitteredBackoff(Duration.ofMillis(11), Duration.ofMillis(10))
+        then:
+            thrown(IllegalArgumentException)
+
+        when:
+            CompareAndSwapRetryPolicy.DEFAULT.withLockingAfter(-1)
+        then:
+            IllegalArgumentException e2 = thrown()
+            e2.message == BucketExceptions.nonPositiveUnsuccessfulAttemptsBeforeLocking(-1).message
+    }
+
+    def "Backoff should grow exponentially and be limited by max backoff"() {
+        setup:
+            CompareAndSwapRetryPolicy policy = CompareAndSwapRetryPolicy.DEFAULT
+                .withJitteredBackoff(Duration.ofNanos(100), Duration.ofNanos(1000))
+        expect:
+            (1..1000).every { policy.nextBackoffNanos(1) <= 100 }
+            (1..1000).every { policy.nextBackoffNanos(3) <= 400 }
+            (1..1000).every { policy.nextBackoffNanos(100) <= 1000 }
+            (1..1000).collect { policy.nextBackoffNanos(100) }.max() > 400
+    }
+
+    def "Should fail when all attempts are unsuccessful"() {
+        setup:
+            ClientSideConfig config = ClientSideConfig.getDefault()
+                .withClientClock(clock)
+                .withProxyManagerListener(listener)
+                .withCompareAndSwapRetryPolicy(CompareAndSwapRetryPolicy.DEFAULT.withMaxAttempts(3))
+            ContendedProxyManager proxyManager = new ContendedProxyManager(config)
+            Bucket bucket = proxyManager.builder().build(1, configuration)
+            AsyncBucketProxy asyncBucket = proxyManager.asAsync().builder().build(1, configuration)
+            bucket.getAvailableTokens()
+
+        when:
+            proxyManager.unsuccessfulAttemptsToSimulate = 2
+        then:
+            bucket.tryConsume(1)
+            listener.casRetries == [1, 2]
+
+        when:
+            proxyManager.unsuccessfulAttemptsToSimulate = 3
+            bucket.tryConsume(1)
+        then:
+            BucketExceptions.BucketExecutionException e = thrown()
+            e.message == BucketExceptions.compareAndSwapAttemptsExhausted(3).message
+            listener.casRetries == [1, 2, 1, 2]
+
+        when:
+            proxyManager.unsuccessfulAttemptsToSimulate = 3
+            asyncBucket.tryConsume(1).get()
+        then:
+            ExecutionException asyncError = thrown()
+            asyncError.cause instanceof BucketExceptions.BucketExecutionException
+            bucket.getAvailableTokens() == 9
+    }
+
+    def "Should wait before retry when backoff is configured"() {
+        setup:
+            ClientSideConfig config = ClientSideConfig.getDefault()
+                .withClientClock(clock)
+                .withCompareAndSwapRetryPolicy(CompareAndSwapRetryPolicy.DEFAULT
+                    .withJitteredBackoff(Duration.ofMillis(1), Duration.ofMillis(5)))
+            ContendedProxyManager proxyManager = new ContendedProxyManager(config)
+            Bucket bucket = proxyManager.builder().build(1, configuration)
+            AsyncBucketProxy asyncBucket = proxyManager.asAsync().builder().build(1, configuration)
+            bucket.getAvailableTokens()
+        when:
+            proxyManager.unsuccessfulAttemptsToSimulate = 3
+            boolean consumed = bucket.tryConsume(1)
+            proxyManager.unsuccessfulAttemptsToSimulate = 3
+            boolean consumedAsync = asyncBucket.tryConsume(1).get(10, TimeUnit.SECONDS)
+        then:
+            consumed
+            consumedAsync
+            bucket.getAvailableTokens() == 8
+    }
+
+    def "Should escalate to locking and release lock after completion"() {
+        setup:
+            ClientSideConfig config = ClientSideConfig.getDefault()
+                .withClientClock(clock)
+                .withProxyManagerListener(listener)
+                .withCompareAndSwapRetryPolicy(CompareAndSwapRetryPolicy.DEFAULT.withLockingAfter(2))
+            ContendedProxyManager proxyManager = new ContendedProxyManager(config)
+            Bucket bucket = proxyManager.builder().build(1, configuration)
+            AsyncBucketProxy asyncBucket = proxyManager.asAsync().builder().build(1, configuration)
+            bucket.getAvailableTokens()
+        when:
+            for (int i = 0; i < 3; i++) {
+                proxyManager.unsuccessfulAttemptsToSimulate = 3
+                assert bucket.tryConsume(1)
+                proxyManager.unsuccessfulAttemptsToSimulate = 3
+                assert asyncBucket.tryConsume(1).get(10, TimeUnit.SECONDS)
+            }
+            Thread otherThread = new Thread({
+                proxyManager.unsuccessfulAttemptsToSimulate = 3
+                assert bucket.tryConsume(1)
+            })
+            otherThread.start()
+            otherThread.join(10_000)
+        then: "lock is not held by current thread, so another thread is able to escalate too"
+            !otherThread.isAlive()
+            bucket.getAvailableTokens() == 3
+            listener.casRetries.size() == 21
+    }
+
+    def "Escalation to locking should respect request timeout"() {
+        setup:
+            ClientSideConfig config = ClientSideConfig.getDefault()
+                .withRequestTimeout(Duration.ofMillis(100))
+                .withCompareAndSwapRetryPolicy(CompareAndSwapRetryPolicy.DEFAULT.withLockingAfter(1))
+            ContendedProxyManager proxyManager = new ContendedProxyManager(config)
+            Bucket bucket = proxyManager.builder().build(1, configuration)
+            bucket.getAvailableTokens()
+            Field locksField = AbstractCompareAndSwapBasedProxyManager.getDeclaredField("contentionLocks")
+            locksField.setAccessible(true)
+            ReentrantLock[] locks = (ReentrantLock[]) locksField.get(proxyManager)
+            CountDownLatch locked = new CountDownLatch(1)
+            CountDownLatch release = new CountDownLatch(1)
+            Thread holder = new Thread({
+                locks.each { it.lock() }
+                locked.countDown()
+                release.await()
+                locks.each { it.unlock() }
+            })
+            holder.start()
+            locked.await()
+        when:
+            proxyManager.unsuccessfulAttemptsToSimulate = 1
+            bucket.tryConsume(1)
+        then:
+            TimeoutException e = thrown()
+            e.requestTimeoutNanos == TimeUnit.MILLISECONDS.toNanos(100)
+            e.nanosElapsed >= e.requestTimeoutNanos
+
+        cleanup:
+            release.countDown()
+            holder.join()
+    }
+
+    def "Backoff should not exceed request timeout"() {
+        setup:
+            ClientSideConfig config = ClientSideConfig.getDefault()
+                .withRequestTimeout(Duration.ofMillis(100))
+                .withCompareAndSwapRetryPolicy(CompareAndSwapRetryPolicy.DEFAULT
+                    .withJitteredBackoff(Duration.ofSeconds(30), Duration.ofSeconds(30)))
+            ContendedProxyManager proxyManager = new ContendedProxyManager(config)
+            Bucket bucket = proxyManager.builder().build(1, configuration)
+            bucket.getAvailableTokens()
+        when:
+            proxyManager.unsuccessfulAttemptsToSimulate = Integer.MAX_VALUE
+            long startNanos = System.nanoTime()
+            bucket.tryConsume(1)
+        then:
+            thrown(TimeoutException)
+            System.nanoTime() - startNanos < TimeUnit.SECONDS.toNanos(10)
+    }
+
+}
@@ -0,0 +1,199 @@
+package io.github.bucket4j.distributed.proxy.generic.compare_and_swap
+
+import io.github.bucket4j.Bandwidth
+import io.github.bucket4j.Bucket
+import io.github.bucket4j.BucketConfiguration
+import io.github.bucket4j.distributed.AsyncBucketProxy
+import io.github.bucket4j.distributed.proxy.ClientSideConfig
+import io.github.bucket4j.distributed.proxy.ProxyManagerListenerSpecification.RecordingProxyManagerListener
+import io.github.bucket4j.distributed.remote.RemoteBucketState
+import io.github.bucket4j.mock.TimeMeterMock
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+
+class CompareAndSwapStateCacheSpecification extends Specification {
+
+    private TimeMeterMock clock = new TimeMeterMock()
+    private RecordingProxyManagerListener listener = new RecordingProxyManagerListener()
+    private BucketConfiguration configuration = BucketConfiguration.builder()
+        .addLimit(Bandwidth.simple(100, Duration.ofSeconds(1)))
+        .build()
+    private Map<Integer, byte[]> storage = new HashMap<>()
+
+    def "Should be disabled by default"() {
+        expect:
+            ClientSideConfig.getDefault().getCompareAndSwapStateCacheCapacity() == 0
+
+        when:
+            ClientSideConfig.getDefault().withCompareAndSwapStateCache(0)
+        then:
+            thrown(IllegalArgumentException)
+    }
+
+    def "Should not read state from storage when state was written by this client"() {
+        setup:
+            ValueComparingProxyManager proxyManager = new ValueComparingProxyManager(storage, config(16))
+            Bucket bucket = proxyManager.builder().build(1, configuration)
+        when:
+            for (int i = 0; i < 5; i++) {
+                assert bucket.tryConsume(1)
+            }
+        then:
+            listener.readBytes.isEmpty()
+            listener.writtenBytes.size() == 5
+
+        when:
+            AsyncBucketProxy asyncBucket = proxyManager.asAsync().builder().build(1, configuration)
+            for (int i = 0; i < 5; i++) {
+                assert asyncBucket.tryConsume(1).get()
+            }
+        then:
+            listener.readBytes.isEmpty()
+            listener.writtenBytes.size() == 10
+    }
+
+    def "Should read state from storage for commands that do not modify state"() {
+        setup:
+            ValueComparingProxyManager proxyManager = new ValueComparingProxyManager(storage, config(16))
+            Bucket bucket = proxyManager.builder().build(1, configuration)
+            bucket.tryConsume(10)
+        when:
+            long availableTokens = bucket.getAvailableTokens()
+        then:
+            availableTokens == 90
+            listener.readBytes.size() == 1
+
+        when: "state that was read is cached too"
+            bucket.tryConsume(1)
+        then:
+            listener.readBytes.size() == 1
+            bucket.getAvailableTokens() == 89
+    }
+
+    def "Should read actual state when cached state is stale"() {
+        setup:
+            ValueComparingProxyManager cachingProxyManager = new ValueComparingProxyManager(storage, config(16))
+            ValueComparingProxyManager otherProxyManager = new ValueComparingProxyManager(storage, ClientSideConfig.getDefault().withClientClock(clock))
+            Bucket cachingBucket = cachingProxyManager.builder().build(1, configuration)
+            Bucket otherBucket = otherProxyManager.builder().build(1, configuration)
+            AsyncBucketProxy cachingAsyncBucket = cachingProxyManager.asAsync().builder().build(1, configuration)
+            cachingBucket.tryConsume(1)
+        when:
+            otherBucket.tryConsume(10)
+            cachingBucket.tryConsume(1)
+        then: "tokens consumed by other client are not lost"
+            otherBucket.getAvailableTokens() == 88
+            listener.readBytes.size() == 1
+            listener.casRetries.isEmpty()
+
+        when:
+            otherBucket.tryConsume(10)
+            cachingAsyncBucket.tryConsume(1).get()
+        then:
+            otherBucket.getAvailableTokens() == 77
+            listener.readBytes.size() == 2
+            listener.casRetries.isEmpty()
+    }
+
+    def "Keys that collide in cache should evict each other"() {
+        setup:
+            CompareAndSwapStateCache<Integer> cache = new CompareAndSwapStateCache<>(3)
+            byte[] state1 = [1] as byte[]
+            byte[] state5 = [5] as byte[]
+        when:
+            cache.put(1, state1)
+        then:
+            cache.get(1).is(state1)
+            cache.get(5) == null
+
+        when:
+            cache.put(5, state5)
+        then:
+            cache.get(1) == null
+            cache.get(5).is(state5)
+
+        when: "invalidation of state that is already replaced"
+            cache.invalidate(5, state1)
+        then:
+            cache.get(5).is(state5)
+
+        when:
+            cache.invalidate(5, state5)
+        then:
+            cache.get(5) == null
+    }
+
+    private ClientSideConfig config(int cacheCapacity) {
+        return ClientSideConfig.getDefault()
+            .withClientClock(clock)
+            .withProxyManagerListener(listener)
+            .withCompareAndSwapStateCache(cacheCapacity)
+    }
+
+    static class ValueComparingProxyManager extends AbstractCompareAndSwapBasedProxyManager<Integer> {
+
+        private final Map<Integer, byte[]> storage
+
+        ValueComparingProxyManager(Map<Integer, byte[]> storage, ClientSideConfig clientSideConfig) {
+            super(clientSideConfig)
+            this.storage = storage
+        }
+
+        @Override
+        protected CompareAndSwapOperation beginCompareAndSwapOperation(Integer key) {
+            return new CompareAndSwapOperation() {
+                @Override
+                Optional<byte[]> getStateData(Optional<Long> timeoutNanos) {
+                    return Optional.ofNullable(storage.get(key))
+                }
+
+                @Override
+                boolean compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState, Optional<Long> timeoutNanos) {
+                    return ValueComparingProxyManager.this.compareAndSwap(key, originalData, newData)
+                }
+            }
+        }
+
+        @Override
+        protected AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(Integer key) {
+            return new AsyncCompareAndSwapOperation() {
+                @Override
+                CompletableFuture<Optional<byte[]>> getStateData(Optional<Long> timeoutNanos) {
+                    return CompletableFuture.completedFuture(Optional.ofNullable(storage.get(key)))
+                }
+
+                @Override
+                CompletableFuture<Boolean> compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState, Optional<Long> timeoutNanos) {
+                    return CompletableFuture.completedFuture(ValueComparingProxyManager.this.compareAndSwap(key, originalData, newData))
+                }
+            }
+        }
+
+        synchronized boolean compareAndSwap(Integer key, byte[] originalData, byte[] newData) {
+            if (!Arrays.equals((byte[]) storage.get(key), (byte[]) originalData)) {
+                return false
+            }
+            storage.put(key, newData)
+            return true
+        }
+
+        @Override
+        void removeProxy(Integer key) {
+            storage.remove(key)
+        }
+
+        @Override
+        protected CompletableFuture<Void> removeAsync(Integer key) {
+            storage.remove(key)
+            return CompletableFuture.completedFuture(null)
+        }
+
+        @Override
+        boolean isAsyncModeSupported() {
+            return true
+        }
+    }
+
+}
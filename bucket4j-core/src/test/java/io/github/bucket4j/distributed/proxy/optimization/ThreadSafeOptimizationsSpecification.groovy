@@ -0,0 +1,105 @@
+package io.github.bucket4j.distributed.proxy.optimization
+
+import io.github.bucket4j.Bandwidth
+import io.github.bucket4j.BucketConfiguration
+import io.github.bucket4j.Refill
+import io.github.bucket4j.distributed.AsyncBucketProxy
+import io.github.bucket4j.distributed.BucketProxy
+import io.github.bucket4j.distributed.proxy.optimization.delay.DelayOptimization
+import io.github.bucket4j.distributed.proxy.optimization.manual.ManuallySyncingOptimization
+import io.github.bucket4j.distributed.proxy.optimization.predictive.PredictiveOptimization
+import io.github.bucket4j.distributed.proxy.optimization.skiponzero.SkipSyncOnZeroOptimization
+import io.github.bucket4j.mock.ProxyManagerMock
+import io.github.bucket4j.mock.TimeMeterMock
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+
+class ThreadSafeOptimizationsSpecification extends Specification {
+
+    private static final int THREADS = 8
+    private static final int ITERATIONS = 2_000
+    private static final long CAPACITY = 1_000_000
+
+    private static final TimeMeterMock clock = new TimeMeterMock()
+
+    private BucketConfiguration configuration = BucketConfiguration.builder()
+        .addLimit(Bandwidth.classic(CAPACITY, Refill.intervally(CAPACITY, Duration.ofHours(1))))
+        .build()
+
+    @Unroll
+    def "#n should not lose tokens consumed by many threads in parallel"(int n, Optimization optimization) {
+        setup:
+            ProxyManagerMock proxyManager = new ProxyManagerMock(clock)
+            BucketProxy optimizedBucket = proxyManager.builder()
+                .withOptimization(optimization)
+                .build(1L, configuration)
+            BucketProxy notOptimizedBucket = proxyManager.builder()
+                .build(1L, configuration)
+        when:
+            runInParallel({ assert optimizedBucket.tryConsume(1) })
+            optimizedBucket.getOptimizationController().syncImmediately()
+        then:
+            notOptimizedBucket.getAvailableTokens() == CAPACITY - THREADS * ITERATIONS
+            optimizedBucket.getAvailableTokens() == CAPACITY - THREADS * ITERATIONS
+        where:
+            [n, optimization] << optimizations()
+    }
+
+    @Unroll
+    def "#n should not lose tokens consumed by many threads in parallel via async API"(int n, Optimization optimization) {
+        setup:
+            ProxyManagerMock proxyManager = new ProxyManagerMock(clock)
+            AsyncBucketProxy optimizedBucket = proxyManager.asAsync().builder()
+                .withOptimization(optimization)
+                .build(1L, configuration)
+            BucketProxy notOptimizedBucket = proxyManager.builder()
+                .build(1L, configuration)
+        when:
+            runInParallel({ assert optimizedBucket.tryConsume(1).get() })
+            optimizedBucket.getOptimizationController().syncImmediately().get()
+        then:
+            notOptimizedBucket.getAvailableTokens() == CAPACITY - THREADS * ITERATIONS
+            optimizedBucket.getAvailableTokens().get() == CAPACITY - THREADS * ITERATIONS
+        where:
+            [n, optimization] << optimizations()
+    }
+
+    private static List<List<Object>> optimizations() {
+        DelayParameters delayParameters = new DelayParameters(50, Duration.ofHours(1))
+        return [
+            [1, new DelayOptimization(delayParameters, NopeOptimizationListener.INSTANCE, clock)],
+            [2, new PredictiveOptimization(PredictionParameters.createDefault(delayParameters), delayParameters, NopeOptimizationListener.INSTANCE, clock)],
+            [3, new ManuallySyncingOptimization(NopeOptimizationListener.INSTANCE, clock)],
+            [4, new SkipSyncOnZeroOptimization(NopeOptimizationListener.INSTANCE, clock)],
+        ]
+    }
+
+    private static void runInParallel(Runnable action) {
+        CountDownLatch startLatch = new CountDownLatch(1)
+        List<CompletableFuture<Void>> futures = new ArrayList<>()
+        for (int i = 0; i < THREADS; i++) {
+            CompletableFuture<Void> future = new CompletableFuture<>()
+            futures.add(future)
+            new Thread({
+                try {
+                    startLatch.await()
+                    for (int j = 0; j < ITERATIONS; j++) {
+                        action.run()
+                    }
+                    future.complete(null)
+                } catch (Throwable e) {
+                    future.completeExceptionally(e)
+                }
+            }).start()
+        }
+        startLatch.countDown()
+        for (CompletableFuture<Void> future : futures) {
+            future.get()
+        }
+    }
+
+}
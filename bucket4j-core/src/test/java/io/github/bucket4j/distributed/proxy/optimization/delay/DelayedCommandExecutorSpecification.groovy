@@ -180,4 +180,31 @@ class DelayedCommandExecutorSpecification extends Specification {
             notOptimizedBucket.getAvailableTokens() == 80
     }
 
+    def "Should collect batch size, sync latency, local hit ratio and over-consumption metrics"() {
+        setup: "bucket already exists in storage"
+            notOptimizedBucket.getAvailableTokens()
+        when: "first request propagated and next 10 served locally"
+            assert optimizedBucket.tryConsume(1)
+            for (int i = 0; i < 10; i++) {
+                assert optimizedBucket.tryConsume(1)
+            }
+        then:
+            listener.getPropagatedCount() == 1
+            listener.getSkipCount() == 10
+            listener.getBatchSizeHistogram().getMax() == 1
+            listener.getSyncLatencyHistogram().getCount() == 1
+
+        when: "other node consumed everything before postponed tokens were flushed"
+            notOptimizedBucket.tryConsumeAsMuchAsPossible()
+            optimizedBucket.getOptimizationController().syncImmediately()
+        then: "tokens consumed locally are reported as over-consumption"
+            listener.getOverConsumedTokens() == 10
+        and: "requests served locally are propagated in one batch together with request that initiated synchronization"
+            listener.getBatchSizeHistogram().getMax() == 11
+            listener.getPropagatedCount() == 12
+            listener.getSyncCount() == 2
+            listener.getSyncLatencyHistogram().getCount() == 2
+            listener.getLocalHitRatio() == 10.0d / 12.0d
+    }
+
 }
@@ -0,0 +1,130 @@
+package io.github.bucket4j.distributed.proxy.optimization.delay
+
+import io.github.bucket4j.Bandwidth
+import io.github.bucket4j.Bucket
+import io.github.bucket4j.BucketConfiguration
+import io.github.bucket4j.distributed.AsyncBucketProxy
+import io.github.bucket4j.distributed.proxy.optimization.DefaultOptimizationListener
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters
+import io.github.bucket4j.distributed.proxy.optimization.Optimization
+import io.github.bucket4j.mock.ProxyManagerMock
+import io.github.bucket4j.mock.TimeMeterMock
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.ScheduledExecutorService
+
+class DelayedCommandExecutorWithBackgroundSyncSpecification extends Specification {
+
+    private TimeMeterMock clock = new TimeMeterMock()
+    private ProxyManagerMock proxyManager = new ProxyManagerMock(clock)
+    private DefaultOptimizationListener listener = new DefaultOptimizationListener();
+    private BucketConfiguration configuration = BucketConfiguration.builder()
+        .addLimit(Bandwidth.simple(100, Duration.ofMillis(1000)))
+        .build()
+    private DelayParameters parameters = new DelayParameters(20, Duration.ofMillis(500))
+
+    private List<Runnable> backgroundTasks = new ArrayList<>()
+    private List<Runnable> timerTasks = new ArrayList<>()
+    private ScheduledExecutorService scheduler = Stub(ScheduledExecutorService) {
+        execute(_) >> { Runnable task -> backgroundTasks.add(task) }
+        schedule(_, _, _) >> { Runnable task, long delay, unit -> timerTasks.add(task); null }
+    }
+
+    private Optimization optimization = new DelayOptimization(parameters, scheduler, listener, clock)
+    private Bucket optimizedBucket = proxyManager.builder()
+        .withOptimization(optimization)
+        .build(1L, configuration)
+    private Bucket notOptimizedBucket = proxyManager.builder()
+        .build(1L, configuration)
+
+    def "Should flush postponed tokens in background before threshold is violated"() {
+        when: "first tryConsume(1) happened"
+            boolean consumed = optimizedBucket.tryConsume(1)
+        then: "request propagated to proxyManager because bucket was never synchronized"
+            consumed
+            notOptimizedBucket.getAvailableTokens() == 99
+            backgroundTasks.isEmpty()
+            timerTasks.size() == 1
+
+        when: "10 tokens consumed locally"
+            for (int i = 0; i < 10; i++) {
+                assert optimizedBucket.tryConsume(1)
+            }
+        then: "requests are not propagated to proxyManager"
+            notOptimizedBucket.getAvailableTokens() == 99
+            listener.getSkipCount() == 10
+        and: "background sync was requested because half of tokens threshold reached"
+            backgroundTasks.size() == 1
+
+        when: "more tokens consumed while background sync is not performed yet"
+            assert optimizedBucket.tryConsume(1)
+        then: "background sync is not requested twice"
+            backgroundTasks.size() == 1
+
+        when: "background sync performed"
+            backgroundTasks.remove(0).run()
+        then: "postponed tokens propagated to proxyManager"
+            notOptimizedBucket.getAvailableTokens() == 88
+            optimizedBucket.getAvailableTokens() == 88
+        and: "all requests served locally are reported as single batch"
+            listener.getBatchSizeHistogram().getMax() == 11
+    }
+
+    def "Should flush postponed tokens by timer"() {
+        when:
+            optimizedBucket.tryConsume(1)
+            optimizedBucket.tryConsume(3)
+            timerTasks.remove(0).run()
+        then: "postponed tokens propagated to proxyManager"
+            notOptimizedBucket.getAvailableTokens() == 96
+            backgroundTasks.isEmpty()
+        and: "the next timer scheduled"
+            timerTasks.size() == 1
+
+        when: "timer fired when there are no postponed tokens"
+            timerTasks.remove(0).run()
+        then: "timer is not rescheduled"
+            timerTasks.isEmpty()
+    }
+
+    def "Should go to storage when local copy says that there are not enough tokens"() {
+        when: "local copy synchronized when only 5 tokens remain"
+            notOptimizedBucket.tryConsume(95)
+            optimizedBucket.getAvailableTokens()
+        then: "5 tokens consumed locally"
+            optimizedBucket.tryConsume(5)
+            notOptimizedBucket.getAvailableTokens() == 5
+            listener.getSkipCount() == 1
+
+        when: "local copy is empty"
+            boolean consumed = optimizedBucket.tryConsume(1)
+        then: "request propagated to proxyManager"
+            !consumed
+            listener.getSkipCount() == 1
+            notOptimizedBucket.getAvailableTokens() == 0
+    }
+
+    def "Should take into account tokens consumed locally while background sync was in progress"() {
+        setup:
+            AsyncBucketProxy asyncBucket = proxyManager.asAsync().builder()
+                .withOptimization(optimization)
+                .build(1L, configuration)
+        when:
+            asyncBucket.tryConsume(1).get()
+            for (int i = 0; i < 10; i++) {
+                assert asyncBucket.tryConsume(1).get()
+            }
+            proxyManager.blockExecution()
+            Thread backgroundThread = new Thread(backgroundTasks.remove(0))
+            backgroundThread.start()
+            proxyManager.awaitBlockedRequests(1)
+            assert asyncBucket.tryConsume(2).get()
+            proxyManager.unblockExecution()
+            backgroundThread.join()
+        then:
+            notOptimizedBucket.getAvailableTokens() == 89
+            asyncBucket.getAvailableTokens().get() == 87
+    }
+
+}
@@ -0,0 +1,132 @@
+package io.github.bucket4j.distributed.proxy.optimization.predictive
+
+import io.github.bucket4j.Bandwidth
+import io.github.bucket4j.Bucket
+import io.github.bucket4j.BucketConfiguration
+import io.github.bucket4j.Refill
+import io.github.bucket4j.distributed.proxy.optimization.DefaultOptimizationListener
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters
+import io.github.bucket4j.distributed.proxy.optimization.EwmaPredictionParameters
+import io.github.bucket4j.distributed.proxy.optimization.Optimization
+import io.github.bucket4j.mock.ProxyManagerMock
+import io.github.bucket4j.mock.TimeMeterMock
+import spock.lang.Specification
+
+import java.time.Duration
+
+class EwmaConsumptionPredictorSpecification extends Specification {
+
+    private static final long MILLIS = 1_000_000L
+
+    private EwmaPredictionParameters parameters = new EwmaPredictionParameters(Duration.ofMillis(100), 2, 2.0, Duration.ofSeconds(1), 20)
+
+    def "Should not predict until enough observations collected"() {
+        setup:
+            EwmaConsumptionPredictor predictor = new EwmaConsumptionPredictor(parameters)
+        expect:
+            predictor.isNeedToExecuteRemoteImmediately(0)
+
+        when:
+            predictor.rememberRemoteCommandResult(0, 0, 0)
+        then:
+            predictor.isNeedToExecuteRemoteImmediately(0)
+
+        when:
+            predictor.rememberRemoteCommandResult(1, 11, 10 * MILLIS)
+        then:
+            predictor.isNeedToExecuteRemoteImmediately(10 * MILLIS)
+
+        when:
+            predictor.rememberRemoteCommandResult(1, 22, 20 * MILLIS)
+        then: "rate of others is 1 token per millisecond"
+            !predictor.isNeedToExecuteRemoteImmediately(20 * MILLIS)
+            predictor.predictedConsumptionByOthersSinceLastSync(30 * MILLIS) == 10
+            predictor.getPredictedRatePerSecond() == 1000.0d
+            predictor.getRateLowerBoundPerSecond() == 1000.0d
+            predictor.getRateUpperBoundPerSecond() == 1000.0d
+    }
+
+    def "Should smooth bursts and widen confidence bounds"() {
+        setup:
+            EwmaConsumptionPredictor predictor = new EwmaConsumptionPredictor(parameters)
+            predictor.rememberRemoteCommandResult(0, 0, 0)
+            predictor.rememberRemoteCommandResult(0, 10, 10 * MILLIS)
+            predictor.rememberRemoteCommandResult(0, 20, 20 * MILLIS)
+        when: "burst of consumption happened on other nodes"
+            predictor.rememberRemoteCommandResult(0, 120, 30 * MILLIS)
+        then: "predicted rate moved towards burst but not jumped to it"
+            predictor.getPredictedRatePerSecond() > 1000.0d
+            predictor.getPredictedRatePerSecond() < 10_000.0d
+        and: "confidence interval became wider"
+            predictor.getRateLowerBoundPerSecond() < predictor.getPredictedRatePerSecond()
+            predictor.getRateUpperBoundPerSecond() > predictor.getPredictedRatePerSecond()
+        and: "synchronization is required sooner because prediction error is high"
+            !predictor.isNeedToExecuteRemoteImmediately(30 * MILLIS)
+            predictor.isNeedToExecuteRemoteImmediately(40 * MILLIS)
+    }
+
+    def "Should forget history when counter goes back or samples are too old"() {
+        setup:
+            EwmaConsumptionPredictor predictor = new EwmaConsumptionPredictor(parameters)
+            predictor.rememberRemoteCommandResult(0, 0, 0)
+            predictor.rememberRemoteCommandResult(0, 10, 10 * MILLIS)
+            predictor.rememberRemoteCommandResult(0, 20, 20 * MILLIS)
+        when: "bucket was recreated in storage"
+            predictor.rememberRemoteCommandResult(0, 5, 30 * MILLIS)
+        then:
+            predictor.isNeedToExecuteRemoteImmediately(30 * MILLIS)
+
+        when:
+            predictor.rememberRemoteCommandResult(0, 15, 40 * MILLIS)
+            predictor.rememberRemoteCommandResult(0, 25, 50 * MILLIS)
+        then:
+            !predictor.isNeedToExecuteRemoteImmediately(50 * MILLIS)
+            predictor.isNeedToExecuteRemoteImmediately(1051 * MILLIS)
+    }
+
+    def "Should exclude self consumption from observed rate"() {
+        setup:
+            EwmaConsumptionPredictor predictor = new EwmaConsumptionPredictor(parameters)
+        when:
+            predictor.rememberRemoteCommandResult(0, 0, 0)
+            predictor.rememberRemoteCommandResult(10, 10, 10 * MILLIS)
+            predictor.rememberRemoteCommandResult(10, 20, 20 * MILLIS)
+        then:
+            predictor.getPredictedRatePerSecond() == 0.0d
+            predictor.predictedConsumptionByOthersSinceLastSync(30 * MILLIS) == 0
+    }
+
+    def "Should be pluggable into predictive optimization"() {
+        setup:
+            TimeMeterMock clock = new TimeMeterMock()
+            ProxyManagerMock proxyManager = new ProxyManagerMock(clock)
+            DefaultOptimizationListener listener = new DefaultOptimizationListener()
+            BucketConfiguration configuration = BucketConfiguration.builder()
+                .addLimit(Bandwidth.classic(1000, Refill.intervally(1000, Duration.ofHours(1))))
+                .build()
+            DelayParameters delay = new DelayParameters(20, Duration.ofMillis(500))
+            Optimization optimization = new PredictiveOptimization({ -> new EwmaConsumptionPredictor(EwmaPredictionParameters.createDefault(delay)) }, delay, listener, clock)
+            Bucket optimizedBucket = proxyManager.builder()
+                .withOptimization(optimization)
+                .build(1L, configuration)
+            Bucket notOptimizedBucket = proxyManager.builder()
+                .build(1L, configuration)
+        when: "enough observations are collected"
+            optimizedBucket.tryConsume(1)
+            clock.addMillis(10)
+            optimizedBucket.tryConsume(1)
+            clock.addMillis(10)
+            optimizedBucket.tryConsume(1)
+        then:
+            notOptimizedBucket.getAvailableTokens() == 997
+            listener.getSkipCount() == 0
+
+        when: "next consumption happened"
+            clock.addMillis(10)
+            optimizedBucket.tryConsume(1)
+        then: "request served locally"
+            notOptimizedBucket.getAvailableTokens() == 997
+            listener.getSkipCount() == 1
+    }
+
+}
@@ -68,4 +68,21 @@ class SkipSyncOnZeroAsyncCommandExecutorSpecification extends Specification {
             optimizedBucket.getAvailableTokens().get() == 100
     }
 
-}
\ No newline at end of file
+    def "request that can be answered locally should not wait for request that is in progress"() {
+        when: "bucket becomes empty"
+            optimizedBucket.tryConsumeAsMuchAsPossible().get()
+        and: "another request is in progress"
+            proxyManager.blockExecution()
+            Thread thread = new Thread({ optimizedBucket.getAvailableTokens().get() })
+            thread.start()
+            proxyManager.awaitBlockedRequests(1)
+        then: "consumption is rejected locally without waiting"
+            !optimizedBucket.tryConsume(1).get()
+            listener.getSkipCount() == 1
+
+        cleanup:
+            proxyManager.unblockExecution()
+            thread.join()
+    }
+
+}
@@ -228,6 +228,10 @@ public abstract class AbstractSerializationTest {
         testSerialization(ConsumptionProbe.rejected(10, 20, 66));
         testSerialization(ConsumptionProbe.consumed(10, 66));
 
+        // batch consumption probes
+        testSerialization(BatchConsumptionProbe.admittedAll(3, 30, 10, 66));
+        testSerialization(BatchConsumptionProbe.admittedPrefix(2, 1, 20, 5, 15, 66));
+
         // multi result
         testSerialization(new MultiResult(Arrays.asList(
                 CommandResult.NOTHING,
@@ -282,6 +286,8 @@ public abstract class AbstractSerializationTest {
 
         testSerialization(new TryConsumeAndReturnRemainingTokensCommand(11));
 
+        testSerialization(new TryConsumeBatchCommand(new long[] {1, 2, 3}));
+
         for (TokensInheritanceStrategy tokensInheritanceStrategy : TokensInheritanceStrategy.values()) {
             testSerialization(new ReplaceConfigurationCommand(configuration, tokensInheritanceStrategy));
         }
@@ -0,0 +1,59 @@
+package io.github.bucket4j.distributed.serialization;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.BucketState;
+import io.github.bucket4j.MathType;
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import io.github.bucket4j.distributed.remote.RemoteStat;
+import io.github.bucket4j.distributed.remote.Request;
+import io.github.bucket4j.distributed.remote.commands.TryConsumeCommand;
+import io.github.bucket4j.distributed.versioning.Versions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import static io.github.bucket4j.distributed.serialization.InternalSerializationHelper.serializeRequest;
+import static io.github.bucket4j.distributed.serialization.InternalSerializationHelper.serializeResult;
+import static io.github.bucket4j.distributed.serialization.InternalSerializationHelper.serializeState;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Guards sizes of payloads for the most frequent interaction with storage: tryConsume(1) on bucket with single limit.
+ * If change of serialization format increases the size intentionally, then update limits together with the change,
+ * see PayloadSizeReport in bucket4j-benchmarks for sizes of other payloads.
+ */
+public class PayloadSizeTest {
+
+    private static final int MAX_TRY_CONSUME_REQUEST_BYTES = 33;
+    private static final int MAX_TRY_CONSUME_RESULT_BYTES = 9;
+    private static final int MAX_SINGLE_BANDWIDTH_STATE_BYTES = 107;
+
+    private final long now = System.currentTimeMillis() * 1_000_000;
+
+    @Test
+    public void tryConsumeRequestShouldNotGrow() {
+        Request<Boolean> request = new Request<>(TryConsumeCommand.create(1), Versions.getLatest(), now, null);
+        assertNotGrown("request", serializeRequest(request).length, MAX_TRY_CONSUME_REQUEST_BYTES);
+    }
+
+    @Test
+    public void tryConsumeResultShouldNotGrow() {
+        assertNotGrown("result", serializeResult(CommandResult.TRUE, Versions.getLatest()).length, MAX_TRY_CONSUME_RESULT_BYTES);
+    }
+
+    @Test
+    public void singleBandwidthStateShouldNotGrow() {
+        BucketConfiguration configuration = new BucketConfiguration(Collections.singletonList(Bandwidth.simple(1000, Duration.ofSeconds(1))));
+        BucketState bucketState = BucketState.createInitialState(configuration, MathType.INTEGER_64_BITS, now);
+        RemoteBucketState state = new RemoteBucketState(bucketState, new RemoteStat(42), null);
+        assertNotGrown("state", serializeState(state, Versions.getLatest()).length, MAX_SINGLE_BANDWIDTH_STATE_BYTES);
+    }
+
+    private static void assertNotGrown(String payload, int actualSize, int maxSize) {
+        assertTrue(actualSize <= maxSize, "Size of " + payload + " grew from " + maxSize + " to " + actualSize + " bytes");
+    }
+
+}
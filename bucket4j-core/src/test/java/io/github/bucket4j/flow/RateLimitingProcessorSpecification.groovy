@@ -0,0 +1,338 @@
+package io.github.bucket4j.flow
+
+import io.github.bucket4j.Bucket
+import io.github.bucket4j.BucketConfiguration
+import io.github.bucket4j.distributed.AsyncBucketProxy
+import io.github.bucket4j.mock.BucketType
+import io.github.bucket4j.mock.TimeMeterMock
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.time.Duration
+import java.util.concurrent.Flow
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+
+class RateLimitingProcessorSpecification extends Specification {
+
+    private TimeMeterMock clock = new TimeMeterMock()
+    private List<Map<String, Object>> scheduledTasks = []
+    private ScheduledExecutorService scheduler = [
+        schedule: { Runnable task, long delay, TimeUnit unit ->
+            scheduledTasks.add([task: task, delayNanos: unit.toNanos(delay)])
+            return null
+        }
+    ] as ScheduledExecutorService
+
+    private BucketConfiguration configuration = BucketConfiguration.builder()
+        .addLimit({it.capacity(10).refillGreedy(10, Duration.ofSeconds(1))})
+        .build()
+
+    def "Should check parameters"() {
+        when:
+            new RateLimitingProcessor<String>((AsyncBucketProxy) null, scheduler, 1)
+        then:
+            thrown(IllegalArgumentException)
+
+        when:
+            new RateLimitingProcessor<String>(Bucket.builder().addLimit({it.capacity(1).refillGreedy(1, Duration.ofSeconds(1))}).build(), null, 1)
+        then:
+            thrown(IllegalArgumentException)
+
+        when:
+            new RateLimitingProcessor<String>(BucketType.LOCAL_LOCK_FREE.createAsyncBucket(configuration), scheduler, 0)
+        then:
+            thrown(IllegalArgumentException)
+    }
+
+    @Unroll
+    def "#type should request upstream in chunks of tokens and resume by timer when bucket is empty"(BucketType type) {
+        setup:
+            AsyncBucketProxy bucket = type.createAsyncBucket(configuration, clock)
+            TestPublisher publisher = new TestPublisher()
+            TestSubscriber subscriber = new TestSubscriber(100)
+            RateLimitingProcessor<Integer> processor = new RateLimitingProcessor<>(bucket, scheduler, 4)
+            publisher.subscribe(processor)
+            processor.subscribe(subscriber)
+
+        expect: "the first chunk is taken before any element arrives"
+            publisher.requested == 4
+            bucket.getAvailableTokens().get() == 6
+
+        when: "the next chunk is taken only when half of previous one is received"
+            publisher.emit(1)
+        then:
+            publisher.requested == 4
+        when:
+            publisher.emit(2)
+        then:
+            publisher.requested == 6
+
+        when: "elements are passed until bucket is exhausted"
+            publisher.emitAllRequested()
+        then:
+            publisher.requested == 10
+            subscriber.received == (1..10).toList()
+            bucket.getAvailableTokens().get() == -1 // token for the next element is reserved
+            scheduledTasks.size() == 1
+            scheduledTasks[0].delayNanos == 100_000_000
+
+        when: "the timer resumes the flow"
+            scheduledTasks.remove(0).task.run()
+        then:
+            publisher.requested == 11
+
+        when:
+            publisher.emitAllRequested()
+            publisher.complete()
+        then:
+            subscriber.received.size() == 11
+            subscriber.completed
+            subscriber.error == null
+
+        where:
+            type << BucketType.values()
+    }
+
+    def "Should not take more tokens than downstream requested"() {
+        setup:
+            Bucket bucket = Bucket.builder()
+                .addLimit({it.capacity(10).refillGreedy(10, Duration.ofSeconds(1))})
+                .withCustomTimePrecision(clock)
+                .build()
+            TestPublisher publisher = new TestPublisher()
+            TestSubscriber subscriber = new TestSubscriber(0)
+            RateLimitingProcessor<Integer> processor = new RateLimitingProcessor<>(bucket, scheduler, 100)
+            processor.subscribe(subscriber)
+            publisher.subscribe(processor)
+
+        expect:
+            publisher.requested == 0
+            bucket.getAvailableTokens() == 10
+
+        when:
+            subscriber.subscription.request(3)
+        then:
+            publisher.requested == 3
+            bucket.getAvailableTokens() == 7
+
+        when:
+            publisher.emitAllRequested()
+        then:
+            subscriber.received == [1, 2, 3]
+            publisher.requested == 3
+            bucket.getAvailableTokens() == 7
+    }
+
+    def "Should forward errors and cancellation"() {
+        setup:
+            Bucket bucket = Bucket.builder()
+                .addLimit({it.capacity(10).refillGreedy(10, Duration.ofSeconds(1))})
+                .withCustomTimePrecision(clock)
+                .build()
+            TestPublisher publisher = new TestPublisher()
+            TestSubscriber subscriber = new TestSubscriber(1)
+            RateLimitingProcessor<Integer> processor = new RateLimitingProcessor<>(bucket, scheduler, 10)
+            publisher.subscribe(processor)
+            processor.subscribe(subscriber)
+
+        when: "second subscriber is rejected"
+            TestSubscriber secondSubscriber = new TestSubscriber(1)
+            processor.subscribe(secondSubscriber)
+        then:
+            secondSubscriber.error instanceof IllegalStateException
+            subscriber.error == null
+
+        when: "upstream error is forwarded"
+            RuntimeException error = new RuntimeException()
+            publisher.subscriber.onError(error)
+        then:
+            subscriber.error.is(error)
+
+        when: "illegal demand cancels upstream"
+            publisher = new TestPublisher()
+            subscriber = new TestSubscriber(0)
+            processor = new RateLimitingProcessor<>(bucket, scheduler, 10)
+            publisher.subscribe(processor)
+            processor.subscribe(subscriber)
+            subscriber.subscription.request(0)
+        then:
+            publisher.cancelled
+            subscriber.error instanceof IllegalArgumentException
+
+        when: "cancellation by downstream cancels upstream"
+            publisher = new TestPublisher()
+            subscriber = new TestSubscriber(0)
+            processor = new RateLimitingProcessor<>(bucket, scheduler, 10)
+            processor.subscribe(subscriber)
+            subscriber.subscription.cancel()
+            publisher.subscribe(processor)
+        then:
+            publisher.cancelled
+    }
+
+    def "Should not lose elements emitted by synchronous publisher from inside of request"() {
+        setup:
+            Bucket bucket = Bucket.builder()
+                .addLimit({it.capacity(10).refillGreedy(10, Duration.ofSeconds(1))})
+                .withCustomTimePrecision(clock)
+                .build()
+            SynchronousRangePublisher publisher = new SynchronousRangePublisher(20)
+            TestSubscriber subscriber = new TestSubscriber(10)
+            RateLimitingProcessor<Integer> processor = new RateLimitingProcessor<>(bucket, scheduler, 10)
+
+        when: "downstream requests from onSubscribe when upstream is already attached"
+            publisher.subscribe(processor)
+            processor.subscribe(subscriber)
+        then:
+            subscriber.received == (1..10).toList()
+            bucket.getAvailableTokens() == 0
+    }
+
+    def "Should not lose elements when downstream requests re-entrantly from onNext"() {
+        setup:
+            Bucket bucket = Bucket.builder()
+                .addLimit({it.capacity(10).refillGreedy(10, Duration.ofSeconds(1))})
+                .withCustomTimePrecision(clock)
+                .build()
+            SynchronousRangePublisher publisher = new SynchronousRangePublisher(8)
+            TestSubscriber subscriber = new TestSubscriber(1) {
+                @Override
+                void onNext(Integer item) {
+                    super.onNext(item)
+                    subscription.request(1)
+                }
+            }
+            RateLimitingProcessor<Integer> processor = new RateLimitingProcessor<>(bucket, scheduler, 4)
+
+        when:
+            publisher.subscribe(processor)
+            processor.subscribe(subscriber)
+        then:
+            subscriber.received == (1..8).toList()
+            subscriber.completed
+            publisher.emitted == 8
+            bucket.getAvailableTokens() >= 1
+    }
+
+    /**
+     * Spec-conforming publisher which emits synchronously from inside of request and protects itself from recursion by trampoline.
+     */
+    private static class SynchronousRangePublisher implements Flow.Publisher<Integer> {
+
+        final int count
+        int emitted
+        long requested
+        boolean emitting
+        boolean completed
+
+        SynchronousRangePublisher(int count) {
+            this.count = count
+        }
+
+        @Override
+        void subscribe(Flow.Subscriber<? super Integer> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                void request(long n) {
+                    requested += n
+                    if (emitting) {
+                        return
+                    }
+                    emitting = true
+                    while (emitted < requested && emitted < count) {
+                        subscriber.onNext(++emitted)
+                    }
+                    if (emitted == count && !completed) {
+                        completed = true
+                        subscriber.onComplete()
+                    }
+                    emitting = false
+                }
+                @Override
+                void cancel() {
+                    // do nothing
+                }
+            })
+        }
+
+    }
+
+    private static class TestPublisher implements Flow.Publisher<Integer> {
+
+        Flow.Subscriber<? super Integer> subscriber
+        long requested
+        int emitted
+        boolean cancelled
+
+        @Override
+        void subscribe(Flow.Subscriber<? super Integer> subscriber) {
+            this.subscriber = subscriber
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                void request(long n) {
+                    requested += n
+                }
+                @Override
+                void cancel() {
+                    cancelled = true
+                }
+            })
+        }
+
+        void emit(int item) {
+            assert emitted < requested
+            emitted++
+            subscriber.onNext(item)
+        }
+
+        void emitAllRequested() {
+            while (emitted < requested) {
+                emit(emitted + 1)
+            }
+        }
+
+        void complete() {
+            subscriber.onComplete()
+        }
+
+    }
+
+    private static class TestSubscriber implements Flow.Subscriber<Integer> {
+
+        final long initialRequest
+        Flow.Subscription subscription
+        List<Integer> received = []
+        boolean completed
+        Throwable error
+
+        TestSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest
+        }
+
+        @Override
+        void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription
+            if (initialRequest > 0) {
+                subscription.request(initialRequest)
+            }
+        }
+
+        @Override
+        void onNext(Integer item) {
+            received.add(item)
+        }
+
+        @Override
+        void onError(Throwable throwable) {
+            error = throwable
+        }
+
+        @Override
+        void onComplete() {
+            completed = true
+        }
+
+    }
+
+}
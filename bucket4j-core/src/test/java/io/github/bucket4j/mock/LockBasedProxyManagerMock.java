@@ -29,6 +29,9 @@ import java.util.Optional;
 public class LockBasedProxyManagerMock<K> extends AbstractLockBasedProxyManager<K> {
 
     private final Map<K, byte[]> stateMap = new HashMap<>();
+    private boolean lockFreeReadSupported = true;
+    private RuntimeException readFailure;
+    private int lockCount;
 
     public LockBasedProxyManagerMock(ClientSideConfig clientSideConfig) {
         super(clientSideConfig);
@@ -76,8 +79,20 @@ public class LockBasedProxyManagerMock<K> extends AbstractLockBasedProxyManager<
                 // do nothing
             }
 
+            @Override
+            public byte[] get(Optional<Long> requestTimeout) {
+                if (readFailure != null) {
+                    throw readFailure;
+                }
+                if (!lockFreeReadSupported) {
+                    return LockBasedTransaction.super.get(requestTimeout);
+                }
+                return stateMap.get(key);
+            }
+
             @Override
             public byte[] lockAndGet(Optional<Long> requestTimeout) {
+                lockCount++;
                 return backup;
             }
 
@@ -89,6 +104,18 @@ public class LockBasedProxyManagerMock<K> extends AbstractLockBasedProxyManager<
         };
     }
 
+    public void setLockFreeReadSupported(boolean lockFreeReadSupported) {
+        this.lockFreeReadSupported = lockFreeReadSupported;
+    }
+
+    public void setReadFailure(RuntimeException readFailure) {
+        this.readFailure = readFailure;
+    }
+
+    public int getLockCount() {
+        return lockCount;
+    }
+
     @Override
     public void removeProxy(K key) {
         stateMap.remove(key);
@@ -32,6 +32,9 @@ import java.util.Optional;
 public class SelectForUpdateBasedProxyManagerMock<K> extends AbstractSelectForUpdateBasedProxyManager<K> {
 
     private final Map<K, byte[]> stateMap = new HashMap<>();
+    private boolean lockFreeReadSupported = true;
+    private RuntimeException readFailure;
+    private int lockCount;
 
     public SelectForUpdateBasedProxyManagerMock(ClientSideConfig clientSideConfig) {
         super(clientSideConfig);
@@ -72,8 +75,20 @@ public class SelectForUpdateBasedProxyManagerMock<K> extends AbstractSelectForUp
                 // do nothing
             }
 
+            @Override
+            public byte[] get(Optional<Long> requestTimeout) {
+                if (readFailure != null) {
+                    throw readFailure;
+                }
+                if (!lockFreeReadSupported) {
+                    return SelectForUpdateBasedTransaction.super.get(requestTimeout);
+                }
+                return stateMap.get(key);
+            }
+
             @Override
             public LockAndGetResult tryLockAndGet(Optional<Long> requestTimeoutNanos) {
+                lockCount++;
                 if (!existBeforeTransaction) {
                     return LockAndGetResult.notLocked();
                 }
@@ -92,6 +107,18 @@ public class SelectForUpdateBasedProxyManagerMock<K> extends AbstractSelectForUp
         };
     }
 
+    public void setLockFreeReadSupported(boolean lockFreeReadSupported) {
+        this.lockFreeReadSupported = lockFreeReadSupported;
+    }
+
+    public void setReadFailure(RuntimeException readFailure) {
+        this.readFailure = readFailure;
+    }
+
+    public int getLockCount() {
+        return lockCount;
+    }
+
     @Override
     public void removeProxy(K key) {
         stateMap.remove(key);
@@ -0,0 +1,78 @@
+package io.github.bucket4j.util
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class LockFreeHistogramSpecification extends Specification {
+
+    def "Should report zeros when nothing recorded"() {
+        setup:
+            LockFreeHistogram histogram = new LockFreeHistogram()
+        expect:
+            histogram.getCount() == 0
+            histogram.getMax() == 0
+            histogram.getMean() == 0.0d
+            histogram.getValueAtPercentile(99.0) == 0
+    }
+
+    def "Should report exact values for small numbers"() {
+        setup:
+            LockFreeHistogram histogram = new LockFreeHistogram()
+        when:
+            for (int i = 1; i <= 10; i++) {
+                histogram.record(i)
+            }
+        then:
+            histogram.getCount() == 10
+            histogram.getMax() == 10
+            histogram.getMean() == 5.5d
+            histogram.getValueAtPercentile(50.0) == 5
+            histogram.getValueAtPercentile(90.0) == 9
+            histogram.getValueAtPercentile(100.0) == 10
+    }
+
+    @Unroll
+    def "Should report percentile of #value with bounded relative error"(long value) {
+        setup:
+            LockFreeHistogram histogram = new LockFreeHistogram()
+        when:
+            histogram.record(value)
+        then:
+            long reported = histogram.getValueAtPercentile(50.0)
+            reported <= value
+            value - reported <= value / 16
+        where:
+            value << [17L, 1_000L, 123_456_789L, Long.MAX_VALUE]
+    }
+
+    def "Should map every value into bucket which covers it"() {
+        expect:
+            for (long value : [0L, 15L, 16L, 31L, 32L, 1_000_000L, Long.MAX_VALUE]) {
+                int index = LockFreeHistogram.indexOf(value)
+                assert LockFreeHistogram.highestEquivalentValue(index) >= value
+                if (index > 0) {
+                    assert LockFreeHistogram.highestEquivalentValue(index - 1) < value
+                }
+            }
+    }
+
+    def "Should clamp negative values and forget everything on reset"() {
+        setup:
+            LockFreeHistogram histogram = new LockFreeHistogram()
+        when:
+            histogram.record(-5)
+            histogram.record(100)
+        then:
+            histogram.getCount() == 2
+            histogram.getValueAtPercentile(1.0) == 0
+            histogram.getMax() == 100
+
+        when:
+            histogram.reset()
+        then:
+            histogram.getCount() == 0
+            histogram.getMax() == 0
+            histogram.getValueAtPercentile(50.0) == 0
+    }
+
+}
@@ -0,0 +1,153 @@
+package io.github.bucket4j.util.concurrent
+
+import io.github.bucket4j.Bucket
+import spock.lang.Specification
+import spock.lang.Timeout
+
+import java.time.Duration
+import java.util.concurrent.CancellationException
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class HashedWheelSchedulerSpecification extends Specification {
+
+    HashedWheelScheduler scheduler = new HashedWheelScheduler(Duration.ofMillis(1), 8)
+
+    def cleanup() {
+        scheduler.shutdownNow()
+    }
+
+    def "Should check parameters"() {
+        when:
+            new HashedWheelScheduler(Duration.ZERO, 8)
+        then:
+            thrown(IllegalArgumentException)
+
+        when:
+            new HashedWheelScheduler(Duration.ofMillis(1), 0)
+        then:
+            thrown(IllegalArgumentException)
+    }
+
+    @Timeout(10)
+    def "Should never execute task earlier than requested"() {
+        setup:
+            List<Long> lateness = new CopyOnWriteArrayList<>()
+            CountDownLatch latch = new CountDownLatch(delays.size())
+        when:
+            for (long delayMillis : delays) {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis)
+                scheduler.schedule({
+                    lateness.add(System.nanoTime() - deadline)
+                    latch.countDown()
+                }, delayMillis, TimeUnit.MILLISECONDS)
+            }
+            latch.await()
+        then:
+            lateness.every { it >= 0 }
+        where:
+            // delays greater than 8 ticks require several rounds of wheel
+            delays << [[0L, 1L, 2L, 5L, 7L], [8L, 9L, 17L, 30L, 100L]]
+    }
+
+    @Timeout(10)
+    def "Should return result of callable"() {
+        when:
+            ScheduledFuture<String> future = scheduler.schedule({ "42" } as java.util.concurrent.Callable<String>, 5, TimeUnit.MILLISECONDS)
+        then:
+            future.get() == "42"
+            future.getDelay(TimeUnit.NANOSECONDS) <= 0
+    }
+
+    @Timeout(10)
+    def "Cancelled task should not be executed"() {
+        setup:
+            AtomicInteger executions = new AtomicInteger()
+            ScheduledFuture<?> cancelled = scheduler.schedule({ executions.incrementAndGet() }, 200, TimeUnit.MILLISECONDS)
+            ScheduledFuture<?> pendingCancelled = scheduler.schedule({ executions.incrementAndGet() }, 100, TimeUnit.MILLISECONDS)
+            pendingCancelled.cancel(false)
+            // let the worker move the task to the wheel
+            Thread.sleep(10)
+        when:
+            cancelled.cancel(false)
+            scheduler.schedule({}, 300, TimeUnit.MILLISECONDS).get()
+        then:
+            executions.get() == 0
+            cancelled.isCancelled()
+
+        when:
+            cancelled.get()
+        then:
+            thrown(CancellationException)
+    }
+
+    @Timeout(10)
+    def "Should execute periodic tasks until cancellation"() {
+        setup:
+            CountDownLatch fixedRate = new CountDownLatch(3)
+            CountDownLatch fixedDelay = new CountDownLatch(3)
+        when:
+            ScheduledFuture<?> fixedRateFuture = scheduler.scheduleAtFixedRate({ fixedRate.countDown() }, 0, 2, TimeUnit.MILLISECONDS)
+            ScheduledFuture<?> fixedDelayFuture = scheduler.scheduleWithFixedDelay({ fixedDelay.countDown() }, 0, 2, TimeUnit.MILLISECONDS)
+            fixedRate.await()
+            fixedDelay.await()
+        then:
+            fixedRateFuture.cancel(false)
+            fixedDelayFuture.cancel(false)
+            !fixedRateFuture.isDone() || fixedRateFuture.isCancelled()
+    }
+
+    @Timeout(10)
+    def "Should execute delayed tasks after shutdown, but reject new ones"() {
+        setup:
+            AtomicInteger executions = new AtomicInteger()
+            scheduler.schedule({ executions.incrementAndGet() }, 20, TimeUnit.MILLISECONDS)
+        when:
+            scheduler.shutdown()
+            scheduler.schedule({}, 0, TimeUnit.MILLISECONDS)
+        then:
+            thrown(RejectedExecutionException)
+            scheduler.isShutdown()
+
+        when:
+            boolean terminated = scheduler.awaitTermination(5, TimeUnit.SECONDS)
+        then:
+            terminated
+            scheduler.isTerminated()
+            executions.get() == 1
+    }
+
+    @Timeout(10)
+    def "shutdownNow should return tasks that were not executed"() {
+        setup:
+            AtomicInteger executions = new AtomicInteger()
+            scheduler.schedule({ executions.incrementAndGet() }, 1, TimeUnit.HOURS)
+            scheduler.schedule({ executions.incrementAndGet() }, 2, TimeUnit.HOURS).cancel(false)
+        when:
+            List<Runnable> unprocessed = scheduler.shutdownNow()
+        then:
+            unprocessed.size() == 1
+            scheduler.isTerminated()
+            executions.get() == 0
+    }
+
+    @Timeout(10)
+    def "Should be usable as scheduler for SchedulingBucket"() {
+        setup:
+            Bucket bucket = Bucket.builder()
+                .addLimit({it.capacity(1).refillGreedy(1, Duration.ofMillis(10))})
+                .build()
+            bucket.tryConsume(1)
+        when:
+            long startNanos = System.nanoTime()
+            boolean consumed = bucket.asScheduler().tryConsume(1, Duration.ofSeconds(1), scheduler).get()
+        then:
+            consumed
+            System.nanoTime() - startNanos >= TimeUnit.MILLISECONDS.toNanos(5)
+    }
+
+}
@@ -58,6 +58,7 @@ public class Db2SelectForUpdateBasedProxyManager<K> extends AbstractSelectForUpd
     private final String updateSqlQuery;
     private final String insertSqlQuery;
     private final String selectSqlQuery;
+    private final String readSqlQuery;
     private final String clearExpiredSqlQuery;
     private final List<CustomColumnProvider<K>> customColumns = new ArrayList<>();
 
@@ -69,6 +70,7 @@ public class Db2SelectForUpdateBasedProxyManager<K> extends AbstractSelectForUpd
         this.insertSqlQuery = MessageFormat.format("INSERT INTO {0}({1}) VALUES(?)",
             builder.getTableName(), builder.getIdColumnName());
         this.selectSqlQuery = MessageFormat.format("SELECT {0} as state FROM {1} WHERE {2} = ? FOR UPDATE OF {0} WITH RS", builder.getStateColumnName(), builder.getTableName(), builder.getIdColumnName());
+        this.readSqlQuery = MessageFormat.format("SELECT {0} as state FROM {1} WHERE {2} = ?", builder.getStateColumnName(), builder.getTableName(), builder.getIdColumnName());
         this.customColumns.addAll(builder.getCustomColumns());
         getClientSideConfig().getExpirationAfterWriteStrategy().ifPresent(expiration -> {
             this.customColumns.add(CustomColumnProvider.createExpiresInColumnProvider(builder.getExpiresAtColumnName(), expiration));
@@ -128,6 +130,23 @@ public class Db2SelectForUpdateBasedProxyManager<K> extends AbstractSelectForUpd
                 }
             }
 
+            @Override
+            public byte[] get(Optional<Long> requestTimeoutNanos) {
+                try (PreparedStatement readStatement = connection.prepareStatement(readSqlQuery)) {
+                    applyTimeout(readStatement, requestTimeoutNanos);
+                    primaryKeyMapper.set(readStatement, 1, key);
+                    try (ResultSet rs = readStatement.executeQuery()) {
+                        if (!rs.next()) {
+                            return null;
+                        }
+                        String hex = rs.getString("state");
+                        return hex == null ? null : hexToBinary(hex);
+                    }
+                } catch (SQLException e) {
+                    throw new BucketExceptions.BucketExecutionException(e);
+                }
+            }
+
             @Override
             public LockAndGetResult tryLockAndGet(Optional<Long> requestTimeoutNanos) {
                 try (PreparedStatement selectStatement = connection.prepareStatement(selectSqlQuery)) {
@@ -37,16 +37,27 @@
 package io.github.bucket4j.grid.hazelcast;
 
 import java.util.Objects;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
 import com.hazelcast.config.SerializationConfig;
 import com.hazelcast.config.SerializerConfig;
+import com.hazelcast.core.EntryEvent;
 import com.hazelcast.map.IMap;
+import com.hazelcast.map.MapEvent;
+import com.hazelcast.map.listener.EntryEvictedListener;
+import com.hazelcast.map.listener.EntryExpiredListener;
+import com.hazelcast.map.listener.EntryRemovedListener;
+import com.hazelcast.map.listener.EntryUpdatedListener;
+import com.hazelcast.map.listener.MapClearedListener;
+import com.hazelcast.map.listener.MapEvictedListener;
 
 import io.github.bucket4j.distributed.proxy.AbstractProxyManager;
 import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.NearCache;
 import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
 import io.github.bucket4j.distributed.remote.Request;
 import io.github.bucket4j.distributed.serialization.InternalSerializationHelper;
 import io.github.bucket4j.distributed.versioning.Version;
@@ -58,19 +69,29 @@ import io.github.bucket4j.grid.hazelcast.serialization.SimpleBackupProcessorSeri
 import io.github.bucket4j.grid.hazelcast.serialization.VersionedBackupProcessorSerializer;
 
 import static io.github.bucket4j.distributed.serialization.InternalSerializationHelper.deserializeResult;
+import static io.github.bucket4j.distributed.serialization.InternalSerializationHelper.deserializeState;
 
 /**
  * The extension of Bucket4j library addressed to support <a href="https://hazelcast.com//">Hazelcast</a> in-memory data grid.
  */
-public class HazelcastProxyManager<K> extends AbstractProxyManager<K> {
+public class HazelcastProxyManager<K> extends AbstractProxyManager<K> implements AutoCloseable {
 
     private final IMap<K, byte[]> map;
     private final String offloadableExecutorName;
+    private final NearCache<K> nearCache;
+    private final UUID nearCacheListenerId;
 
     HazelcastProxyManager(HazelcastProxyManagerBuilder<K> builder) {
         super(builder.getClientSideConfig());
         this.map = builder.map;
         this.offloadableExecutorName = builder.offloadableExecutorName;
+        if (builder.nearCacheTimeToLive != null) {
+            this.nearCache = new NearCache<>(builder.nearCacheTimeToLive, builder.nearCacheMaxKeys);
+            this.nearCacheListenerId = map.addEntryListener(new NearCacheInvalidationListener<>(nearCache), false);
+        } else {
+            this.nearCache = null;
+            this.nearCacheListenerId = null;
+        }
     }
 
     /**
@@ -89,6 +110,8 @@ public class HazelcastProxyManager<K> extends AbstractProxyManager<K> {
         super(clientSideConfig);
         this.map = Objects.requireNonNull(map);
         this.offloadableExecutorName = null;
+        this.nearCache = null;
+        this.nearCacheListenerId = null;
     }
 
     /**
@@ -99,10 +122,37 @@ public class HazelcastProxyManager<K> extends AbstractProxyManager<K> {
         super(clientSideConfig);
         this.map = Objects.requireNonNull(map);
         this.offloadableExecutorName = Objects.requireNonNull(offlodableExecutorName);
+        this.nearCache = null;
+        this.nearCacheListenerId = null;
     }
 
     @Override
     public <T> CommandResult<T> execute(K key, Request<T> request) {
+        if (nearCache != null) {
+            if (nearCache.isCacheable(request)) {
+                CommandResult<T> cachedResult = nearCache.execute(key, request);
+                if (cachedResult != null) {
+                    return cachedResult;
+                }
+                long loadingStamp = nearCache.beginLoad(key);
+                byte[] stateBytes = map.get(key);
+                RemoteBucketState state = stateBytes == null ? null : deserializeState(stateBytes);
+                return nearCache.putAndExecute(key, state, loadingStamp, request);
+            }
+            try {
+                return executeOnKey(key, request);
+            } finally {
+                nearCache.invalidate(key);
+            }
+        }
+        if (request.getCommand().isReadOnly()) {
+            // there is no need to route read-only command through entry-processor, because state will not be modified
+            return executeReadOnlyLocally(map.get(key), request);
+        }
+        return executeOnKey(key, request);
+    }
+
+    private <T> CommandResult<T> executeOnKey(K key, Request<T> request) {
         HazelcastEntryProcessor<K, T> entryProcessor = offloadableExecutorName == null?
                 new HazelcastEntryProcessor<>(request) :
                 new HazelcastOffloadableEntryProcessor<>(request, offloadableExecutorName);
@@ -123,6 +173,27 @@ public class HazelcastProxyManager<K> extends AbstractProxyManager<K> {
 
     @Override
     public <T> CompletableFuture<CommandResult<T>> executeAsync(K key, Request<T> request) {
+        if (nearCache != null) {
+            if (nearCache.isCacheable(request)) {
+                CommandResult<T> cachedResult = nearCache.execute(key, request);
+                if (cachedResult != null) {
+                    return CompletableFuture.completedFuture(cachedResult);
+                }
+                long loadingStamp = nearCache.beginLoad(key);
+                return map.getAsync(key).toCompletableFuture().thenApply((byte[] stateBytes) -> {
+                    RemoteBucketState state = stateBytes == null ? null : deserializeState(stateBytes);
+                    return nearCache.putAndExecute(key, state, loadingStamp, request);
+                });
+            }
+            return submitToKey(key, request).whenComplete((result, error) -> nearCache.invalidate(key));
+        }
+        if (request.getCommand().isReadOnly()) {
+            return map.getAsync(key).toCompletableFuture().thenApply((byte[] stateBytes) -> executeReadOnlyLocally(stateBytes, request));
+        }
+        return submitToKey(key, request);
+    }
+
+    private <T> CompletableFuture<CommandResult<T>> submitToKey(K key, Request<T> request) {
         HazelcastEntryProcessor<K, T> entryProcessor = offloadableExecutorName == null?
                 new HazelcastEntryProcessor<>(request) :
                 new HazelcastOffloadableEntryProcessor<>(request, offloadableExecutorName);
@@ -134,6 +205,9 @@ public class HazelcastProxyManager<K> extends AbstractProxyManager<K> {
     @Override
     public void removeProxy(K key) {
         map.remove(key);
+        if (nearCache != null) {
+            nearCache.invalidate(key);
+        }
     }
 
     @Override
@@ -141,6 +215,9 @@ public class HazelcastProxyManager<K> extends AbstractProxyManager<K> {
         CompletionStage<byte[]> hazelcastFuture = map.removeAsync(key);
         CompletableFuture<Void> resultFuture = new CompletableFuture<>();
         hazelcastFuture.whenComplete((oldState, error) -> {
+          if (nearCache != null) {
+              nearCache.invalidate(key);
+          }
           if (error == null) {
               resultFuture.complete(null);
           } else {
@@ -150,6 +227,59 @@ public class HazelcastProxyManager<K> extends AbstractProxyManager<K> {
         return resultFuture;
     }
 
+    /**
+     * Deregisters the map listener that invalidates near cache, does nothing if near cache is not enabled.
+     * Proxy manager with near cache should not be used after closing, because cached state is not invalidated by map events anymore.
+     */
+    @Override
+    public void close() {
+        if (nearCacheListenerId != null) {
+            map.removeEntryListener(nearCacheListenerId);
+            nearCache.invalidateAll();
+        }
+    }
+
+    private static class NearCacheInvalidationListener<K> implements EntryUpdatedListener<K, byte[]>, EntryRemovedListener<K, byte[]>,
+            EntryExpiredListener<K, byte[]>, EntryEvictedListener<K, byte[]>, MapClearedListener, MapEvictedListener {
+
+        private final NearCache<K> nearCache;
+
+        private NearCacheInvalidationListener(NearCache<K> nearCache) {
+            this.nearCache = nearCache;
+        }
+
+        @Override
+        public void entryUpdated(EntryEvent<K, byte[]> event) {
+            nearCache.invalidate(event.getKey());
+        }
+
+        @Override
+        public void entryRemoved(EntryEvent<K, byte[]> event) {
+            nearCache.invalidate(event.getKey());
+        }
+
+        @Override
+        public void entryExpired(EntryEvent<K, byte[]> event) {
+            nearCache.invalidate(event.getKey());
+        }
+
+        @Override
+        public void entryEvicted(EntryEvent<K, byte[]> event) {
+            nearCache.invalidate(event.getKey());
+        }
+
+        @Override
+        public void mapCleared(MapEvent event) {
+            nearCache.invalidateAll();
+        }
+
+        @Override
+        public void mapEvicted(MapEvent event) {
+            nearCache.invalidateAll();
+        }
+
+    }
+
     /**
      * Registers custom Hazelcast serializers for all classes from Bucket4j library which can be transferred over network.
      * Each serializer will have different typeId, and this id will not be changed in the feature releases.
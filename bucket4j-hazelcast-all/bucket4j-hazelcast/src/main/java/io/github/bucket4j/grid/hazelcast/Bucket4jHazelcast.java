@@ -19,10 +19,12 @@
  */
 package io.github.bucket4j.grid.hazelcast;
 
+import java.time.Duration;
 import java.util.Objects;
 
 import com.hazelcast.map.IMap;
 
+import io.github.bucket4j.BucketExceptions;
 import io.github.bucket4j.distributed.proxy.AbstractProxyManagerBuilder;
 
 /**
@@ -73,6 +75,8 @@ public class Bucket4jHazelcast {
 
         final IMap<K, byte[]> map;
         String offloadableExecutorName;
+        Duration nearCacheTimeToLive;
+        int nearCacheMaxKeys;
 
         public HazelcastProxyManagerBuilder(IMap<K, byte[]> map) {
             this.map = Objects.requireNonNull(map);
@@ -83,6 +87,30 @@ public class Bucket4jHazelcast {
             return this;
         }
 
+        /**
+         * Enables near cache that serves read-only commands like {@code getAvailableTokens}, {@code estimateAbilityToConsume}
+         * and {@code getConfiguration} from local copy of bucket state instead of sending entry-processor to the owner member.
+         * Cached state is invalidated by map events and by modifications that are done through this proxy-manager,
+         * additionally each state is not served longer than {@code timeToLive}.
+         * The map listener that invalidates near cache is deregistered by {@link HazelcastProxyManager#close()}.
+         *
+         * @param timeToLive max time during which the cached state can be served
+         * @param maxKeys max amount of buckets for which state is cached, rounded up to power of two, buckets that collide in the cache evict each other
+         *
+         * @return this builder instance
+         */
+        public HazelcastProxyManagerBuilder<K> nearCache(Duration timeToLive, int maxKeys) {
+            if (timeToLive.isZero() || timeToLive.isNegative()) {
+                throw BucketExceptions.nonPositiveNearCacheTimeToLive(timeToLive);
+            }
+            if (maxKeys <= 0) {
+                throw BucketExceptions.nonPositiveNearCacheMaxKeys(maxKeys);
+            }
+            this.nearCacheTimeToLive = timeToLive;
+            this.nearCacheMaxKeys = maxKeys;
+            return this;
+        }
+
         @Override
         public HazelcastProxyManager<K> build() {
             return new HazelcastProxyManager<>(this);
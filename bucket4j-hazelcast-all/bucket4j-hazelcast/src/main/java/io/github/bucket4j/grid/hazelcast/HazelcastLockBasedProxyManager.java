@@ -93,6 +93,11 @@ public class HazelcastLockBasedProxyManager<K> extends AbstractLockBasedProxyMan
                 // do nothing
             }
 
+            @Override
+            public byte[] get(Optional<Long> requestTimeout) {
+                return map.get(key);
+            }
+
             @Override
             public byte[] lockAndGet(Optional<Long> requestTimeout) {
                 map.lock(key);
@@ -18,6 +18,7 @@ import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 
 import java.io.Serializable;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.UUID;
 
@@ -63,6 +64,11 @@ public class HazelcastTest extends AbstractDistributedBucketTest {
                 () -> UUID.randomUUID().toString(),
                 () -> Bucket4jHazelcast.entryProcessorBasedBuilder(map)
             ).checkExpiration(),
+            new ProxyManagerSpec<>(
+                "HazelcastProxyManager_NearCache",
+                () -> UUID.randomUUID().toString(),
+                () -> Bucket4jHazelcast.entryProcessorBasedBuilder(map).nearCache(Duration.ofMillis(100), 1000)
+            ).checkExpiration(),
             new ProxyManagerSpec<>(
                 "HazelcastLockBasedProxyManager_JdkSerialization",
                 () -> UUID.randomUUID().toString(),
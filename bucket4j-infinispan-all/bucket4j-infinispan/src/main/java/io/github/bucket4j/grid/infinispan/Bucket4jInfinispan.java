@@ -19,12 +19,14 @@
  */
 package io.github.bucket4j.grid.infinispan;
 
+import java.time.Duration;
 import java.util.Objects;
 
 import org.infinispan.client.hotrod.RemoteCache;
 import org.infinispan.functional.FunctionalMap;
 
 
+import io.github.bucket4j.BucketExceptions;
 import io.github.bucket4j.distributed.proxy.AbstractProxyManagerBuilder;
 import io.github.bucket4j.grid.infinispan.hotrod.HotrodInfinispanProxyManager;
 
@@ -62,11 +64,37 @@ public class Bucket4jInfinispan {
     public static class InfinispanProxyManagerBuilder<K> extends AbstractProxyManagerBuilder<K, InfinispanProxyManager<K>, InfinispanProxyManagerBuilder<K>> {
 
         final FunctionalMap.ReadWriteMap<K, byte[]> readWriteMap;
+        Duration nearCacheTimeToLive;
+        int nearCacheMaxKeys;
 
         public InfinispanProxyManagerBuilder(FunctionalMap.ReadWriteMap<K, byte[]> readWriteMap) {
             this.readWriteMap = Objects.requireNonNull(readWriteMap);
         }
 
+        /**
+         * Enables near cache that serves read-only commands like {@code getAvailableTokens}, {@code estimateAbilityToConsume}
+         * and {@code getConfiguration} from local copy of bucket state instead of sending function to the owner node.
+         * Cached state is invalidated by clustered cache listener, so modifications that are done on any node are taken into account,
+         * additionally each state is not served longer than {@code timeToLive}.
+         * The listener is removed by {@link InfinispanProxyManager#close()}.
+         *
+         * @param timeToLive max time during which the cached state can be served
+         * @param maxKeys max amount of buckets for which state is cached, rounded up to power of two, buckets that collide in the cache evict each other
+         *
+         * @return this builder instance
+         */
+        public InfinispanProxyManagerBuilder<K> nearCache(Duration timeToLive, int maxKeys) {
+            if (timeToLive.isZero() || timeToLive.isNegative()) {
+                throw BucketExceptions.nonPositiveNearCacheTimeToLive(timeToLive);
+            }
+            if (maxKeys <= 0) {
+                throw BucketExceptions.nonPositiveNearCacheMaxKeys(maxKeys);
+            }
+            this.nearCacheTimeToLive = timeToLive;
+            this.nearCacheMaxKeys = maxKeys;
+            return this;
+        }
+
         @Override
         public InfinispanProxyManager<K> build() {
             return new InfinispanProxyManager<>(this);
@@ -38,9 +38,18 @@ package io.github.bucket4j.grid.infinispan;
 
 import io.github.bucket4j.distributed.proxy.AbstractProxyManager;
 import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.NearCache;
 import io.github.bucket4j.distributed.remote.*;
+import io.github.bucket4j.distributed.remote.commands.CreateSnapshotCommand;
 import org.infinispan.commons.CacheException;
 import org.infinispan.functional.FunctionalMap.ReadWriteMap;
+import org.infinispan.notifications.Listener;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryCreated;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryExpired;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryModified;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryRemoved;
+import org.infinispan.notifications.cachelistener.event.CacheEntryEvent;
+
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
@@ -50,14 +59,26 @@ import static io.github.bucket4j.distributed.serialization.InternalSerialization
 /**
  * The extension of Bucket4j library addressed to support <a href="https://infinispan.org/">Infinispan</a> in-memory computing platform.
  */
-public class InfinispanProxyManager<K> extends AbstractProxyManager<K> {
+public class InfinispanProxyManager<K> extends AbstractProxyManager<K> implements AutoCloseable {
 
     private final InfinispanProcessor<K, Void> REMOVE_BUCKET_ENTRY_PROCESSOR = new InfinispanProcessor<>(new byte[0]);
     private final ReadWriteMap<K, byte[]> readWriteMap;
+    private final NearCache<K> nearCache;
+    private final NearCacheInvalidationListener<K> nearCacheListener;
 
     InfinispanProxyManager(Bucket4jInfinispan.InfinispanProxyManagerBuilder<K> builder) {
         super(builder.getClientSideConfig());
         this.readWriteMap = builder.readWriteMap;
+        if (builder.nearCacheTimeToLive != null) {
+            this.nearCache = new NearCache<>(builder.nearCacheTimeToLive, builder.nearCacheMaxKeys);
+            // functional listeners are notified only about writes that happen on the local node,
+            // so clustered cache listener is used to receive modifications from all nodes
+            this.nearCacheListener = new NearCacheInvalidationListener<>(nearCache);
+            readWriteMap.cache().addListener(nearCacheListener);
+        } else {
+            this.nearCache = null;
+            this.nearCacheListener = null;
+        }
     }
 
     /**
@@ -75,10 +96,19 @@ public class InfinispanProxyManager<K> extends AbstractProxyManager<K> {
     public InfinispanProxyManager(ReadWriteMap<K, byte[]> readWriteMap, ClientSideConfig clientSideConfig) {
         super(clientSideConfig);
         this.readWriteMap = Objects.requireNonNull(readWriteMap);
+        this.nearCache = null;
+        this.nearCacheListener = null;
     }
 
     @Override
     public <T> CommandResult<T> execute(K key, Request<T> request) {
+        if (nearCache != null) {
+            try {
+                return executeWithNearCache(key, request).get();
+            } catch (InterruptedException | ExecutionException e) {
+                throw new CacheException(e);
+            }
+        }
         InfinispanProcessor<K, T> entryProcessor = new InfinispanProcessor<>(request);
         try {
             CompletableFuture<byte[]> resultFuture = readWriteMap.eval(key, entryProcessor);
@@ -106,7 +136,12 @@ public class InfinispanProxyManager<K> extends AbstractProxyManager<K> {
     protected CompletableFuture<Void> removeAsync(K key) {
         try {
             CompletableFuture<byte[]> resultFuture = readWriteMap.eval(key, REMOVE_BUCKET_ENTRY_PROCESSOR);
-            return resultFuture.thenApply(resultBytes -> null);
+            return resultFuture.thenApply(resultBytes -> {
+                if (nearCache != null) {
+                    nearCache.invalidate(key);
+                }
+                return null;
+            });
         } catch (Throwable t) {
             CompletableFuture<Void> fail = new CompletableFuture<>();
             fail.completeExceptionally(t);
@@ -116,6 +151,34 @@ public class InfinispanProxyManager<K> extends AbstractProxyManager<K> {
 
     @Override
     public <T> CompletableFuture<CommandResult<T>> executeAsync(K key, Request<T> request) {
+        if (nearCache != null) {
+            return executeWithNearCache(key, request);
+        }
+        return evalAsync(key, request);
+    }
+
+    private <T> CompletableFuture<CommandResult<T>> executeWithNearCache(K key, Request<T> request) {
+        if (!nearCache.isCacheable(request)) {
+            return evalAsync(key, request).whenComplete((result, error) -> nearCache.invalidate(key));
+        }
+        CommandResult<T> cachedResult = nearCache.execute(key, request);
+        if (cachedResult != null) {
+            return CompletableFuture.completedFuture(cachedResult);
+        }
+        long loadingStamp = nearCache.beginLoad(key);
+        Request<RemoteBucketState> snapshotRequest = new Request<>(new CreateSnapshotCommand(), request.getBackwardCompatibilityVersion(),
+            request.getClientSideTime(), request.getExpirationStrategy());
+        return evalAsync(key, snapshotRequest).thenCompose((CommandResult<RemoteBucketState> snapshot) -> {
+            if (snapshot.isError()) {
+                // let the original request to report the problem
+                return evalAsync(key, request);
+            }
+            RemoteBucketState state = snapshot.isBucketNotFound() ? null : snapshot.getData();
+            return CompletableFuture.completedFuture(nearCache.putAndExecute(key, state, loadingStamp, request));
+        });
+    }
+
+    private <T> CompletableFuture<CommandResult<T>> evalAsync(K key, Request<T> request) {
         try {
             InfinispanProcessor<K, T> entryProcessor = new InfinispanProcessor<>(request);
             CompletableFuture<byte[]> resultFuture = readWriteMap.eval(key, entryProcessor);
@@ -132,4 +195,35 @@ public class InfinispanProxyManager<K> extends AbstractProxyManager<K> {
         return true;
     }
 
+    /**
+     * Removes the cache listener that invalidates near cache, does nothing if near cache is not enabled.
+     * Proxy manager with near cache should not be used after closing, because cached state is not invalidated by cache events anymore.
+     */
+    @Override
+    public void close() {
+        if (nearCacheListener != null) {
+            readWriteMap.cache().removeListener(nearCacheListener);
+            nearCache.invalidateAll();
+        }
+    }
+
+    @Listener(clustered = true)
+    public static class NearCacheInvalidationListener<K> {
+
+        private final NearCache<K> nearCache;
+
+        private NearCacheInvalidationListener(NearCache<K> nearCache) {
+            this.nearCache = nearCache;
+        }
+
+        @CacheEntryCreated
+        @CacheEntryModified
+        @CacheEntryRemoved
+        @CacheEntryExpired
+        public void onEntryChanged(CacheEntryEvent<K, byte[]> event) {
+            nearCache.invalidate(event.getKey());
+        }
+
+    }
+
 }
@@ -21,6 +21,7 @@ import org.junit.jupiter.api.BeforeAll;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.UUID;
 
@@ -61,6 +62,11 @@ public class InfinispanTest extends AbstractDistributedBucketTest {
                 "InfinispanProxyManager",
                 () -> UUID.randomUUID().toString(),
                 () -> Bucket4jInfinispan.entryProcessorBasedBuilder(readWriteMap)
+            ).checkExpiration(),
+            new ProxyManagerSpec<>(
+                "InfinispanProxyManager_NearCache",
+                () -> UUID.randomUUID().toString(),
+                () -> Bucket4jInfinispan.entryProcessorBasedBuilder(readWriteMap).nearCache(Duration.ofMillis(100), 1000)
             ).checkExpiration()
         );
     }
@@ -57,6 +57,7 @@ public class MariaDBSelectForUpdateBasedProxyManager<K> extends AbstractSelectFo
     private final String updateSqlQuery;
     private final String insertSqlQuery;
     private final String selectSqlQuery;
+    private final String readSqlQuery;
     private final String clearExpiredSqlQuery;
     private final List<CustomColumnProvider<K>> customColumns = new ArrayList<>();
 
@@ -68,6 +69,7 @@ public class MariaDBSelectForUpdateBasedProxyManager<K> extends AbstractSelectFo
         this.insertSqlQuery = MessageFormat.format("INSERT IGNORE INTO {0}({1}, {2}) VALUES(?, null)",
             builder.getTableName(), builder.getIdColumnName(), builder.getStateColumnName());
         this.selectSqlQuery = MessageFormat.format("SELECT {0} as state FROM {1} WHERE {2} = ? FOR UPDATE", builder.getStateColumnName(), builder.getTableName(), builder.getIdColumnName());
+        this.readSqlQuery = MessageFormat.format("SELECT {0} as state FROM {1} WHERE {2} = ?", builder.getStateColumnName(), builder.getTableName(), builder.getIdColumnName());
         getClientSideConfig().getExpirationAfterWriteStrategy().ifPresent(expiration -> {
             this.customColumns.add(CustomColumnProvider.createExpiresInColumnProvider(builder.getExpiresAtColumnName(), expiration));
         });
@@ -101,6 +103,7 @@ public class MariaDBSelectForUpdateBasedProxyManager<K> extends AbstractSelectFo
         this.insertSqlQuery = MessageFormat.format("INSERT IGNORE INTO {0}({1}, {2}) VALUES(?, null)",
                 configuration.getTableName(), configuration.getIdName(), configuration.getStateName());
         this.selectSqlQuery = MessageFormat.format("SELECT {0} as state FROM {1} WHERE {2} = ? FOR UPDATE", configuration.getStateName(), configuration.getTableName(), configuration.getIdName());
+        this.readSqlQuery = MessageFormat.format("SELECT {0} as state FROM {1} WHERE {2} = ?", configuration.getStateName(), configuration.getTableName(), configuration.getIdName());
         if (getClientSideConfig().getExpirationAfterWriteStrategy().isPresent()) {
             throw new IllegalArgumentException();
         }
@@ -169,6 +172,19 @@ public class MariaDBSelectForUpdateBasedProxyManager<K> extends AbstractSelectFo
                 }
             }
 
+            @Override
+            public byte[] get(Optional<Long> timeoutNanos) {
+                try (PreparedStatement readStatement = connection.prepareStatement(readSqlQuery)) {
+                    applyTimeout(readStatement, timeoutNanos);
+                    primaryKeyMapper.set(readStatement, 1, key);
+                    try (ResultSet rs = readStatement.executeQuery()) {
+                        return rs.next() ? rs.getBytes("state") : null;
+                    }
+                } catch (SQLException e) {
+                    throw new BucketExceptions.BucketExecutionException(e);
+                }
+            }
+
             @Override
             public LockAndGetResult tryLockAndGet(Optional<Long> timeoutNanos) {
                 try (PreparedStatement selectStatement = connection.prepareStatement(selectSqlQuery)) {
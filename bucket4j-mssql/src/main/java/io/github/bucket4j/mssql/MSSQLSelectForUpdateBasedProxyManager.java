@@ -56,6 +56,7 @@ public class MSSQLSelectForUpdateBasedProxyManager<K> extends AbstractSelectForU
     private final String updateSqlQuery;
     private final String insertSqlQuery;
     private final String selectSqlQuery;
+    private final String readSqlQuery;
 
     private final String clearExpiredSqlQuery;
     private final List<CustomColumnProvider<K>> customColumns = new ArrayList<>();
@@ -69,6 +70,7 @@ public class MSSQLSelectForUpdateBasedProxyManager<K> extends AbstractSelectForU
             "INSERT INTO {0}({1},{2}) VALUES(?, null)",
             builder.getTableName(), builder.getIdColumnName(), builder.getStateColumnName());
         this.selectSqlQuery = MessageFormat.format("SELECT {0} as state FROM {1} WITH(ROWLOCK, UPDLOCK) WHERE {2} = ?", builder.getStateColumnName(), builder.getTableName(), builder.getIdColumnName());
+        this.readSqlQuery = MessageFormat.format("SELECT {0} as state FROM {1} WHERE {2} = ?", builder.getStateColumnName(), builder.getTableName(), builder.getIdColumnName());
         this.customColumns.addAll(builder.getCustomColumns());
         getClientSideConfig().getExpirationAfterWriteStrategy().ifPresent(expiration -> {
             this.customColumns.add(CustomColumnProvider.createExpiresInColumnProvider(builder.getExpiresAtColumnName(), expiration));
@@ -100,6 +102,7 @@ public class MSSQLSelectForUpdateBasedProxyManager<K> extends AbstractSelectForU
             "INSERT INTO {0}({1},{2}) VALUES(?, null)",
             configuration.getTableName(), configuration.getIdName(), configuration.getStateName());
         this.selectSqlQuery = MessageFormat.format("SELECT {0} as state FROM {1} WITH(ROWLOCK, UPDLOCK) WHERE {2} = ?", configuration.getStateName(), configuration.getTableName(), configuration.getIdName());
+        this.readSqlQuery = MessageFormat.format("SELECT {0} as state FROM {1} WHERE {2} = ?", configuration.getStateName(), configuration.getTableName(), configuration.getIdName());
     }
 
     @Override
@@ -139,6 +142,19 @@ public class MSSQLSelectForUpdateBasedProxyManager<K> extends AbstractSelectForU
                 }
             }
 
+            @Override
+            public byte[] get(Optional<Long> requestTimeoutNanos) {
+                try (PreparedStatement readStatement = connection.prepareStatement(readSqlQuery)) {
+                    applyTimeout(readStatement, requestTimeoutNanos);
+                    primaryKeyMapper.set(readStatement, 1, key);
+                    try (ResultSet rs = readStatement.executeQuery()) {
+                        return rs.next() ? rs.getBytes("state") : null;
+                    }
+                } catch (SQLException e) {
+                    throw new BucketExceptions.BucketExecutionException(e);
+                }
+            }
+
             @Override
             public LockAndGetResult tryLockAndGet(Optional<Long> requestTimeoutNanos) {
                 try (PreparedStatement selectStatement = connection.prepareStatement(selectSqlQuery)) {
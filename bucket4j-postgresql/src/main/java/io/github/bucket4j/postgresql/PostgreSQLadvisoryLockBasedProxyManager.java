@@ -147,6 +147,19 @@ public class PostgreSQLadvisoryLockBasedProxyManager<K> extends AbstractLockBase
                 }
             }
 
+            @Override
+            public byte[] get(Optional<Long> requestTimeout) {
+                try (PreparedStatement selectStatement = connection.prepareStatement(selectSqlQuery)) {
+                    applyTimeout(selectStatement, requestTimeout);
+                    primaryKeyMapper.set(selectStatement, 1, key);
+                    try (ResultSet rs = selectStatement.executeQuery()) {
+                        return rs.next() ? rs.getBytes("state") : null;
+                    }
+                } catch (SQLException e) {
+                    throw new BucketExceptions.BucketExecutionException(e);
+                }
+            }
+
             @Override
             public byte[] lockAndGet(Optional<Long> requestTimeout) {
                 try {
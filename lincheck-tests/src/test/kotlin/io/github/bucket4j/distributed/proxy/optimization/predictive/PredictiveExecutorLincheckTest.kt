@@ -0,0 +1,71 @@
+package io.github.bucket4j.distributed.proxy.optimization.predictive
+
+import io.github.bucket4j.BucketConfiguration
+import io.github.bucket4j.distributed.BucketProxy
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters
+import io.github.bucket4j.distributed.proxy.optimization.PredictionParameters
+import io.github.bucket4j.distributed.proxy.optimization.NopeOptimizationListener
+import io.github.bucket4j.mock.ProxyManagerMock
+import io.github.bucket4j.mock.TimeMeterMock
+import org.jetbrains.kotlinx.lincheck.LinChecker
+import org.jetbrains.kotlinx.lincheck.LoggingLevel
+import org.jetbrains.kotlinx.lincheck.Options
+import org.jetbrains.kotlinx.lincheck.annotations.Operation
+import org.jetbrains.kotlinx.lincheck.annotations.Param
+import org.jetbrains.kotlinx.lincheck.paramgen.LongGen
+import org.jetbrains.kotlinx.lincheck.strategy.stress.StressCTest
+import org.jetbrains.kotlinx.lincheck.strategy.stress.StressOptions
+import org.jetbrains.kotlinx.lincheck.verifier.VerifierState
+import org.jetbrains.kotlinx.lincheck.verifier.linearizability.LinearizabilityVerifier
+import org.junit.jupiter.api.Test
+import java.time.Duration
+
+@StressCTest(verifier = LinearizabilityVerifier::class)
+@Param(name = "amount", gen = LongGen::class, conf = "1:20")
+class PredictiveExecutorLincheckTest : VerifierState() {
+
+    // time is frozen and there is only one node, so optimized bucket must behave exactly as non-optimized one
+    private val clock = TimeMeterMock(0)
+    private val delayParameters = DelayParameters(10, Duration.ofSeconds(1))
+    private val configuration = BucketConfiguration.builder()
+            .addLimit { limit -> limit.capacity(50).refillGreedy(50, Duration.ofSeconds(1)) }
+            .build()
+    private val bucket: BucketProxy = ProxyManagerMock<String>(clock).builder()
+            .withOptimization(PredictiveOptimization(PredictionParameters.createDefault(delayParameters), delayParameters, NopeOptimizationListener.INSTANCE, clock))
+            .build("42") { configuration }
+
+    @Operation
+    fun tryConsume(@Param(name = "amount") amount: Long): Boolean {
+        return bucket.tryConsume(amount)
+    }
+
+    @Operation
+    fun tryConsumeAsMuchAsPossible(@Param(name = "amount") limit: Long): Long {
+        return bucket.tryConsumeAsMuchAsPossible(limit)
+    }
+
+    @Operation
+    fun addTokens(@Param(name = "amount") amount: Long) {
+        bucket.addTokens(amount)
+    }
+
+    @Operation
+    fun getAvailableTokens(): Long {
+        return bucket.availableTokens
+    }
+
+    @Test
+    fun runTest() {
+        val opts: Options<*, *> = StressOptions()
+                .iterations(10)
+                .threads(3)
+                .minimizeFailedScenario(true)
+                .logLevel(LoggingLevel.INFO)
+        LinChecker.check(PredictiveExecutorLincheckTest::class.java, opts)
+    }
+
+    override fun extractState(): Any {
+        return bucket.availableTokens
+    }
+
+}
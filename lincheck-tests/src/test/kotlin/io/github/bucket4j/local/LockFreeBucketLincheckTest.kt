@@ -0,0 +1,68 @@
+package io.github.bucket4j.local
+
+import io.github.bucket4j.Bucket
+import io.github.bucket4j.mock.TimeMeterMock
+import org.jetbrains.kotlinx.lincheck.LinChecker
+import org.jetbrains.kotlinx.lincheck.LoggingLevel
+import org.jetbrains.kotlinx.lincheck.Options
+import org.jetbrains.kotlinx.lincheck.annotations.Operation
+import org.jetbrains.kotlinx.lincheck.annotations.Param
+import org.jetbrains.kotlinx.lincheck.paramgen.LongGen
+import org.jetbrains.kotlinx.lincheck.strategy.stress.StressCTest
+import org.jetbrains.kotlinx.lincheck.strategy.stress.StressOptions
+import org.jetbrains.kotlinx.lincheck.verifier.VerifierState
+import org.jetbrains.kotlinx.lincheck.verifier.linearizability.LinearizabilityVerifier
+import org.junit.jupiter.api.Test
+import java.time.Duration
+
+@StressCTest(verifier = LinearizabilityVerifier::class)
+@Param(name = "amount", gen = LongGen::class, conf = "1:20")
+class LockFreeBucketLincheckTest : VerifierState() {
+
+    // time is frozen, because bucket reads the clock before linearization point
+    private val bucket: Bucket = Bucket.builder()
+            .addLimit { limit -> limit.capacity(50).refillGreedy(50, Duration.ofSeconds(1)) }
+            .withCustomTimePrecision(TimeMeterMock(0))
+            .withSynchronizationStrategy(SynchronizationStrategy.LOCK_FREE)
+            .build()
+
+    @Operation
+    fun tryConsume(@Param(name = "amount") amount: Long): Boolean {
+        return bucket.tryConsume(amount)
+    }
+
+    @Operation
+    fun tryConsumeAsMuchAsPossible(@Param(name = "amount") limit: Long): Long {
+        return bucket.tryConsumeAsMuchAsPossible(limit)
+    }
+
+    @Operation
+    fun tryConsumeAndReturnRemaining(@Param(name = "amount") amount: Long): Long {
+        return bucket.tryConsumeAndReturnRemaining(amount).remainingTokens
+    }
+
+    @Operation
+    fun addTokens(@Param(name = "amount") amount: Long) {
+        bucket.addTokens(amount)
+    }
+
+    @Operation
+    fun getAvailableTokens(): Long {
+        return bucket.availableTokens
+    }
+
+    @Test
+    fun runTest() {
+        val opts: Options<*, *> = StressOptions()
+                .iterations(10)
+                .threads(3)
+                .minimizeFailedScenario(true)
+                .logLevel(LoggingLevel.INFO)
+        LinChecker.check(LockFreeBucketLincheckTest::class.java, opts)
+    }
+
+    override fun extractState(): Any {
+        return bucket.availableTokens
+    }
+
+}
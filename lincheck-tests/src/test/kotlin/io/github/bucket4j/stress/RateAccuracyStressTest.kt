@@ -0,0 +1,128 @@
+package io.github.bucket4j.stress
+
+import com.github.benmanes.caffeine.cache.Caffeine
+import io.github.bucket4j.Bucket
+import io.github.bucket4j.BucketConfiguration
+import io.github.bucket4j.TimeMeter
+import io.github.bucket4j.caffeine.Bucket4jCaffeine
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters
+import io.github.bucket4j.distributed.proxy.optimization.NopeOptimizationListener
+import io.github.bucket4j.distributed.proxy.optimization.Optimization
+import io.github.bucket4j.distributed.proxy.optimization.PredictionParameters
+import io.github.bucket4j.distributed.proxy.optimization.delay.DelayOptimization
+import io.github.bucket4j.distributed.proxy.optimization.predictive.PredictiveOptimization
+import io.github.bucket4j.distributed.proxy.optimization.skiponzero.SkipSyncOnZeroOptimization
+import io.github.bucket4j.local.SynchronizationStrategy
+import io.github.bucket4j.mock.ProxyManagerMock
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.Arguments
+import org.junit.jupiter.params.provider.MethodSource
+import java.time.Duration
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.LongAdder
+import java.util.function.Supplier
+
+/**
+ * Long-running test that hammers bucket from several threads with real clock
+ * and checks that observed consumption rate never exceeds configured limits and does not fall far below them.
+ *
+ * Disabled by default, to run it specify duration, for example:
+ * <pre>mvn test -Dtest=RateAccuracyStressTest -Dbucket4j.stress.duration=PT10M</pre>
+ */
+@EnabledIfSystemProperty(named = "bucket4j.stress.duration", matches = ".+")
+class RateAccuracyStressTest {
+
+    companion object {
+
+        private const val CAPACITY = 100L
+        private const val TOKENS_PER_SECOND = 1000L
+        private const val THREADS = 4
+        private const val MAX_UNSYNCHRONIZED_TOKENS = 10L
+
+        private val clock = TimeMeter.SYSTEM_MILLISECONDS
+        private val configuration = BucketConfiguration.builder()
+                .addLimit { limit -> limit.capacity(CAPACITY).refillGreedy(TOKENS_PER_SECOND, Duration.ofSeconds(1)) }
+                .build()
+        private val delayParameters = DelayParameters(MAX_UNSYNCHRONIZED_TOKENS, Duration.ofMillis(100))
+
+        @JvmStatic
+        fun buckets(): List<Arguments> {
+            return listOf(
+                Arguments.of("LockFreeBucket", Supplier { localBucket(SynchronizationStrategy.LOCK_FREE) }),
+                Arguments.of("SynchronizedBucket", Supplier { localBucket(SynchronizationStrategy.SYNCHRONIZED) }),
+                Arguments.of("DelayOptimization", Supplier { optimizedBucket(DelayOptimization(delayParameters, NopeOptimizationListener.INSTANCE, clock)) }),
+                Arguments.of("PredictiveOptimization", Supplier { optimizedBucket(PredictiveOptimization(PredictionParameters.createDefault(delayParameters), delayParameters, NopeOptimizationListener.INSTANCE, clock)) }),
+                Arguments.of("SkipSyncOnZeroOptimization", Supplier { optimizedBucket(SkipSyncOnZeroOptimization(NopeOptimizationListener.INSTANCE, clock)) }),
+                Arguments.of("CaffeineProxyManager", Supplier<Bucket> {
+                    Bucket4jCaffeine.builderFor<String>(Caffeine.newBuilder().maximumSize(100))
+                        .build()
+                        .builder()
+                        .build("42") { configuration }
+                })
+            )
+        }
+
+        private fun localBucket(synchronizationStrategy: SynchronizationStrategy): Bucket {
+            return Bucket.builder()
+                .addLimit { limit -> limit.capacity(CAPACITY).refillGreedy(TOKENS_PER_SECOND, Duration.ofSeconds(1)) }
+                .withSynchronizationStrategy(synchronizationStrategy)
+                .build()
+        }
+
+        private fun optimizedBucket(optimization: Optimization): Bucket {
+            return ProxyManagerMock<String>(clock).builder()
+                .withOptimization(optimization)
+                .build("42") { configuration }
+        }
+
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("buckets")
+    fun testRateAccuracy(name: String, bucketSupplier: Supplier<Bucket>) {
+        val duration = Duration.parse(System.getProperty("bucket4j.stress.duration"))
+        val bucket = bucketSupplier.get()
+        val consumed = LongAdder()
+        val startNanos = System.nanoTime()
+        val deadlineNanos = startNanos + duration.toNanos()
+        val stopLatch = CountDownLatch(THREADS)
+
+        repeat(THREADS) {
+            Thread {
+                try {
+                    while (System.nanoTime() < deadlineNanos) {
+                        if (bucket.tryConsume(1)) {
+                            consumed.increment()
+                        }
+                    }
+                } finally {
+                    stopLatch.countDown()
+                }
+            }.start()
+        }
+
+        // check each window separately, because errors can compensate each other when checking only totals
+        var windowStartNanos = startNanos
+        var windowStartConsumed = 0L
+        while (stopLatch.count > 0) {
+            Thread.sleep(1000)
+            val nowNanos = System.nanoTime()
+            val nowConsumed = consumed.sum()
+            val allowed = CAPACITY + MAX_UNSYNCHRONIZED_TOKENS + TOKENS_PER_SECOND * (nowNanos - windowStartNanos) / 1_000_000_000
+            val windowConsumed = nowConsumed - windowStartConsumed
+            assertTrue(windowConsumed <= allowed, "$name consumed $windowConsumed tokens in window, but only $allowed allowed")
+            windowStartNanos = nowNanos
+            windowStartConsumed = nowConsumed
+        }
+
+        val elapsedNanos = System.nanoTime() - startNanos
+        val totalConsumed = consumed.sum()
+        val maxAllowed = CAPACITY + MAX_UNSYNCHRONIZED_TOKENS + TOKENS_PER_SECOND * elapsedNanos / 1_000_000_000
+        val minExpected = TOKENS_PER_SECOND * duration.toNanos() / 1_000_000_000 * 9 / 10
+        assertTrue(totalConsumed <= maxAllowed, "$name consumed $totalConsumed tokens, but only $maxAllowed allowed")
+        assertTrue(totalConsumed >= minExpected, "$name consumed $totalConsumed tokens, but at least $minExpected expected")
+    }
+
+}